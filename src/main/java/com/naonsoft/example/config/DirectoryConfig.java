@@ -0,0 +1,249 @@
+/**
+ * FileName : DirectoryConfig.java
+ * Created  : 2021. 3. 24.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.naonsoft.example.tools.concurrent.AdaptiveConcurrencyLimiter;
+import com.naonsoft.example.tools.export.LdapExporter;
+import com.naonsoft.example.tools.ldap.JndiLdapBackend;
+import com.naonsoft.example.tools.ldap.LdapBackend;
+import com.naonsoft.example.tools.ldap.LdapChangeNotifier;
+import com.naonsoft.example.tools.ldap.LdapConnection;
+import com.naonsoft.example.tools.ldap.LdapHedgedReader;
+import com.naonsoft.example.tools.ldap.LdapLocalReplica;
+import com.naonsoft.example.tools.ldap.LdapQueryCache;
+import com.naonsoft.example.tools.ldap.LdapService;
+import com.naonsoft.example.tools.ldap.LdapTreeCache;
+import com.naonsoft.example.tools.ldap.UnboundIdLdapBackend;
+
+/**
+ * 디렉토리 서비스 설정 (directory.url 이 설정된 경우)
+ *
+ * @author hokkk
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "directory", name = "url")
+public class DirectoryConfig {
+
+	private final DirectoryProperties properties;
+
+	public DirectoryConfig(DirectoryProperties properties) {
+
+		this.properties = properties;
+	}
+
+	/**
+	 * 기본 서버 접근 구현 (directory.backend)
+	 */
+	@Bean(destroyMethod = "close")
+	public LdapBackend ldapBackend() {
+
+		return this.newBackend(this.properties.getUrl());
+	}
+
+	/**
+	 * 디렉토리 작업을 동시에 수행할 때 사용하는 스레드 풀
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService ldapExecutor() {
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ldap-");
+		threadFactory.setDaemon(true);
+		return Executors.newCachedThreadPool(threadFactory);
+	}
+
+	/**
+	 * 기본 서버와 복제 서버(directory.replicas)에 대한 헤지 조회 (트리 조회 API 에서 사용)<br>
+	 * 복제 서버가 없으면 기본 서버로만 조회합니다. 복제 서버 연결은 종료 시 함께 닫습니다.
+	 */
+	@Bean(destroyMethod = "close")
+	public LdapHedgedReader ldapHedgedReader() {
+
+		List<LdapService> services = new ArrayList<>();
+		services.add(this.ldapService());
+		List<LdapBackend> replicaBackends = new ArrayList<>();
+		for (String replica : this.properties.getReplicas()) {
+			LdapBackend backend = this.newBackend(replica);
+			replicaBackends.add(backend);
+			services.add(this.newService(backend));
+		}
+		LdapHedgedReader reader = new LdapHedgedReader(services, this.ldapExecutor());
+		replicaBackends.forEach(reader::addOwnedBackend);
+		reader.setPercentile(this.properties.getHedgePercentile());
+		reader.setDefaultTimeout(this.properties.getOperationTimeout());
+		return reader;
+	}
+
+	@Bean
+	public LdapService ldapService() {
+
+		return this.newService(this.ldapBackend());
+	}
+
+	/**
+	 * 하위 트리 내보내기 (읽기 단계는 ldapExecutor 에서 수행)
+	 */
+	@Bean
+	public LdapExporter ldapExporter() {
+
+		return new LdapExporter(this.ldapService(), this.ldapExecutor());
+	}
+
+	/**
+	 * 변경 감시 시작과 폴링을 수행하는 스케줄러
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	@ConditionalOnProperty(prefix = "directory.events", name = "enabled", havingValue = "true")
+	public ScheduledExecutorService ldapEventScheduler() {
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ldap-event-");
+		threadFactory.setDaemon(true);
+		return Executors.newSingleThreadScheduledExecutor(threadFactory);
+	}
+
+	/**
+	 * 변경 알림 (directory.events.enabled=true)<br>
+	 * 미리 읽어둔 하위 트리, 검색 결과 캐시, binary 속성 캐시는 변경 이벤트를 받으면 무효화합니다.
+	 * 미리 읽어둔 하위 트리는 reload-delay 후에 다시 읽습니다.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "directory.events", name = "enabled", havingValue = "true")
+	public LdapChangeNotifier ldapChangeNotifier() throws InvalidNameException {
+
+		DirectoryProperties.Events eventsProperties = this.properties.getEvents();
+		ScheduledExecutorService scheduler = this.ldapEventScheduler();
+		LdapChangeNotifier notifier = new LdapChangeNotifier(this.ldapService(), scheduler);
+		notifier.setPersistentSearch(eventsProperties.isPersistentSearch());
+		notifier.setPollInterval(eventsProperties.getPollInterval());
+		notifier.setScanInterval(eventsProperties.getScanInterval());
+
+		LdapTreeCache treeCache = this.ldapTreeCache();
+		LdapService service = this.ldapService();
+		ExecutorService executor = this.ldapExecutor();
+		for (String baseDn : this.properties.getWarmUp().getBaseDns()) {
+			LdapName base = new LdapName(baseDn);
+			notifier.subscribe(base, event -> {
+				treeCache.invalidate(event.getDn());
+				event.getPreviousDn().ifPresent(treeCache::invalidate);
+				service.invalidate(event.getDn());
+				event.getPreviousDn().ifPresent(service::invalidate);
+				treeCache.scheduleReload(base, scheduler, executor, eventsProperties.getReloadDelay());
+			});
+		}
+		return notifier;
+	}
+
+	/**
+	 * 내장 읽기 복제 서버 (directory.local-replica.enabled=true)<br>
+	 * 변경 알림이 켜져 있으면 변경을 반영하고, 꺼져 있으면 기동 시점의 스냅샷만 제공합니다.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "directory.local-replica", name = "enabled", havingValue = "true")
+	public LdapLocalReplica ldapLocalReplica(ObjectProvider<LdapChangeNotifier> notifier)
+			throws InvalidNameException {
+
+		DirectoryProperties.LocalReplica replicaProperties = this.properties.getLocalReplica();
+		List<String> baseDns = replicaProperties.getBaseDns().isEmpty() ? this.properties.getWarmUp().getBaseDns()
+				: replicaProperties.getBaseDns();
+		List<LdapName> names = new ArrayList<>(baseDns.size());
+		for (String baseDn : baseDns) {
+			names.add(new LdapName(baseDn));
+		}
+
+		LdapLocalReplica replica = new LdapLocalReplica(this.ldapService(), names);
+		replica.setListenAddress(StringUtils.isBlank(replicaProperties.getListenAddress()) ? null
+				: replicaProperties.getListenAddress());
+		replica.setPort(replicaProperties.getPort());
+		replica.setForwardWrites(replicaProperties.isForwardWrites());
+		replica.setBindCredentials(replicaProperties.getBindDn(), replicaProperties.getBindPassword());
+		replica.start(notifier.getIfAvailable());
+		return replica;
+	}
+
+	/**
+	 * 미리 읽어둔 하위 트리 (쓰기 작업으로 변경된 DN 은 무효화)
+	 */
+	@Bean
+	public LdapTreeCache ldapTreeCache() {
+
+		LdapService service = this.ldapService();
+		LdapTreeCache treeCache = new LdapTreeCache(service);
+		treeCache.setOffHeap(this.properties.getWarmUp().isOffHeap());
+		service.addInvalidationListener(treeCache::invalidate);
+		return treeCache;
+	}
+
+	@Bean
+	public DirectoryWarmUp directoryWarmUp() {
+
+		return new DirectoryWarmUp(this.ldapTreeCache(), this.properties.getWarmUp());
+	}
+
+	private LdapBackend newBackend(String host) {
+
+		int connectTimeout = (int) this.properties.getConnectTimeout().toMillis();
+		int readTimeout = (int) this.properties.getReadTimeout().toMillis();
+		if (this.properties.getBackend() == DirectoryProperties.Backend.UNBOUNDID) {
+			UnboundIdLdapBackend backend = new UnboundIdLdapBackend(host, this.properties.getAdminId(),
+					this.properties.getAdminPassword(), connectTimeout, readTimeout, this.properties.getPoolSize());
+			backend.setFollowReferrals(this.properties.isFollowReferrals());
+			backend.setExcludeBinary(this.properties.getBinary().isExclude());
+			return backend;
+		}
+
+		LdapConnection connection = new LdapConnection(host, this.properties.getAdminId(),
+				this.properties.getAdminPassword());
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		connection.setFollowReferrals(this.properties.isFollowReferrals());
+		JndiLdapBackend backend = new JndiLdapBackend(connection);
+		backend.setExcludeBinary(this.properties.getBinary().isExclude());
+		return backend;
+	}
+
+	private LdapService newService(LdapBackend backend) {
+
+		DirectoryProperties.Limiter limiterProperties = this.properties.getLimiter();
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limiterProperties.getInitialLimit(),
+				limiterProperties.getMinLimit(), limiterProperties.getMaxLimit());
+		limiter.setMaxQueue(limiterProperties.getMaxQueue());
+		limiter.setQueueTimeout(limiterProperties.getQueueTimeout());
+
+		LdapService service = new LdapService(backend);
+		service.setLimiter(limiter);
+		service.setDefaultTimeout(this.properties.getOperationTimeout());
+		service.setExecutor(this.ldapExecutor());
+		service.setSchemaRefreshInterval(this.properties.getSchemaRefreshInterval());
+		DirectoryProperties.Binary binaryProperties = this.properties.getBinary();
+		service.setBinaryCache(binaryProperties.getCacheSize().toBytes(), binaryProperties.getCacheTtl());
+		service.setBinaryAttributes(binaryProperties.getAttributes());
+		DirectoryProperties.QueryCache queryCacheProperties = this.properties.getQueryCache();
+		if (queryCacheProperties.isEnabled()) {
+			service.setQueryCache(
+					new LdapQueryCache(queryCacheProperties.getMaxSize().toBytes(), queryCacheProperties.getTtl()));
+		}
+		return service;
+	}
+}
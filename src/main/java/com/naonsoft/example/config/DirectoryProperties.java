@@ -0,0 +1,844 @@
+/**
+ * FileName : DirectoryProperties.java
+ * Created  : 2021. 3. 22.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 디렉토리(LDAP) 설정
+ *
+ * <pre>
+ * directory:
+ *   url: 127.0.0.1:389
+ *   admin-id: cn=admin,c=kr
+ *   admin-password: ****
+ *   backend: unboundid
+ *   security:
+ *     enabled: true
+ *     user-dn-pattern: cn={0},ou=people,o=private of korea,c=kr
+ *   events:
+ *     enabled: true
+ *   warm-up:
+ *     base-dns:
+ *       - ou=현대캐피탈,o=private of korea,c=kr
+ *   local-replica:
+ *     enabled: true
+ * </pre>
+ *
+ * @author hokkk
+ */
+@ConfigurationProperties(prefix = "directory")
+public class DirectoryProperties {
+
+	/** LDAP 서버 주소 (host:port) */
+	private String url;
+
+	/** 관리자 계정 DN */
+	private String adminId;
+
+	/** 관리자 패스워드 */
+	private String adminPassword;
+
+	/** 서버 접근 구현 (jndi, unboundid) */
+	private Backend backend = Backend.JNDI;
+
+	/** 참조(referral) 를 따라갈지 여부 */
+	private boolean followReferrals = false;
+
+	/** 최대 연결 수 (unboundid) */
+	private int poolSize = 10;
+
+	/** 연결 제한 시간 */
+	private Duration connectTimeout = Duration.ofSeconds(5);
+
+	/** 응답 대기 제한 시간 */
+	private Duration readTimeout = Duration.ofSeconds(30);
+
+	/** 작업별 기본 제한 시간 (재시도 포함, 없으면 제한 없음) */
+	private Duration operationTimeout;
+
+	/** 같은 데이터를 가진 복제 서버 주소 (설정 시 헤지 조회 사용) */
+	private List<String> replicas = new ArrayList<>();
+
+	/** 헤지 조회 시 추가 요청을 보낼 응답 시간 percentile */
+	private double hedgePercentile = 0.95;
+
+	/** 스키마 갱신 주기 (속성 형식 판별에 사용, 비우면 스키마를 읽지 않음) */
+	private Duration schemaRefreshInterval = Duration.ofHours(1);
+
+	/** 인증 설정 */
+	private final Security security = new Security();
+
+	/** 기동 시 미리 읽어둘 하위 트리 설정 */
+	private final WarmUp warmUp = new WarmUp();
+
+	/** 서버 동시 요청 수 제한 설정 */
+	private final Limiter limiter = new Limiter();
+
+	/** 변경 알림 설정 */
+	private final Events events = new Events();
+
+	/** binary 속성 조회 설정 */
+	private final Binary binary = new Binary();
+
+	/** 검색 결과 캐시 설정 */
+	private final QueryCache queryCache = new QueryCache();
+
+	/** 내장 읽기 복제 서버 설정 */
+	private final LocalReplica localReplica = new LocalReplica();
+
+	public String getAdminId() {
+
+		return this.adminId;
+	}
+
+	public String getAdminPassword() {
+
+		return this.adminPassword;
+	}
+
+	public Backend getBackend() {
+
+		return this.backend;
+	}
+
+	public Binary getBinary() {
+
+		return this.binary;
+	}
+
+	public Duration getConnectTimeout() {
+
+		return this.connectTimeout;
+	}
+
+	public Events getEvents() {
+
+		return this.events;
+	}
+
+	public LocalReplica getLocalReplica() {
+
+		return this.localReplica;
+	}
+
+	public double getHedgePercentile() {
+
+		return this.hedgePercentile;
+	}
+
+	public Limiter getLimiter() {
+
+		return this.limiter;
+	}
+
+	public Duration getOperationTimeout() {
+
+		return this.operationTimeout;
+	}
+
+	public int getPoolSize() {
+
+		return this.poolSize;
+	}
+
+	public QueryCache getQueryCache() {
+
+		return this.queryCache;
+	}
+
+	public Duration getReadTimeout() {
+
+		return this.readTimeout;
+	}
+
+	public List<String> getReplicas() {
+
+		return this.replicas;
+	}
+
+	public Security getSecurity() {
+
+		return this.security;
+	}
+
+	public Duration getSchemaRefreshInterval() {
+
+		return this.schemaRefreshInterval;
+	}
+
+	public String getUrl() {
+
+		return this.url;
+	}
+
+	public WarmUp getWarmUp() {
+
+		return this.warmUp;
+	}
+
+	public boolean isFollowReferrals() {
+
+		return this.followReferrals;
+	}
+
+	public void setAdminId(String adminId) {
+
+		this.adminId = adminId;
+	}
+
+	public void setAdminPassword(String adminPassword) {
+
+		this.adminPassword = adminPassword;
+	}
+
+	public void setBackend(Backend backend) {
+
+		this.backend = backend;
+	}
+
+	public void setConnectTimeout(Duration connectTimeout) {
+
+		this.connectTimeout = connectTimeout;
+	}
+
+	public void setFollowReferrals(boolean followReferrals) {
+
+		this.followReferrals = followReferrals;
+	}
+
+	public void setHedgePercentile(double hedgePercentile) {
+
+		this.hedgePercentile = hedgePercentile;
+	}
+
+	public void setOperationTimeout(Duration operationTimeout) {
+
+		this.operationTimeout = operationTimeout;
+	}
+
+	public void setPoolSize(int poolSize) {
+
+		this.poolSize = poolSize;
+	}
+
+	public void setReadTimeout(Duration readTimeout) {
+
+		this.readTimeout = readTimeout;
+	}
+
+	public void setReplicas(List<String> replicas) {
+
+		this.replicas = replicas;
+	}
+
+	public void setSchemaRefreshInterval(Duration schemaRefreshInterval) {
+
+		this.schemaRefreshInterval = schemaRefreshInterval;
+	}
+
+	public void setUrl(String url) {
+
+		this.url = url;
+	}
+
+	/**
+	 * 서버 접근 구현
+	 */
+	public enum Backend {
+
+		/** JNDI (com.sun.jndi.ldap) */
+		JNDI,
+
+		/** UnboundID LDAP SDK (연결 풀) */
+		UNBOUNDID
+	}
+
+	/**
+	 * LDAP 인증 설정
+	 */
+	public static class Security {
+
+		/** LDAP 인증 사용 여부 */
+		private boolean enabled = false;
+
+		/** 사용자 DN 패턴 ({0} = 로그인 ID) */
+		private String userDnPattern;
+
+		/** 사용자 검색 기준 DN (userDnPattern 미사용 시) */
+		private String userSearchBase = "";
+
+		/** 사용자 검색 필터 */
+		private String userSearchFilter = "(uid={0})";
+
+		/** 그룹 검색 기준 DN */
+		private String groupSearchBase = "";
+
+		/** 그룹 검색 필터 ({0} = 사용자 DN, {1} = 로그인 ID) */
+		private String groupSearchFilter = "(member={0})";
+
+		/** 권한 캐시 최대 사용자 수 */
+		private int cacheSize = 10_000;
+
+		/** 권한 캐시 유지 시간 */
+		private Duration cacheTtl = Duration.ofMinutes(5);
+
+		/** 인증된 패스워드 해시 캐시 사용 여부 (사용 시 캐시 유지 시간 동안 bind 생략) */
+		private boolean credentialCache = false;
+
+		public int getCacheSize() {
+
+			return this.cacheSize;
+		}
+
+		public Duration getCacheTtl() {
+
+			return this.cacheTtl;
+		}
+
+		public String getGroupSearchBase() {
+
+			return this.groupSearchBase;
+		}
+
+		public String getGroupSearchFilter() {
+
+			return this.groupSearchFilter;
+		}
+
+		public String getUserDnPattern() {
+
+			return this.userDnPattern;
+		}
+
+		public String getUserSearchBase() {
+
+			return this.userSearchBase;
+		}
+
+		public String getUserSearchFilter() {
+
+			return this.userSearchFilter;
+		}
+
+		public boolean isCredentialCache() {
+
+			return this.credentialCache;
+		}
+
+		public boolean isEnabled() {
+
+			return this.enabled;
+		}
+
+		public void setCacheSize(int cacheSize) {
+
+			this.cacheSize = cacheSize;
+		}
+
+		public void setCacheTtl(Duration cacheTtl) {
+
+			this.cacheTtl = cacheTtl;
+		}
+
+		public void setCredentialCache(boolean credentialCache) {
+
+			this.credentialCache = credentialCache;
+		}
+
+		public void setEnabled(boolean enabled) {
+
+			this.enabled = enabled;
+		}
+
+		public void setGroupSearchBase(String groupSearchBase) {
+
+			this.groupSearchBase = groupSearchBase;
+		}
+
+		public void setGroupSearchFilter(String groupSearchFilter) {
+
+			this.groupSearchFilter = groupSearchFilter;
+		}
+
+		public void setUserDnPattern(String userDnPattern) {
+
+			this.userDnPattern = userDnPattern;
+		}
+
+		public void setUserSearchBase(String userSearchBase) {
+
+			this.userSearchBase = userSearchBase;
+		}
+
+		public void setUserSearchFilter(String userSearchFilter) {
+
+			this.userSearchFilter = userSearchFilter;
+		}
+	}
+
+	/**
+	 * 기동 시 미리 읽어둘 하위 트리 설정
+	 */
+	public static class WarmUp {
+
+		/** 미리 읽을 기준 DN 목록 */
+		private List<String> baseDns = new ArrayList<>();
+
+		/** 동시에 읽을 최대 개수 */
+		private int parallelism = 2;
+
+		/** 실패 시 재시도 횟수 (음수이면 성공할 때까지) */
+		private int retry = -1;
+
+		/** 첫 재시도까지 기다리는 시간 (재시도마다 두배씩 늘림) */
+		private Duration retryBackoff = Duration.ofSeconds(1);
+
+		/** 재시도까지 기다리는 최대 시간 */
+		private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+		/** 읽은 트리를 힙 밖 스냅샷에 저장할지 여부 */
+		private boolean offHeap = false;
+
+		public List<String> getBaseDns() {
+
+			return this.baseDns;
+		}
+
+		public Duration getMaxRetryBackoff() {
+
+			return this.maxRetryBackoff;
+		}
+
+		public int getParallelism() {
+
+			return this.parallelism;
+		}
+
+		public int getRetry() {
+
+			return this.retry;
+		}
+
+		public Duration getRetryBackoff() {
+
+			return this.retryBackoff;
+		}
+
+		public boolean isOffHeap() {
+
+			return this.offHeap;
+		}
+
+		public void setBaseDns(List<String> baseDns) {
+
+			this.baseDns = baseDns;
+		}
+
+		public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+
+			this.maxRetryBackoff = maxRetryBackoff;
+		}
+
+		public void setOffHeap(boolean offHeap) {
+
+			this.offHeap = offHeap;
+		}
+
+		public void setParallelism(int parallelism) {
+
+			this.parallelism = parallelism;
+		}
+
+		public void setRetry(int retry) {
+
+			this.retry = retry;
+		}
+
+		public void setRetryBackoff(Duration retryBackoff) {
+
+			this.retryBackoff = retryBackoff;
+		}
+	}
+
+	/**
+	 * 변경 알림 설정
+	 */
+	public static class Events {
+
+		/** 변경 알림 사용 여부 (/directory/events SSE 포함) */
+		private boolean enabled = false;
+
+		/** 영구 검색 사용 여부 (서버가 지원하지 않으면 폴링) */
+		private boolean persistentSearch = true;
+
+		/** modifyTimestamp 폴링 주기 */
+		private Duration pollInterval = Duration.ofSeconds(30);
+
+		/** 삭제 감지를 위해 전체 DN 을 비교하는 주기 (폴링 횟수) */
+		private int scanInterval = 10;
+
+		/** 변경으로 무효화한 미리 읽은 트리를 다시 읽기까지 기다리는 시간 (연속 변경은 한번만 읽음) */
+		private Duration reloadDelay = Duration.ofSeconds(1);
+
+		/** SSE 연결 유지 시간 */
+		private Duration sseTimeout = Duration.ofMinutes(30);
+
+		public Duration getPollInterval() {
+
+			return this.pollInterval;
+		}
+
+		public Duration getReloadDelay() {
+
+			return this.reloadDelay;
+		}
+
+		public int getScanInterval() {
+
+			return this.scanInterval;
+		}
+
+		public Duration getSseTimeout() {
+
+			return this.sseTimeout;
+		}
+
+		public boolean isEnabled() {
+
+			return this.enabled;
+		}
+
+		public boolean isPersistentSearch() {
+
+			return this.persistentSearch;
+		}
+
+		public void setEnabled(boolean enabled) {
+
+			this.enabled = enabled;
+		}
+
+		public void setPersistentSearch(boolean persistentSearch) {
+
+			this.persistentSearch = persistentSearch;
+		}
+
+		public void setPollInterval(Duration pollInterval) {
+
+			this.pollInterval = pollInterval;
+		}
+
+		public void setReloadDelay(Duration reloadDelay) {
+
+			this.reloadDelay = reloadDelay;
+		}
+
+		public void setScanInterval(int scanInterval) {
+
+			this.scanInterval = scanInterval;
+		}
+
+		public void setSseTimeout(Duration sseTimeout) {
+
+			this.sseTimeout = sseTimeout;
+		}
+	}
+
+	/**
+	 * 서버 동시 요청 수 제한 설정
+	 */
+	public static class Limiter {
+
+		/** 최초 동시 요청 수 */
+		private int initialLimit = 10;
+
+		/** 최소 동시 요청 수 */
+		private int minLimit = 1;
+
+		/** 최대 동시 요청 수 */
+		private int maxLimit = 100;
+
+		/** 최대 대기 요청 수 (넘으면 거절) */
+		private int maxQueue = 1_000;
+
+		/** 최대 대기 시간 (넘으면 거절) */
+		private Duration queueTimeout = Duration.ofSeconds(30);
+
+		public int getInitialLimit() {
+
+			return this.initialLimit;
+		}
+
+		public int getMaxLimit() {
+
+			return this.maxLimit;
+		}
+
+		public int getMaxQueue() {
+
+			return this.maxQueue;
+		}
+
+		public int getMinLimit() {
+
+			return this.minLimit;
+		}
+
+		public Duration getQueueTimeout() {
+
+			return this.queueTimeout;
+		}
+
+		public void setInitialLimit(int initialLimit) {
+
+			this.initialLimit = initialLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+
+			this.maxLimit = maxLimit;
+		}
+
+		public void setMaxQueue(int maxQueue) {
+
+			this.maxQueue = maxQueue;
+		}
+
+		public void setMinLimit(int minLimit) {
+
+			this.minLimit = minLimit;
+		}
+
+		public void setQueueTimeout(Duration queueTimeout) {
+
+			this.queueTimeout = queueTimeout;
+		}
+	}
+
+	/**
+	 * binary 속성(jpegPhoto, thumbnailPhoto 등) 조회 설정
+	 */
+	public static class Binary {
+
+		/** 전체 속성 조회에서 binary 속성을 제외할지 여부 (제외한 속성은 /directory/binary 로 조회) */
+		private boolean exclude = true;
+
+		/** binary 속성 캐시 최대 크기 */
+		private DataSize cacheSize = DataSize.ofMegabytes(32);
+
+		/** binary 속성 캐시 유지 시간 */
+		private Duration cacheTtl = Duration.ofMinutes(10);
+
+		/** 응답의 Cache-Control max-age */
+		private Duration maxAge = Duration.ofHours(1);
+
+		/** /directory/binary 로 조회할 수 있는 속성 (binary 형식만, userPassword, unicodePwd 는 항상 제외) */
+		private List<String> attributes = new ArrayList<>(Arrays.asList("jpegPhoto", "thumbnailPhoto"));
+
+		public List<String> getAttributes() {
+
+			return this.attributes;
+		}
+
+		public DataSize getCacheSize() {
+
+			return this.cacheSize;
+		}
+
+		public Duration getCacheTtl() {
+
+			return this.cacheTtl;
+		}
+
+		public Duration getMaxAge() {
+
+			return this.maxAge;
+		}
+
+		public boolean isExclude() {
+
+			return this.exclude;
+		}
+
+		public void setAttributes(List<String> attributes) {
+
+			this.attributes = attributes;
+		}
+
+		public void setCacheSize(DataSize cacheSize) {
+
+			this.cacheSize = cacheSize;
+		}
+
+		public void setCacheTtl(Duration cacheTtl) {
+
+			this.cacheTtl = cacheTtl;
+		}
+
+		public void setExclude(boolean exclude) {
+
+			this.exclude = exclude;
+		}
+
+		public void setMaxAge(Duration maxAge) {
+
+			this.maxAge = maxAge;
+		}
+	}
+
+	/**
+	 * 검색 결과 캐시 설정 (findOneLevel, findSubtree, searchOneLevel, searchSubtree)
+	 */
+	public static class QueryCache {
+
+		/** 검색 결과 캐시 사용 여부 */
+		private boolean enabled = true;
+
+		/** 보관할 결과의 추정 크기 합 */
+		private DataSize maxSize = DataSize.ofMegabytes(64);
+
+		/** 결과 유지 시간 */
+		private Duration ttl = Duration.ofMinutes(1);
+
+		public DataSize getMaxSize() {
+
+			return this.maxSize;
+		}
+
+		public Duration getTtl() {
+
+			return this.ttl;
+		}
+
+		public boolean isEnabled() {
+
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+
+			this.enabled = enabled;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+
+			this.maxSize = maxSize;
+		}
+
+		public void setTtl(Duration ttl) {
+
+			this.ttl = ttl;
+		}
+	}
+
+	/**
+	 * 내장 읽기 복제 서버 설정 (변경 반영은 directory.events.enabled=true 필요)
+	 */
+	public static class LocalReplica {
+
+		/** 복제 서버 사용 여부 */
+		private boolean enabled = false;
+
+		/** 수신 주소 (비어 있으면 모든 주소) */
+		private String listenAddress = "127.0.0.1";
+
+		/** 수신 포트 */
+		private int port = 10389;
+
+		/** 복제할 기준 DN 목록 (비어 있으면 warm-up.base-dns) */
+		private List<String> baseDns = new ArrayList<>();
+
+		/** 쓰기 요청을 원본 서버로 전달할지 여부 (false 이면 거부) */
+		private boolean forwardWrites = false;
+
+		/** 복제 서버 접속 계정 DN (필수) */
+		private String bindDn;
+
+		/** 복제 서버 접속 계정 비밀번호 (필수) */
+		private String bindPassword;
+
+		public List<String> getBaseDns() {
+
+			return this.baseDns;
+		}
+
+		public String getBindDn() {
+
+			return this.bindDn;
+		}
+
+		public String getBindPassword() {
+
+			return this.bindPassword;
+		}
+
+		public String getListenAddress() {
+
+			return this.listenAddress;
+		}
+
+		public int getPort() {
+
+			return this.port;
+		}
+
+		public boolean isEnabled() {
+
+			return this.enabled;
+		}
+
+		public boolean isForwardWrites() {
+
+			return this.forwardWrites;
+		}
+
+		public void setBaseDns(List<String> baseDns) {
+
+			this.baseDns = baseDns;
+		}
+
+		public void setBindDn(String bindDn) {
+
+			this.bindDn = bindDn;
+		}
+
+		public void setBindPassword(String bindPassword) {
+
+			this.bindPassword = bindPassword;
+		}
+
+		public void setEnabled(boolean enabled) {
+
+			this.enabled = enabled;
+		}
+
+		public void setForwardWrites(boolean forwardWrites) {
+
+			this.forwardWrites = forwardWrites;
+		}
+
+		public void setListenAddress(String listenAddress) {
+
+			this.listenAddress = listenAddress;
+		}
+
+		public void setPort(int port) {
+
+			this.port = port;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/**
+ * FileName : DirectoryWarmUp.java
+ * Created  : 2021. 3. 24.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapTreeCache;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 기동 시 자주 사용하는 하위 트리를 미리 읽어둡니다.
+ * <p>
+ * 설정된 기준 DN 을 백그라운드에서 최대 parallelism 개씩 동시에 읽고, 모든 트리가 캐시에 있기 전까지 health 상태를
+ * OUT_OF_SERVICE 로 보고합니다. readiness 그룹에 포함하면 미리 읽기가 끝난 후에 트래픽을 받습니다.
+ * 변경으로 제거된 트리는 다시 읽도록 예약되어 있는 동안에는 준비된 것으로 봅니다.<br>
+ * 읽기에 실패한 DN 은 retryBackoff 부터 두배씩(최대 maxRetryBackoff) 늘려가며 다시 읽도록 예약합니다.
+ *
+ * <pre>
+ * management.endpoint.health.group.readiness.include: readinessState,directoryWarmUp
+ * </pre>
+ *
+ * @author hokkk
+ */
+public class DirectoryWarmUp implements ApplicationRunner, HealthIndicator, DisposableBean {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWarmUp.class);
+
+	private final LdapTreeCache cache;
+
+	private final List<LdapName> baseDns;
+
+	private final int parallelism;
+
+	private final int retry;
+
+	private final Duration retryBackoff;
+
+	private final Duration maxRetryBackoff;
+
+	/** 읽기나 재시도가 남은 DN 수 */
+	private final AtomicInteger remaining = new AtomicInteger();
+
+	private final AtomicInteger entries = new AtomicInteger();
+
+	/** 실패한 DN - 오류 메세지 */
+	private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService executor;
+
+	public DirectoryWarmUp(LdapTreeCache cache, DirectoryProperties.WarmUp warmUp) {
+
+		if (warmUp.getParallelism() <= 0) {
+			throw new LogicError("directory.warm-up.parallelism은 1 이상이어야 합니다.");
+		}
+		if (warmUp.getRetryBackoff() == null || warmUp.getRetryBackoff().isNegative()
+				|| warmUp.getRetryBackoff().isZero()) {
+			throw new LogicError("directory.warm-up.retry-backoff는 0 보다 커야 합니다.");
+		}
+		if (warmUp.getMaxRetryBackoff() == null
+				|| warmUp.getMaxRetryBackoff().compareTo(warmUp.getRetryBackoff()) < 0) {
+			throw new LogicError("directory.warm-up.max-retry-backoff는 retry-backoff 이상이어야 합니다.");
+		}
+		this.cache = cache;
+		this.parallelism = warmUp.getParallelism();
+		this.retry = warmUp.getRetry();
+		this.retryBackoff = warmUp.getRetryBackoff();
+		this.maxRetryBackoff = warmUp.getMaxRetryBackoff();
+		this.baseDns = new ArrayList<>(warmUp.getBaseDns().size());
+		for (String dn : warmUp.getBaseDns()) {
+			try {
+				this.baseDns.add(new LdapName(dn));
+			} catch (InvalidNameException e) {
+				throw new LogicError("이름이 올바르지 않습니다 : " + dn, e);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void destroy() {
+
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 더 읽을 DN 이 없으면 스레드를 정리합니다.
+	 */
+	private void finish() {
+
+		if (this.remaining.decrementAndGet() == 0) {
+			this.executor.shutdown();
+		}
+	}
+
+	/**
+	 * attempt 번 실패한 후 다음 재시도까지 기다리는 시간 (ms)
+	 */
+	long getBackoffMillis(int attempt) {
+
+		long max = this.maxRetryBackoff.toMillis();
+		long backoff = this.retryBackoff.toMillis();
+		for (int i = 1; i < attempt && backoff < max; i++) {
+			backoff *= 2;
+		}
+		return Math.min(backoff, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Health health() {
+
+		Health.Builder builder = this.isCompleted() ? Health.up() : Health.outOfService();
+		return builder
+				.withDetail("total", this.baseDns.size())
+				.withDetail("loaded", this.countResident())
+				.withDetail("entries", this.entries.get())
+				.withDetail("offHeapBytes", this.cache.getOffHeapBytes())
+				.withDetail("failures", this.failures)
+				.build();
+	}
+
+	/**
+	 * 캐시에 있는 기준 DN 수
+	 */
+	private int countResident() {
+
+		int count = 0;
+		for (LdapName dn : this.baseDns) {
+			if (this.cache.isResident(dn)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 설정된 트리가 모두 캐시에 있는지 여부 (다시 읽도록 예약된 트리는 있는 것으로 봄)
+	 */
+	public boolean isCompleted() {
+
+		for (LdapName dn : this.baseDns) {
+			if (this.cache.isResident(dn) == false && this.cache.isReloading(dn) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void load(LdapName dn, int attempt) {
+
+		long start = System.currentTimeMillis();
+		try {
+			Tree<LdapNode> tree = this.cache.load(dn);
+			this.entries.addAndGet((int) tree.size());
+			this.failures.remove(dn.toString());
+			LOGGER.info("Warm-up {}/{} : {} ({}건, {}ms)", this.countResident(), this.baseDns.size(), dn,
+					tree.size(), System.currentTimeMillis() - start);
+			this.finish();
+		} catch (RuntimeException e) {
+			this.failures.put(dn.toString(), String.valueOf(e.getMessage()));
+			if (this.retry >= 0 && attempt > this.retry) {
+				LOGGER.error("Warm-up 포기 ({}회 실패) : {}", attempt, dn, e);
+				this.finish();
+				return;
+			}
+			long backoff = this.getBackoffMillis(attempt);
+			LOGGER.warn("Warm-up 실패 ({}회), {}ms 후 재시도 : {}", attempt, backoff, dn, e);
+			try {
+				this.executor.schedule(() -> this.load(dn, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException rejected) {
+				// 종료 중이면 재시도하지 않는다.
+				LOGGER.debug("Warm-up 재시도 취소 : {}", dn);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run(ApplicationArguments args) {
+
+		if (this.baseDns.isEmpty()) {
+			return;
+		}
+		LOGGER.info("Warm-up 시작 : {}건, 동시 {}건", this.baseDns.size(), this.parallelism);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("directory-warm-up-");
+		threadFactory.setDaemon(true);
+		this.executor = new ScheduledThreadPoolExecutor(Math.min(this.parallelism, this.baseDns.size()),
+				threadFactory);
+		this.remaining.set(this.baseDns.size());
+		for (LdapName dn : this.baseDns) {
+			this.executor.execute(() -> this.load(dn, 1));
+		}
+	}
+}
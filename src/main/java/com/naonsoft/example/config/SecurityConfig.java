@@ -0,0 +1,120 @@
+/**
+ * FileName : SecurityConfig.java
+ * Created  : 2021. 3. 22.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
+import org.springframework.security.ldap.authentication.BindAuthenticator;
+import org.springframework.security.ldap.authentication.LdapAuthenticationProvider;
+import org.springframework.security.ldap.search.FilterBasedLdapUserSearch;
+import org.springframework.security.ldap.userdetails.DefaultLdapAuthoritiesPopulator;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.security.CachedLdapAuthenticationProvider;
+import com.naonsoft.example.security.CachingLdapAuthoritiesPopulator;
+
+/**
+ * LDAP 인증 설정 (directory.security.enabled=true 인 경우)
+ * <p>
+ * 관리자 계정 연결은 JNDI 연결 풀을 사용하고, 사용자 권한은 {@link CachingLdapAuthoritiesPopulator} 로 캐시합니다.
+ * 상태 확인(/actuator/health 와 그 하위 그룹)은 probe 가 호출할 수 있도록 인증 없이 허용합니다.
+ *
+ * @author hokkk
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "directory.security", name = "enabled", havingValue = "true")
+public class SecurityConfig extends WebSecurityConfigurerAdapter {
+
+	private final DirectoryProperties properties;
+
+	public SecurityConfig(DirectoryProperties properties) {
+
+		this.properties = properties;
+	}
+
+	@Override
+	protected void configure(AuthenticationManagerBuilder auth) {
+
+		auth.authenticationProvider(this.ldapAuthenticationProvider());
+	}
+
+	@Override
+	protected void configure(HttpSecurity http) throws Exception {
+
+		http.authorizeRequests()
+				.requestMatchers(EndpointRequest.to(HealthEndpoint.class))
+				.permitAll()
+				.anyRequest()
+				.authenticated()
+				.and()
+				.formLogin()
+				.and()
+				.httpBasic();
+	}
+
+	@Bean
+	public CachingLdapAuthoritiesPopulator ldapAuthoritiesPopulator() {
+
+		DirectoryProperties.Security security = this.properties.getSecurity();
+		DefaultLdapAuthoritiesPopulator populator = new DefaultLdapAuthoritiesPopulator(
+				this.ldapSecurityContextSource(), security.getGroupSearchBase());
+		populator.setGroupSearchFilter(security.getGroupSearchFilter());
+		return new CachingLdapAuthoritiesPopulator(populator, security.getCacheSize(), security.getCacheTtl());
+	}
+
+	@Bean
+	public CachedLdapAuthenticationProvider ldapAuthenticationProvider() {
+
+		DirectoryProperties.Security security = this.properties.getSecurity();
+		DefaultSpringSecurityContextSource contextSource = this.ldapSecurityContextSource();
+
+		BindAuthenticator authenticator = new BindAuthenticator(contextSource);
+		if (StringUtils.isNotBlank(security.getUserDnPattern())) {
+			authenticator.setUserDnPatterns(new String[] { security.getUserDnPattern() });
+		} else {
+			authenticator.setUserSearch(new FilterBasedLdapUserSearch(security.getUserSearchBase(),
+					security.getUserSearchFilter(), contextSource));
+		}
+
+		LdapAuthenticationProvider provider = new LdapAuthenticationProvider(authenticator,
+				this.ldapAuthoritiesPopulator());
+		if (security.isCredentialCache()) {
+			return new CachedLdapAuthenticationProvider(provider, security.getCacheSize(), security.getCacheTtl());
+		}
+		return new CachedLdapAuthenticationProvider(provider);
+	}
+
+	@Bean
+	public DefaultSpringSecurityContextSource ldapSecurityContextSource() {
+
+		if (StringUtils.isBlank(this.properties.getUrl())) {
+			throw new LogicError("directory.url 설정이 필요합니다.");
+		}
+		String url = "ldap://" + this.properties.getUrl().replace("ldap://", "");
+		DefaultSpringSecurityContextSource contextSource = new DefaultSpringSecurityContextSource(url);
+		if (StringUtils.isNotBlank(this.properties.getAdminId())) {
+			contextSource.setUserDn(this.properties.getAdminId());
+			contextSource.setPassword(this.properties.getAdminPassword());
+		} else {
+			contextSource.setAnonymousReadOnly(true);
+		}
+		// 관리자 계정(읽기 전용) 연결은 JNDI 연결 풀을 사용한다.
+		contextSource.setPooled(true);
+		return contextSource;
+	}
+}
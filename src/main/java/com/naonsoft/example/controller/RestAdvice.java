@@ -1,18 +1,44 @@
-package com.naonsoft.example.controller;
-
-import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.AccessDeniedException;
-import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.RestControllerAdvice;
-
-@RestControllerAdvice
-public class RestAdvice {
-
-	@ExceptionHandler(AccessDeniedException.class)
-	public ResponseEntity<Object> handleAccessDeniedException(AccessDeniedException e) {
-		return ResponseEntity
-				.notFound()
-				.build();
-	}
-
-}
+package com.naonsoft.example.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.InvalidRequestError;
+import com.naonsoft.example.exception.OverloadError;
+
+@RestControllerAdvice
+public class RestAdvice {
+
+	@ExceptionHandler(AccessDeniedException.class)
+	public ResponseEntity<Object> handleAccessDeniedException(AccessDeniedException e) {
+		return ResponseEntity
+				.notFound()
+				.build();
+	}
+
+	@ExceptionHandler(DeadlineExceededError.class)
+	public ResponseEntity<Object> handleDeadlineExceededError(DeadlineExceededError e) {
+		return ResponseEntity
+				.status(HttpStatus.GATEWAY_TIMEOUT)
+				.build();
+	}
+
+	@ExceptionHandler(InvalidRequestError.class)
+	public ResponseEntity<Object> handleInvalidRequestError(InvalidRequestError e) {
+		return ResponseEntity
+				.badRequest()
+				.build();
+	}
+
+	@ExceptionHandler(OverloadError.class)
+	public ResponseEntity<Object> handleOverloadError(OverloadError e) {
+		return ResponseEntity
+				.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.build();
+	}
+
+}
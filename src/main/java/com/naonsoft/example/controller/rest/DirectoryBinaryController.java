@@ -0,0 +1,77 @@
+package com.naonsoft.example.controller.rest;
+
+import java.util.Optional;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.naonsoft.example.config.DirectoryProperties;
+import com.naonsoft.example.exception.InvalidRequestError;
+import com.naonsoft.example.tools.ldap.LdapService;
+
+/**
+ * binary 속성(jpegPhoto, thumbnailPhoto 등) 조회
+ */
+@RestController
+@ConditionalOnProperty(prefix = "directory", name = "url")
+public class DirectoryBinaryController {
+
+	private final LdapService ldapService;
+
+	private final DirectoryProperties.Binary properties;
+
+	public DirectoryBinaryController(LdapService ldapService, DirectoryProperties properties) {
+		this.ldapService = ldapService;
+		this.properties = properties.getBinary();
+	}
+
+	/**
+	 * dn 항목의 attribute 속성 첫번째 값을 반환합니다.<br>
+	 * 값의 해시를 ETag 로 사용하므로 If-None-Match 가 같으면 304 로 응답합니다.
+	 * 허용하지 않은 속성(directory.binary.attributes 외, binary 형식이 아닌 속성, 비밀번호)은 400 으로 응답합니다.
+	 */
+	@GetMapping("directory/binary")
+	public ResponseEntity<Resource> binary(@RequestParam String dn, @RequestParam String attribute,
+			WebRequest request) {
+		LdapName name;
+		try {
+			name = new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new InvalidRequestError("이름이 올바르지 않습니다 : " + dn, e);
+		}
+		if (this.ldapService.isBinaryAttributeAllowed(attribute) == false) {
+			throw new InvalidRequestError("조회할 수 없는 속성입니다 : " + attribute);
+		}
+		Optional<byte[]> value = this.ldapService.getBinaryAttribute(name, attribute);
+		if (value.isPresent() == false) {
+			return ResponseEntity.notFound().build();
+		}
+		byte[] bytes = value.get();
+		String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+		CacheControl cacheControl = CacheControl.maxAge(this.properties.getMaxAge()).cachePrivate();
+		if (request.checkNotModified(etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+		}
+		return ResponseEntity.ok()
+				.contentType("jpegPhoto".equalsIgnoreCase(attribute) || "thumbnailPhoto".equalsIgnoreCase(attribute)
+						? MediaType.IMAGE_JPEG
+						: MediaType.APPLICATION_OCTET_STREAM)
+				.contentLength(bytes.length)
+				.eTag(etag)
+				.cacheControl(cacheControl)
+				.body(new ByteArrayResource(bytes));
+	}
+}
@@ -0,0 +1,143 @@
+package com.naonsoft.example.controller.rest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.naonsoft.example.config.DirectoryProperties;
+import com.naonsoft.example.exception.InvalidRequestError;
+import com.naonsoft.example.exception.OverloadError;
+import com.naonsoft.example.tools.ldap.LdapChangeEvent;
+import com.naonsoft.example.tools.ldap.LdapChangeNotifier;
+import com.naonsoft.example.tools.ldap.LdapChangeNotifier.Subscription;
+
+/**
+ * 디렉토리 변경 이벤트 (Server-Sent Events)
+ * <p>
+ * 변경 알림 스레드가 느린 연결에 묶이지 않도록 전송은 ldapExecutor 에서 연결별 순서대로 수행합니다.
+ * 전송 대기 이벤트가 {@link #MAX_PENDING} 건을 넘으면 연결을 종료합니다.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "directory.events", name = "enabled", havingValue = "true")
+public class DirectoryEventController {
+
+	/** 연결별 전송 대기 이벤트 최대 수 */
+	static final int MAX_PENDING = 1_000;
+
+	private final LdapChangeNotifier notifier;
+
+	private final DirectoryProperties properties;
+
+	private final Executor executor;
+
+	public DirectoryEventController(LdapChangeNotifier notifier, DirectoryProperties properties,
+			@Qualifier("ldapExecutor") ExecutorService executor) {
+		this.notifier = notifier;
+		this.properties = properties;
+		this.executor = executor;
+	}
+
+	private static void send(SseEmitter emitter, LdapChangeEvent event) {
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("type", event.getType());
+		data.put("dn", event.getDn().toString());
+		event.getPreviousDn().ifPresent(previousDn -> data.put("previousDn", previousDn.toString()));
+		event.getNode().ifPresent(node -> data.put("attributes", node.getAttributes()));
+		try {
+			emitter.send(SseEmitter.event()
+					.name(event.getType().name())
+					.id(String.valueOf(event.getTimestamp()))
+					.data(data, MediaType.APPLICATION_JSON));
+		} catch (IOException | IllegalStateException e) {
+			// IllegalStateException : 이미 종료된 연결
+			emitter.completeWithError(e);
+		}
+	}
+
+	/**
+	 * base 하위의 추가, 변경, 삭제, 이름 변경 이벤트를 전달합니다.
+	 */
+	@GetMapping(value = "directory/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter events(@RequestParam String base) {
+		LdapName baseDn;
+		try {
+			baseDn = new LdapName(base);
+		} catch (InvalidNameException e) {
+			throw new InvalidRequestError("이름이 올바르지 않습니다 : " + base, e);
+		}
+
+		SseEmitter emitter = new SseEmitter(this.properties.getEvents().getSseTimeout().toMillis());
+		EventSender sender = new EventSender(emitter, this.executor);
+		Subscription subscription = this.notifier.subscribe(baseDn, sender::offer);
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		emitter.onError(e -> subscription.close());
+		return emitter;
+	}
+
+	/**
+	 * 연결 하나의 이벤트를 받은 순서대로 전송합니다. 동시에 하나의 전송 작업만 실행합니다.
+	 */
+	static final class EventSender implements Runnable {
+
+		private final SseEmitter emitter;
+
+		private final Executor executor;
+
+		private final BlockingQueue<LdapChangeEvent> pending = new LinkedBlockingQueue<>(MAX_PENDING);
+
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		EventSender(SseEmitter emitter, Executor executor) {
+			this.emitter = emitter;
+			this.executor = executor;
+		}
+
+		/**
+		 * 전송 대기열에 추가합니다. 대기열이 가득 차면 연결을 종료합니다.
+		 */
+		void offer(LdapChangeEvent event) {
+			if (this.pending.offer(event) == false) {
+				this.pending.clear();
+				this.emitter.completeWithError(new OverloadError("전송 대기 중인 변경 이벤트가 너무 많습니다."));
+				return;
+			}
+			this.schedule();
+		}
+
+		@Override
+		public void run() {
+			LdapChangeEvent event;
+			while ((event = this.pending.poll()) != null) {
+				send(this.emitter, event);
+			}
+			this.scheduled.set(false);
+			// 마지막 poll 과 scheduled 해제 사이에 추가된 이벤트
+			if (this.pending.isEmpty() == false) {
+				this.schedule();
+			}
+		}
+
+		private void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				this.executor.execute(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.naonsoft.example.controller.rest;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.naonsoft.example.exception.InvalidRequestError;
+import com.naonsoft.example.tools.ldap.LdapService;
+import com.naonsoft.example.tools.ldap.LdapSubtreeStatistics;
+
+/**
+ * 하위 트리 통계 조회
+ */
+@RestController
+@ConditionalOnProperty(prefix = "directory", name = "url")
+public class DirectoryStatisticsController {
+
+	private final LdapService ldapService;
+
+	public DirectoryStatisticsController(LdapService ldapService) {
+		this.ldapService = ldapService;
+	}
+
+	/**
+	 * dn 하위에서 filter 에 맞는 항목의 objectClass 별, 깊이별, 자식별 항목 수를 반환합니다.
+	 */
+	@GetMapping("directory/statistics")
+	public LdapSubtreeStatistics statistics(@RequestParam String dn,
+			@RequestParam(defaultValue = "(objectClass=*)") String filter) {
+		LdapName name;
+		try {
+			name = new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new InvalidRequestError("이름이 올바르지 않습니다 : " + dn, e);
+		}
+		return this.ldapService.statistics(name, filter);
+	}
+}
@@ -0,0 +1,54 @@
+package com.naonsoft.example.controller.rest;
+
+import java.util.List;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.naonsoft.example.exception.InvalidRequestError;
+import com.naonsoft.example.tools.ldap.LdapHedgedReader;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapTreeCache;
+import com.naonsoft.example.tools.ldap.LdapTreeView;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 하위 트리 조회 (Accept: application/cbor 이면 CBOR 로 응답)
+ */
+@RestController
+@ConditionalOnProperty(prefix = "directory", name = "url")
+public class DirectoryTreeController {
+
+	private final LdapHedgedReader ldapHedgedReader;
+
+	private final LdapTreeCache ldapTreeCache;
+
+	public DirectoryTreeController(LdapHedgedReader ldapHedgedReader, LdapTreeCache ldapTreeCache) {
+		this.ldapHedgedReader = ldapHedgedReader;
+		this.ldapTreeCache = ldapTreeCache;
+	}
+
+	/**
+	 * dn 하위 트리를 depth 깊이까지 attributes 속성만 반환합니다. (depth 가 음수이면 전체, attributes 가 없으면 전체)
+	 */
+	@GetMapping(value = "directory/tree", produces = { MediaType.APPLICATION_JSON_VALUE, "application/cbor" })
+	public LdapTreeView tree(@RequestParam String dn, @RequestParam(defaultValue = "-1") int depth,
+			@RequestParam(required = false) List<String> attributes) {
+		LdapName name;
+		try {
+			name = new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new InvalidRequestError("이름이 올바르지 않습니다 : " + dn, e);
+		}
+		Tree<LdapNode> tree = this.ldapTreeCache.get(name)
+				.orElseGet(() -> depth < 0 ? this.ldapHedgedReader.tree(name)
+						: this.ldapHedgedReader.tree(name, depth));
+		return new LdapTreeView(tree, depth, attributes);
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * FileName : DeadlineExceededError.java
+ * Created : 2021. 3. 29.
+ * Author : hokkk
+ * Summary :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.exception;
+
+/**
+ * 작업 제한 시간을 초과한 경우
+ */
+public class DeadlineExceededError extends LogicError {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -3022417652893104519L;
+
+	/**
+	 * {@link DeadlineExceededError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 */
+	public DeadlineExceededError(String message) {
+
+		super(message);
+	}
+
+	/**
+	 * {@link DeadlineExceededError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 * @param cause
+	 *            cause
+	 */
+	public DeadlineExceededError(String message, Throwable cause) {
+
+		super(message, cause);
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * FileName : InvalidRequestError.java
+ * Created : 2021. 4. 1.
+ * Author : hokkk
+ * Summary :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.exception;
+
+/**
+ * 요청 값이 올바르지 않은 경우 (예 : 형식이 잘못된 DN)
+ */
+public class InvalidRequestError extends LogicError {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -2675318802641290135L;
+
+	/**
+	 * {@link InvalidRequestError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 */
+	public InvalidRequestError(String message) {
+
+		super(message);
+	}
+
+	/**
+	 * {@link InvalidRequestError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 * @param cause
+	 *            cause
+	 */
+	public InvalidRequestError(String message, Throwable cause) {
+
+		super(message, cause);
+	}
+}
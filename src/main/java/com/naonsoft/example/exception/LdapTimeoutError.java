@@ -0,0 +1,33 @@
+/**
+ * FileName : LdapTimeoutError.java
+ * Created : 2021. 3. 30.
+ * Author : hokkk
+ * Summary :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.exception;
+
+/**
+ * 디렉토리 서버가 응답 대기 시간 안에 응답하지 않은 경우 (재시도 대상)
+ */
+public class LdapTimeoutError extends LogicError {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 2871394054372817342L;
+
+	/**
+	 * {@link LdapTimeoutError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 * @param cause
+	 *            cause
+	 */
+	public LdapTimeoutError(String message, Throwable cause) {
+
+		super(message, cause);
+	}
+}
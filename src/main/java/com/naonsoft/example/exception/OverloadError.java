@@ -0,0 +1,31 @@
+/**
+ * FileName : OverloadError.java
+ * Created : 2021. 3. 26.
+ * Author : hokkk
+ * Summary :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.exception;
+
+/**
+ * 처리 가능한 동시 요청 수를 넘어 요청을 거절한 경우
+ */
+public class OverloadError extends LogicError {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 4120943375027318876L;
+
+	/**
+	 * {@link OverloadError} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @author hokkk
+	 * @param message
+	 *            오류 메세지
+	 */
+	public OverloadError(String message) {
+
+		super(message);
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * FileName : CachedLdapAuthenticationProvider.java
+ * Created  : 2021. 3. 22.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
+
+import com.naonsoft.example.tools.cache.TtlCache;
+
+/**
+ * 인증 결과를 캐시하는 LDAP {@link AuthenticationProvider}
+ * <p>
+ * 인증에 성공하면 패스워드의 PBKDF2 해시와 권한을 유지 시간 동안 보관하고, 같은 패스워드로 다시 인증하는 경우
+ * 디렉토리에 bind 하지 않고 보관한 결과를 반환합니다. 패스워드 원문은 보관하지 않으며,
+ * 해시에는 인스턴스마다 생성한 secret 을 섞으므로 보관한 해시는 이 프로세스 밖에서 검증할 수 없습니다.
+ * 인증에 실패하면 해당 사용자의 캐시를 제거합니다.
+ *
+ * @author hokkk
+ */
+public class CachedLdapAuthenticationProvider implements AuthenticationProvider {
+
+	/** PBKDF2 반복 횟수 (캐시 적중 시에도 계산하므로 bind 보다 충분히 빠른 값) */
+	private static final int HASH_ITERATIONS = 10_000;
+
+	/** PBKDF2 해시 길이 (bit) */
+	private static final int HASH_WIDTH = 256;
+
+	private final Pbkdf2PasswordEncoder encoder = newEncoder();
+
+	private final AuthenticationProvider delegate;
+
+	/** 인증 정보 캐시 (사용하지 않는 경우 null) */
+	private final TtlCache<String, CachedCredential> credentialCache;
+
+	/**
+	 * 인증 정보 캐시 없이 권한 캐시만 사용하는 경우
+	 *
+	 * @param delegate
+	 *            실제 LDAP 인증
+	 */
+	public CachedLdapAuthenticationProvider(AuthenticationProvider delegate) {
+
+		if (delegate == null) {
+			throw new NullPointerException("AuthenticationProvider delegate is null");
+		}
+		this.delegate = delegate;
+		this.credentialCache = null;
+	}
+
+	/**
+	 * CachedLdapAuthenticationProvider 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param delegate
+	 *            실제 LDAP 인증
+	 * @param maxSize
+	 *            최대 사용자 수
+	 * @param ttl
+	 *            유지 시간
+	 */
+	public CachedLdapAuthenticationProvider(AuthenticationProvider delegate, int maxSize, Duration ttl) {
+
+		if (delegate == null) {
+			throw new NullPointerException("AuthenticationProvider delegate is null");
+		}
+		this.delegate = delegate;
+		this.credentialCache = new TtlCache<>(maxSize, ttl);
+	}
+
+	private static Pbkdf2PasswordEncoder newEncoder() {
+
+		Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder(KeyGenerators.string().generateKey(),
+				HASH_ITERATIONS, HASH_WIDTH);
+		encoder.setAlgorithm(SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+		return encoder;
+	}
+
+	private static String toKey(String username) {
+
+		return username.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+
+		String username = authentication.getName();
+		Object credentials = authentication.getCredentials();
+		if (this.credentialCache == null || username == null || credentials instanceof String == false) {
+			return this.delegate.authenticate(authentication);
+		}
+
+		String password = (String) credentials;
+		String key = toKey(username);
+		Optional<CachedCredential> cached = this.credentialCache.get(key);
+		// 인코더가 salt 를 붙여 해시하고 고정 시간으로 비교한다.
+		if (cached.isPresent() && this.encoder.matches(password, cached.get().hash)) {
+			UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(
+					cached.get().principal, null, cached.get().authorities);
+			result.setDetails(authentication.getDetails());
+			return result;
+		}
+
+		Authentication result;
+		try {
+			result = this.delegate.authenticate(authentication);
+		} catch (AuthenticationException e) {
+			this.credentialCache.remove(key);
+			throw e;
+		}
+		if (result != null && password.isEmpty() == false) {
+			this.credentialCache.put(key,
+					new CachedCredential(this.encoder.encode(password), result.getPrincipal(), result.getAuthorities()));
+		}
+		return result;
+	}
+
+	/**
+	 * 사용자의 캐시를 제거합니다. (패스워드, 권한 변경 시 사용)
+	 */
+	public void evict(String username) {
+
+		if (this.credentialCache != null) {
+			this.credentialCache.remove(toKey(username));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supports(Class<?> authentication) {
+
+		return this.delegate.supports(authentication);
+	}
+
+	private static final class CachedCredential {
+
+		/** salt 를 포함한 해시 */
+		private final String hash;
+
+		private final Object principal;
+
+		private final Collection<GrantedAuthority> authorities;
+
+		CachedCredential(String hash, Object principal, Collection<? extends GrantedAuthority> authorities) {
+
+			this.hash = hash;
+			this.principal = principal;
+			this.authorities = Collections.unmodifiableList(new ArrayList<>(authorities));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * FileName : CachingLdapAuthoritiesPopulator.java
+ * Created  : 2021. 3. 22.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.ldap.userdetails.LdapAuthoritiesPopulator;
+
+import com.naonsoft.example.tools.cache.TtlCache;
+
+/**
+ * 사용자별 권한 조회 결과를 캐시하는 {@link LdapAuthoritiesPopulator}
+ * <p>
+ * 그룹 검색은 로그인마다 디렉토리 검색이 발생하므로 유지 시간 동안 이전 결과를 재사용합니다.
+ *
+ * @author hokkk
+ */
+public class CachingLdapAuthoritiesPopulator implements LdapAuthoritiesPopulator {
+
+	private final LdapAuthoritiesPopulator delegate;
+
+	private final TtlCache<String, List<GrantedAuthority>> cache;
+
+	/**
+	 * CachingLdapAuthoritiesPopulator 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param delegate
+	 *            실제 권한 조회
+	 * @param maxSize
+	 *            최대 사용자 수
+	 * @param ttl
+	 *            유지 시간
+	 */
+	public CachingLdapAuthoritiesPopulator(LdapAuthoritiesPopulator delegate, int maxSize, Duration ttl) {
+
+		if (delegate == null) {
+			throw new NullPointerException("LdapAuthoritiesPopulator delegate is null");
+		}
+		this.delegate = delegate;
+		this.cache = new TtlCache<>(maxSize, ttl);
+	}
+
+	private static String toKey(String username) {
+
+		return username.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 사용자의 캐시를 제거합니다. (권한 변경 시 사용)
+	 */
+	public void evict(String username) {
+
+		this.cache.remove(toKey(username));
+	}
+
+	public void evictAll() {
+
+		this.cache.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Collection<? extends GrantedAuthority> getGrantedAuthorities(DirContextOperations userData,
+			String username) {
+
+		return this.cache.get(toKey(username), key -> {
+			Collection<? extends GrantedAuthority> authorities = this.delegate.getGrantedAuthorities(userData,
+					username);
+			return Collections.unmodifiableList(new ArrayList<>(authorities));
+		});
+	}
+}
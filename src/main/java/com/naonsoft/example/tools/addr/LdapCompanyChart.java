@@ -0,0 +1,193 @@
+/**
+ * FileName : LdapCompanyChart.java
+ * Created  : 2021. 3. 19.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.addr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 조직도 모델
+ * <p>
+ * {@link Tree} 를 한번 순회하여 회사/부서/사람 노드를 만들고 인원수, 깊이, 상위 경로, 관리자 체인을 미리 계산합니다.
+ * 생성 이후에는 변경되지 않으므로 여러 요청에서 공유하여 사용할 수 있습니다.
+ *
+ * @author hokkk
+ */
+public class LdapCompanyChart {
+
+	/** 사람의 관리자 속성 */
+	private static final String MANAGER = "manager";
+
+	/** 부서의 관리자 속성 */
+	private static final String MANAGED_BY = "managedBy";
+
+	private final LdapCompanyNode root;
+
+	/** DN - 노드 색인 (생성 순서 = 전위 순회 순서) */
+	private final Map<LdapName, LdapCompanyNode> index;
+
+	private LdapCompanyChart(LdapCompanyNode root, Map<LdapName, LdapCompanyNode> index) {
+
+		this.root = root;
+		this.index = index;
+	}
+
+	/**
+	 * 트리로부터 조직도를 생성합니다.
+	 *
+	 * @param tree
+	 *            회사 하위 트리 (최상위가 회사)
+	 */
+	public static LdapCompanyChart of(Tree<LdapNode> tree) {
+
+		if (tree == null) {
+			throw new NullPointerException("tree is null");
+		}
+
+		// 전위 순회하며 노드 생성 (재귀 없이 스택 사용)
+		List<LdapCompanyNode> preOrder = new ArrayList<>();
+		Deque<Tree<LdapNode>> treeStack = new ArrayDeque<>();
+		Deque<LdapCompanyNode> parentStack = new ArrayDeque<>();
+		Map<LdapName, LdapCompanyNode> index = new LinkedHashMap<>();
+
+		LdapCompanyNode root = new LdapCompanyNode(null, tree.getData());
+		preOrder.add(root);
+		index.put(root.getDn(), root);
+		pushChilds(tree, root, treeStack, parentStack);
+
+		while (treeStack.isEmpty() == false) {
+			Tree<LdapNode> current = treeStack.pop();
+			LdapCompanyNode node = new LdapCompanyNode(parentStack.pop(), current.getData());
+			preOrder.add(node);
+			index.put(node.getDn(), node);
+			pushChilds(current, node, treeStack, parentStack);
+		}
+
+		// 전위 순회의 역순은 자식이 항상 부모보다 먼저 처리되므로 한번에 인원수를 합산할 수 있다.
+		for (LdapCompanyNode node : preOrder) {
+			node.initHeadcount();
+		}
+		for (int i = preOrder.size() - 1; i > 0; i--) {
+			LdapCompanyNode node = preOrder.get(i);
+			node.getParent().ifPresent(parent -> parent.addHeadcount(node));
+		}
+
+		for (LdapCompanyNode node : preOrder) {
+			node.setManagerChain(managerChain(node, index));
+		}
+
+		return new LdapCompanyChart(root, Collections.unmodifiableMap(index));
+	}
+
+	/**
+	 * 관리자 체인을 계산합니다. 순환 참조인 경우 순환 지점에서 중단합니다.
+	 */
+	private static List<LdapName> managerChain(LdapCompanyNode node, Map<LdapName, LdapCompanyNode> index) {
+
+		String attributeId = node.getType() == LdapOrgType.PERSON ? MANAGER : MANAGED_BY;
+		Optional<LdapName> manager = toName(node.getNode().getValue(attributeId));
+
+		List<LdapName> result = new ArrayList<>();
+		Set<LdapName> visited = new HashSet<>();
+		visited.add(node.getDn());
+		while (manager.isPresent() && visited.add(manager.get())) {
+			result.add(manager.get());
+			LdapCompanyNode managerNode = index.get(manager.get());
+			if (managerNode == null) {
+				// 조직도 밖의 관리자
+				break;
+			}
+			manager = toName(managerNode.getNode().getValue(MANAGER));
+		}
+		return result;
+	}
+
+	private static void pushChilds(Tree<LdapNode> tree, LdapCompanyNode node, Deque<Tree<LdapNode>> treeStack,
+			Deque<LdapCompanyNode> parentStack) {
+
+		List<Tree<LdapNode>> childs = tree.getChilds();
+		// 스택이므로 역순으로 넣어야 원래 순서대로 방문한다.
+		for (int i = childs.size() - 1; i >= 0; i--) {
+			treeStack.push(childs.get(i));
+			parentStack.push(node);
+		}
+	}
+
+	private static Optional<LdapName> toName(Optional<String> dn) {
+
+		if (dn.isPresent() == false) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(new LdapName(dn.get()));
+		} catch (InvalidNameException e) {
+			return Optional.empty();
+		}
+	}
+
+	public Optional<LdapCompanyNode> get(LdapName dn) {
+
+		return Optional.ofNullable(this.index.get(dn));
+	}
+
+	/**
+	 * 전체 부서 목록 (전위 순회 순서)
+	 */
+	public List<LdapCompanyNode> getDepartments() {
+
+		return this.getNodes(LdapOrgType.DEPARTMENT);
+	}
+
+	/**
+	 * 부서(또는 회사)의 하위 부서 포함 인원수
+	 */
+	public int getHeadcount(LdapName dn) {
+
+		return this.get(dn)
+				.map(LdapCompanyNode::getHeadcount)
+				.orElse(0);
+	}
+
+	/**
+	 * 유형에 해당하는 노드 목록 (전위 순회 순서)
+	 */
+	public List<LdapCompanyNode> getNodes(LdapOrgType type) {
+
+		return this.index.values()
+				.stream()
+				.filter(e -> e.getType() == type)
+				.collect(Collectors.toList());
+	}
+
+	public LdapCompanyNode getRoot() {
+
+		return this.root;
+	}
+
+	public int size() {
+
+		return this.index.size();
+	}
+}
@@ -1,18 +1,174 @@
-/**
- * FileName : LdapCompanyNode.java
- * Created  : 2021. 3. 17.
- * Author   : hokkk
- * Summary  :
- * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
- * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
- * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
- */
-package com.naonsoft.example.tools.addr;
-
-
-/**
- * @author hokkk
- */
-public class LdapCompanyNode {
-
-}
+/**
+ * FileName : LdapCompanyNode.java
+ * Created  : 2021. 3. 17.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.addr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.tools.ldap.LdapNode;
+
+/**
+ * 조직도 노드 (회사, 부서, 사람)
+ * <p>
+ * {@link LdapCompanyChart} 생성 시 한번에 계산된 값(인원수, 깊이, 상위 경로, 관리자 체인)을 보관하며
+ * 모든 조회는 재계산 없이 O(1)로 처리됩니다. 외부에서 변경할 수 없습니다.
+ *
+ * @author hokkk
+ */
+public class LdapCompanyNode {
+
+	private final LdapOrgType type;
+
+	private final LdapNode node;
+
+	private final LdapCompanyNode parent;
+
+	/** 자식 노드 (조직도 생성 중에만 추가됨) */
+	private final List<LdapCompanyNode> childs = new ArrayList<>();
+
+	/** 최상위 기준 깊이 (최상위 0) */
+	private final int depth;
+
+	/** 최상위부터 부모까지의 DN 목록 */
+	private final List<LdapName> path;
+
+	/** 하위 부서를 포함한 전체 인원수 */
+	private int headcount;
+
+	/** 직속 인원수 */
+	private int directHeadcount;
+
+	/** 관리자 DN 목록 (직속 관리자부터 상위로) */
+	private List<LdapName> managerChain = Collections.emptyList();
+
+	LdapCompanyNode(LdapCompanyNode parent, LdapNode node) {
+
+		this.parent = parent;
+		this.node = node;
+		this.type = LdapOrgType.of(node, parent == null);
+
+		if (parent == null) {
+			this.depth = 0;
+			this.path = Collections.emptyList();
+		} else {
+			List<LdapName> parentPath = new ArrayList<>(parent.path.size() + 1);
+			parentPath.addAll(parent.path);
+			parentPath.add(parent.getDn());
+			this.depth = parent.depth + 1;
+			this.path = Collections.unmodifiableList(parentPath);
+			parent.childs.add(this);
+		}
+	}
+
+	void addHeadcount(LdapCompanyNode child) {
+
+		if (child.type == LdapOrgType.PERSON) {
+			this.directHeadcount++;
+		}
+		this.headcount += child.headcount;
+	}
+
+	void initHeadcount() {
+
+		this.headcount = this.type == LdapOrgType.PERSON ? 1 : 0;
+	}
+
+	void setManagerChain(List<LdapName> managerChain) {
+
+		this.managerChain = Collections.unmodifiableList(managerChain);
+	}
+
+	public List<LdapCompanyNode> getChilds() {
+
+		return Collections.unmodifiableList(this.childs);
+	}
+
+	public int getDepth() {
+
+		return this.depth;
+	}
+
+	/**
+	 * 직속 인원수 (하위 부서 제외)
+	 */
+	public int getDirectHeadcount() {
+
+		return this.directHeadcount;
+	}
+
+	public LdapName getDn() {
+
+		return this.node.getDn();
+	}
+
+	/**
+	 * 하위 부서를 포함한 전체 인원수 (사람 노드는 1)
+	 */
+	public int getHeadcount() {
+
+		return this.headcount;
+	}
+
+	public List<LdapName> getManagerChain() {
+
+		return this.managerChain;
+	}
+
+	/**
+	 * 표시 이름 (displayName, cn, ou 순서)
+	 */
+	public String getName() {
+
+		Optional<String> name = this.node.getValue("displayName");
+		if (name.isPresent() == false) {
+			name = this.node.getValue("cn");
+		}
+		if (name.isPresent() == false) {
+			name = this.node.getValue("ou");
+		}
+		return name.orElseGet(() -> this.getDn().toString());
+	}
+
+	public LdapNode getNode() {
+
+		return this.node;
+	}
+
+	public Optional<LdapCompanyNode> getParent() {
+
+		return Optional.ofNullable(this.parent);
+	}
+
+	/**
+	 * 최상위부터 부모까지의 DN 목록
+	 */
+	public List<LdapName> getPath() {
+
+		return this.path;
+	}
+
+	public LdapOrgType getType() {
+
+		return this.type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return this.type + " " + this.getName() + " (" + this.headcount + ")";
+	}
+}
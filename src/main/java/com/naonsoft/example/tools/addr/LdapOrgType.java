@@ -0,0 +1,57 @@
+/**
+ * FileName : LdapOrgType.java
+ * Created  : 2021. 3. 19.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.addr;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.naonsoft.example.tools.ldap.LdapNode;
+
+/**
+ * 조직도 노드 유형
+ *
+ * @author hokkk
+ */
+public enum LdapOrgType {
+
+	/** 회사 (조직도 최상위) */
+	COMPANY,
+
+	/** 부서 */
+	DEPARTMENT,
+
+	/** 사람 */
+	PERSON;
+
+	/** 사람으로 판단하는 objectClass 목록 */
+	private static final List<String> PERSON_CLASSES = Collections.unmodifiableList(Arrays.asList(
+			"person", "organizationalPerson", "inetOrgPerson", "user"));
+
+	/**
+	 * 노드의 objectClass 로 유형을 판단합니다.
+	 *
+	 * @param node
+	 *            판단 대상
+	 * @param root
+	 *            조직도 최상위 여부
+	 */
+	public static LdapOrgType of(LdapNode node, boolean root) {
+
+		for (String objectClass : node.getValues("objectClass")) {
+			for (String personClass : PERSON_CLASSES) {
+				if (personClass.equalsIgnoreCase(objectClass)) {
+					return PERSON;
+				}
+			}
+		}
+		return root ? COMPANY : DEPARTMENT;
+	}
+}
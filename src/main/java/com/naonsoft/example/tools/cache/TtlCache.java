@@ -0,0 +1,255 @@
+/**
+ * FileName : TtlCache.java
+ * Created  : 2021. 3. 22.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 크기 제한과 만료 시간을 가지는 캐시
+ * <p>
+ * 최대 개수를 넘으면 가장 오래 사용하지 않은 항목부터 제거(LRU)하고, 만료된 항목은 조회 시 제거합니다.
+ * {@link #setMaxWeight(long, ToLongFunction)} 를 설정하면 항목 무게(byte 수 등)의 합도 제한합니다.
+ * 모든 메소드는 thread-safe 합니다.
+ *
+ * @author hokkk
+ * @param <K>
+ *            키 타입
+ * @param <V>
+ *            값 타입
+ */
+public class TtlCache<K, V> {
+
+	private final int maxSize;
+
+	private final long ttlNanos;
+
+	private final LongSupplier clock;
+
+	private final LinkedHashMap<K, CacheEntry<V>> map;
+
+	/** 항목 무게 계산 (null 이면 무게 제한 없음) */
+	private ToLongFunction<? super V> weigher;
+
+	private long maxWeight = Long.MAX_VALUE;
+
+	private long weight = 0;
+
+	private long hitCount = 0;
+
+	private long missCount = 0;
+
+	/**
+	 * TtlCache 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param maxSize
+	 *            최대 항목 수
+	 * @param ttl
+	 *            항목 유지 시간
+	 */
+	public TtlCache(int maxSize, Duration ttl) {
+
+		this(maxSize, ttl, System::nanoTime);
+	}
+
+	TtlCache(int maxSize, Duration ttl, LongSupplier clock) {
+
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize는 1 이상이어야 합니다. : " + maxSize);
+		}
+		if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("ttl이 올바르지 않습니다. : " + ttl);
+		}
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.clock = clock;
+		this.map = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+
+				if (this.size() > TtlCache.this.maxSize) {
+					TtlCache.this.weight -= eldest.getValue().weight;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public synchronized void clear() {
+
+		this.map.clear();
+		this.weight = 0;
+	}
+
+	/**
+	 * 캐시된 값을 반환합니다. 만료된 경우 제거 후 빈 값을 반환합니다.
+	 */
+	public synchronized Optional<V> get(K key) {
+
+		CacheEntry<V> entry = this.map.get(key);
+		if (entry == null) {
+			this.missCount++;
+			return Optional.empty();
+		}
+		if (entry.expireAt - this.clock.getAsLong() <= 0) {
+			this.removeEntry(key);
+			this.missCount++;
+			return Optional.empty();
+		}
+		this.hitCount++;
+		return Optional.of(entry.value);
+	}
+
+	/**
+	 * 캐시된 값을 반환하거나 없으면 loader로 읽어 저장합니다.<br>
+	 * loader는 잠금 밖에서 수행되므로 같은 키를 동시에 읽는 경우 여러번 수행될 수 있습니다.
+	 */
+	public V get(K key, Function<K, V> loader) {
+
+		Optional<V> cached = this.get(key);
+		if (cached.isPresent()) {
+			return cached.get();
+		}
+		V value = loader.apply(key);
+		if (value != null) {
+			this.put(key, value);
+		}
+		return value;
+	}
+
+	public synchronized long getHitCount() {
+
+		return this.hitCount;
+	}
+
+	public synchronized long getMissCount() {
+
+		return this.missCount;
+	}
+
+	/**
+	 * 저장된 항목 무게의 합 (무게 제한을 설정하지 않았으면 0)
+	 */
+	public synchronized long getWeight() {
+
+		return this.weight;
+	}
+
+	/**
+	 * 값을 저장합니다. 무게 제한이 있으면 제한 안으로 들 때까지 가장 오래 사용하지 않은 항목부터 제거합니다.<br>
+	 * 값 하나의 무게가 최대 무게를 넘으면 저장하지 않습니다.
+	 */
+	public synchronized void put(K key, V value) {
+
+		if (value == null) {
+			throw new NullPointerException("value is null");
+		}
+		long valueWeight = this.weigher == null ? 0 : this.weigher.applyAsLong(value);
+		this.removeEntry(key);
+		if (valueWeight > this.maxWeight) {
+			return;
+		}
+		this.map.put(key, new CacheEntry<>(value, this.clock.getAsLong() + this.ttlNanos, valueWeight));
+		this.weight += valueWeight;
+
+		Iterator<CacheEntry<V>> iterator = this.map.values().iterator();
+		while (this.weight > this.maxWeight && iterator.hasNext()) {
+			this.weight -= iterator.next().weight;
+			iterator.remove();
+		}
+	}
+
+	public synchronized void remove(K key) {
+
+		this.removeEntry(key);
+	}
+
+	private void removeEntry(K key) {
+
+		CacheEntry<V> removed = this.map.remove(key);
+		if (removed != null) {
+			this.weight -= removed.weight;
+		}
+	}
+
+	/**
+	 * 조건에 맞는 키를 모두 제거합니다.
+	 *
+	 * @return 제거된 개수
+	 */
+	public synchronized int removeIf(Predicate<K> predicate) {
+
+		int removed = 0;
+		Iterator<Map.Entry<K, CacheEntry<V>>> iterator = this.map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<K, CacheEntry<V>> entry = iterator.next();
+			if (predicate.test(entry.getKey())) {
+				this.weight -= entry.getValue().weight;
+				iterator.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * 항목 무게의 합을 제한합니다. 설정하면 저장된 항목을 모두 제거합니다.
+	 *
+	 * @param maxWeight
+	 *            최대 무게의 합
+	 * @param weigher
+	 *            항목 무게 계산 (byte 수 등)
+	 */
+	public synchronized void setMaxWeight(long maxWeight, ToLongFunction<? super V> weigher) {
+
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException("maxWeight는 1 이상이어야 합니다. : " + maxWeight);
+		}
+		if (weigher == null) {
+			throw new NullPointerException("weigher is null");
+		}
+		this.map.clear();
+		this.weight = 0;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	public synchronized int size() {
+
+		return this.map.size();
+	}
+
+	private static final class CacheEntry<V> {
+
+		private final V value;
+
+		private final long expireAt;
+
+		private final long weight;
+
+		CacheEntry(V value, long expireAt, long weight) {
+
+			this.value = value;
+			this.expireAt = expireAt;
+			this.weight = weight;
+		}
+	}
+}
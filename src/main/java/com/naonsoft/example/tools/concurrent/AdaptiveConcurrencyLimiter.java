@@ -0,0 +1,389 @@
+/**
+ * FileName : AdaptiveConcurrencyLimiter.java
+ * Created  : 2021. 3. 26.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.exception.OverloadError;
+
+/**
+ * 응답 시간 기반으로 동시 수행 개수를 조절하는 제한기 (AIMD)
+ * <p>
+ * 작업마다 응답 시간을 측정하여
+ * <ul>
+ * <li>타임아웃이 발생하거나 응답 시간이 기준 응답 시간 * tolerance 를 넘으면 limit 을 backoff 비율만큼 줄이고 (곱 감소)</li>
+ * <li>정상 응답이면 limit 을 1/limit 만큼 늘립니다. (limit 만큼 성공하면 1 증가, 합 증가)</li>
+ * </ul>
+ * 기준 응답 시간은 관측된 최소 응답 시간이며 서버 상태 변화를 반영하도록 천천히 따라 올라갑니다.
+ * 같은 혼잡으로 여러번 줄이지 않도록 마지막 감소 이전에 시작된 요청으로는 다시 줄이지 않습니다.
+ * limit 을 넘는 요청은 maxQueue 개까지 queueTimeout 동안 대기하고, 그 외에는 {@link OverloadError} 로 거절합니다.
+ *
+ * @author hokkk
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = this.lock.newCondition();
+
+	private final LongSupplier clock;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private double limit;
+
+	private int inFlight = 0;
+
+	private int queued = 0;
+
+	/** 최대 대기 개수 */
+	private int maxQueue = 1_000;
+
+	/** 최대 대기 시간 (ns) */
+	private long queueTimeoutNanos = TimeUnit.SECONDS.toNanos(30);
+
+	/** 감소 비율 */
+	private double backoffRatio = 0.75;
+
+	/** 기준 응답 시간 대비 허용 배수 */
+	private double tolerance = 2.0;
+
+	/** 기준 응답 시간 (ns, 측정 전 0) */
+	private double baselineRtt = 0;
+
+	/** 최근 타임아웃 비율 (지수 이동 평균) */
+	private double timeoutRate = 0;
+
+	private long rejectedCount = 0;
+
+	/** 마지막으로 limit 을 줄인 시각 (ns) */
+	private long lastDecreaseNanos;
+
+	/**
+	 * AdaptiveConcurrencyLimiter 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param initialLimit
+	 *            최초 동시 수행 개수
+	 * @param minLimit
+	 *            최소 동시 수행 개수
+	 * @param maxLimit
+	 *            최대 동시 수행 개수
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+
+		this(initialLimit, minLimit, maxLimit, System::nanoTime);
+	}
+
+	AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, LongSupplier clock) {
+
+		if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("limit 설정이 올바르지 않습니다. : " + minLimit + " <= " + initialLimit
+					+ " <= " + maxLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+		this.clock = clock;
+		this.lastDecreaseNanos = clock.getAsLong();
+	}
+
+	/**
+	 * 수행 허가를 받습니다. 허가를 받은 후에는 반드시 {@link Permit} 의 메소드 중 하나를 호출해야 합니다.
+	 *
+	 * @throws OverloadError
+	 *             대기열이 가득 찼거나 대기 시간을 넘은 경우
+	 */
+	public Permit acquire() {
+
+		return this.acquire(Deadline.none());
+	}
+
+	/**
+	 * 제한 시각까지 수행 허가를 받습니다. 대기 시간은 queueTimeout 과 남은 시간 중 작은 값입니다.
+	 *
+	 * @throws OverloadError
+	 *             대기열이 가득 찼거나 queueTimeout 을 넘은 경우
+	 * @throws DeadlineExceededError
+	 *             허가를 받기 전에 제한 시각이 지난 경우
+	 */
+	public Permit acquire(Deadline deadline) {
+
+		this.lock.lock();
+		try {
+			if (this.inFlight < this.currentLimit()) {
+				this.inFlight++;
+				return new Permit(this.clock.getAsLong());
+			}
+			if (this.queued >= this.maxQueue) {
+				this.rejectedCount++;
+				throw new OverloadError("LDAP 요청이 너무 많아 거절합니다. (대기 " + this.queued + "건)");
+			}
+
+			this.queued++;
+			try {
+				boolean byDeadline = deadline.remainingNanos() < this.queueTimeoutNanos;
+				long remain = Math.min(this.queueTimeoutNanos, deadline.remainingNanos());
+				while (this.inFlight >= this.currentLimit()) {
+					if (remain <= 0) {
+						if (byDeadline) {
+							throw new DeadlineExceededError("LDAP 요청 대기 중 제한 시간을 초과하였습니다.");
+						}
+						this.rejectedCount++;
+						throw new OverloadError("LDAP 요청 대기 시간을 초과하였습니다.");
+					}
+					remain = this.available.awaitNanos(remain);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new LogicError(e);
+			} finally {
+				this.queued--;
+			}
+			this.inFlight++;
+			return new Permit(this.clock.getAsLong());
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private int currentLimit() {
+
+		return (int) this.limit;
+	}
+
+	public int getInFlight() {
+
+		this.lock.lock();
+		try {
+			return this.inFlight;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public int getLimit() {
+
+		this.lock.lock();
+		try {
+			return this.currentLimit();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public int getQueued() {
+
+		this.lock.lock();
+		try {
+			return this.queued;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public long getRejectedCount() {
+
+		this.lock.lock();
+		try {
+			return this.rejectedCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public double getTimeoutRate() {
+
+		this.lock.lock();
+		try {
+			return this.timeoutRate;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void decrease(long now, long rtt) {
+
+		// 마지막 감소 이전에 시작된 요청
+		if (now - this.lastDecreaseNanos < rtt) {
+			return;
+		}
+		this.lastDecreaseNanos = now;
+		this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+	}
+
+	private void onComplete(long startNanos, long respondedNanos, Outcome outcome) {
+
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			long now = this.clock.getAsLong();
+			long elapsed = now - startNanos;
+			// 첫 응답을 기록한 경우 응답 시간은 첫 응답까지의 시간이다.
+			long rtt = respondedNanos == 0 ? elapsed : respondedNanos - startNanos;
+
+			if (outcome == Outcome.DROPPED) {
+				this.timeoutRate = this.timeoutRate * 0.9 + 0.1;
+				this.decrease(now, elapsed);
+			} else if (outcome == Outcome.SUCCESS) {
+				this.timeoutRate = this.timeoutRate * 0.9;
+				if (this.baselineRtt == 0 || rtt < this.baselineRtt) {
+					this.baselineRtt = rtt;
+				} else {
+					// 서버 상태가 바뀐 경우를 반영하도록 기준 응답 시간을 천천히 올린다.
+					this.baselineRtt = this.baselineRtt * 0.99 + rtt * 0.01;
+				}
+
+				if (rtt > this.baselineRtt * this.tolerance) {
+					this.decrease(now, elapsed);
+				} else if (this.inFlight * 2 >= this.currentLimit()) {
+					// 충분히 사용중일 때만 늘린다.
+					this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+				}
+			}
+			this.available.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 응답 시간 기준 감소 비율 (0~1, 기본 0.75)
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("backoffRatio는 0과 1 사이여야 합니다. : " + backoffRatio);
+		}
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * 최대 대기 개수 (기본 1,000)
+	 */
+	public void setMaxQueue(int maxQueue) {
+
+		this.maxQueue = maxQueue;
+	}
+
+	/**
+	 * 최대 대기 시간 (기본 30초)
+	 */
+	public void setQueueTimeout(Duration queueTimeout) {
+
+		this.queueTimeoutNanos = queueTimeout.toNanos();
+	}
+
+	/**
+	 * 기준 응답 시간 대비 허용 배수 (기본 2.0)
+	 */
+	public void setTolerance(double tolerance) {
+
+		if (tolerance < 1) {
+			throw new IllegalArgumentException("tolerance는 1 이상이어야 합니다. : " + tolerance);
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		this.lock.lock();
+		try {
+			return "limit=" + this.currentLimit() + " inFlight=" + this.inFlight + " queued=" + this.queued
+					+ " baselineRtt=" + TimeUnit.NANOSECONDS.toMillis((long) this.baselineRtt) + "ms"
+					+ " timeoutRate=" + String.format("%.2f", this.timeoutRate);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private enum Outcome {
+		/** 정상 응답 (응답 시간 반영) */
+		SUCCESS,
+		/** 타임아웃 등 과부하로 인한 실패 */
+		DROPPED,
+		/** 부하와 무관한 실패 (응답 시간 미반영) */
+		IGNORED
+	}
+
+	/**
+	 * 수행 허가. success, dropped, release 중 처음 호출된 것만 반영됩니다.<br>
+	 * 결과를 나눠 받는 작업은 첫 응답에서 {@link #responded()} 를 호출하고, 허가는 작업이 끝날 때 반납합니다.
+	 */
+	public final class Permit {
+
+		private final long startNanos;
+
+		/** 첫 응답을 받은 시각 (ns, 기록 전 0) */
+		private long respondedNanos = 0;
+
+		private boolean released = false;
+
+		Permit(long startNanos) {
+
+			this.startNanos = startNanos;
+		}
+
+		private void complete(Outcome outcome) {
+
+			if (this.released) {
+				return;
+			}
+			this.released = true;
+			AdaptiveConcurrencyLimiter.this.onComplete(this.startNanos, this.respondedNanos, outcome);
+		}
+
+		/**
+		 * 타임아웃 등 과부하로 실패한 경우
+		 */
+		public void dropped() {
+
+			this.complete(Outcome.DROPPED);
+		}
+
+		/**
+		 * 첫 응답을 받은 시각을 기록합니다. 허가는 반납하지 않으며, 성공 시 이 시각까지를 응답 시간으로 반영합니다.
+		 */
+		public void responded() {
+
+			if (this.released || this.respondedNanos != 0) {
+				return;
+			}
+			this.respondedNanos = AdaptiveConcurrencyLimiter.this.clock.getAsLong();
+		}
+
+		/**
+		 * 응답 시간과 무관하게 반납 (이미 반납한 경우 무시)
+		 */
+		public void release() {
+
+			this.complete(Outcome.IGNORED);
+		}
+
+		/**
+		 * 정상 응답한 경우
+		 */
+		public void success() {
+
+			this.complete(Outcome.SUCCESS);
+		}
+	}
+}
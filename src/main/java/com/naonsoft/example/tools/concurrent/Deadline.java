@@ -0,0 +1,112 @@
+/**
+ * FileName : Deadline.java
+ * Created  : 2021. 3. 29.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+
+/**
+ * 작업 제한 시각
+ * <p>
+ * 작업을 시작할 때 만들어 재시도를 포함한 하위 작업에 그대로 전달하며, 하위 작업은 남은 시간만큼만 사용합니다.
+ *
+ * @author hokkk
+ */
+public final class Deadline {
+
+	private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+	/** 제한 시각 (System.nanoTime 기준, 제한이 없으면 Long.MAX_VALUE) */
+	private final long deadlineNanos;
+
+	private Deadline(long deadlineNanos) {
+
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	/**
+	 * 지금부터 timeout 후를 제한 시각으로 합니다.
+	 */
+	public static Deadline after(Duration timeout) {
+
+		if (timeout == null) {
+			return NONE;
+		}
+		return new Deadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * 제한 없음
+	 */
+	public static Deadline none() {
+
+		return NONE;
+	}
+
+	/**
+	 * 제한 시각이 지났으면 예외를 발생합니다.
+	 *
+	 * @param operation
+	 *            오류 메세지에 사용할 작업명
+	 */
+	public void check(String operation) {
+
+		if (this.isExpired()) {
+			throw new DeadlineExceededError("제한 시간을 초과하였습니다 : " + operation);
+		}
+	}
+
+	public boolean isExpired() {
+
+		return this != NONE && this.remainingNanos() <= 0;
+	}
+
+	public boolean isNone() {
+
+		return this == NONE;
+	}
+
+	/**
+	 * 남은 시간과 limit 중 작은 값 (ms, 최소 1)
+	 */
+	public long remainingMillis(long limitMillis) {
+
+		if (this == NONE) {
+			return limitMillis;
+		}
+		long remain = TimeUnit.NANOSECONDS.toMillis(this.remainingNanos());
+		return Math.max(1, Math.min(remain, limitMillis));
+	}
+
+	/**
+	 * 남은 시간 (ns, 제한이 없으면 Long.MAX_VALUE)
+	 */
+	public long remainingNanos() {
+
+		if (this == NONE) {
+			return Long.MAX_VALUE;
+		}
+		return this.deadlineNanos - System.nanoTime();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		if (this == NONE) {
+			return "Deadline[none]";
+		}
+		return "Deadline[" + TimeUnit.NANOSECONDS.toMillis(this.remainingNanos()) + "ms]";
+	}
+}
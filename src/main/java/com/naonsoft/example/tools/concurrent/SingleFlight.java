@@ -0,0 +1,162 @@
+/**
+ * FileName : SingleFlight.java
+ * Created  : 2021. 3. 25.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LogicError;
+
+/**
+ * 같은 키의 작업이 동시에 요청되면 한번만 수행하고 결과를 공유합니다.
+ * <p>
+ * 먼저 요청한 스레드가 작업을 수행하고, 수행 중에 들어온 같은 키의 요청은 그 결과(또는 예외)를 기다려 받습니다.
+ * 작업이 끝나면 키를 제거하므로 결과를 캐시하지는 않습니다.<br>
+ * 변경 가능한 결과는 복사 함수를 지정하면, 기다린 요청은 복사본을 받고 수행한 요청은 기다린 요청이 없을 때만 원본을 받습니다.
+ *
+ * @author hokkk
+ * @param <K>
+ *            키 타입
+ * @param <V>
+ *            결과 타입
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+	/** 다른 요청의 결과를 공유받은 횟수 */
+	private final AtomicLong sharedCount = new AtomicLong();
+
+	private static <V> V await(CompletableFuture<V> future, Deadline deadline) {
+
+		try {
+			if (deadline.isNone()) {
+				return future.get();
+			}
+			return future.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededError("수행 중인 같은 작업을 기다리다 제한 시간을 초과하였습니다.", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LogicError(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new LogicError(cause);
+		}
+	}
+
+	/**
+	 * 작업을 수행하거나, 같은 키의 작업이 수행 중이면 그 결과를 기다립니다.<br>
+	 * 작업 내부에서 같은 키로 다시 호출하면 교착 상태가 되므로 재시도는 작업 내부에서 직접 처리해야 합니다.
+	 */
+	public V execute(K key, Supplier<V> supplier) {
+
+		return this.execute(key, supplier, Deadline.none());
+	}
+
+	/**
+	 * 작업을 수행하거나, 같은 키의 작업이 수행 중이면 제한 시각까지 그 결과를 기다립니다.
+	 */
+	public V execute(K key, Supplier<V> supplier, Deadline deadline) {
+
+		return this.execute(key, supplier, deadline, UnaryOperator.identity());
+	}
+
+	/**
+	 * 작업을 수행하거나, 같은 키의 작업이 수행 중이면 제한 시각까지 그 결과의 복사본을 받습니다.<br>
+	 * 수행한 요청은 기다린 요청이 있었으면 복사본을, 없었으면 원본을 받습니다. (복사하는 동안 원본은 변경되지 않음)
+	 */
+	public V execute(K key, Supplier<V> supplier, Deadline deadline, UnaryOperator<V> copier) {
+
+		Flight<V> created = new Flight<>();
+		for (;;) {
+			Flight<V> existing = this.inFlight.putIfAbsent(key, created);
+			if (existing == null) {
+				break;
+			}
+			if (existing.join()) {
+				this.sharedCount.incrementAndGet();
+				return copier.apply(await(existing.future, deadline));
+			}
+			// 이미 끝나 결과를 넘긴 작업이면 제거될 때까지 기다리지 않고 다시 시도한다.
+			this.inFlight.remove(key, existing);
+		}
+
+		V value;
+		try {
+			value = supplier.get();
+			created.future.complete(value);
+		} catch (RuntimeException | Error e) {
+			created.future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.inFlight.remove(key, created);
+		}
+		return created.seal() > 0 ? copier.apply(value) : value;
+	}
+
+	public int getInFlightCount() {
+
+		return this.inFlight.size();
+	}
+
+	public long getSharedCount() {
+
+		return this.sharedCount.get();
+	}
+
+	/**
+	 * 수행 중인 작업과 결과를 기다리는 요청 수 (결과를 넘긴 후에는 -1)
+	 */
+	private static final class Flight<V> {
+
+		private final CompletableFuture<V> future = new CompletableFuture<>();
+
+		private final AtomicInteger joined = new AtomicInteger();
+
+		/**
+		 * 결과를 기다리는 요청으로 등록합니다. 이미 결과를 넘긴 작업이면 false
+		 */
+		boolean join() {
+
+			for (;;) {
+				int current = this.joined.get();
+				if (current < 0) {
+					return false;
+				}
+				if (this.joined.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * 더 이상 기다리는 요청을 받지 않고, 등록된 요청 수를 반환합니다.
+		 */
+		int seal() {
+
+			return this.joined.getAndSet(-1);
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * FileName : LdapExportFormat.java
+ * Created  : 2021. 3. 31.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.export;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.naonsoft.example.tools.ldap.LdapNode;
+
+/**
+ * 내보내기 형식
+ * <p>
+ * 속성을 지정하지 않으면 항목의 전체 속성을 이름순으로 출력합니다. binary 속성은 Base64 로 출력합니다.
+ *
+ * @author hokkk
+ */
+public enum LdapExportFormat {
+
+	/** LDIF (RFC 2849) */
+	LDIF("ldif") {
+
+		@Override
+		void appendHeader(List<String> attributes, StringBuilder out) {
+
+			out.append("version: 1\n\n");
+		}
+
+		@Override
+		void appendEntry(LdapNode node, List<String> attributes, StringBuilder out) {
+
+			appendLdifLine(out, "dn", node.getDn().toString());
+			for (String attributeId : attributeIds(node, attributes)) {
+				for (String value : node.getValues(attributeId)) {
+					appendLdifLine(out, attributeId, value);
+				}
+				for (byte[] value : node.getByteValues(attributeId)) {
+					appendLdifFolded(out, attributeId + ":: " + Base64.getEncoder().encodeToString(value));
+				}
+			}
+			out.append('\n');
+		}
+	},
+
+	/** 한 줄에 항목 하나씩 JSON 객체 ({"dn":"...","cn":["..."]}) */
+	JSON_LINES("jsonl") {
+
+		@Override
+		void appendHeader(List<String> attributes, StringBuilder out) {
+
+			// 헤더 없음
+		}
+
+		@Override
+		void appendEntry(LdapNode node, List<String> attributes, StringBuilder out) {
+
+			out.append("{\"dn\":");
+			appendJsonString(out, node.getDn().toString());
+			for (String attributeId : attributeIds(node, attributes)) {
+				List<String> values = allValues(node, attributeId);
+				if (values.isEmpty()) {
+					continue;
+				}
+				out.append(',');
+				appendJsonString(out, attributeId);
+				out.append(":[");
+				for (int i = 0; i < values.size(); i++) {
+					if (i > 0) {
+						out.append(',');
+					}
+					appendJsonString(out, values.get(i));
+				}
+				out.append(']');
+			}
+			out.append("}\n");
+		}
+	},
+
+	/** CSV (RFC 4180, 첫 열은 dn, 여러 값은 '|' 로 연결, 속성 지정 필수) */
+	CSV("csv") {
+
+		@Override
+		void appendHeader(List<String> attributes, StringBuilder out) {
+
+			out.append("dn");
+			for (String attributeId : attributes) {
+				out.append(',');
+				appendCsvField(out, attributeId);
+			}
+			out.append("\r\n");
+		}
+
+		@Override
+		void appendEntry(LdapNode node, List<String> attributes, StringBuilder out) {
+
+			appendCsvField(out, node.getDn().toString());
+			for (String attributeId : attributes) {
+				out.append(',');
+				appendCsvField(out, String.join("|", allValues(node, attributeId)));
+			}
+			out.append("\r\n");
+		}
+	};
+
+	/** LDIF 한 줄 최대 길이 */
+	private static final int LDIF_LINE_LENGTH = 76;
+
+	private final String extension;
+
+	LdapExportFormat(String extension) {
+
+		this.extension = extension;
+	}
+
+	private static void appendCsvField(StringBuilder out, String value) {
+
+		boolean quote = false;
+		for (int i = 0; i < value.length() && quote == false; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+		}
+		if (quote == false) {
+			out.append(value);
+			return;
+		}
+		out.append('"').append(value.replace("\"", "\"\"")).append('"');
+	}
+
+	private static void appendJsonString(StringBuilder out, String value) {
+
+		out.append('"').append(JsonStringEncoder.getInstance().quoteAsString(value)).append('"');
+	}
+
+	/**
+	 * 안전한 문자열(SAFE-STRING)이 아니면 Base64 로 출력합니다.
+	 */
+	private static void appendLdifLine(StringBuilder out, String attributeId, String value) {
+
+		if (isLdifSafe(value)) {
+			appendLdifFolded(out, attributeId + ": " + value);
+		} else {
+			appendLdifFolded(out, attributeId + ":: "
+					+ Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+
+	/**
+	 * 76자를 넘는 줄은 공백으로 시작하는 다음 줄로 이어서 출력합니다.
+	 */
+	private static void appendLdifFolded(StringBuilder out, String line) {
+
+		if (line.length() <= LDIF_LINE_LENGTH) {
+			out.append(line).append('\n');
+			return;
+		}
+		out.append(line, 0, LDIF_LINE_LENGTH).append('\n');
+		for (int start = LDIF_LINE_LENGTH; start < line.length(); start += LDIF_LINE_LENGTH - 1) {
+			int end = Math.min(line.length(), start + LDIF_LINE_LENGTH - 1);
+			out.append(' ').append(line, start, end).append('\n');
+		}
+	}
+
+	/**
+	 * 출력할 속성 목록 (지정하지 않으면 전체 속성을 대소문자 무시 이름순으로)
+	 */
+	private static List<String> attributeIds(LdapNode node, List<String> attributes) {
+
+		if (attributes.isEmpty() == false) {
+			return attributes;
+		}
+		List<String> result = new ArrayList<>(node.keySet());
+		result.sort(String.CASE_INSENSITIVE_ORDER);
+		return result;
+	}
+
+	private static boolean isLdifSafe(String value) {
+
+		if (value.isEmpty()) {
+			return true;
+		}
+		char first = value.charAt(0);
+		if (first == ' ' || first == ':' || first == '<' || value.charAt(value.length() - 1) == ' ') {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == 0 || c == '\n' || c == '\r' || c > 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 문자열 값과 binary 값(Base64)을 합친 목록
+	 */
+	private static List<String> allValues(LdapNode node, String attributeId) {
+
+		List<byte[]> bytes = node.getByteValues(attributeId);
+		if (bytes.isEmpty()) {
+			return node.getValues(attributeId);
+		}
+		List<String> result = new ArrayList<>(node.getValues(attributeId));
+		for (byte[] value : bytes) {
+			result.add(Base64.getEncoder().encodeToString(value));
+		}
+		return result;
+	}
+
+	/**
+	 * 파일 확장자를 반환합니다.
+	 */
+	public String getExtension() {
+
+		return this.extension;
+	}
+
+	/**
+	 * 파일 처음에 한번 출력할 내용
+	 */
+	abstract void appendHeader(List<String> attributes, StringBuilder out);
+
+	/**
+	 * 항목 하나를 출력합니다.
+	 */
+	abstract void appendEntry(LdapNode node, List<String> attributes, StringBuilder out);
+}
@@ -0,0 +1,352 @@
+/**
+ * FileName : LdapExporter.java
+ * Created  : 2021. 3. 31.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapService;
+
+/**
+ * 하위 트리를 LDIF, JSON Lines, CSV 로 내보냅니다.
+ * <p>
+ * 트리 전체를 메모리에 올리지 않고 두 단계로 나누어 처리합니다.
+ * <ul>
+ * <li>읽기 : 실행기 스레드에서 페이지 단위로 검색하고 {@link LdapNode} 로 변환하여 묶음 단위로 큐에 넣습니다.</li>
+ * <li>쓰기 : 호출 스레드에서 큐의 항목을 형식에 맞게 UTF-8 로 인코딩하여 버퍼를 거쳐 채널에 씁니다.</li>
+ * </ul>
+ * 큐의 크기가 제한되어 있으므로 쓰기가 느리면 읽기가 대기하며, 메모리 사용량은 결과 개수와 무관합니다.
+ *
+ * @author hokkk
+ */
+public class LdapExporter {
+
+	private static final String ALL_SEARCH_FILTER = "(objectClass=*)";
+
+	/** 읽기 종료 표시 */
+	private static final List<LdapNode> END = Collections.emptyList();
+
+	private final LdapService service;
+
+	private final Executor executor;
+
+	/** 검색 페이지 크기 */
+	private int pageSize = 1_000;
+
+	/** 큐에 한번에 넣는 항목 수 */
+	private int batchSize = 256;
+
+	/** 큐에 대기할 수 있는 최대 묶음 수 */
+	private int queueCapacity = 16;
+
+	/** 쓰기 버퍼 크기 (byte) */
+	private int bufferSize = 64 * 1024;
+
+	/** 내보내기 제한 시간 (null 이면 제한 없음) */
+	private Duration timeout;
+
+	/**
+	 * {@link LdapExporter} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param service
+	 *            조회 서비스
+	 * @param executor
+	 *            읽기 단계를 수행할 실행기
+	 */
+	public LdapExporter(LdapService service, Executor executor) {
+
+		if (service == null) {
+			throw new NullPointerException("LdapService service is null");
+		}
+		if (executor == null) {
+			throw new NullPointerException("Executor executor is null");
+		}
+		this.service = service;
+		this.executor = executor;
+	}
+
+	/**
+	 * 하위 트리를 스트림으로 내보냅니다. 스트림은 닫지 않습니다.
+	 *
+	 * @param attributes
+	 *            출력할 속성 (null 이거나 비어있으면 전체, CSV 는 필수)
+	 * @param gzip
+	 *            gzip 압축 여부
+	 * @return 내보낸 항목 수
+	 */
+	public long export(LdapName base, LdapExportFormat format, List<String> attributes, OutputStream out,
+			boolean gzip) {
+
+		try {
+			if (gzip) {
+				GZIPOutputStream gzipOut = new GZIPOutputStream(out, this.bufferSize);
+				long count = this.export(base, format, attributes, Channels.newChannel(gzipOut));
+				gzipOut.finish();
+				return count;
+			}
+			long count = this.export(base, format, attributes, Channels.newChannel(out));
+			out.flush();
+			return count;
+		} catch (IOException e) {
+			throw new LogicError("내보내기 실패 : " + base, e);
+		}
+	}
+
+	/**
+	 * 하위 트리를 파일로 내보냅니다. 파일이 있으면 덮어씁니다.
+	 *
+	 * @param attributes
+	 *            출력할 속성 (null 이거나 비어있으면 전체, CSV 는 필수)
+	 * @param gzip
+	 *            gzip 압축 여부
+	 * @return 내보낸 항목 수
+	 */
+	public long export(LdapName base, LdapExportFormat format, List<String> attributes, Path file, boolean gzip) {
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			if (gzip) {
+				try (GZIPOutputStream gzipOut = new GZIPOutputStream(Channels.newOutputStream(channel),
+						this.bufferSize)) {
+					return this.export(base, format, attributes, Channels.newChannel(gzipOut));
+				}
+			}
+			return this.export(base, format, attributes, channel);
+		} catch (IOException e) {
+			throw new LogicError("내보내기 실패 : " + file, e);
+		}
+	}
+
+	private long export(LdapName base, LdapExportFormat format, List<String> requested,
+			WritableByteChannel channel) throws IOException {
+
+		List<String> attributes = requested == null ? Collections.emptyList() : requested;
+		if (format == LdapExportFormat.CSV && attributes.isEmpty()) {
+			throw new IllegalArgumentException("CSV 는 출력할 속성을 지정해야 합니다.");
+		}
+
+		ReadStage reader = new ReadStage(base, attributes, Deadline.after(this.timeout));
+		this.executor.execute(reader);
+
+		ChannelWriter writer = new ChannelWriter(channel, this.bufferSize);
+		StringBuilder text = new StringBuilder(1024);
+		long count = 0;
+		try {
+			format.appendHeader(attributes, text);
+			writer.write(text);
+			while (true) {
+				List<LdapNode> batch = reader.queue.take();
+				if (batch == END) {
+					break;
+				}
+				for (LdapNode node : batch) {
+					text.setLength(0);
+					format.appendEntry(node, attributes, text);
+					writer.write(text);
+					count++;
+				}
+			}
+			writer.flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LogicError("내보내기가 중단되었습니다 : " + base, e);
+		} finally {
+			// 쓰기가 실패한 경우 읽기 단계도 중단한다.
+			reader.cancelled = true;
+		}
+
+		RuntimeException failure = reader.failure.get();
+		if (failure != null) {
+			throw failure;
+		}
+		return count;
+	}
+
+	public void setBatchSize(int batchSize) {
+
+		this.batchSize = batchSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+
+		this.bufferSize = bufferSize;
+	}
+
+	public void setPageSize(int pageSize) {
+
+		this.pageSize = pageSize;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * 내보내기 제한 시간을 설정합니다. (null 이면 제한 없음)
+	 */
+	public void setTimeout(Duration timeout) {
+
+		this.timeout = timeout;
+	}
+
+	/**
+	 * 읽기 단계 : 검색 결과를 묶음 단위로 큐에 넣습니다.
+	 */
+	private final class ReadStage implements Runnable {
+
+		private final BlockingQueue<List<LdapNode>> queue = new ArrayBlockingQueue<>(
+				LdapExporter.this.queueCapacity);
+
+		private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+		private final LdapName base;
+
+		private final String[] attributes;
+
+		private final Deadline deadline;
+
+		private volatile boolean cancelled = false;
+
+		private List<LdapNode> batch = new ArrayList<>(LdapExporter.this.batchSize);
+
+		ReadStage(LdapName base, List<String> attributes, Deadline deadline) {
+
+			this.base = base;
+			this.attributes = attributes.isEmpty() ? null : attributes.toArray(new String[0]);
+			this.deadline = deadline;
+		}
+
+		private void accept(LdapNode node) {
+
+			this.batch.add(node);
+			if (this.batch.size() >= LdapExporter.this.batchSize) {
+				this.handOff(this.batch);
+				this.batch = new ArrayList<>(LdapExporter.this.batchSize);
+			}
+		}
+
+		/**
+		 * 큐에 넣습니다. 쓰기 단계가 종료된 경우 대기하지 않고 중단합니다.
+		 */
+		private void handOff(List<LdapNode> nodes) {
+
+			try {
+				while (this.queue.offer(nodes, 100, TimeUnit.MILLISECONDS) == false) {
+					if (this.cancelled) {
+						throw new CancellationException("내보내기 쓰기가 종료되었습니다.");
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("내보내기 읽기가 중단되었습니다.");
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+
+			try {
+				LdapExporter.this.service.searchPaged(this.base, SearchControls.SUBTREE_SCOPE, ALL_SEARCH_FILTER,
+						this.attributes, LdapExporter.this.pageSize, this.deadline, this::accept);
+				if (this.batch.isEmpty() == false) {
+					this.handOff(this.batch);
+				}
+			} catch (RuntimeException e) {
+				this.failure.set(e);
+			} finally {
+				try {
+					this.handOff(END);
+				} catch (CancellationException e) {
+					// 쓰기 단계가 이미 종료됨
+				}
+			}
+		}
+	}
+
+	/**
+	 * 쓰기 단계 : 문자열을 UTF-8 로 버퍼에 인코딩하고, 버퍼가 차면 채널에 씁니다.
+	 */
+	private static final class ChannelWriter {
+
+		private final WritableByteChannel channel;
+
+		private final ByteBuffer buffer;
+
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		ChannelWriter(WritableByteChannel channel, int bufferSize) {
+
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		private void drain() throws IOException {
+
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		void flush() throws IOException {
+
+			this.drain();
+		}
+
+		void write(CharSequence text) throws IOException {
+
+			CharBuffer chars = CharBuffer.wrap(text);
+			CoderResult result = this.encoder.encode(chars, this.buffer, true);
+			while (result.isOverflow()) {
+				this.drain();
+				result = this.encoder.encode(chars, this.buffer, true);
+			}
+			while (this.encoder.flush(this.buffer).isOverflow()) {
+				this.drain();
+			}
+			this.encoder.reset();
+		}
+	}
+}
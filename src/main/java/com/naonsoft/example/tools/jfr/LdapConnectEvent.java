@@ -0,0 +1,60 @@
+/**
+ * FileName : LdapConnectEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * LDAP 연결과 인증(bind) JFR 이벤트
+ * <p>
+ * JNDI 연결 풀에서 재사용되는 연결은 짧게 끝나므로 임계 시간을 넘는 실제 연결 위주로 기록됩니다.
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.ldap.Connect")
+@Label("LDAP Connect")
+@Category("LDAP")
+@Description("LDAP 연결 및 인증(bind)")
+@Threshold("10 ms")
+public class LdapConnectEvent extends Event {
+
+	@Label("URL")
+	private String url;
+
+	@Label("Authentication")
+	private String authentication;
+
+	@Label("Pooled")
+	private boolean pooled;
+
+	@Label("Success")
+	private boolean success;
+
+	/**
+	 * 종료 시각을 기록하고 임계 시간을 넘었으면 연결 정보를 담아 기록합니다.
+	 */
+	public void finish(String url, String authentication, boolean pooled, boolean success) {
+
+		this.end();
+		if (this.shouldCommit()) {
+			this.url = url;
+			this.authentication = authentication;
+			this.pooled = pooled;
+			this.success = success;
+			this.commit();
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * FileName : LdapDecodeEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 항목 하나의 속성 디코딩 JFR 이벤트
+ * <p>
+ * 항목마다 발생하므로 스택은 기록하지 않고, 임계 시간을 넘는 큰 항목만 기록합니다.
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.ldap.Decode")
+@Label("LDAP Attribute Decode")
+@Category("LDAP")
+@Description("서버 응답 속성을 LdapAttribute 로 변환")
+@Threshold("1 ms")
+@StackTrace(false)
+public class LdapDecodeEvent extends Event {
+
+	@Label("Attribute Count")
+	private int attributeCount;
+
+	@Label("Value Count")
+	private int valueCount;
+
+	@Label("Binary Value Count")
+	private int binaryValueCount;
+
+	/**
+	 * 종료 시각을 기록하고 임계 시간을 넘었으면 변환 결과의 크기를 담아 기록합니다.
+	 *
+	 * @param values
+	 *            문자열 속성 - 값 목록
+	 * @param binaryValues
+	 *            바이너리 속성 - 값 목록
+	 */
+	public void finish(Map<String, ? extends List<?>> values, Map<String, ? extends List<?>> binaryValues) {
+
+		this.end();
+		if (this.shouldCommit()) {
+			this.attributeCount = values.size();
+			for (List<?> list : values.values()) {
+				this.valueCount += list.size();
+			}
+			for (List<?> list : binaryValues.values()) {
+				this.binaryValueCount += list.size();
+			}
+			this.commit();
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ * FileName : LdapReconnectEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * LDAP 재연결 JFR 이벤트
+ * <p>
+ * 재연결 전 대기 시간을 기간으로 기록합니다. 드물게 발생하므로 임계 시간 없이 모두 기록합니다.
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.ldap.Reconnect")
+@Label("LDAP Reconnect")
+@Category("LDAP")
+@Description("시간 초과 후 재연결 대기")
+public class LdapReconnectEvent extends Event {
+
+	@Label("Reconnect Count")
+	@Description("스레드의 연속 재연결 횟수")
+	private int reconnectCount;
+
+	@Label("Sleep Time")
+	@Timespan(Timespan.MILLISECONDS)
+	private long sleepTime;
+
+	/**
+	 * 종료 시각을 기록하고 재연결 횟수와 대기 시간을 담아 기록합니다.
+	 */
+	public void finish(int reconnectCount, long sleepTime) {
+
+		this.end();
+		if (this.shouldCommit()) {
+			this.reconnectCount = reconnectCount;
+			this.sleepTime = sleepTime;
+			this.commit();
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * FileName : LdapRetryEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * LDAP 작업 재시도 JFR 이벤트
+ * <p>
+ * 시간 초과로 실패한 시도마다 기록합니다. (기간 없음)
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.ldap.Retry")
+@Label("LDAP Retry")
+@Category("LDAP")
+@Description("시간 초과로 실패한 LDAP 작업 시도")
+public class LdapRetryEvent extends Event {
+
+	@Label("Operation")
+	private String operation;
+
+	@Label("Attempt")
+	@Description("실패한 시도 순번 (0 부터)")
+	private int attempt;
+
+	@Label("Retry Limit")
+	private int retryLimit;
+
+	@Label("Given Up")
+	@Description("더 이상 재시도하지 않고 실패한 경우")
+	private boolean givenUp;
+
+	@Label("Message")
+	private String message;
+
+	/**
+	 * 실패한 시도를 기록합니다. (이벤트가 꺼져 있으면 아무것도 하지 않음)
+	 */
+	public static void record(String operation, int attempt, int retryLimit, Throwable cause) {
+
+		LdapRetryEvent event = new LdapRetryEvent();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.attempt = attempt;
+			event.retryLimit = retryLimit;
+			event.givenUp = attempt >= retryLimit;
+			event.message = cause.getMessage();
+			event.commit();
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/**
+ * FileName : LdapSearchEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * LDAP 검색 JFR 이벤트
+ * <p>
+ * 요청부터 결과를 모두 전달할 때까지를 기록합니다. 기록 중이 아니면 {@link #counting(Consumer, ToLongFunction)} 가
+ * 소비자를 감싸지 않고 그대로 반환하므로 항목 수와 크기를 세지 않습니다. 검색 조건 문자열은 임계 시간을 넘어 기록할 때만
+ * 만듭니다.
+ *
+ * <pre>
+ * LdapSearchEvent event = new LdapSearchEvent();
+ * event.begin();
+ * backend.search(base, scope, filter, attributes, deadline, event.counting(consumer, LdapNode::estimateBytes));
+ * event.finish("jndi", base, scope, filter, false);
+ * </pre>
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.ldap.Search")
+@Label("LDAP Search")
+@Category("LDAP")
+@Description("LDAP 검색 요청부터 결과를 모두 읽을 때까지")
+@Threshold("20 ms")
+public class LdapSearchEvent extends Event {
+
+	@Label("Backend")
+	private String backend;
+
+	@Label("Base")
+	private String base;
+
+	@Label("Scope")
+	private String scope;
+
+	@Label("Filter")
+	private String filter;
+
+	@Label("Paged")
+	private boolean paged;
+
+	@Label("Entry Count")
+	private long entryCount;
+
+	@Label("Bytes")
+	@Description("항목의 추정 크기 합계")
+	@DataAmount
+	private long bytes;
+
+	private static String toScope(int scope) {
+
+		switch (scope) {
+		case SearchControls.OBJECT_SCOPE:
+			return "base";
+		case SearchControls.ONELEVEL_SCOPE:
+			return "one";
+		case SearchControls.SUBTREE_SCOPE:
+			return "sub";
+		default:
+			return String.valueOf(scope);
+		}
+	}
+
+	/**
+	 * 항목 수와 크기를 세는 소비자를 반환합니다. (이벤트가 꺼져 있으면 그대로 반환)
+	 *
+	 * @param sizer
+	 *            항목의 추정 크기 (byte)
+	 */
+	public <T> Consumer<T> counting(Consumer<T> consumer, ToLongFunction<T> sizer) {
+
+		if (this.isEnabled() == false) {
+			return consumer;
+		}
+		return entry -> {
+			this.entryCount++;
+			this.bytes += sizer.applyAsLong(entry);
+			consumer.accept(entry);
+		};
+	}
+
+	/**
+	 * 종료 시각을 기록하고 임계 시간을 넘었으면 검색 조건을 담아 기록합니다.
+	 */
+	public void finish(String backend, LdapName base, int scope, String filter, boolean paged) {
+
+		this.end();
+		if (this.shouldCommit()) {
+			this.backend = backend;
+			this.base = String.valueOf(base);
+			this.scope = toScope(scope);
+			this.filter = filter;
+			this.paged = paged;
+			this.commit();
+		}
+	}
+
+}
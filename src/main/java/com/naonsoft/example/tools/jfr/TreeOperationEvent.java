@@ -0,0 +1,55 @@
+/**
+ * FileName : TreeOperationEvent.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.jfr;
+
+import java.util.function.LongSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * 트리 구성과 정렬 JFR 이벤트
+ *
+ * @author hokkk
+ */
+@Name("com.naonsoft.tree.Operation")
+@Label("Tree Operation")
+@Category("LDAP")
+@Description("트리 구성(toTree)과 정렬(sortRecursive 등)")
+@Threshold("10 ms")
+public class TreeOperationEvent extends Event {
+
+	@Label("Operation")
+	private String operation;
+
+	@Label("Node Count")
+	private long nodeCount;
+
+	/**
+	 * 종료 시각을 기록하고 임계 시간을 넘었으면 노드 수를 계산하여 기록합니다.
+	 *
+	 * @param nodeCount
+	 *            기록할 때만 호출
+	 */
+	public void finish(String operation, LongSupplier nodeCount) {
+
+		this.end();
+		if (this.shouldCommit()) {
+			this.operation = operation;
+			this.nodeCount = nodeCount.getAsLong();
+			this.commit();
+		}
+	}
+
+}
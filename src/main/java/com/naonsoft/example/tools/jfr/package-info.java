@@ -0,0 +1,16 @@
+/**
+ * FileName : package-info.java
+ * Created  : 2021. 4. 13.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+/**
+ * JFR(JDK Flight Recorder) 이벤트
+ * <p>
+ * jdk.jfr 모듈을 사용하므로 JDK 11 이상에서 실행해야 합니다. (pom.xml 의 java.version)<br>
+ * 다른 패키지에 의존하지 않도록 이벤트는 JDK 타입만 받습니다.
+ */
+package com.naonsoft.example.tools.jfr;
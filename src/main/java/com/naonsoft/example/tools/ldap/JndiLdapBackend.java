@@ -0,0 +1,651 @@
+/**
+ * FileName : JndiLdapBackend.java
+ * Created  : 2021. 3. 30.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import javax.naming.Binding;
+import javax.naming.InvalidNameException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.SizeLimitExceededException;
+import javax.naming.TimeLimitExceededException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InvalidSearchFilterException;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.event.EventDirContext;
+import javax.naming.event.NamespaceChangeListener;
+import javax.naming.event.NamingEvent;
+import javax.naming.event.NamingExceptionEvent;
+import javax.naming.event.ObjectChangeListener;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.InitialLdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LdapTimeoutError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.jfr.LdapDecodeEvent;
+import com.naonsoft.example.tools.jfr.LdapSearchEvent;
+
+/**
+ * JNDI({@link LdapConnection}) 구현
+ *
+ * @author hokkk
+ */
+public class JndiLdapBackend implements LdapBackend {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(JndiLdapBackend.class);
+
+	/** 스키마로 읽을 속성 */
+	static final String[] SCHEMA_ATTRIBUTES = { "attributeTypes", "objectClasses", "ldapSyntaxes" };
+
+	private final LdapConnection con;
+
+	/** 속성 디코딩에 사용할 스키마 (null 이면 값마다 형식 판별) */
+	private volatile LdapSchema schema;
+
+	/** 전체 속성 조회에서 binary 속성 제외 여부 */
+	private volatile boolean excludeBinary;
+
+	public JndiLdapBackend(LdapConnection con) {
+
+		if (con == null) {
+			throw new NullPointerException("LdapConnection con is null");
+		}
+		this.con = con;
+	}
+
+	private static void appendAttribute(LdapAttribute result, Attribute attr, LdapSchema schema)
+			throws NamingException {
+
+		if (schema != null) {
+			try {
+				appendTypedAttribute(result, attr, schema.isBinary(attr.getID()));
+				return;
+			} catch (ClassCastException e) {
+				// 스키마와 다른 형식으로 받은 경우 값마다 판별한다.
+				LOGGER.debug("스키마와 값 형식이 다릅니다 : {}", attr.getID());
+			}
+		}
+
+		List<String> stringAttr = new ArrayList<>();
+		List<byte[]> bytesAttr = new ArrayList<>();
+		List<Object> unknwonAttr = new ArrayList<>();
+		NamingEnumeration<?> all = attr.getAll();
+		while (all.hasMore()) {
+			Object next = all.next();
+			if (next == null) {
+				continue;
+			} else if (next instanceof String) {
+				stringAttr.add((String) next);
+			} else if (next instanceof byte[]) {
+				bytesAttr.add((byte[]) next);
+			} else {
+				unknwonAttr.add(next);
+			}
+		}
+		result.put(attr.getID(), stringAttr);
+		if (bytesAttr.isEmpty() == false) {
+			result.putByteArray(attr.getID(), bytesAttr);
+		}
+		if (unknwonAttr.isEmpty() == false) {
+			result.putUnknown(attr.getID(), unknwonAttr);
+		}
+	}
+
+	/**
+	 * 스키마로 판별한 형식으로 값을 담습니다. (binary 속성은 java.naming.ldap.attributes.binary 로 byte 배열을 받음)
+	 *
+	 * @throws ClassCastException
+	 *             스키마와 다른 형식의 값을 받은 경우
+	 */
+	private static void appendTypedAttribute(LdapAttribute result, Attribute attr, boolean binary)
+			throws NamingException {
+
+		NamingEnumeration<?> all = attr.getAll();
+		if (binary) {
+			List<byte[]> bytesAttr = new ArrayList<>(attr.size());
+			while (all.hasMore()) {
+				bytesAttr.add((byte[]) all.next());
+			}
+			result.put(attr.getID(), new ArrayList<>());
+			result.putByteArray(attr.getID(), bytesAttr);
+		} else {
+			List<String> stringAttr = new ArrayList<>(attr.size());
+			while (all.hasMore()) {
+				stringAttr.add((String) all.next());
+			}
+			result.put(attr.getID(), stringAttr);
+		}
+	}
+
+	private static boolean isTimeOutError(NamingException e) {
+
+		if (e.getRootCause() instanceof SocketTimeoutException) {
+			return true;
+		}
+		return e.getMessage() != null && e.getMessage().contains("timed out");
+	}
+
+	/**
+	 * JNDI 예외를 {@link LdapBackend} 에서 정의한 예외로 변환합니다.
+	 */
+	static RuntimeException translate(NamingException e, String operation) {
+
+		if (e instanceof InvalidSearchFilterException) {
+			return new IllegalArgumentException(e);
+		}
+		if (e instanceof TimeLimitExceededException) {
+			return new DeadlineExceededError("검색 제한 시간을 초과하였습니다 : " + operation, e);
+		}
+		if (isTimeOutError(e)) {
+			return new LdapTimeoutError("응답 대기 시간을 초과하였습니다 : " + operation, e);
+		}
+		return new LogicError(e);
+	}
+
+	private static SearchControls newSearchControls(int scope, String[] attributes, Deadline deadline) {
+
+		SearchControls searchControls = new SearchControls();
+		searchControls.setSearchScope(scope);
+		searchControls.setReturningAttributes(attributes);
+		if (deadline.isNone() == false) {
+			// 남은 시간을 서버 검색 시간 제한으로 전달한다.
+			searchControls.setTimeLimit((int) deadline.remainingMillis(Integer.MAX_VALUE));
+		}
+		return searchControls;
+	}
+
+	/**
+	 * JNDI 속성을 변환합니다. 값은 문자열, byte 배열, 그 외로 나누어 담습니다.
+	 */
+	public static LdapAttribute toAttr(Attributes attrs) {
+
+		return toAttr(attrs, null);
+	}
+
+	/**
+	 * JNDI 속성을 변환합니다. 스키마가 있으면 값마다 형식을 확인하지 않고 스키마의 형식으로 담습니다.
+	 */
+	public static LdapAttribute toAttr(Attributes attrs, LdapSchema schema) {
+
+		LdapDecodeEvent event = new LdapDecodeEvent();
+		event.begin();
+		List<? extends Attribute> attrsList = Collections.list(attrs.getAll());
+
+		LdapAttribute result = new LdapAttribute(attrsList.size());
+		try {
+			for (Attribute attr : attrsList) {
+				appendAttribute(result, attr, schema);
+			}
+			event.finish(result, result.getBytesAttr());
+			return result;
+		} catch (NamingException e) {
+			throw translate(e, "toAttr");
+		}
+	}
+
+	/**
+	 * 추가할 속성을 JNDI 속성으로 변환합니다. (문자열과 byte 배열 값을 함께 담음)
+	 */
+	private static Attributes toAttributes(LdapAttribute attributes) {
+
+		BasicAttributes result = new BasicAttributes(true);
+		for (Entry<String, List<String>> entry : attributes.entrySet()) {
+			Attribute attr = new BasicAttribute(entry.getKey());
+			for (String value : entry.getValue()) {
+				attr.add(value);
+			}
+			result.put(attr);
+		}
+		for (Entry<String, List<byte[]>> entry : attributes.byteArrays().entrySet()) {
+			Attribute attr = result.get(entry.getKey());
+			if (attr == null) {
+				attr = new BasicAttribute(entry.getKey());
+				result.put(attr);
+			}
+			for (byte[] value : entry.getValue()) {
+				attr.add(value);
+			}
+		}
+		return result;
+	}
+
+	private static ModificationItem[] toModificationItems(List<LdapWriteOperation.Modification> modifications) {
+
+		ModificationItem[] result = new ModificationItem[modifications.size()];
+		for (int i = 0; i < result.length; i++) {
+			LdapWriteOperation.Modification modification = modifications.get(i);
+			Attribute attr = new BasicAttribute(modification.getAttributeId());
+			for (String value : modification.getValues()) {
+				attr.add(value);
+			}
+			int operation;
+			switch (modification.getType()) {
+			case ADD:
+				operation = DirContext.ADD_ATTRIBUTE;
+				break;
+			case REMOVE:
+				operation = DirContext.REMOVE_ATTRIBUTE;
+				break;
+			default:
+				operation = DirContext.REPLACE_ATTRIBUTE;
+				break;
+			}
+			result[i] = new ModificationItem(operation, attr);
+		}
+		return result;
+	}
+
+	public static LdapNode toNode(SearchResult searchResult) {
+
+		return toNode(searchResult, null);
+	}
+
+	public static LdapNode toNode(SearchResult searchResult, LdapSchema schema) {
+
+		return toNode(searchResult, schema, false);
+	}
+
+	private static LdapNode toNode(SearchResult searchResult, LdapSchema schema, boolean excludeBinary) {
+
+		LdapAttribute attributes = toAttr(searchResult.getAttributes(), schema);
+		if (excludeBinary) {
+			attributes.removeBinary(schema);
+		}
+		try {
+			return new LdapNode(new LdapName(searchResult.getNameInNamespace()), attributes);
+		} catch (InvalidNameException e) {
+			throw new LogicError("이름이 올바르지 않습니다 : " + searchResult.getNameInNamespace(), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+
+		this.con.disconnect();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+
+		return "jndi";
+	}
+
+	/**
+	 * 스키마 클래스 정의를 조회합니다. (JNDI 전용)
+	 */
+	public DirContext getSchemaClassDefinition(LdapName dn, Deadline deadline) {
+
+		InitialLdapContext ctx = this.con.connect(deadline);
+		try {
+			return ctx.getSchemaClassDefinition(dn);
+		} catch (NamingException e) {
+			throw translate(e, "getSchemaClassDefinition " + dn);
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * JNDI 이벤트 컨텍스트(영구 검색 사용)에 리스너를 등록합니다. 이벤트의 항목은 채우지 않습니다.
+	 */
+	@Override
+	public Closeable persistentSearch(LdapName base, Consumer<LdapChangeEvent> consumer,
+			Consumer<RuntimeException> onError) {
+
+		InitialLdapContext ctx = this.con.open();
+		try {
+			EventDirContext eventCtx = (EventDirContext) ctx.lookup("");
+			ChangeListener listener = new ChangeListener(consumer, onError);
+			SearchControls searchControls = new SearchControls();
+			searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+			eventCtx.addNamingListener(base, "(objectClass=*)", searchControls, listener);
+			return () -> {
+				try {
+					eventCtx.removeNamingListener(listener);
+					eventCtx.close();
+					ctx.close();
+				} catch (NamingException e) {
+					throw new IOException(e);
+				}
+			};
+		} catch (NamingException e) {
+			try {
+				ctx.close();
+			} catch (NamingException closeError) {
+				e.addSuppressed(closeError);
+			}
+			throw translate(e, "persistentSearch " + base);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+		InitialLdapContext ctx = this.con.connect(deadline);
+		try {
+			LdapSchema current = this.schema;
+			LdapAttribute result = toAttr(ctx.getAttributes(dn, attributes), current);
+			if (this.excludeBinary && attributes == null) {
+				result.removeBinary(current);
+			}
+			return result;
+		} catch (NamingException e) {
+			throw translate(e, "read " + dn);
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+		InitialLdapContext ctx = this.con.connect(deadline);
+		try {
+			return toAttr(ctx.getAttributes("", attributes));
+		} catch (NamingException e) {
+			throw translate(e, "rootDSE");
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute readSchema(Deadline deadline) {
+
+		List<String> subschema = this.readRootDse(new String[] { "subschemaSubentry" }, deadline)
+				.get("subschemaSubentry");
+		if (subschema == null || subschema.isEmpty()) {
+			throw new LogicError("subschemaSubentry 가 없습니다.");
+		}
+		InitialLdapContext ctx = this.con.connect(deadline);
+		try {
+			return toAttr(ctx.getAttributes(subschema.get(0), SCHEMA_ATTRIBUTES));
+		} catch (NamingException e) {
+			throw translate(e, "schema " + subschema.get(0));
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reconnect() {
+
+		this.con.reconnect();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 서버의 크기 제한(기본 2,000개)을 넘는 경우 그때까지 읽은 결과만 전달합니다.
+	 */
+	@Override
+	public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+			Consumer<LdapNode> consumer) {
+
+		LdapSearchEvent event = new LdapSearchEvent();
+		event.begin();
+		Consumer<LdapNode> counting = event.counting(consumer, LdapNode::estimateBytes);
+		NamingEnumeration<SearchResult> results = this.searchEnumeration(base, scope, filter, attributes, deadline);
+		LdapSchema current = this.schema;
+		boolean exclude = this.excludeBinary && attributes == null;
+		try {
+			while (results.hasMore()) {
+				counting.accept(toNode(results.next(), current, exclude));
+			}
+		} catch (SizeLimitExceededException e) {
+			LOGGER.debug("검색 크기 제한 초과 : {}", base);
+		} catch (NamingException e) {
+			throw translate(e, "search " + base);
+		} finally {
+			try {
+				results.close();
+			} catch (NamingException e) {
+				LOGGER.debug("검색 결과 close 실패", e);
+			}
+			event.finish(this.getName(), base, scope, filter, false);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 페이지 쿠키는 연결에 묶이므로 전체 페이지를 같은 컨텍스트로 조회합니다.
+	 */
+	@Override
+	public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+			Deadline deadline, Consumer<LdapNode> consumer) {
+
+		LdapSearchEvent event = new LdapSearchEvent();
+		event.begin();
+		Consumer<LdapNode> counting = event.counting(consumer, LdapNode::estimateBytes);
+		InitialLdapContext ctx = this.con.connect(deadline);
+		SearchControls searchControls = newSearchControls(scope, attributes, deadline);
+		LdapSchema current = this.schema;
+		boolean exclude = this.excludeBinary && attributes == null;
+		try {
+			byte[] cookie = null;
+			do {
+				ctx.setRequestControls(new Control[] { new PagedResultsControl(pageSize, cookie, Control.CRITICAL) });
+				NamingEnumeration<SearchResult> results = ctx.search(base, filter, searchControls);
+				try {
+					while (results.hasMore()) {
+						counting.accept(toNode(results.next(), current, exclude));
+					}
+				} finally {
+					results.close();
+				}
+				cookie = null;
+				Control[] responseControls = ctx.getResponseControls();
+				if (responseControls != null) {
+					for (Control control : responseControls) {
+						if (control instanceof PagedResultsResponseControl) {
+							cookie = ((PagedResultsResponseControl) control).getCookie();
+						}
+					}
+				}
+			} while (cookie != null && cookie.length > 0);
+		} catch (NamingException e) {
+			throw translate(e, "searchPaged " + base);
+		} catch (IOException e) {
+			throw new LogicError(e);
+		} finally {
+			this.con.disconnect();
+			event.finish(this.getName(), base, scope, filter, true);
+		}
+	}
+
+	/**
+	 * 검색 결과를 JNDI 열거형으로 반환합니다. (JNDI 전용)
+	 */
+	public NamingEnumeration<SearchResult> searchEnumeration(LdapName base, int scope, String filter,
+			String[] attributes, Deadline deadline) {
+
+		InitialLdapContext ctx = this.con.connect(deadline);
+		SearchControls searchControls = newSearchControls(scope, attributes, deadline);
+		try {
+			return ctx.search(base, filter, searchControls);
+		} catch (NamingException e) {
+			throw translate(e, "search " + base);
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setExcludeBinary(boolean excludeBinary) {
+
+		this.excludeBinary = excludeBinary;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 스키마의 binary 속성을 java.naming.ldap.attributes.binary 로 설정하고, 이후 값은 스키마의 형식으로 담습니다.
+	 */
+	@Override
+	public void setSchema(LdapSchema schema) {
+
+		this.con.setBinaryAttributes(schema == null ? null : schema.getBinaryAttributes());
+		this.schema = schema;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(LdapWriteOperation operation, Deadline deadline) {
+
+		InitialLdapContext ctx = this.con.connect(deadline);
+		try {
+			switch (operation.getType()) {
+			case ADD:
+				ctx.createSubcontext(operation.getDn(), toAttributes(operation.getAttributes())).close();
+				break;
+			case MODIFY:
+				ctx.modifyAttributes(operation.getDn(), toModificationItems(operation.getModifications()));
+				break;
+			case DELETE:
+				ctx.destroySubcontext(operation.getDn());
+				break;
+			case RENAME:
+				ctx.rename(operation.getDn(), operation.getNewDn().get());
+				break;
+			default:
+				throw new LogicError("지원하지 않는 작업입니다 : " + operation.getType());
+			}
+		} catch (NamingException e) {
+			throw translate(e, operation.toString());
+		} finally {
+			this.con.disconnect();
+		}
+	}
+
+	/**
+	 * JNDI 이벤트를 {@link LdapChangeEvent} 로 변환합니다.
+	 */
+	private static final class ChangeListener implements NamespaceChangeListener, ObjectChangeListener {
+
+		private final Consumer<LdapChangeEvent> consumer;
+
+		private final Consumer<RuntimeException> onError;
+
+		ChangeListener(Consumer<LdapChangeEvent> consumer, Consumer<RuntimeException> onError) {
+
+			this.consumer = consumer;
+			this.onError = onError;
+		}
+
+		private static LdapName name(Binding binding) {
+
+			try {
+				return new LdapName(binding.getName());
+			} catch (InvalidNameException e) {
+				throw new LogicError("이름이 올바르지 않습니다 : " + binding.getName(), e);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void namingExceptionThrown(NamingExceptionEvent evt) {
+
+			this.onError.accept(translate(evt.getException(), "persistentSearch"));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void objectAdded(NamingEvent evt) {
+
+			this.consumer.accept(
+					new LdapChangeEvent(LdapChangeEvent.Type.ADD, name(evt.getNewBinding()), null, null));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void objectChanged(NamingEvent evt) {
+
+			this.consumer.accept(
+					new LdapChangeEvent(LdapChangeEvent.Type.MODIFY, name(evt.getNewBinding()), null, null));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void objectRemoved(NamingEvent evt) {
+
+			this.consumer.accept(
+					new LdapChangeEvent(LdapChangeEvent.Type.DELETE, name(evt.getOldBinding()), null, null));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void objectRenamed(NamingEvent evt) {
+
+			this.consumer.accept(new LdapChangeEvent(LdapChangeEvent.Type.RENAME, name(evt.getNewBinding()),
+					name(evt.getOldBinding()), null));
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * FileName : LdapBackend.java
+ * Created  : 2021. 3. 30.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+/**
+ * 디렉토리 접근 구현 (JNDI, UnboundID)
+ * <p>
+ * 한번의 서버 작업만 수행합니다. 재시도, 동시 요청 제한 등은 {@link LdapService} 에서 처리합니다.
+ * 구현체는 다음 예외를 발생합니다.
+ * <ul>
+ * <li>{@link IllegalArgumentException} : 검색 필터가 올바르지 않은 경우</li>
+ * <li>{@link com.naonsoft.example.exception.LdapTimeoutError} : 응답 대기 시간 초과 (재시도 가능)</li>
+ * <li>{@link com.naonsoft.example.exception.DeadlineExceededError} : 제한 시각 초과</li>
+ * <li>{@link com.naonsoft.example.exception.LogicError} : 그 외 오류</li>
+ * </ul>
+ *
+ * @author hokkk
+ */
+public interface LdapBackend extends Closeable {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void close();
+
+	/**
+	 * 구현 이름 (로그, 비교용)
+	 */
+	String getName();
+
+	/**
+	 * 영구 검색(Persistent Search)으로 기준 DN 하위의 변경을 구독합니다.<br>
+	 * 반환된 객체를 닫으면 구독을 종료합니다. 연결이 끊기는 등 오류가 발생하면 onError 를 호출합니다.
+	 * 변경 이벤트의 항목은 구현에 따라 채워지지 않을 수 있습니다.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             지원하지 않는 구현
+	 */
+	default Closeable persistentSearch(LdapName base, Consumer<LdapChangeEvent> consumer,
+			Consumer<RuntimeException> onError) {
+
+		throw new UnsupportedOperationException("영구 검색을 지원하지 않습니다 : " + this.getName());
+	}
+
+	/**
+	 * 항목의 속성을 읽습니다.
+	 *
+	 * @param attributes
+	 *            읽을 속성 (null 이면 전체)
+	 */
+	LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline);
+
+	/**
+	 * Root DSE 의 속성을 읽습니다.
+	 */
+	LdapAttribute readRootDse(String[] attributes, Deadline deadline);
+
+	/**
+	 * 스키마(subschema subentry)의 attributeTypes, objectClasses, ldapSyntaxes 를 읽습니다.
+	 */
+	LdapAttribute readSchema(Deadline deadline);
+
+	/**
+	 * 시간 초과 후 재시도 전에 호출됩니다. (연결 재생성 등)
+	 */
+	default void reconnect() {
+
+		// 기본 구현은 아무것도 하지 않음
+	}
+
+	/**
+	 * 검색 결과를 읽는 대로 consumer 에 전달합니다.
+	 *
+	 * @param scope
+	 *            {@link javax.naming.directory.SearchControls} 의 범위 상수
+	 * @param attributes
+	 *            읽을 속성 (null 이면 전체)
+	 */
+	void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+			Consumer<LdapNode> consumer);
+
+	/**
+	 * 페이지 단위(Simple Paged Results, RFC 2696)로 검색하여 서버 크기 제한과 무관하게 전체 결과를 전달합니다.
+	 *
+	 * @param pageSize
+	 *            한번에 받을 개수
+	 */
+	void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize, Deadline deadline,
+			Consumer<LdapNode> consumer);
+
+	/**
+	 * 전체 속성 조회(읽을 속성이 null)에서 binary 속성을 제외할지 설정합니다.<br>
+	 * 읽을 속성을 지정한 경우에는 제외하지 않습니다.
+	 */
+	default void setExcludeBinary(boolean excludeBinary) {
+
+		// 기본 구현은 아무것도 하지 않음
+	}
+
+	/**
+	 * 스키마가 읽히거나 갱신되면 호출됩니다. 구현은 속성 값 디코딩(binary 여부 판별)에 사용합니다.
+	 */
+	default void setSchema(LdapSchema schema) {
+
+		// 기본 구현은 아무것도 하지 않음
+	}
+
+	/**
+	 * 쓰기 작업 하나를 수행합니다. 시간 초과 시 서버에 반영되었는지 알 수 없으므로 호출자는 재시도하지 않습니다.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             지원하지 않는 구현
+	 */
+	default void write(LdapWriteOperation operation, Deadline deadline) {
+
+		throw new UnsupportedOperationException("쓰기를 지원하지 않습니다 : " + this.getName());
+	}
+}
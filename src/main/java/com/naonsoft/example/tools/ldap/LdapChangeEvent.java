@@ -0,0 +1,136 @@
+/**
+ * FileName : LdapChangeEvent.java
+ * Created  : 2021. 4. 1.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.Optional;
+
+import javax.naming.ldap.LdapName;
+
+/**
+ * 디렉토리 항목 변경 이벤트
+ *
+ * @author hokkk
+ */
+public final class LdapChangeEvent {
+
+	private final Type type;
+
+	private final LdapName dn;
+
+	/** 이름 변경 전 DN (RENAME 인 경우) */
+	private final LdapName previousDn;
+
+	/** 변경 후 항목 (DELETE 이거나 읽지 못한 경우 null) */
+	private final LdapNode node;
+
+	private final long timestamp = System.currentTimeMillis();
+
+	/**
+	 * {@link LdapChangeEvent} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param type
+	 *            변경 유형
+	 * @param dn
+	 *            변경된 항목 (RENAME 인 경우 변경 후 DN)
+	 * @param previousDn
+	 *            이름 변경 전 DN (RENAME 이 아니면 null)
+	 * @param node
+	 *            변경 후 항목 (없으면 null)
+	 */
+	public LdapChangeEvent(Type type, LdapName dn, LdapName previousDn, LdapNode node) {
+
+		if (type == null) {
+			throw new NullPointerException("Type type is null");
+		}
+		if (dn == null) {
+			throw new NullPointerException("LdapName dn is null");
+		}
+		this.type = type;
+		this.dn = dn;
+		this.previousDn = previousDn;
+		this.node = node;
+	}
+
+	public LdapName getDn() {
+
+		return this.dn;
+	}
+
+	public Optional<LdapNode> getNode() {
+
+		return Optional.ofNullable(this.node);
+	}
+
+	public Optional<LdapName> getPreviousDn() {
+
+		return Optional.ofNullable(this.previousDn);
+	}
+
+	/**
+	 * 이벤트 생성 시각 (ms)
+	 */
+	public long getTimestamp() {
+
+		return this.timestamp;
+	}
+
+	public Type getType() {
+
+		return this.type;
+	}
+
+	/**
+	 * 변경 전 또는 변경 후 DN 이 기준 DN 과 같거나 하위인지 확인합니다.
+	 */
+	public boolean isUnder(LdapName base) {
+
+		return this.dn.startsWith(base) || this.previousDn != null && this.previousDn.startsWith(base);
+	}
+
+	/**
+	 * 항목을 채운 이벤트를 반환합니다.
+	 */
+	public LdapChangeEvent withNode(LdapNode newNode) {
+
+		return new LdapChangeEvent(this.type, this.dn, this.previousDn, newNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append(this.type).append(' ').append(this.dn);
+		if (this.previousDn != null) {
+			builder.append(" (").append(this.previousDn).append(')');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 변경 유형
+	 */
+	public enum Type {
+
+		/** 추가 */
+		ADD,
+
+		/** 속성 변경 */
+		MODIFY,
+
+		/** 삭제 */
+		DELETE,
+
+		/** 이름(DN) 변경 */
+		RENAME
+	}
+}
@@ -0,0 +1,443 @@
+/**
+ * FileName : LdapChangeNotifier.java
+ * Created  : 2021. 4. 1.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+/**
+ * 디렉토리 변경 알림
+ * <p>
+ * 구독한 기준 DN 하위의 변경을 {@link LdapChangeEvent} 로 전달합니다.
+ * 서버가 영구 검색(Persistent Search) 컨트롤을 지원하면 영구 검색을 사용하고,
+ * 지원하지 않거나 영구 검색이 끊기면 modifyTimestamp 폴링으로 전환합니다.
+ * <p>
+ * 폴링은 마지막으로 본 modifyTimestamp 이후 변경된 항목만 조회하며, 삭제는 {@link #setScanInterval(int)} 주기로
+ * 전체 DN 목록을 비교하여 감지합니다. (폴링에서 이름 변경은 삭제와 추가로 전달됩니다.)
+ *
+ * @author hokkk
+ */
+public class LdapChangeNotifier implements Closeable {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapChangeNotifier.class);
+
+	/** 영구 검색 컨트롤 OID */
+	private static final String PERSISTENT_SEARCH_OID = "2.16.840.1.113730.3.4.3";
+
+	private static final String ALL_SEARCH_FILTER = "(objectClass=*)";
+
+	/** 변경 항목 조회 시 읽을 속성 */
+	private static final String[] POLL_ATTRIBUTES = { "*", "modifyTimestamp" };
+
+	/** 전체 DN 비교 시 읽을 속성 */
+	private static final String[] SCAN_ATTRIBUTES = { "objectClass", "modifyTimestamp" };
+
+	private final LdapService service;
+
+	private final ScheduledExecutorService scheduler;
+
+	/** 감시 중인 기준 DN 목록 */
+	private final List<Watch> watches = new ArrayList<>();
+
+	/** 폴링 주기 */
+	private Duration pollInterval = Duration.ofSeconds(30);
+
+	/** 삭제 감지를 위해 전체 DN 을 비교하는 주기 (폴링 횟수) */
+	private int scanInterval = 10;
+
+	/** 검색 페이지 크기 */
+	private int pageSize = 1_000;
+
+	/** 영구 검색 사용 여부 */
+	private boolean persistentSearch = true;
+
+	/**
+	 * {@link LdapChangeNotifier} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param service
+	 *            조회 서비스
+	 * @param scheduler
+	 *            감시 시작과 폴링을 수행할 스케줄러
+	 */
+	public LdapChangeNotifier(LdapService service, ScheduledExecutorService scheduler) {
+
+		if (service == null) {
+			throw new NullPointerException("LdapService service is null");
+		}
+		if (scheduler == null) {
+			throw new NullPointerException("ScheduledExecutorService scheduler is null");
+		}
+		this.service = service;
+		this.scheduler = scheduler;
+	}
+
+	private static String max(String a, String b) {
+
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return a.compareTo(b) >= 0 ? a : b;
+	}
+
+	/**
+	 * 모든 감시를 종료합니다.
+	 */
+	@Override
+	public synchronized void close() {
+
+		for (Watch watch : this.watches) {
+			watch.stop();
+		}
+		this.watches.clear();
+	}
+
+	/**
+	 * 감시 중인 기준 DN 목록을 반환합니다.
+	 */
+	public synchronized List<LdapName> getWatchedBases() {
+
+		List<LdapName> result = new ArrayList<>(this.watches.size());
+		for (Watch watch : this.watches) {
+			result.add(watch.base);
+		}
+		return result;
+	}
+
+	public void setPageSize(int pageSize) {
+
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * 영구 검색 사용 여부를 설정합니다. (사용하지 않으면 항상 폴링)
+	 */
+	public void setPersistentSearch(boolean persistentSearch) {
+
+		this.persistentSearch = persistentSearch;
+	}
+
+	public void setPollInterval(Duration pollInterval) {
+
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * 삭제 감지를 위해 전체 DN 을 비교하는 주기(폴링 횟수)를 설정합니다.
+	 */
+	public void setScanInterval(int scanInterval) {
+
+		if (scanInterval <= 0) {
+			throw new LogicError("scanInterval 은 1 이상이어야 합니다 : " + scanInterval);
+		}
+		this.scanInterval = scanInterval;
+	}
+
+	/**
+	 * 기준 DN 하위의 변경을 구독합니다. 이미 감시 중인 상위 DN 이 있으면 그 감시를 함께 사용합니다.<br>
+	 * 리스너는 감시 스레드에서 호출되므로 오래 걸리는 작업을 하지 않아야 합니다.
+	 *
+	 * @return 닫으면 구독을 종료합니다.
+	 */
+	public Subscription subscribe(LdapName base, Consumer<LdapChangeEvent> listener) {
+
+		Subscription subscription = new Subscription(base, listener);
+		synchronized (this) {
+			Watch watch = null;
+			for (Watch candidate : this.watches) {
+				if (base.startsWith(candidate.base)) {
+					watch = candidate;
+					break;
+				}
+			}
+			if (watch == null) {
+				watch = new Watch(base);
+				this.watches.add(watch);
+				this.scheduler.execute(watch::open);
+			}
+			subscription.watch = watch;
+			watch.subscriptions.add(subscription);
+		}
+		return subscription;
+	}
+
+	private boolean supportsPersistentSearch() {
+
+		if (this.persistentSearch == false) {
+			return false;
+		}
+		try {
+			return this.service.getRootDse("supportedControl")
+					.getOrDefault("supportedControl", Collections.emptyList())
+					.contains(PERSISTENT_SEARCH_OID);
+		} catch (RuntimeException e) {
+			LOGGER.warn("supportedControl 조회 실패", e);
+			return false;
+		}
+	}
+
+	private synchronized void unsubscribe(Subscription subscription) {
+
+		Watch watch = subscription.watch;
+		watch.subscriptions.remove(subscription);
+		if (watch.subscriptions.isEmpty()) {
+			watch.stop();
+			this.watches.remove(watch);
+		}
+	}
+
+	/**
+	 * 변경 구독
+	 */
+	public final class Subscription implements Closeable {
+
+		private final LdapName base;
+
+		private final Consumer<LdapChangeEvent> listener;
+
+		private Watch watch;
+
+		private boolean closed = false;
+
+		Subscription(LdapName base, Consumer<LdapChangeEvent> listener) {
+
+			this.base = base;
+			this.listener = listener;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+
+			synchronized (LdapChangeNotifier.this) {
+				if (this.closed) {
+					return;
+				}
+				this.closed = true;
+				LdapChangeNotifier.this.unsubscribe(this);
+			}
+		}
+
+		public LdapName getBase() {
+
+			return this.base;
+		}
+	}
+
+	/**
+	 * 기준 DN 하나에 대한 감시 (영구 검색 또는 폴링)
+	 */
+	private final class Watch {
+
+		private final LdapName base;
+
+		private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+		private Closeable persistent;
+
+		private ScheduledFuture<?> polling;
+
+		private volatile boolean stopped = false;
+
+		/** 폴링 : DN 별 마지막 modifyTimestamp */
+		private Map<LdapName, String> known;
+
+		/** 폴링 : 지금까지 본 가장 최근 modifyTimestamp */
+		private String since;
+
+		/** 폴링 : 수행 횟수 */
+		private int pollCount = 0;
+
+		Watch(LdapName base) {
+
+			this.base = base;
+		}
+
+		private synchronized void closePersistent() {
+
+			if (this.persistent == null) {
+				return;
+			}
+			try {
+				this.persistent.close();
+			} catch (IOException | RuntimeException e) {
+				LOGGER.debug("영구 검색 종료 실패 : {}", this.base, e);
+			}
+			this.persistent = null;
+		}
+
+		private void onError(RuntimeException e) {
+
+			LOGGER.warn("영구 검색 오류로 폴링으로 전환합니다 : {}", this.base, e);
+			this.closePersistent();
+			this.startPolling();
+		}
+
+		void open() {
+
+			if (this.stopped) {
+				return;
+			}
+			if (LdapChangeNotifier.this.supportsPersistentSearch()) {
+				try {
+					Closeable handle = LdapChangeNotifier.this.service.getBackend()
+							.persistentSearch(this.base, this::publish, this::onError);
+					synchronized (this) {
+						this.persistent = handle;
+					}
+					if (this.stopped) {
+						this.closePersistent();
+					}
+					LOGGER.info("영구 검색으로 변경을 감시합니다 : {}", this.base);
+					return;
+				} catch (RuntimeException e) {
+					LOGGER.warn("영구 검색을 시작할 수 없어 폴링으로 전환합니다 : {}", this.base, e);
+				}
+			}
+			this.startPolling();
+		}
+
+		private void poll() {
+
+			try {
+				if (this.known == null) {
+					// 처음에는 현재 상태만 기록한다.
+					this.known = this.scan();
+					for (String timestamp : this.known.values()) {
+						this.since = max(this.since, timestamp);
+					}
+					return;
+				}
+				this.pollCount++;
+
+				String filter = this.since == null ? "(modifyTimestamp=*)" : "(modifyTimestamp>=" + this.since + ")";
+				List<LdapNode> changed = new ArrayList<>();
+				LdapChangeNotifier.this.service.searchPaged(this.base, SearchControls.SUBTREE_SCOPE, filter,
+						POLL_ATTRIBUTES, LdapChangeNotifier.this.pageSize, Deadline.none(), changed::add);
+				for (LdapNode node : changed) {
+					String timestamp = node.getValue("modifyTimestamp").orElse("");
+					String before = this.known.put(node.getDn(), timestamp);
+					if (before == null) {
+						this.publish(new LdapChangeEvent(LdapChangeEvent.Type.ADD, node.getDn(), null, node));
+					} else if (before.equals(timestamp) == false) {
+						this.publish(new LdapChangeEvent(LdapChangeEvent.Type.MODIFY, node.getDn(), null, node));
+					}
+					this.since = max(this.since, timestamp);
+				}
+
+				if (this.pollCount % LdapChangeNotifier.this.scanInterval == 0) {
+					Map<LdapName, String> current = this.scan();
+					for (LdapName dn : this.known.keySet()) {
+						if (current.containsKey(dn) == false) {
+							this.publish(new LdapChangeEvent(LdapChangeEvent.Type.DELETE, dn, null, null));
+						}
+					}
+					for (Map.Entry<LdapName, String> entry : current.entrySet()) {
+						String before = this.known.get(entry.getKey());
+						if (before == null) {
+							this.publish(new LdapChangeEvent(LdapChangeEvent.Type.ADD, entry.getKey(), null, null));
+						} else {
+							// 변경 조회 이후에 수정된 항목은 다음 폴링에서 변경으로 전달하도록 이전 값을 유지한다.
+							entry.setValue(before);
+						}
+					}
+					this.known = current;
+				}
+			} catch (RuntimeException e) {
+				LOGGER.warn("변경 폴링 실패 : {}", this.base, e);
+			}
+		}
+
+		/**
+		 * 기준 DN 이 같거나 상위인 구독자에게 전달합니다. 항목이 없는 추가, 변경 이벤트는 항목을 읽어 채웁니다.
+		 */
+		private void publish(LdapChangeEvent event) {
+
+			if (this.stopped) {
+				return;
+			}
+			LdapChangeEvent target = event;
+			if (event.getNode().isPresent() == false && event.getType() != LdapChangeEvent.Type.DELETE) {
+				try {
+					target = event.withNode(LdapChangeNotifier.this.service.toNode(event.getDn()));
+				} catch (RuntimeException e) {
+					LOGGER.debug("변경된 항목을 읽을 수 없습니다 : {}", event.getDn(), e);
+				}
+			}
+			for (Subscription subscription : this.subscriptions) {
+				if (target.isUnder(subscription.base) == false) {
+					continue;
+				}
+				try {
+					subscription.listener.accept(target);
+				} catch (RuntimeException e) {
+					LOGGER.warn("변경 이벤트 처리 실패 : {}", target, e);
+				}
+			}
+		}
+
+		private Map<LdapName, String> scan() {
+
+			Map<LdapName, String> result = new HashMap<>();
+			LdapChangeNotifier.this.service.searchPaged(this.base, SearchControls.SUBTREE_SCOPE, ALL_SEARCH_FILTER,
+					SCAN_ATTRIBUTES, LdapChangeNotifier.this.pageSize, Deadline.none(),
+					node -> result.put(node.getDn(), node.getValue("modifyTimestamp").orElse("")));
+			return result;
+		}
+
+		private synchronized void startPolling() {
+
+			if (this.stopped || this.polling != null) {
+				return;
+			}
+			LOGGER.info("modifyTimestamp 폴링으로 변경을 감시합니다 : {}", this.base);
+			this.polling = LdapChangeNotifier.this.scheduler.scheduleWithFixedDelay(this::poll, 0,
+					LdapChangeNotifier.this.pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		void stop() {
+
+			this.stopped = true;
+			this.closePersistent();
+			synchronized (this) {
+				if (this.polling != null) {
+					this.polling.cancel(false);
+				}
+			}
+		}
+	}
+}
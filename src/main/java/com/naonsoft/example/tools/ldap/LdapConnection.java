@@ -1,149 +1,292 @@
-/**
- * FileName : LdapConnection.java
- * Created  : 2021. 3. 18.
- * Author   : hokkk
- * Summary  :
- * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
- * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
- * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
- */
-package com.naonsoft.example.tools.ldap;
-
-import java.util.Collections;
-import java.util.Hashtable;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-import javax.naming.Context;
-import javax.naming.NamingException;
-import javax.naming.ldap.InitialLdapContext;
-
-import org.apache.commons.lang3.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.naonsoft.example.exception.LogicError;
-
-public class LdapConnection {
-
-	/**
-	 * Slf4j Logger
-	 */
-	private static final Logger LOGGER = LoggerFactory.getLogger(LdapConnection.class);
-
-	private InitialLdapContext ctx;
-
-	private final Map<String, String> env;
-
-	private boolean reconnect = false;
-
-	private int reconnectCount = 0;
-
-	private int sleepTime = 1000;
-
-	private int reconnectLimit = 10;
-
-	public LdapConnection(String host) {
-
-		this(host, null, null);
-	}
-
-	public LdapConnection(String host, String adminId, String adminPassword) {
-
-		if (StringUtils.isBlank(host)) {
-			throw new IllegalArgumentException();
-		}
-
-		// adminId, adminPassword 둘중 한개만 공백인 경우 애러
-		if (StringUtils.isAllBlank(adminId, adminPassword) == false) {
-			if (StringUtils.isAnyBlank(adminId, adminPassword)) {
-				throw new LogicError("계정 패스워드 정의가 올바르지 않습니다.");
-			}
-		}
-
-		String finalUrl = "ldap://" + host.replace("ldap://", "");
-		ConcurrentHashMap<String, String> tempMap = new ConcurrentHashMap<>();
-		tempMap.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
-		tempMap.put(Context.PROVIDER_URL, finalUrl);
-
-		// 계정 입력 여부에 따른 처리
-		if (StringUtils.isBlank(adminId)) {
-			tempMap.put(Context.SECURITY_AUTHENTICATION, "none");
-		} else {
-			tempMap.put(Context.SECURITY_AUTHENTICATION, "simple");
-			tempMap.put(Context.SECURITY_PRINCIPAL, adminId);
-			tempMap.put(Context.SECURITY_CREDENTIALS, adminPassword);
-		}
-		// env를 변경하지 못하도록 처리
-		this.env = Collections.unmodifiableMap(tempMap);
-		this.connect();
-		this.disconnect();
-	}
-
-	public InitialLdapContext connect() {
-
-		if (this.reconnect) {
-			LOGGER.info("RECONNECTED : " + this.reconnectCount);
-			if (this.reconnectCount > this.reconnectLimit) {
-				throw new LogicError("재연결을 10회 시도하여 종료합니다.");
-			}
-			this.reconnectCount++;
-			try {
-				Thread.sleep(this.sleepTime);
-				this.reconnect = false;
-			} catch (InterruptedException e) {
-				throw new LogicError(e);
-			}
-		}
-
-		if (this.ctx != null) {
-			this.disconnect();
-		}
-
-		try {
-			this.ctx = new InitialLdapContext(new Hashtable<>(this.env), null);
-		} catch (NamingException e) {
-			throw new IllegalArgumentException("LDAP 연결 실패", e);
-		}
-		LOGGER.trace("Ldap Connected");
-		return this.ctx;
-	}
-
-	public void disconnect() {
-
-		this.reconnectCount = 0;
-		if (this.ctx == null) {
-			return;
-		}
-		try {
-			this.ctx.close();
-		} catch (NamingException e) {
-			throw new LogicError("close 실패", e);
-		}
-		this.ctx = null;
-		LOGGER.trace("Ldap Disconnected");
-	}
-
-	public void reconnect() {
-
-		this.reconnect = true;
-	}
-
-	/**
-	 * reconnectLimit 초기화 합니다.
-	 * @param reconnectLimit 초기화 값
-	 */
-	public void setReconnectLimit(int limitReconnectCount) {
-
-		this.reconnectLimit = limitReconnectCount;
-	}
-
-	/**
-	 * sleepTime 초기화 합니다.
-	 * @param sleepTime 초기화 값
-	 */
-	public void setSleepTime(int sleepTime) {
-
-		this.sleepTime = sleepTime;
-	}
-}
+/**
+ * FileName : LdapConnection.java
+ * Created  : 2021. 3. 18.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ldap.InitialLdapContext;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.jfr.LdapConnectEvent;
+import com.naonsoft.example.tools.jfr.LdapReconnectEvent;
+
+public class LdapConnection {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapConnection.class);
+
+	/** 스레드별 연결 상태 (여러 스레드에서 동시에 사용할 수 있도록 스레드마다 컨텍스트를 따로 가진다) */
+	private final ThreadLocal<ConnectionState> state = ThreadLocal.withInitial(ConnectionState::new);
+
+	private final Map<String, String> env;
+
+	private int sleepTime = 1000;
+
+	private int reconnectLimit = 10;
+
+	/** 연결 제한 시간 (ms) */
+	private int connectTimeout = 5_000;
+
+	/** 응답 대기 제한 시간 (ms) */
+	private int readTimeout = 30_000;
+
+	/** byte 배열로 읽을 속성 (java.naming.ldap.attributes.binary, 공백 구분) */
+	private volatile String binaryAttributes;
+
+	/** 참조(referral) 처리 방법 (java.naming.referral) */
+	private volatile String referral = "ignore";
+
+	public LdapConnection(String host) {
+
+		this(host, null, null);
+	}
+
+	public LdapConnection(String host, String adminId, String adminPassword) {
+
+		if (StringUtils.isBlank(host)) {
+			throw new IllegalArgumentException();
+		}
+
+		// adminId, adminPassword 둘중 한개만 공백인 경우 애러
+		if (StringUtils.isAllBlank(adminId, adminPassword) == false) {
+			if (StringUtils.isAnyBlank(adminId, adminPassword)) {
+				throw new LogicError("계정 패스워드 정의가 올바르지 않습니다.");
+			}
+		}
+
+		String finalUrl = "ldap://" + host.replace("ldap://", "");
+		ConcurrentHashMap<String, String> tempMap = new ConcurrentHashMap<>();
+		tempMap.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+		tempMap.put(Context.PROVIDER_URL, finalUrl);
+		// 작업마다 연결/종료하므로 JNDI 연결 풀을 사용하여 실제 소켓은 재사용한다.
+		tempMap.put("com.sun.jndi.ldap.connect.pool", "true");
+
+		// 계정 입력 여부에 따른 처리
+		if (StringUtils.isBlank(adminId)) {
+			tempMap.put(Context.SECURITY_AUTHENTICATION, "none");
+		} else {
+			tempMap.put(Context.SECURITY_AUTHENTICATION, "simple");
+			tempMap.put(Context.SECURITY_PRINCIPAL, adminId);
+			tempMap.put(Context.SECURITY_CREDENTIALS, adminPassword);
+		}
+		// env를 변경하지 못하도록 처리
+		this.env = Collections.unmodifiableMap(tempMap);
+		this.connect();
+		this.disconnect();
+	}
+
+	public InitialLdapContext connect() {
+
+		return this.connect(Deadline.none());
+	}
+
+	/**
+	 * 연결합니다. 연결 제한 시간은 설정값과 남은 시간 중 작은 값을 사용합니다.<br>
+	 * JNDI 연결 풀에서 재사용되는 연결은 처음 연결할 때의 응답 대기 제한 시간을 유지하므로,
+	 * 남은 시간이 응답 대기 제한 시간보다 짧으면 연결 풀을 사용하지 않고 남은 시간을 응답 대기 제한 시간으로 하는 연결을 엽니다.
+	 */
+	public InitialLdapContext connect(Deadline deadline) {
+
+		ConnectionState current = this.state.get();
+		if (current.reconnect) {
+			LOGGER.info("RECONNECTED : " + current.reconnectCount);
+			if (current.reconnectCount > this.reconnectLimit) {
+				throw new LogicError("재연결을 10회 시도하여 종료합니다.");
+			}
+			if (deadline.remainingMillis(Long.MAX_VALUE) <= this.sleepTime) {
+				current.reconnect = false;
+				throw new DeadlineExceededError("재연결 대기 중 제한 시간을 초과합니다.");
+			}
+			current.reconnectCount++;
+			LdapReconnectEvent event = new LdapReconnectEvent();
+			event.begin();
+			try {
+				Thread.sleep(this.sleepTime);
+				current.reconnect = false;
+			} catch (InterruptedException e) {
+				throw new LogicError(e);
+			} finally {
+				event.finish(current.reconnectCount, this.sleepTime);
+			}
+		}
+
+		if (current.ctx != null) {
+			this.closeContext(current);
+		}
+
+		Hashtable<String, String> connectEnv = new Hashtable<>(this.env);
+		long readMillis = deadline.remainingMillis(this.readTimeout);
+		boolean pooled = readMillis >= this.readTimeout;
+		if (pooled == false) {
+			connectEnv.remove("com.sun.jndi.ldap.connect.pool");
+		}
+		connectEnv.put("com.sun.jndi.ldap.connect.timeout",
+				String.valueOf(deadline.remainingMillis(this.connectTimeout)));
+		connectEnv.put("com.sun.jndi.ldap.read.timeout", String.valueOf(readMillis));
+		this.putOptions(connectEnv);
+		LdapConnectEvent event = new LdapConnectEvent();
+		event.begin();
+		try {
+			current.ctx = new InitialLdapContext(connectEnv, null);
+		} catch (NamingException e) {
+			this.finishEvent(event, pooled, false);
+			throw new IllegalArgumentException("LDAP 연결 실패", e);
+		}
+		this.finishEvent(event, pooled, true);
+		LOGGER.trace("Ldap Connected");
+		return current.ctx;
+	}
+
+	/**
+	 * 스레드별 상태와 연결 풀을 사용하지 않는 별도의 컨텍스트를 엽니다. (영구 검색 등 오래 유지하는 작업용)<br>
+	 * 응답이 오랫동안 없을 수 있으므로 응답 대기 제한 시간을 설정하지 않습니다. 호출자가 닫아야 합니다.
+	 */
+	public InitialLdapContext open() {
+
+		Hashtable<String, String> openEnv = new Hashtable<>(this.env);
+		openEnv.remove("com.sun.jndi.ldap.connect.pool");
+		openEnv.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(this.connectTimeout));
+		this.putOptions(openEnv);
+		LdapConnectEvent event = new LdapConnectEvent();
+		event.begin();
+		try {
+			InitialLdapContext ctx = new InitialLdapContext(openEnv, null);
+			this.finishEvent(event, false, true);
+			return ctx;
+		} catch (NamingException e) {
+			this.finishEvent(event, false, false);
+			throw new IllegalArgumentException("LDAP 연결 실패", e);
+		}
+	}
+
+	public void disconnect() {
+
+		ConnectionState current = this.state.get();
+		current.reconnectCount = 0;
+		this.closeContext(current);
+	}
+
+	private void closeContext(ConnectionState current) {
+
+		if (current.ctx == null) {
+			return;
+		}
+		try {
+			current.ctx.close();
+		} catch (NamingException e) {
+			throw new LogicError("close 실패", e);
+		} finally {
+			current.ctx = null;
+		}
+		LOGGER.trace("Ldap Disconnected");
+	}
+
+	private void finishEvent(LdapConnectEvent event, boolean pooled, boolean success) {
+
+		event.finish(this.env.get(Context.PROVIDER_URL), this.env.get(Context.SECURITY_AUTHENTICATION), pooled,
+				success);
+	}
+
+	/**
+	 * binary 속성과 참조(referral) 처리 설정을 추가합니다.
+	 */
+	private void putOptions(Hashtable<String, String> connectEnv) {
+
+		String current = this.binaryAttributes;
+		if (current != null) {
+			connectEnv.put("java.naming.ldap.attributes.binary", current);
+		}
+		connectEnv.put(Context.REFERRAL, this.referral);
+	}
+
+	public void reconnect() {
+
+		this.state.get().reconnect = true;
+	}
+
+	/**
+	 * JNDI 기본 목록 외에 byte 배열로 읽을 속성을 설정합니다. (이후 연결부터 적용)
+	 */
+	public void setBinaryAttributes(Collection<String> binaryAttributes) {
+
+		this.binaryAttributes = binaryAttributes == null || binaryAttributes.isEmpty() ? null
+				: String.join(" ", binaryAttributes);
+	}
+
+	/**
+	 * 연결 제한 시간을 설정합니다.
+	 * @param connectTimeout 연결 제한 시간 (ms)
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * 참조(referral) 를 따라갈지 설정합니다. (이후 연결부터 적용)
+	 */
+	public void setFollowReferrals(boolean followReferrals) {
+
+		this.referral = followReferrals ? "follow" : "ignore";
+	}
+
+	/**
+	 * 응답 대기 제한 시간을 설정합니다.
+	 * @param readTimeout 응답 대기 제한 시간 (ms)
+	 */
+	public void setReadTimeout(int readTimeout) {
+
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * reconnectLimit 초기화 합니다.
+	 * @param reconnectLimit 초기화 값
+	 */
+	public void setReconnectLimit(int limitReconnectCount) {
+
+		this.reconnectLimit = limitReconnectCount;
+	}
+
+	/**
+	 * sleepTime 초기화 합니다.
+	 * @param sleepTime 초기화 값
+	 */
+	public void setSleepTime(int sleepTime) {
+
+		this.sleepTime = sleepTime;
+	}
+
+	/**
+	 * 스레드별 연결 상태
+	 */
+	private static final class ConnectionState {
+
+		private InitialLdapContext ctx;
+
+		private boolean reconnect = false;
+
+		private int reconnectCount = 0;
+	}
+}
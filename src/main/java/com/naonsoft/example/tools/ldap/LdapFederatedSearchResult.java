@@ -0,0 +1,174 @@
+/**
+ * FileName : LdapFederatedSearchResult.java
+ * Created  : 2021. 4. 9.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.naming.ldap.LdapName;
+
+/**
+ * 전체 naming context 검색 결과 요약
+ * <p>
+ * naming context 별로 전달한 항목 수, 제한 초과 여부, 실패 사유를 담습니다.
+ * 일부 naming context 가 실패해도 나머지 결과는 전달되며, {@link #isPartial()} 로 확인할 수 있습니다.
+ *
+ * @author hokkk
+ */
+public final class LdapFederatedSearchResult {
+
+	private final List<Partition> partitions;
+
+	LdapFederatedSearchResult(List<Partition> partitions) {
+
+		this.partitions = Collections.unmodifiableList(new ArrayList<>(partitions));
+	}
+
+	/**
+	 * 실패한 naming context 목록
+	 */
+	public List<Partition> getFailures() {
+
+		List<Partition> result = new ArrayList<>();
+		for (Partition partition : this.partitions) {
+			if (partition.getError() != null) {
+				result.add(partition);
+			}
+		}
+		return result;
+	}
+
+	public List<Partition> getPartitions() {
+
+		return this.partitions;
+	}
+
+	/**
+	 * 전달한 전체 항목 수
+	 */
+	public long getTotal() {
+
+		long result = 0;
+		for (Partition partition : this.partitions) {
+			result += partition.getCount();
+		}
+		return result;
+	}
+
+	/**
+	 * 실패했거나 제한을 넘어 생략한 naming context 가 있는지 여부
+	 */
+	public boolean isPartial() {
+
+		for (Partition partition : this.partitions) {
+			if (partition.getError() != null || partition.isTruncated()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return "total " + this.getTotal() + ", " + this.partitions;
+	}
+
+	/**
+	 * naming context 하나의 검색 결과
+	 */
+	public static final class Partition {
+
+		private final LdapName context;
+
+		private long count;
+
+		private boolean truncated;
+
+		private RuntimeException error;
+
+		private long elapsedMillis;
+
+		Partition(LdapName context) {
+
+			this.context = context;
+		}
+
+		public String getContext() {
+
+			return this.context.toString();
+		}
+
+		public long getCount() {
+
+			return this.count;
+		}
+
+		public long getElapsedMillis() {
+
+			return this.elapsedMillis;
+		}
+
+		/**
+		 * 실패 사유 (성공이면 null)
+		 */
+		public RuntimeException getError() {
+
+			return this.error;
+		}
+
+		LdapName getName() {
+
+			return this.context;
+		}
+
+		/**
+		 * 제한 수를 넘어 생략한 항목이 있는지 여부
+		 */
+		public boolean isTruncated() {
+
+			return this.truncated;
+		}
+
+		void setCount(long count) {
+
+			this.count = count;
+		}
+
+		void setElapsedMillis(long elapsedMillis) {
+
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		void setError(RuntimeException error) {
+
+			this.error = error;
+		}
+
+		void setTruncated(boolean truncated) {
+
+			this.truncated = truncated;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+
+			return this.context + " : " + this.count + "건" + (this.truncated ? " (생략 있음)" : "")
+					+ (this.error == null ? "" : " (실패 " + this.error.getMessage() + ")");
+		}
+	}
+}
@@ -0,0 +1,393 @@
+/**
+ * FileName : LdapGroupGraph.java
+ * Created  : 2021. 3. 23.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.naming.InvalidNameException;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+/**
+ * 중첩 그룹(그룹의 그룹)을 포함한 그룹 소속 관계
+ * <p>
+ * 그룹과 사용자에 0부터 시작하는 연속된 번호를 부여하고, 그룹별 전체(전이) 소속 사용자를 {@link BitSet} 으로 보관합니다.
+ * 순환 참조된 그룹들은 강한 연결 요소(SCC)로 묶어 같은 소속 정보를 공유합니다.
+ * 생성 이후에는 서버 조회 없이 "사용자 X가 그룹 Y에 속하는가"를 O(1)로 판단합니다.
+ *
+ * @author hokkk
+ */
+public class LdapGroupGraph {
+
+	/** 그룹 검색 필터 */
+	public static final String GROUP_FILTER = "(|(objectClass=group)(objectClass=groupOfNames)(objectClass=groupOfUniqueNames))";
+
+	/** memberOf 를 가진 항목 검색 필터 */
+	public static final String MEMBER_OF_FILTER = "(memberOf=*)";
+
+	private static final List<String> MEMBER_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList(
+			"member", "uniqueMember"));
+
+	private static final String MEMBER_OF = "memberOf";
+
+	/** 그룹 검색에서 읽을 속성 (구성원이 없는 그룹도 항목을 받도록 objectClass 포함) */
+	private static final String[] GROUP_ATTRIBUTES = { "objectClass", "member", "uniqueMember" };
+
+	/** 한번에 받을 검색 결과 수 */
+	private static final int PAGE_SIZE = 1_000;
+
+	/** 그룹 번호 - DN */
+	private final LdapName[] groups;
+
+	/** 사용자 번호 - DN */
+	private final LdapName[] users;
+
+	private final Map<LdapName, Integer> groupIds;
+
+	private final Map<LdapName, Integer> userIds;
+
+	/** 그룹별 전이 소속 사용자 (같은 SCC 는 같은 인스턴스 공유) */
+	private final BitSet[] groupUsers;
+
+	/** 그룹별 전이 하위 그룹 */
+	private final BitSet[] groupGroups;
+
+	/** 사용자별 전이 소속 그룹 */
+	private final BitSet[] userGroups;
+
+	/** 순환 참조된 그룹 목록 */
+	private final List<List<LdapName>> cycles;
+
+	private LdapGroupGraph(Map<LdapName, ? extends Collection<LdapName>> groupMembers) {
+
+		this.groupIds = new HashMap<>(groupMembers.size() * 2);
+		this.groups = new LdapName[groupMembers.size()];
+		for (LdapName group : groupMembers.keySet()) {
+			this.groups[this.groupIds.size()] = group;
+			this.groupIds.put(group, this.groupIds.size());
+		}
+
+		// 그룹 간 간선과 그룹별 직속 사용자
+		int[][] adj = new int[this.groups.length][];
+		BitSet[] directUsers = new BitSet[this.groups.length];
+		Map<LdapName, Integer> tempUserIds = new HashMap<>();
+		List<LdapName> tempUsers = new ArrayList<>();
+		for (int g = 0; g < this.groups.length; g++) {
+			Collection<LdapName> members = groupMembers.get(this.groups[g]);
+			int[] edges = new int[members.size()];
+			int edgeCount = 0;
+			directUsers[g] = new BitSet();
+			for (LdapName member : members) {
+				Integer subGroup = this.groupIds.get(member);
+				if (subGroup != null) {
+					edges[edgeCount++] = subGroup;
+					continue;
+				}
+				Integer userId = tempUserIds.get(member);
+				if (userId == null) {
+					userId = tempUsers.size();
+					tempUserIds.put(member, userId);
+					tempUsers.add(member);
+				}
+				directUsers[g].set(userId);
+			}
+			adj[g] = Arrays.copyOf(edges, edgeCount);
+		}
+		this.userIds = tempUserIds;
+		this.users = tempUsers.toArray(new LdapName[0]);
+
+		this.groupUsers = new BitSet[this.groups.length];
+		this.groupGroups = new BitSet[this.groups.length];
+		this.cycles = new ArrayList<>();
+		this.closure(adj, directUsers);
+
+		this.userGroups = new BitSet[this.users.length];
+		for (int u = 0; u < this.users.length; u++) {
+			this.userGroups[u] = new BitSet();
+		}
+		for (int g = 0; g < this.groups.length; g++) {
+			BitSet members = this.groupUsers[g];
+			for (int u = members.nextSetBit(0); u >= 0; u = members.nextSetBit(u + 1)) {
+				this.userGroups[u].set(g);
+			}
+		}
+	}
+
+	/**
+	 * 서버에서 기준 DN 하위의 그룹 소속 관계를 일괄 조회하여 생성합니다.<br>
+	 * 그룹의 member/uniqueMember 와 사용자의 memberOf 를 각각 페이지 단위 하위 검색으로 읽으므로,
+	 * 서버의 크기 제한보다 그룹이나 사용자가 많아도 모두 읽고 결과를 한번에 보관하지 않습니다.
+	 */
+	public static LdapGroupGraph load(LdapService service, LdapName base) {
+
+		Map<LdapName, Set<LdapName>> groupMembers = new LinkedHashMap<>();
+
+		service.searchPaged(base, SearchControls.SUBTREE_SCOPE, GROUP_FILTER, GROUP_ATTRIBUTES, PAGE_SIZE,
+				Deadline.none(), group -> {
+					Set<LdapName> members = groupMembers.computeIfAbsent(group.getDn(), k -> new LinkedHashSet<>());
+					for (String attributeId : MEMBER_ATTRIBUTES) {
+						for (String member : group.getValues(attributeId)) {
+							addMember(members, member);
+						}
+					}
+				});
+
+		service.searchPaged(base, SearchControls.SUBTREE_SCOPE, MEMBER_OF_FILTER, new String[] { MEMBER_OF },
+				PAGE_SIZE, Deadline.none(), member -> {
+					for (String group : member.getValues(MEMBER_OF)) {
+						LdapName groupDn = toName(group);
+						if (groupDn != null) {
+							groupMembers.computeIfAbsent(groupDn, k -> new LinkedHashSet<>()).add(member.getDn());
+						}
+					}
+				});
+
+		return of(groupMembers);
+	}
+
+	/**
+	 * 그룹별 직속 구성원(사용자 또는 그룹)으로 생성합니다.<br>
+	 * 키에 포함된 DN 은 그룹, 그 외 구성원은 사용자로 취급합니다.
+	 */
+	public static LdapGroupGraph of(Map<LdapName, ? extends Collection<LdapName>> groupMembers) {
+
+		if (groupMembers == null) {
+			throw new NullPointerException("groupMembers is null");
+		}
+		return new LdapGroupGraph(groupMembers);
+	}
+
+	private static void addMember(Set<LdapName> members, String member) {
+
+		// uniqueMember 는 "dn#'0101'B" 형태로 UID 가 붙을 수 있다.
+		int uidIndex = member.lastIndexOf('#');
+		String dn = uidIndex > 0 && member.endsWith("B") ? member.substring(0, uidIndex) : member;
+		LdapName name = toName(dn);
+		if (name != null) {
+			members.add(name);
+		}
+	}
+
+	private static LdapName toName(String dn) {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Tarjan 알고리즘(재귀 없이)으로 SCC 를 구하며 전이 소속을 계산합니다.<br>
+	 * SCC 는 역위상 순서로 완성되므로 완성 시점에 하위 SCC 의 결과가 모두 계산되어 있습니다.
+	 */
+	private void closure(int[][] adj, BitSet[] directUsers) {
+
+		int size = adj.length;
+		int[] index = new int[size];
+		int[] low = new int[size];
+		int[] sccIds = new int[size];
+		boolean[] onStack = new boolean[size];
+		Arrays.fill(index, -1);
+		Arrays.fill(sccIds, -1);
+
+		int[] stack = new int[size];
+		int stackSize = 0;
+		int counter = 0;
+		int sccCount = 0;
+		Deque<int[]> callStack = new ArrayDeque<>();
+
+		for (int start = 0; start < size; start++) {
+			if (index[start] != -1) {
+				continue;
+			}
+			index[start] = low[start] = counter++;
+			stack[stackSize++] = start;
+			onStack[start] = true;
+			callStack.push(new int[] { start, 0 });
+
+			while (callStack.isEmpty() == false) {
+				int[] frame = callStack.peek();
+				int v = frame[0];
+				if (frame[1] < adj[v].length) {
+					int w = adj[v][frame[1]++];
+					if (index[w] == -1) {
+						index[w] = low[w] = counter++;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						callStack.push(new int[] { w, 0 });
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+
+				callStack.pop();
+				if (callStack.isEmpty() == false) {
+					int parent = callStack.peek()[0];
+					low[parent] = Math.min(low[parent], low[v]);
+				}
+				if (low[v] != index[v]) {
+					continue;
+				}
+
+				// SCC 완성
+				List<Integer> scc = new ArrayList<>();
+				int w;
+				do {
+					w = stack[--stackSize];
+					onStack[w] = false;
+					sccIds[w] = sccCount;
+					scc.add(w);
+				} while (w != v);
+
+				BitSet sccUsers = new BitSet();
+				BitSet sccGroups = new BitSet();
+				boolean cycle = scc.size() > 1;
+				for (int g : scc) {
+					sccUsers.or(directUsers[g]);
+					for (int sub : adj[g]) {
+						sccGroups.set(sub);
+						if (sccIds[sub] == sccCount) {
+							cycle = true;
+						} else {
+							sccUsers.or(this.groupUsers[sub]);
+							sccGroups.or(this.groupGroups[sub]);
+						}
+					}
+				}
+				for (int g : scc) {
+					this.groupUsers[g] = sccUsers;
+					this.groupGroups[g] = sccGroups;
+				}
+				if (cycle) {
+					List<LdapName> names = new ArrayList<>(scc.size());
+					for (int g : scc) {
+						names.add(this.groups[g]);
+					}
+					this.cycles.add(Collections.unmodifiableList(names));
+				}
+				sccCount++;
+			}
+		}
+	}
+
+	/**
+	 * 순환 참조된 그룹 목록
+	 */
+	public List<List<LdapName>> getCycles() {
+
+		return Collections.unmodifiableList(this.cycles);
+	}
+
+	/**
+	 * 사용자가 (하위 그룹을 통해서라도) 속한 전체 그룹
+	 */
+	public List<LdapName> getGroups(LdapName user) {
+
+		Integer userId = this.userIds.get(user);
+		if (userId == null) {
+			return Collections.emptyList();
+		}
+		return toNames(this.userGroups[userId], this.groups);
+	}
+
+	/**
+	 * 그룹의 전체(하위 그룹 포함) 소속 사용자
+	 */
+	public List<LdapName> getMembers(LdapName group) {
+
+		Integer groupId = this.groupIds.get(group);
+		if (groupId == null) {
+			return Collections.emptyList();
+		}
+		return toNames(this.groupUsers[groupId], this.users);
+	}
+
+	/**
+	 * 그룹의 전체 하위 그룹
+	 */
+	public List<LdapName> getSubGroups(LdapName group) {
+
+		Integer groupId = this.groupIds.get(group);
+		if (groupId == null) {
+			return Collections.emptyList();
+		}
+		return toNames(this.groupGroups[groupId], this.groups);
+	}
+
+	public int getGroupCount() {
+
+		return this.groups.length;
+	}
+
+	public int getUserCount() {
+
+		return this.users.length;
+	}
+
+	/**
+	 * member(사용자 또는 그룹)가 group 에 (하위 그룹을 통해서라도) 속하는지 확인합니다.
+	 */
+	public boolean isMember(LdapName member, LdapName group) {
+
+		Integer groupId = this.groupIds.get(group);
+		if (groupId == null) {
+			return false;
+		}
+		Integer userId = this.userIds.get(member);
+		if (userId != null) {
+			return this.groupUsers[groupId].get(userId);
+		}
+		Integer subGroupId = this.groupIds.get(member);
+		return subGroupId != null && this.groupGroups[groupId].get(subGroupId);
+	}
+
+	private static List<LdapName> toNames(BitSet bits, LdapName[] names) {
+
+		List<LdapName> result = new ArrayList<>(bits.cardinality());
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			result.add(names[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("Groups : ").append(this.groups.length).append('\t');
+		builder.append("Users : ").append(this.users.length).append('\t');
+		builder.append("Cycles : ").append(this.cycles.size());
+		for (Entry<LdapName, Integer> entry : this.groupIds.entrySet()) {
+			builder.append("\r\n").append(entry.getKey()).append(" : ")
+					.append(this.groupUsers[entry.getValue()].cardinality());
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,344 @@
+/**
+ * FileName : LdapHedgedReader.java
+ * Created  : 2021. 3. 29.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 복제 서버들에 대한 헤지(hedged) 조회
+ * <p>
+ * 한 서버에 먼저 요청하고, 최근 응답 시간의 percentile(기본 95%) 안에 응답이 없으면 다른 서버에 같은 요청을 한번 더 보내
+ * 먼저 도착한 결과를 사용하고 남은 요청은 취소합니다. 먼저 요청한 서버가 바로 실패한 경우에도 다른 서버로 요청합니다.
+ * 응답 시간은 작업 종류(getAttr, getChilds, tree)별로 따로 모읍니다.
+ * 추가 요청이 서버 부하를 키우지 않도록 전체 요청 대비 추가 요청 비율을 maxHedgeRatio(기본 10%) 로 제한합니다.
+ * <p>
+ * {@link #addOwnedBackend(LdapBackend)} 로 등록한 백엔드는 {@link #close()} 할 때 함께 닫습니다.
+ *
+ * @author hokkk
+ */
+public class LdapHedgedReader implements Closeable {
+
+	/** 응답 시간 통계를 쓰기 위한 최소 표본 수 */
+	private static final int MIN_SAMPLES = 20;
+
+	private final List<LdapService> replicas;
+
+	private final Executor executor;
+
+	/** 작업 종류별 최근 응답 시간 */
+	private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final AtomicLong requestCount = new AtomicLong();
+
+	private final AtomicLong hedgeCount = new AtomicLong();
+
+	private double percentile = 0.95;
+
+	private double maxHedgeRatio = 0.1;
+
+	/** 제한 시각을 지정하지 않은 조회의 기본 제한 시간 (null 이면 제한 없음) */
+	private Duration defaultTimeout;
+
+	/** 닫을 때 함께 닫을 백엔드 */
+	private final List<LdapBackend> ownedBackends = new ArrayList<>();
+
+	/**
+	 * LdapHedgedReader 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param replicas
+	 *            같은 데이터를 가진 서버별 서비스
+	 * @param executor
+	 *            요청을 수행할 executor
+	 */
+	public LdapHedgedReader(List<LdapService> replicas, Executor executor) {
+
+		if (replicas == null || replicas.isEmpty()) {
+			throw new IllegalArgumentException("replicas가 없습니다.");
+		}
+		if (executor == null) {
+			throw new NullPointerException("Executor executor is null");
+		}
+		this.replicas = new ArrayList<>(replicas);
+		this.executor = executor;
+	}
+
+	private static <T> T await(CompletableFuture<T> future, Deadline deadline, String operation) {
+
+		try {
+			if (deadline.isNone()) {
+				return future.get();
+			}
+			return future.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededError("제한 시간을 초과하였습니다 : " + operation, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LogicError(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new LogicError(e.getCause());
+		}
+	}
+
+	/**
+	 * 먼저 성공한 결과로 완료되고, 모두 실패하면 마지막 예외로 완료되는 future
+	 */
+	private static <T> CompletableFuture<T> firstSuccess(List<CompletableFuture<T>> futures) {
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicInteger failures = new AtomicInteger();
+		for (CompletableFuture<T> future : futures) {
+			future.whenComplete((value, error) -> {
+				if (error == null) {
+					result.complete(value);
+				} else if (failures.incrementAndGet() == futures.size()) {
+					result.completeExceptionally(error instanceof CompletionException
+							? error.getCause()
+							: error);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 닫을 때 함께 닫을 백엔드를 등록합니다. (이 조회기만 사용하는 복제 서버 백엔드)
+	 */
+	public synchronized void addOwnedBackend(LdapBackend backend) {
+
+		this.ownedBackends.add(backend);
+	}
+
+	/**
+	 * 등록한 백엔드를 닫습니다.
+	 */
+	@Override
+	public synchronized void close() {
+
+		for (LdapBackend backend : this.ownedBackends) {
+			backend.close();
+		}
+		this.ownedBackends.clear();
+	}
+
+	public LdapAttribute getAttr(LdapName dn, Deadline deadline) {
+
+		return this.read("getAttr", service -> service.getAttr(dn, deadline), deadline, dn);
+	}
+
+	public List<LdapNode> getChilds(LdapName dn, Deadline deadline) {
+
+		return this.read("getChilds", service -> service.getChilds(dn, deadline), deadline, dn);
+	}
+
+	public long getHedgeCount() {
+
+		return this.hedgeCount.get();
+	}
+
+	public long getRequestCount() {
+
+		return this.requestCount.get();
+	}
+
+	private boolean canHedge() {
+
+		return this.replicas.size() > 1
+				&& this.hedgeCount.get() < this.requestCount.get() * this.maxHedgeRatio;
+	}
+
+	/**
+	 * 작업 종류(type)의 응답 시간으로 추가 요청 여부를 정합니다. 끝나면 완료되지 않은 요청을 취소합니다.
+	 */
+	private <T> T read(String type, Function<LdapService, T> operation, Deadline deadline, LdapName dn) {
+
+		this.requestCount.incrementAndGet();
+		LatencyWindow window = this.latencies.computeIfAbsent(type, key -> new LatencyWindow(256));
+		int first = Math.floorMod(this.next.getAndIncrement(), this.replicas.size());
+		List<CompletableFuture<T>> futures = new ArrayList<>(2);
+		try {
+			futures.add(this.submit(this.replicas.get(first), operation, window));
+
+			long hedgeDelay = window.percentile(this.percentile, MIN_SAMPLES);
+			if (hedgeDelay != Long.MAX_VALUE && deadline.remainingNanos() > hedgeDelay) {
+				try {
+					return futures.get(0).get(hedgeDelay, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					// percentile 안에 응답하지 않았으므로 아래에서 다른 서버에 요청한다.
+				} catch (ExecutionException e) {
+					// 바로 실패한 경우 다른 서버로 요청한다.
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new LogicError(e);
+				}
+				if (this.canHedge()) {
+					this.hedgeCount.incrementAndGet();
+					int second = (first + 1) % this.replicas.size();
+					futures.add(this.submit(this.replicas.get(second), operation, window));
+				}
+			}
+			return await(firstSuccess(futures), deadline, type + " " + dn);
+		} finally {
+			// 진 요청과 제한 시각을 넘긴 요청은 더 기다리지 않도록 취소한다. (완료된 요청에는 영향 없음)
+			for (CompletableFuture<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * 제한 시각을 지정하지 않은 조회의 기본 제한 시간을 설정합니다. (null 이면 제한 없음)
+	 */
+	public void setDefaultTimeout(Duration defaultTimeout) {
+
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	/**
+	 * 전체 요청 대비 최대 추가 요청 비율 (기본 0.1)
+	 */
+	public void setMaxHedgeRatio(double maxHedgeRatio) {
+
+		this.maxHedgeRatio = maxHedgeRatio;
+	}
+
+	/**
+	 * 추가 요청을 보낼 응답 시간 percentile (0~1, 기본 0.95)
+	 */
+	public void setPercentile(double percentile) {
+
+		if (percentile <= 0 || percentile >= 1) {
+			throw new IllegalArgumentException("percentile은 0과 1 사이여야 합니다. : " + percentile);
+		}
+		this.percentile = percentile;
+	}
+
+	/**
+	 * executor 에서 작업을 수행합니다. 반환한 future 를 취소하면 수행 중인 스레드를 인터럽트합니다.
+	 */
+	private <T> CompletableFuture<T> submit(LdapService service, Function<LdapService, T> operation,
+			LatencyWindow window) {
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			long start = System.nanoTime();
+			try {
+				T value = operation.apply(service);
+				window.add(System.nanoTime() - start);
+				result.complete(value);
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		}, null);
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+		this.executor.execute(task);
+		return result;
+	}
+
+	public Tree<LdapNode> tree(LdapName dn) {
+
+		return this.tree(dn, Deadline.after(this.defaultTimeout));
+	}
+
+	public Tree<LdapNode> tree(LdapName dn, Deadline deadline) {
+
+		return this.read("tree", service -> service.tree(dn, deadline), deadline, dn);
+	}
+
+	/**
+	 * 하위 트리를 maxDepth 깊이까지 조회합니다. (0 이면 기준 노드만, 음수이면 제한 없음)
+	 */
+	public Tree<LdapNode> tree(LdapName dn, int maxDepth) {
+
+		Deadline deadline = Deadline.after(this.defaultTimeout);
+		return this.read("tree", service -> service.tree(dn, maxDepth, deadline), deadline, dn);
+	}
+
+	/**
+	 * 최근 응답 시간 (고정 크기 순환 버퍼)
+	 */
+	private static final class LatencyWindow {
+
+		private final long[] samples;
+
+		private int count = 0;
+
+		private int position = 0;
+
+		/** 마지막 계산 결과 (표본이 32개 추가될 때마다 다시 계산) */
+		private long cachedPercentile = Long.MAX_VALUE;
+
+		private double cachedRatio = -1;
+
+		private int sinceCached = 0;
+
+		LatencyWindow(int size) {
+
+			this.samples = new long[size];
+		}
+
+		synchronized void add(long nanos) {
+
+			this.samples[this.position] = nanos;
+			this.position = (this.position + 1) % this.samples.length;
+			this.count = Math.min(this.count + 1, this.samples.length);
+			this.sinceCached++;
+		}
+
+		/**
+		 * percentile 응답 시간 (표본이 부족하면 Long.MAX_VALUE)
+		 */
+		synchronized long percentile(double ratio, int minSamples) {
+
+			if (this.count < minSamples) {
+				return Long.MAX_VALUE;
+			}
+			if (this.cachedRatio != ratio || this.sinceCached >= 32) {
+				long[] sorted = Arrays.copyOf(this.samples, this.count);
+				Arrays.sort(sorted);
+				this.cachedPercentile = sorted[Math.min((int) (this.count * ratio), this.count - 1)];
+				this.cachedRatio = ratio;
+				this.sinceCached = 0;
+			}
+			return this.cachedPercentile;
+		}
+	}
+}
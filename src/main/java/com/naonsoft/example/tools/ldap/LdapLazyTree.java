@@ -0,0 +1,443 @@
+/**
+ * FileName : LdapLazyTree.java
+ * Created  : 2021. 4. 5.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+import javax.naming.ldap.LdapName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 자식을 처음 접근할 때 읽는 트리
+ * <p>
+ * {@link #getChilds()}, {@link #getChildCount()} 등 자식에 처음 접근하면 1레벨 검색 한번으로 자식을 읽습니다.
+ * 실행기를 지정하면 자식을 읽은 뒤 그 자식들의 다음 레벨을 미리 읽어 둡니다.
+ * 유휴 시간을 지정하면 그 시간 동안 접근하지 않은 노드의 자식을 버리고 다음 접근 시 다시 읽습니다.
+ * <p>
+ * 디렉토리를 반영하는 읽기 전용 트리이므로 {@link #addChild(LdapNode)} 는 지원하지 않습니다.
+ * {@link #size()}, {@link #toList()} 는 하위 전체를 읽습니다.
+ *
+ * @author hokkk
+ */
+public class LdapLazyTree implements Tree<LdapNode> {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapLazyTree.class);
+
+	/** 트리 전체가 공유하는 설정 */
+	private final Shared shared;
+
+	private final LdapLazyTree parent;
+
+	private final LdapNode data;
+
+	/** 읽은 자식 (null 이면 아직 읽지 않음) */
+	private volatile List<LdapLazyTree> childs;
+
+	/** 미리 읽는 중인 자식 */
+	private volatile CompletableFuture<List<LdapNode>> prefetched;
+
+	/** 마지막 접근 시각 (ns) */
+	private volatile long lastAccess;
+
+	/**
+	 * 기준 노드로 트리를 생성합니다. 자식은 접근할 때 읽습니다.
+	 */
+	public LdapLazyTree(LdapService service, LdapNode root) {
+
+		this(new Shared(service, System::nanoTime), null, root);
+	}
+
+	/**
+	 * 테스트용 (시각 지정)
+	 */
+	LdapLazyTree(LdapService service, LdapNode root, LongSupplier clock) {
+
+		this(new Shared(service, clock), null, root);
+	}
+
+	private LdapLazyTree(Shared shared, LdapLazyTree parent, LdapNode data) {
+
+		if (data == null) {
+			throw new NullPointerException("LdapNode data is null");
+		}
+		this.shared = shared;
+		this.parent = parent;
+		this.data = data;
+		this.lastAccess = shared.clock.getAsLong();
+	}
+
+	/**
+	 * 기준 DN 의 속성을 읽어 트리를 생성합니다.
+	 */
+	public static LdapLazyTree of(LdapService service, LdapName dn) {
+
+		return new LdapLazyTree(service, service.toNode(dn));
+	}
+
+	/**
+	 * 지원하지 않습니다.
+	 */
+	@Override
+	public Tree<LdapNode> addChild(LdapNode childData) {
+
+		throw new UnsupportedOperationException("디렉토리를 반영하는 읽기 전용 트리입니다.");
+	}
+
+	private void evict() {
+
+		this.childs = null;
+		CompletableFuture<List<LdapNode>> future = this.prefetched;
+		this.prefetched = null;
+		if (future != null) {
+			future.cancel(false);
+		}
+	}
+
+	/**
+	 * 유휴 시간 동안 접근하지 않은 노드의 자식과 미리 읽은 결과를 버립니다. (트리 전체 대상)<br>
+	 * 자식을 읽을 때 유휴 시간의 절반마다 자동으로 수행합니다.
+	 *
+	 * @return 자식을 버린 노드 수
+	 */
+	public int evictIdle() {
+
+		if (this.shared.idleNanos <= 0) {
+			return 0;
+		}
+		long now = this.shared.clock.getAsLong();
+		this.shared.lastEviction = now;
+
+		int evicted = 0;
+		Deque<LdapLazyTree> stack = new ArrayDeque<>();
+		stack.push((LdapLazyTree) this.getRoot());
+		while (stack.isEmpty() == false) {
+			LdapLazyTree node = stack.pop();
+			boolean idle = now - node.lastAccess > this.shared.idleNanos;
+			List<LdapLazyTree> loaded = node.childs;
+			if (idle && (loaded != null || node.prefetched != null)) {
+				node.evict();
+				evicted++;
+			} else if (loaded != null) {
+				for (LdapLazyTree child : loaded) {
+					stack.push(child);
+				}
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * 미리 읽은 결과가 있으면 사용하고 없으면 1레벨 검색합니다.
+	 */
+	private List<LdapNode> fetch() {
+
+		CompletableFuture<List<LdapNode>> future = this.prefetched;
+		this.prefetched = null;
+		if (future != null) {
+			try {
+				return future.join();
+			} catch (CompletionException | CancellationException e) {
+				LOGGER.debug("미리 읽기 실패 : {}", this.data.getDn(), e);
+			}
+		}
+		return this.shared.service.getChilds(this.data.getDn());
+	}
+
+	@Override
+	public Optional<Tree<LdapNode>> getChild(int index) {
+
+		List<LdapLazyTree> loaded = this.loadedChilds();
+		if (index < 0 || index >= loaded.size()) {
+			return Optional.empty();
+		}
+		return Optional.of(loaded.get(index));
+	}
+
+	@Override
+	public int getChildCount() {
+
+		return this.loadedChilds().size();
+	}
+
+	@Override
+	public List<LdapNode> getChildDatas() {
+
+		List<LdapLazyTree> loaded = this.loadedChilds();
+		List<LdapNode> result = new ArrayList<>(loaded.size());
+		for (LdapLazyTree child : loaded) {
+			result.add(child.data);
+		}
+		return result;
+	}
+
+	@Override
+	public List<Tree<LdapNode>> getChilds() {
+
+		return new ArrayList<>(this.loadedChilds());
+	}
+
+	@Override
+	public LdapNode getData() {
+
+		return this.data;
+	}
+
+	@Override
+	public int getIndexOfChild(LdapNode child) {
+
+		return this.getChildDatas().indexOf(child);
+	}
+
+	@Override
+	public Optional<Tree<LdapNode>> getParent() {
+
+		return Optional.ofNullable(this.parent);
+	}
+
+	@Override
+	public Tree<LdapNode> getRoot() {
+
+		LdapLazyTree root = this;
+		while (root.parent != null) {
+			root = root.parent;
+		}
+		return root;
+	}
+
+	/**
+	 * 자식을 읽었는지 확인합니다. (읽지 않음)
+	 */
+	public boolean isLoaded() {
+
+		return this.childs != null;
+	}
+
+	@Override
+	public boolean isLeaf() {
+
+		return this.getChildCount() == 0;
+	}
+
+	@Override
+	public boolean isRoot() {
+
+		return this.parent == null;
+	}
+
+	@Override
+	public Iterator<LdapNode> iterator() {
+
+		return this.toList().iterator();
+	}
+
+	private List<LdapLazyTree> loadedChilds() {
+
+		this.touch();
+		List<LdapLazyTree> current = this.childs;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (this.childs == null) {
+				List<LdapNode> nodes = this.fetch();
+				List<LdapLazyTree> loaded = new ArrayList<>(nodes.size());
+				for (LdapNode node : nodes) {
+					loaded.add(new LdapLazyTree(this.shared, this, node));
+				}
+				Comparator<LdapNode> comparator = this.shared.comparator;
+				if (comparator != null) {
+					loaded.sort((o1, o2) -> comparator.compare(o1.data, o2.data));
+				}
+				this.childs = loaded;
+				this.shared.prefetch(loaded);
+			}
+			current = this.childs;
+		}
+		if (this.shared.idleNanos > 0
+				&& this.shared.clock.getAsLong() - this.shared.lastEviction > this.shared.idleNanos / 2) {
+			this.evictIdle();
+		}
+		return current;
+	}
+
+	/**
+	 * 유휴 시간을 설정합니다. (트리 전체에 적용, null 이면 버리지 않음)
+	 */
+	public void setIdleTimeout(Duration idleTimeout) {
+
+		this.shared.idleNanos = idleTimeout == null ? 0 : idleTimeout.toNanos();
+	}
+
+	/**
+	 * 자식을 읽은 뒤 그 자식들의 다음 레벨을 미리 읽도록 설정합니다. (트리 전체에 적용)
+	 *
+	 * @param executor
+	 *            미리 읽기를 수행할 실행기 (null 이면 미리 읽지 않음)
+	 * @param limit
+	 *            한 레벨에서 미리 읽을 최대 자식 수
+	 */
+	public void setPrefetch(Executor executor, int limit) {
+
+		this.shared.executor = executor;
+		this.shared.prefetchLimit = limit;
+	}
+
+	/**
+	 * 하위 전체를 읽어 노드 수를 반환합니다.
+	 */
+	@Override
+	public long size() {
+
+		return this.toList().size();
+	}
+
+	@Override
+	public void sort(Comparator<LdapNode> comparator) {
+
+		synchronized (this) {
+			List<LdapLazyTree> sorted = new ArrayList<>(this.loadedChilds());
+			sorted.sort((o1, o2) -> comparator.compare(o1.data, o2.data));
+			this.childs = sorted;
+		}
+	}
+
+	/**
+	 * 이미 읽은 노드는 바로 정렬하고, 이후에 읽는 자식은 읽을 때 정렬합니다. (트리 전체에 적용)
+	 */
+	@Override
+	public void sortRecursive(Comparator<LdapNode> comparator) {
+
+		this.shared.comparator = comparator;
+		Deque<LdapLazyTree> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (stack.isEmpty() == false) {
+			LdapLazyTree node = stack.pop();
+			synchronized (node) {
+				List<LdapLazyTree> loaded = node.childs;
+				if (loaded == null) {
+					continue;
+				}
+				List<LdapLazyTree> sorted = new ArrayList<>(loaded);
+				sorted.sort((o1, o2) -> comparator.compare(o1.data, o2.data));
+				node.childs = sorted;
+				for (LdapLazyTree child : sorted) {
+					stack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 하위 전체를 읽어 전위 순서로 반환합니다.
+	 */
+	@Override
+	public List<LdapNode> toList() {
+
+		List<LdapNode> result = new ArrayList<>();
+		Deque<LdapLazyTree> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (stack.isEmpty() == false) {
+			LdapLazyTree node = stack.pop();
+			result.add(node.data);
+			List<LdapLazyTree> loaded = node.loadedChilds();
+			for (int i = loaded.size() - 1; i >= 0; i--) {
+				stack.push(loaded.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		List<LdapLazyTree> loaded = this.childs;
+		return this.data.getDn() + (loaded == null ? " (not loaded)" : " (" + loaded.size() + " childs)");
+	}
+
+	/**
+	 * 이 노드와 상위 노드의 접근 시각을 갱신합니다.
+	 */
+	private void touch() {
+
+		long now = this.shared.clock.getAsLong();
+		for (LdapLazyTree node = this; node != null; node = node.parent) {
+			node.lastAccess = now;
+		}
+	}
+
+	/**
+	 * 트리 전체가 공유하는 설정
+	 */
+	private static final class Shared {
+
+		private final LdapService service;
+
+		private final LongSupplier clock;
+
+		private volatile Executor executor;
+
+		private volatile int prefetchLimit = 20;
+
+		private volatile long idleNanos = 0;
+
+		private volatile long lastEviction;
+
+		private volatile Comparator<LdapNode> comparator;
+
+		Shared(LdapService service, LongSupplier clock) {
+
+			if (service == null) {
+				throw new NullPointerException("LdapService service is null");
+			}
+			this.service = service;
+			this.clock = clock;
+			this.lastEviction = clock.getAsLong();
+		}
+
+		/**
+		 * 읽은 자식들의 다음 레벨을 미리 읽습니다.
+		 */
+		void prefetch(List<LdapLazyTree> loaded) {
+
+			Executor target = this.executor;
+			if (target == null) {
+				return;
+			}
+			int count = Math.min(loaded.size(), this.prefetchLimit);
+			for (int i = 0; i < count; i++) {
+				LdapLazyTree child = loaded.get(i);
+				LdapName dn = child.data.getDn();
+				child.prefetched = CompletableFuture.supplyAsync(() -> this.service.getChilds(dn), target);
+			}
+		}
+	}
+}
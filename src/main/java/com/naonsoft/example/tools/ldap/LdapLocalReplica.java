@@ -0,0 +1,691 @@
+/**
+ * FileName : LdapLocalReplica.java
+ * Created  : 2021. 4. 14.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.ContextNotEmptyException;
+import javax.naming.InvalidNameException;
+import javax.naming.NameAlreadyBoundException;
+import javax.naming.NameNotFoundException;
+import javax.naming.NoPermissionException;
+import javax.naming.directory.SchemaViolationException;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LdapTimeoutError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedAddRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedDeleteRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedModifyDNRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedModifyRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSASLBindResult;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSimpleBindResult;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldap.sdk.OperationType;
+import com.unboundid.ldap.sdk.ReadOnlyModifyDNRequest;
+import com.unboundid.ldap.sdk.ResultCode;
+
+/**
+ * 내장 LDAP 읽기 복제 서버
+ * <p>
+ * UnboundID InMemoryDirectoryServer 를 이 애플리케이션 안에서 실행합니다. 시작할 때 기준 DN 하위 전체를 원본 서버에서
+ * 복사하고, 이후에는 {@link LdapChangeNotifier} 의 변경 이벤트로 항목 단위 갱신합니다. 같은 호스트의 다른 서비스는 이
+ * 포트로 조회하여 원본 서버까지 왕복하지 않습니다.
+ * <p>
+ * 쓰기 요청은 기본적으로 거부합니다. {@link #setForwardWrites(boolean)} 를 켜면 이 애플리케이션의 계정으로 원본 서버에
+ * 먼저 수행하고, 성공한 경우에만 복제본에도 반영합니다. 원본 서버 계정 권한으로 쓰게 되므로 수신 주소를 제한해야 합니다.
+ * <p>
+ * 익명 접속은 허용하지 않습니다. {@link #setBindCredentials(String, String)} 로 설정한 계정으로 bind 한 연결만 조회할 수
+ * 있고, 쓰기 요청도 그 연결에서 받은 것만 원본 서버로 전달합니다.
+ * <p>
+ * 기준 DN 을 복사하는 동안 받은 변경 이벤트는 보류했다가 복사가 끝난 뒤 순서대로 반영합니다. 복제본 갱신은 한 잠금 안에서
+ * 수행하므로 복사와 이벤트 반영이 서로의 결과를 덮어쓰지 않습니다.
+ * <p>
+ * 비밀번호 속성은 복사하지 않으며, 원본 조회에서 binary 속성을 제외하는 경우 복제본에도 binary 속성이 없습니다.
+ *
+ * <pre>
+ * LdapLocalReplica replica = new LdapLocalReplica(service, baseDns);
+ * replica.setListenAddress("127.0.0.1");
+ * replica.setPort(10389);
+ * replica.setBindCredentials("cn=replica", password);
+ * replica.start(notifier);
+ * </pre>
+ *
+ * @author hokkk
+ */
+public class LdapLocalReplica implements Closeable {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapLocalReplica.class);
+
+	private static final String ALL_SEARCH_FILTER = "(objectClass=*)";
+
+	/** 인증 여부를 기억할 최대 연결 수 (끊긴 연결을 알 수 없으므로 오래된 것부터 잊음) */
+	private static final int MAX_AUTHENTICATED_CONNECTIONS = 10_000;
+
+	private final LdapService upstream;
+
+	/** 복제할 기준 DN (다른 기준 DN 하위인 DN 은 제외) */
+	private final List<LdapName> baseDns;
+
+	/** 수신 주소 (null 이면 모든 주소) */
+	private String listenAddress = "127.0.0.1";
+
+	/** 수신 포트 (0 이면 임의 포트) */
+	private int port;
+
+	/** 원본 서버에서 한번에 받을 개수 */
+	private int pageSize = 1_000;
+
+	/** 쓰기 요청을 원본 서버로 전달할지 여부 (false 이면 거부) */
+	private volatile boolean forwardWrites;
+
+	/** 복제 서버 접속 계정 DN */
+	private String bindDn;
+
+	/** 복제 서버 접속 계정 비밀번호 */
+	private String bindPassword;
+
+	/** 설정한 계정으로 bind 한 연결 ID */
+	private final Set<Long> authenticatedConnections = Collections
+			.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<Long, Boolean>() {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+
+					return this.size() > MAX_AUTHENTICATED_CONNECTIONS;
+				}
+			}));
+
+	private final List<LdapChangeNotifier.Subscription> subscriptions = new ArrayList<>();
+
+	private final AtomicLong appliedChanges = new AtomicLong();
+
+	private final AtomicLong forwardedWrites = new AtomicLong();
+
+	private volatile InMemoryDirectoryServer server;
+
+	/** 복제본 갱신 잠금 (복사, 이벤트 반영, 종료) */
+	private final Object syncLock = new Object();
+
+	/** 복사 중인 기준 DN 별로 보류한 변경 이벤트 (syncLock 으로 보호) */
+	private final Map<LdapName, List<LdapChangeEvent>> pendingEvents = new HashMap<>();
+
+	/**
+	 * {@link LdapLocalReplica} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param upstream
+	 *            원본 서버 조회/쓰기 서비스
+	 * @param baseDns
+	 *            복제할 기준 DN
+	 */
+	public LdapLocalReplica(LdapService upstream, List<LdapName> baseDns) {
+
+		if (upstream == null) {
+			throw new NullPointerException("LdapService upstream is null");
+		}
+		if (baseDns == null || baseDns.isEmpty()) {
+			throw new LogicError("복제할 기준 DN 이 없습니다.");
+		}
+		this.upstream = upstream;
+		List<LdapName> sorted = new ArrayList<>(baseDns);
+		sorted.sort(Comparator.comparingInt(LdapName::size));
+		this.baseDns = new ArrayList<>();
+		for (LdapName dn : sorted) {
+			if (this.baseDns.stream().noneMatch(dn::startsWith)) {
+				this.baseDns.add(dn);
+			}
+		}
+	}
+
+	/**
+	 * 원본 서버 오류를 LDAP 결과 코드로 변환합니다.
+	 */
+	static ResultCode toResultCode(Throwable error) {
+
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof LDAPException) {
+				return ((LDAPException) cause).getResultCode();
+			}
+			if (cause instanceof NameAlreadyBoundException) {
+				return ResultCode.ENTRY_ALREADY_EXISTS;
+			}
+			if (cause instanceof NameNotFoundException) {
+				return ResultCode.NO_SUCH_OBJECT;
+			}
+			if (cause instanceof NoPermissionException) {
+				return ResultCode.INSUFFICIENT_ACCESS_RIGHTS;
+			}
+			if (cause instanceof ContextNotEmptyException) {
+				return ResultCode.NOT_ALLOWED_ON_NONLEAF;
+			}
+			if (cause instanceof SchemaViolationException) {
+				return ResultCode.OBJECT_CLASS_VIOLATION;
+			}
+			if (cause instanceof DeadlineExceededError) {
+				return ResultCode.TIME_LIMIT_EXCEEDED;
+			}
+			if (cause instanceof LdapTimeoutError) {
+				return ResultCode.UNAVAILABLE;
+			}
+		}
+		return ResultCode.OTHER;
+	}
+
+	/**
+	 * 노드를 복제본 항목으로 변환합니다. (비밀번호 속성 제외)
+	 */
+	static Entry toEntry(LdapNode node) {
+
+		Entry entry = new Entry(node.getDn().toString());
+		for (Map.Entry<String, List<String>> attribute : node.attributes().entrySet()) {
+			if (attribute.getValue().isEmpty() || isExcluded(attribute.getKey())) {
+				continue;
+			}
+			entry.addAttribute(attribute.getKey(), attribute.getValue());
+		}
+		for (Map.Entry<String, List<byte[]>> attribute : node.attributes().byteArrays().entrySet()) {
+			if (attribute.getValue().isEmpty() || isExcluded(attribute.getKey())) {
+				continue;
+			}
+			entry.addAttribute(new Attribute(attribute.getKey(), attribute.getValue().toArray(new byte[0][])));
+		}
+		return entry;
+	}
+
+	/**
+	 * 쓰기 요청을 원본 서버 쓰기 작업으로 변환합니다.
+	 *
+	 * @throws LDAPException
+	 *             원본 서버로 전달할 수 없는 요청인 경우 (UNWILLING_TO_PERFORM)
+	 */
+	static LdapWriteOperation toWriteOperation(String dn, List<Modification> modifications) throws LDAPException {
+
+		List<LdapWriteOperation.Modification> result = new ArrayList<>(modifications.size());
+		for (Modification modification : modifications) {
+			String attributeId = modification.getAttributeName();
+			if (LdapSchema.isDefaultBinary(attributeId)) {
+				throw new LDAPException(ResultCode.UNWILLING_TO_PERFORM,
+						"binary 속성은 복제 서버를 통해 수정할 수 없습니다 : " + attributeId);
+			}
+			String[] values = modification.getValues();
+			ModificationType type = modification.getModificationType();
+			if (ModificationType.ADD.equals(type)) {
+				result.add(LdapWriteOperation.Modification.add(attributeId, values));
+			} else if (ModificationType.DELETE.equals(type)) {
+				result.add(LdapWriteOperation.Modification.remove(attributeId, values));
+			} else if (ModificationType.REPLACE.equals(type)) {
+				result.add(LdapWriteOperation.Modification.replace(attributeId, values));
+			} else {
+				throw new LDAPException(ResultCode.UNWILLING_TO_PERFORM, "지원하지 않는 수정 유형입니다 : " + type);
+			}
+		}
+		return LdapWriteOperation.modify(toName(dn), result);
+	}
+
+	/**
+	 * 이름 변경 요청의 변경 후 DN 을 구합니다.
+	 */
+	static LdapName toNewDn(ReadOnlyModifyDNRequest request) throws LDAPException {
+
+		LdapName newDn;
+		try {
+			if (request.getNewSuperiorDN() != null) {
+				newDn = toName(request.getNewSuperiorDN());
+			} else {
+				newDn = toName(request.getDN());
+				if (newDn.isEmpty() == false) {
+					newDn.remove(newDn.size() - 1);
+				}
+			}
+			newDn.add(new Rdn(request.getNewRDN()));
+		} catch (InvalidNameException e) {
+			throw new LDAPException(ResultCode.INVALID_DN_SYNTAX, e.getMessage(), e);
+		}
+		return newDn;
+	}
+
+	private static boolean isExcluded(String attributeId) {
+
+		return LdapSchema.isSecret(attributeId);
+	}
+
+	private static LdapName toName(String dn) throws LDAPException {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new LDAPException(ResultCode.INVALID_DN_SYNTAX, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 변경 이벤트를 복제본에 반영합니다. 해당 기준 DN 을 복사 중이면 복사가 끝날 때까지 보류합니다.
+	 */
+	void apply(LdapChangeEvent event) {
+
+		synchronized (this.syncLock) {
+			LdapName copying = this.findCopyingBase(event);
+			if (copying != null) {
+				this.pendingEvents.get(copying).add(event);
+				return;
+			}
+			this.applyNow(event);
+		}
+	}
+
+	/**
+	 * 변경 이벤트를 바로 반영합니다. (syncLock 안에서 호출)
+	 */
+	private void applyNow(LdapChangeEvent event) {
+
+		if (this.server == null) {
+			return;
+		}
+		try {
+			switch (event.getType()) {
+			case DELETE:
+				this.deleteSubtree(event.getDn());
+				break;
+			case RENAME:
+				if (event.getPreviousDn().isPresent()) {
+					this.deleteSubtree(event.getPreviousDn().get());
+				}
+				this.copySubtree(event.getDn());
+				break;
+			default:
+				LdapNode node = event.getNode().orElse(null);
+				if (node == null) {
+					node = new LdapNode(event.getDn(), this.upstream.getAttr(event.getDn()));
+				}
+				this.upsert(node);
+				break;
+			}
+			this.appliedChanges.incrementAndGet();
+		} catch (LDAPException | RuntimeException e) {
+			LOGGER.warn("복제본 반영 실패 : {}", event, e);
+		}
+	}
+
+	/**
+	 * 복제 서버를 종료합니다.
+	 */
+	@Override
+	public synchronized void close() {
+
+		for (LdapChangeNotifier.Subscription subscription : this.subscriptions) {
+			subscription.close();
+		}
+		this.subscriptions.clear();
+		synchronized (this.syncLock) {
+			if (this.server != null) {
+				this.server.shutDown(true);
+				this.server = null;
+			}
+		}
+	}
+
+	/**
+	 * 원본 서버의 하위 트리를 복사합니다. 상위 항목부터 추가하도록 깊이 순서로 정렬합니다.
+	 *
+	 * @return 복사한 항목 수
+	 */
+	private int copySubtree(LdapName base) throws LDAPException {
+
+		List<LdapNode> nodes = new ArrayList<>();
+		this.upstream.searchPaged(base, SearchControls.SUBTREE_SCOPE, ALL_SEARCH_FILTER, null, this.pageSize,
+				Deadline.none(), nodes::add);
+		nodes.sort(Comparator.comparingInt(node -> node.getDn().size()));
+		for (LdapNode node : nodes) {
+			this.upsert(node);
+		}
+		return nodes.size();
+	}
+
+	private void deleteSubtree(LdapName dn) throws LDAPException {
+
+		synchronized (this.syncLock) {
+			try {
+				this.server.deleteSubtree(dn.toString());
+			} catch (LDAPException e) {
+				if (ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode()) == false) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 이벤트 대상 DN (이름 변경이면 이전 DN 포함) 이 복사 중인 기준 DN 하위이면 그 기준 DN 을 반환합니다.
+	 */
+	private LdapName findCopyingBase(LdapChangeEvent event) {
+
+		for (LdapName base : this.pendingEvents.keySet()) {
+			if (event.getDn().startsWith(base)
+					|| event.getPreviousDn().map(previous -> previous.startsWith(base)).orElse(false)) {
+				return base;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 원본 서버에 쓰기 작업을 수행합니다. 실패하면 같은 결과 코드로 요청을 거부합니다.<br>
+	 * 설정한 계정으로 bind 하지 않은 연결의 요청은 전달하지 않습니다.
+	 */
+	private void forward(InMemoryInterceptedRequest request, LdapWriteOperation operation) throws LDAPException {
+
+		if (this.forwardWrites == false) {
+			throw new LDAPException(ResultCode.UNWILLING_TO_PERFORM, "읽기 전용 복제 서버입니다.");
+		}
+		if (this.authenticatedConnections.contains(request.getConnectionID()) == false) {
+			throw new LDAPException(ResultCode.INSUFFICIENT_ACCESS_RIGHTS, "인증한 연결의 쓰기 요청만 전달합니다.");
+		}
+		LdapWriteResult result = this.upstream.write(Collections.singletonList(operation), 1);
+		if (result.isSuccess() == false) {
+			RuntimeException error = result.getFailures().get(0).getError();
+			throw new LDAPException(toResultCode(error), String.valueOf(error == null ? null : error.getMessage()),
+					error);
+		}
+		this.forwardedWrites.incrementAndGet();
+	}
+
+	/**
+	 * 이벤트로 반영한 변경 수를 반환합니다.
+	 */
+	public long getAppliedChangeCount() {
+
+		return this.appliedChanges.get();
+	}
+
+	/**
+	 * 복제 중인 기준 DN 목록을 반환합니다.
+	 */
+	public List<LdapName> getBaseDns() {
+
+		return Collections.unmodifiableList(this.baseDns);
+	}
+
+	/**
+	 * 원본 서버로 전달한 쓰기 수를 반환합니다.
+	 */
+	public long getForwardedWriteCount() {
+
+		return this.forwardedWrites.get();
+	}
+
+	/**
+	 * 실제 수신 포트를 반환합니다. (시작 전이면 -1)
+	 */
+	public synchronized int getListenPort() {
+
+		return this.server == null ? -1 : this.server.getListenPort();
+	}
+
+	/**
+	 * 기준 DN 하위를 원본 서버에서 다시 복사합니다. (복제본에만 있는 항목은 삭제)<br>
+	 * 복사하는 동안 받은 변경 이벤트는 복사가 끝난 뒤 반영합니다.
+	 *
+	 * @return 복사한 항목 수
+	 */
+	public int resync(LdapName base) {
+
+		synchronized (this.syncLock) {
+			if (this.pendingEvents.containsKey(base)) {
+				throw new LogicError("이미 동기화 중입니다 : " + base);
+			}
+			this.pendingEvents.put(base, new ArrayList<>());
+		}
+		try {
+			this.deleteSubtree(base);
+			return this.copySubtree(base);
+		} catch (LDAPException e) {
+			throw new LogicError("복제본 동기화 실패 : " + base, e);
+		} finally {
+			synchronized (this.syncLock) {
+				for (LdapChangeEvent event : this.pendingEvents.remove(base)) {
+					this.applyNow(event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 복제 서버 접속 계정을 설정합니다. (필수, 시작 전에 설정)
+	 */
+	public void setBindCredentials(String bindDn, String bindPassword) {
+
+		if (bindDn == null || bindDn.isEmpty() || bindPassword == null || bindPassword.isEmpty()) {
+			throw new LogicError("복제 서버 접속 계정 DN 과 비밀번호가 필요합니다.");
+		}
+		this.bindDn = bindDn;
+		this.bindPassword = bindPassword;
+	}
+
+	/**
+	 * 쓰기 요청을 원본 서버로 전달할지 설정합니다. (false 이면 거부)
+	 */
+	public void setForwardWrites(boolean forwardWrites) {
+
+		this.forwardWrites = forwardWrites;
+	}
+
+	/**
+	 * 수신 주소를 설정합니다. (null 이면 모든 주소, 시작 전에 설정)
+	 */
+	public void setListenAddress(String listenAddress) {
+
+		this.listenAddress = listenAddress;
+	}
+
+	public void setPageSize(int pageSize) {
+
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * 수신 포트를 설정합니다. (0 이면 임의 포트, 시작 전에 설정)
+	 */
+	public void setPort(int port) {
+
+		this.port = port;
+	}
+
+	/**
+	 * 복제본의 항목 수를 반환합니다.
+	 */
+	public synchronized int size() {
+
+		return this.server == null ? 0 : this.server.countEntries();
+	}
+
+	/**
+	 * 기준 DN 하위를 복사한 뒤 수신을 시작합니다.<br>
+	 * notifier 가 있으면 복사 전에 변경을 구독하여 복사 중의 변경도 놓치지 않습니다. (없으면 시작 시점 스냅샷만 제공)
+	 */
+	public synchronized void start(LdapChangeNotifier notifier) {
+
+		if (this.server != null) {
+			throw new LogicError("이미 시작하였습니다.");
+		}
+		if (this.bindDn == null) {
+			throw new LogicError("복제 서버 접속 계정을 설정하지 않았습니다.");
+		}
+		try {
+			this.server = new InMemoryDirectoryServer(this.newConfig());
+		} catch (LDAPException | UnknownHostException e) {
+			throw new LogicError("복제 서버 생성 실패", e);
+		}
+
+		if (notifier != null) {
+			for (LdapName base : this.baseDns) {
+				this.subscriptions.add(notifier.subscribe(base, this::apply));
+			}
+		}
+		for (LdapName base : this.baseDns) {
+			long start = System.currentTimeMillis();
+			int count = this.resync(base);
+			LOGGER.info("복제본 복사 : {} ({}건, {}ms)", base, count, System.currentTimeMillis() - start);
+		}
+
+		try {
+			this.server.startListening();
+		} catch (LDAPException e) {
+			this.close();
+			throw new LogicError("복제 서버 수신 시작 실패", e);
+		}
+		LOGGER.info("복제 서버 시작 : {}:{}", this.listenAddress == null ? "*" : this.listenAddress,
+				this.server.getListenPort());
+	}
+
+	/**
+	 * 항목이 없으면 추가하고, 있으면 달라진 속성만 수정합니다.<br>
+	 * 전달한 쓰기 요청은 잠금 밖에서 복제본에 반영되므로, 그 사이에 항목이 생기면 수정으로 처리합니다.
+	 */
+	private void upsert(LdapNode node) throws LDAPException {
+
+		Entry entry = toEntry(node);
+		synchronized (this.syncLock) {
+			Entry existing = this.server.getEntry(entry.getDN());
+			if (existing == null) {
+				try {
+					this.server.add(entry);
+					return;
+				} catch (LDAPException e) {
+					if (ResultCode.ENTRY_ALREADY_EXISTS.equals(e.getResultCode()) == false) {
+						throw e;
+					}
+				}
+				existing = this.server.getEntry(entry.getDN());
+			}
+			List<Modification> modifications = Entry.diff(existing, entry, true);
+			if (modifications.isEmpty() == false) {
+				this.server.modify(entry.getDN(), modifications);
+			}
+		}
+	}
+
+	private InMemoryDirectoryServerConfig newConfig() throws LDAPException, UnknownHostException {
+
+		String[] bases = new String[this.baseDns.size()];
+		for (int i = 0; i < bases.length; i++) {
+			bases[i] = this.baseDns.get(i).toString();
+		}
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(bases);
+		// 원본 서버의 스키마를 알 수 없으므로 스키마 검사를 하지 않는다.
+		config.setSchema(null);
+		config.setGenerateOperationalAttributes(false);
+		InetAddress address = this.listenAddress == null ? null : InetAddress.getByName(this.listenAddress);
+		config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("replica", address, this.port, null));
+		// 익명 접속은 조회도 허용하지 않는다.
+		config.addAdditionalBindCredentials(this.bindDn, this.bindPassword);
+		config.setAuthenticationRequiredOperationTypes(OperationType.SEARCH, OperationType.COMPARE,
+				OperationType.ADD, OperationType.DELETE, OperationType.MODIFY, OperationType.MODIFY_DN);
+		config.addInMemoryOperationInterceptor(new ForwardingInterceptor());
+		return config;
+	}
+
+	/**
+	 * 수신한 쓰기 요청을 원본 서버로 전달합니다. (직접 호출하는 동기화 작업은 거치지 않음)<br>
+	 * 인터셉터는 서버의 인증 검사보다 먼저 실행되므로, bind 결과로 인증한 연결을 기억해 두고 전달 전에 확인합니다.
+	 */
+	private final class ForwardingInterceptor extends InMemoryOperationInterceptor {
+
+		@Override
+		public void processAddRequest(InMemoryInterceptedAddRequest request) throws LDAPException {
+
+			Entry entry = request.getRequest().toEntry();
+			LdapAttribute attributes = UnboundIdLdapBackend.toAttr(entry);
+			LdapLocalReplica.this.forward(request, LdapWriteOperation.add(toName(entry.getDN()), attributes));
+		}
+
+		@Override
+		public void processDeleteRequest(InMemoryInterceptedDeleteRequest request) throws LDAPException {
+
+			LdapLocalReplica.this.forward(request,
+					LdapWriteOperation.delete(toName(request.getRequest().getDN())));
+		}
+
+		@Override
+		public void processModifyDNRequest(InMemoryInterceptedModifyDNRequest request) throws LDAPException {
+
+			ReadOnlyModifyDNRequest modifyDN = request.getRequest();
+			if (modifyDN.deleteOldRDN() == false) {
+				throw new LDAPException(ResultCode.UNWILLING_TO_PERFORM, "이전 RDN 을 유지하는 이름 변경은 지원하지 않습니다.");
+			}
+			LdapLocalReplica.this.forward(request,
+					LdapWriteOperation.rename(toName(modifyDN.getDN()), toNewDn(modifyDN)));
+		}
+
+		@Override
+		public void processModifyRequest(InMemoryInterceptedModifyRequest request) throws LDAPException {
+
+			LdapLocalReplica.this.forward(request,
+					toWriteOperation(request.getRequest().getDN(), request.getRequest().getModifications()));
+		}
+
+		@Override
+		public void processSASLBindResult(InMemoryInterceptedSASLBindResult result) {
+
+			this.authenticated(result.getConnectionID(), ResultCode.SUCCESS.equals(result.getResult().getResultCode()));
+		}
+
+		@Override
+		public void processSimpleBindResult(InMemoryInterceptedSimpleBindResult result) {
+
+			// 빈 DN 의 bind 는 익명 접속이다.
+			this.authenticated(result.getConnectionID(), ResultCode.SUCCESS.equals(result.getResult().getResultCode())
+					&& result.getRequest().getBindDN().isEmpty() == false);
+		}
+
+		/**
+		 * bind 결과로 연결의 인증 여부를 기록합니다. (다시 bind 하면 이전 인증은 무효)
+		 */
+		private void authenticated(long connectionId, boolean success) {
+
+			if (success) {
+				LdapLocalReplica.this.authenticatedConnections.add(connectionId);
+			} else {
+				LdapLocalReplica.this.authenticatedConnections.remove(connectionId);
+			}
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/**
+ * FileName : LdapMerkleTree.java
+ * Created  : 2021. 4. 9.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * LDAP 트리의 Merkle 해시
+ * <p>
+ * 노드마다 내용 해시({@link LdapNode#getContentHash()})와, 내용 해시 및 자식의 하위 트리 해시를 합친 하위 트리 해시를 가집니다.
+ * 하위 트리 해시가 같으면 그 아래는 모두 같으므로 두 트리를 비교할 때 해시가 다른 가지로만 내려갑니다.
+ *
+ * <pre>
+ * LdapMerkleTree.Diff diff = LdapMerkleTree.of(cached).diff(LdapMerkleTree.of(fresh));
+ * </pre>
+ *
+ * @author hokkk
+ */
+public final class LdapMerkleTree {
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private final LdapName root;
+
+	private final Map<LdapName, Hashes> hashes;
+
+	private LdapMerkleTree(LdapName root, Map<LdapName, Hashes> hashes) {
+
+		this.root = root;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * byte 배열을 부호 없는 사전 순으로 비교합니다.
+	 */
+	static int compare(byte[] left, byte[] right) {
+
+		int length = Math.min(left.length, right.length);
+		for (int i = 0; i < length; i++) {
+			int result = Integer.compare(left[i] & 0xff, right[i] & 0xff);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return Integer.compare(left.length, right.length);
+	}
+
+	static MessageDigest newDigest() {
+
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new LogicError(e);
+		}
+	}
+
+	/**
+	 * 트리의 해시를 계산합니다. (자식부터 계산하며 재귀 없이 수행)
+	 */
+	public static LdapMerkleTree of(Tree<LdapNode> tree) {
+
+		List<Tree<LdapNode>> preorder = new ArrayList<>();
+		Deque<Tree<LdapNode>> stack = new ArrayDeque<>();
+		stack.push(tree);
+		while (stack.isEmpty() == false) {
+			Tree<LdapNode> node = stack.pop();
+			preorder.add(node);
+			for (Tree<LdapNode> child : node.getChilds()) {
+				stack.push(child);
+			}
+		}
+
+		Map<LdapName, Hashes> hashes = new HashMap<>(preorder.size() * 4 / 3 + 1);
+		for (int i = preorder.size() - 1; i >= 0; i--) {
+			Tree<LdapNode> node = preorder.get(i);
+			List<Tree<LdapNode>> childs = node.getChilds();
+			Map<LdapName, Hashes> childHashes = new LinkedHashMap<>();
+			for (Tree<LdapNode> child : childs) {
+				LdapName dn = child.getData().getDn();
+				childHashes.put(dn, hashes.get(dn));
+			}
+			LdapNode data = node.getData();
+			Hashes value = new Hashes(data.getContentHash(), childHashes);
+			if (hashes.put(data.getDn(), value) != null) {
+				throw new LogicError("DN 이 중복됩니다 : " + data.getDn());
+			}
+		}
+		return new LdapMerkleTree(tree.getData().getDn(), hashes);
+	}
+
+	/**
+	 * 이 트리(이전)와 other(최신)를 위에서부터 비교합니다.
+	 * 하위 트리 해시가 같은 가지는 내려가지 않습니다.
+	 */
+	public Diff diff(LdapMerkleTree other) {
+
+		Diff result = new Diff();
+		if (this.root.equals(other.root) == false) {
+			result.removed.add(this.root);
+			result.added.add(other.root);
+			return result;
+		}
+
+		Deque<LdapName> stack = new ArrayDeque<>();
+		stack.push(this.root);
+		while (stack.isEmpty() == false) {
+			LdapName dn = stack.pop();
+			Hashes before = this.hashes.get(dn);
+			Hashes after = other.hashes.get(dn);
+			result.compared++;
+			if (MessageDigest.isEqual(before.subtree, after.subtree)) {
+				continue;
+			}
+			if (MessageDigest.isEqual(before.content, after.content) == false) {
+				result.changed.add(dn);
+			}
+			for (LdapName child : before.childs) {
+				if (after.childs.contains(child)) {
+					stack.push(child);
+				} else {
+					result.removed.add(child);
+				}
+			}
+			for (LdapName child : after.childs) {
+				if (before.childs.contains(child) == false) {
+					result.added.add(child);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * parent 의 자식을 새로 조회한 한 단계 결과(fresh)와 내용 해시로 비교합니다.
+	 * <p>
+	 * 자식의 하위 트리는 비교할 수 없으므로 내용이 같은 자식도 그 아래가 바뀌었을 수 있습니다.
+	 * 추가·삭제·변경된 자식만 다시 조회하는 용도로 사용합니다.
+	 *
+	 * @throws LogicError
+	 *             parent 가 이 트리에 없는 경우
+	 */
+	public Diff diffLevel(LdapName parent, Collection<LdapNode> fresh) {
+
+		Hashes before = this.hashes.get(parent);
+		if (before == null) {
+			throw new LogicError("트리에 없는 DN 입니다 : " + parent);
+		}
+
+		Diff result = new Diff();
+		Map<LdapName, LdapNode> freshes = new HashMap<>();
+		for (LdapNode node : fresh) {
+			freshes.put(node.getDn(), node);
+		}
+		for (LdapName child : before.childs) {
+			LdapNode node = freshes.remove(child);
+			if (node == null) {
+				result.removed.add(child);
+				continue;
+			}
+			result.compared++;
+			if (MessageDigest.isEqual(this.hashes.get(child).content, node.getContentHash()) == false) {
+				result.changed.add(child);
+			}
+		}
+		result.added.addAll(freshes.keySet());
+		return result;
+	}
+
+	public Optional<byte[]> getContentHash(LdapName dn) {
+
+		Hashes value = this.hashes.get(dn);
+		return value == null ? Optional.empty() : Optional.of(value.content.clone());
+	}
+
+	public byte[] getRootHash() {
+
+		return this.hashes.get(this.root).subtree.clone();
+	}
+
+	public Optional<byte[]> getSubtreeHash(LdapName dn) {
+
+		Hashes value = this.hashes.get(dn);
+		return value == null ? Optional.empty() : Optional.of(value.subtree.clone());
+	}
+
+	public int size() {
+
+		return this.hashes.size();
+	}
+
+	/**
+	 * 두 트리의 차이
+	 * <p>
+	 * 추가·삭제는 하위 트리의 최상위 DN 만 담습니다. (그 아래는 함께 추가·삭제된 것으로 봅니다)
+	 */
+	public static final class Diff {
+
+		private final List<LdapName> added = new ArrayList<>();
+
+		private final List<LdapName> changed = new ArrayList<>();
+
+		private final List<LdapName> removed = new ArrayList<>();
+
+		private int compared;
+
+		Diff() {
+
+			super();
+		}
+
+		public List<LdapName> getAdded() {
+
+			return Collections.unmodifiableList(this.added);
+		}
+
+		/**
+		 * 내용이 바뀐 DN 목록
+		 */
+		public List<LdapName> getChanged() {
+
+			return Collections.unmodifiableList(this.changed);
+		}
+
+		/**
+		 * 비교한 노드 수 (해시가 같아 내려가지 않은 가지는 포함하지 않음)
+		 */
+		public int getComparedCount() {
+
+			return this.compared;
+		}
+
+		public List<LdapName> getRemoved() {
+
+			return Collections.unmodifiableList(this.removed);
+		}
+
+		public boolean isEmpty() {
+
+			return this.added.isEmpty() && this.changed.isEmpty() && this.removed.isEmpty();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+
+			return "added " + this.added + ", changed " + this.changed + ", removed " + this.removed;
+		}
+	}
+
+	private static final class Hashes {
+
+		private final byte[] content;
+
+		private final byte[] subtree;
+
+		private final Collection<LdapName> childs;
+
+		Hashes(byte[] content, Map<LdapName, Hashes> childs) {
+
+			this.content = content;
+			this.childs = childs.isEmpty() ? Collections.emptySet() : childs.keySet();
+
+			// 자식 순서와 무관하도록 자식 하위 트리 해시를 정렬하여 합친다.
+			List<byte[]> childHashes = new ArrayList<>(childs.size());
+			for (Hashes child : childs.values()) {
+				childHashes.add(child.subtree);
+			}
+			childHashes.sort(LdapMerkleTree::compare);
+			MessageDigest digest = newDigest();
+			digest.update(content);
+			for (byte[] childHash : childHashes) {
+				digest.update(childHash);
+			}
+			this.subtree = digest.digest();
+		}
+	}
+}
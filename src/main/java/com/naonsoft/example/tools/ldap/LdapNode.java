@@ -1,114 +1,320 @@
-package com.naonsoft.example.tools.ldap;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map.Entry;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-
-import javax.naming.ldap.LdapName;
-import javax.naming.ldap.Rdn;
-
-import org.springframework.util.CollectionUtils;
-
-import com.naonsoft.example.exception.LogicError;
-
-public class LdapNode {
-
-	private final LdapName dn;
-
-	private final LdapAttribute attributes;
-
-	/**
-	 * LdapNode 클래스의 새 인스턴스를 초기화 합니다.
-	 */
-	public LdapNode(LdapName dn, LdapAttribute attributes) {
-
-		if (dn == null) {
-			throw new LogicError();
-		}
-		if (CollectionUtils.isEmpty(attributes)) {
-			throw new LogicError();
-		}
-		this.dn = dn;
-		this.attributes = attributes;
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public boolean equals(Object obj) {
-
-		if (this == obj) {
-			return true;
-		}
-		if (obj == null) {
-			return false;
-		}
-		if (this.getClass() != obj.getClass()) {
-			return false;
-		}
-		LdapNode other = (LdapNode) obj;
-		return Objects.equals(this.dn, other.dn);
-	}
-
-	public final LdapAttribute getAttributes() {
-
-		return new LdapAttribute(this.attributes);
-	}
-
-	/**
-	 * dn를 반환합니다.
-	 * 
-	 * @return dn
-	 */
-	public final LdapName getDn() {
-
-		return this.dn;
-	}
-
-	public Optional<LdapName> getParentDn() {
-
-		ArrayList<Rdn> rdns = new ArrayList<>(this.dn.getRdns());
-		if (rdns.isEmpty()) {
-			return Optional.empty();
-		}
-		rdns.remove(rdns.size() - 1);
-		return Optional.of(new LdapName(rdns));
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public int hashCode() {
-
-		return Objects.hash(this.dn);
-	}
-
-	public Set<String> keySet() {
-
-		return this.attributes.keySet();
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public String toString() {
-
-		StringBuilder builder = new StringBuilder();
-		builder.append("Path : ").append(this.dn).append('\t');
-		builder.append("Attributes : ");
-
-		for (Entry<String, List<String>> entry : this.attributes.entrySet()) {
-			builder.append('\t');
-			builder.append(entry.getKey()).append(':').append(entry.getValue());
-		}
-
-		return builder.toString();
-	}
-
-}
+package com.naonsoft.example.tools.ldap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+import org.springframework.util.CollectionUtils;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.naonsoft.example.exception.LogicError;
+
+@JsonSerialize(using = LdapNodeSerializer.class)
+public class LdapNode {
+
+	/** 객체 하나의 대략적인 헤더, 참조 크기 */
+	static final int OBJECT_OVERHEAD = 48;
+
+	private final LdapName dn;
+
+	private final LdapAttribute attributes;
+
+	/**
+	 * 파싱한 Rdn 으로 DN 을 다시 만들어 소문자로 반환합니다.<br>
+	 * Rdn 은 속성명과 값의 앞뒤 공백을 제거하고 값을 같은 방식으로 다시 escape 하므로, 원본 문자열의 공백이나 escape 방식
+	 * 차이("cn=a\,b" 와 "cn = a\2Cb")가 결과에 남지 않습니다.
+	 */
+	private static String toNormalizedDn(LdapName dn) {
+
+		StringBuilder builder = new StringBuilder();
+		for (Rdn rdn : dn.getRdns()) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(rdn.toString());
+		}
+		return builder.toString().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 길이를 앞에 붙여 경계가 모호하지 않게 합니다.
+	 */
+	private static void updateDigest(MessageDigest digest, byte[] bytes) {
+
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+		digest.update(bytes);
+	}
+
+	/**
+	 * LdapNode 클래스의 새 인스턴스를 초기화 합니다.
+	 */
+	public LdapNode(LdapName dn, LdapAttribute attributes) {
+
+		if (dn == null) {
+			throw new LogicError();
+		}
+		if (CollectionUtils.isEmpty(attributes)) {
+			throw new LogicError();
+		}
+		this.dn = dn;
+		this.attributes = attributes;
+	}
+
+	/**
+	 * DN 과 속성 값 목록을 복사한 새 노드를 반환합니다. 복사본을 변경해도 이 노드에는 영향이 없습니다.
+	 */
+	public LdapNode copy() {
+
+		return new LdapNode((LdapName) this.dn.clone(), new LdapAttribute(this.attributes));
+	}
+
+	/**
+	 * 노드의 대략적인 힙 사용량 (문자열은 UTF-16 기준)
+	 */
+	public long estimateBytes() {
+
+		long result = OBJECT_OVERHEAD * 2 + this.dn.toString().length() * 2L;
+		for (Entry<String, List<String>> entry : this.attributes.entrySet()) {
+			result += OBJECT_OVERHEAD + entry.getKey().length() * 2L;
+			for (String value : entry.getValue()) {
+				result += OBJECT_OVERHEAD + (value == null ? 0 : value.length() * 2L);
+			}
+		}
+		for (List<byte[]> values : this.attributes.byteArrays().values()) {
+			for (byte[] value : values) {
+				result += OBJECT_OVERHEAD + value.length;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (this.getClass() != obj.getClass()) {
+			return false;
+		}
+		LdapNode other = (LdapNode) obj;
+		return Objects.equals(this.dn, other.dn);
+	}
+
+	/**
+	 * 내부 속성을 복사 없이 반환합니다. (직렬화 등 같은 패키지에서 읽기 전용으로 사용)
+	 */
+	final LdapAttribute attributes() {
+
+		return this.attributes;
+	}
+
+	public final LdapAttribute getAttributes() {
+
+		return new LdapAttribute(this.attributes);
+	}
+
+	/**
+	 * byte 배열 값 목록을 반환합니다. (binary 속성, 복사 없이 조회)
+	 */
+	public List<byte[]> getByteValues(String attributeId) {
+
+		List<byte[]> values = this.attributes.getByteArray(attributeId);
+		if (values == null) {
+			for (String key : this.attributes.keySet()) {
+				if (key.equalsIgnoreCase(attributeId)) {
+					values = this.attributes.getByteArray(key);
+					break;
+				}
+			}
+		}
+		if (values == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * DN 과 속성 내용의 SHA-256 해시를 반환합니다.
+	 * <p>
+	 * 속성명은 소문자로, 값은 정렬하여 계산하므로 서버가 속성이나 값을 돌려주는 순서와 무관합니다. DN 은 파싱한 Rdn 으로
+	 * 정규화하여 공백, escape 방식 차이로 다른 해시가 되지 않습니다.
+	 * 호출할 때마다 계산합니다.
+	 *
+	 * @see LdapMerkleTree
+	 */
+	public byte[] getContentHash() {
+
+		Map<String, List<byte[]>> sorted = new TreeMap<>();
+		for (Entry<String, List<String>> entry : this.attributes.entrySet()) {
+			List<byte[]> values = sorted.computeIfAbsent(entry.getKey().toLowerCase(Locale.ROOT), key -> new ArrayList<>());
+			for (String value : entry.getValue()) {
+				values.add(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		for (Entry<String, List<byte[]>> entry : this.attributes.byteArrays().entrySet()) {
+			sorted.computeIfAbsent(entry.getKey().toLowerCase(Locale.ROOT), key -> new ArrayList<>())
+					.addAll(entry.getValue());
+		}
+
+		MessageDigest digest = LdapMerkleTree.newDigest();
+		updateDigest(digest, toNormalizedDn(this.dn).getBytes(StandardCharsets.UTF_8));
+		for (Entry<String, List<byte[]>> entry : sorted.entrySet()) {
+			List<byte[]> values = entry.getValue();
+			values.sort(LdapMerkleTree::compare);
+			updateDigest(digest, entry.getKey().getBytes(StandardCharsets.UTF_8));
+			digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(values.size()).array());
+			for (byte[] value : values) {
+				updateDigest(digest, value);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * dn를 반환합니다.
+	 * 
+	 * @return dn
+	 */
+	public final LdapName getDn() {
+
+		return this.dn;
+	}
+
+	/**
+	 * 첫번째 값을 시각으로 반환합니다. (GeneralizedTime 구문 속성, createTimestamp 등)
+	 *
+	 * @throws java.time.format.DateTimeParseException
+	 *             GeneralizedTime 형식이 아닌 경우
+	 */
+	public Optional<OffsetDateTime> getTimeValue(String attributeId) {
+
+		return this.getValue(attributeId).map(LdapSchema::parseGeneralizedTime);
+	}
+
+	/**
+	 * 속성의 첫번째 값을 반환합니다. (복사 없이 조회)
+	 */
+	public Optional<String> getValue(String attributeId) {
+
+		List<String> values = this.getValues(attributeId);
+		if (values.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(values.get(0));
+	}
+
+	/**
+	 * 속성 값 목록을 반환합니다.<br>
+	 * LDAP 속성명은 대소문자를 구분하지 않으므로 정확히 일치하는 키가 없으면 대소문자 무시하여 찾습니다.
+	 * {@link #getAttributes()} 와 달리 전체 속성을 복사하지 않습니다.
+	 */
+	public List<String> getValues(String attributeId) {
+
+		List<String> values = this.attributes.get(attributeId);
+		if (values == null) {
+			for (Entry<String, List<String>> entry : this.attributes.entrySet()) {
+				if (entry.getKey().equalsIgnoreCase(attributeId)) {
+					values = entry.getValue();
+					break;
+				}
+			}
+		}
+		if (values == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * 첫번째 값을 정수로 반환합니다. (INTEGER 구문 속성)
+	 *
+	 * @throws NumberFormatException
+	 *             정수가 아닌 경우
+	 */
+	public Optional<Long> getLongValue(String attributeId) {
+
+		return this.getValue(attributeId).map(value -> Long.valueOf(value.trim()));
+	}
+
+	/**
+	 * 표시 이름을 반환합니다. (cn, ou 순서로 찾고 없으면 DN 의 마지막 RDN 값)
+	 */
+	public String getName() {
+
+		Optional<String> name = this.getValue("cn");
+		if (name.isPresent() == false) {
+			name = this.getValue("ou");
+		}
+		if (name.isPresent()) {
+			return name.get();
+		}
+		if (this.dn.isEmpty()) {
+			return "";
+		}
+		return String.valueOf(this.dn.getRdn(this.dn.size() - 1).getValue());
+	}
+
+	public Optional<LdapName> getParentDn() {
+
+		ArrayList<Rdn> rdns = new ArrayList<>(this.dn.getRdns());
+		if (rdns.isEmpty()) {
+			return Optional.empty();
+		}
+		rdns.remove(rdns.size() - 1);
+		return Optional.of(new LdapName(rdns));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		return Objects.hash(this.dn);
+	}
+
+	public Set<String> keySet() {
+
+		return this.attributes.keySet();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("Path : ").append(this.dn).append('\t');
+		builder.append("Attributes : ");
+
+		for (Entry<String, List<String>> entry : this.attributes.entrySet()) {
+			builder.append('\t');
+			builder.append(entry.getKey()).append(':').append(entry.getValue());
+		}
+
+		return builder.toString();
+	}
+
+}
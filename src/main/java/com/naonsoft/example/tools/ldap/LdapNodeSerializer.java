@@ -0,0 +1,131 @@
+/**
+ * FileName : LdapNodeSerializer.java
+ * Created  : 2021. 4. 2.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * {@link LdapNode} 직렬화
+ * <p>
+ * 속성을 복사하지 않고 내부 상태를 그대로 씁니다. binary 속성은 {@link JsonGenerator#writeBinary(byte[])} 로 쓰므로
+ * JSON 에서는 Base64, CBOR 에서는 byte 문자열 그대로 출력됩니다.
+ *
+ * <pre>
+ * {"dn":"cn=kim,c=kr","attributes":{"cn":["kim"]},"binary":{"jpegPhoto":[...]}}
+ * </pre>
+ *
+ * @author hokkk
+ */
+public class LdapNodeSerializer extends StdSerializer<LdapNode> {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -2205187520932520541L;
+
+	/** 출력할 속성 (대소문자 무시, null 이면 전체) */
+	private final Set<String> attributes;
+
+	/**
+	 * 전체 속성을 출력합니다.
+	 */
+	public LdapNodeSerializer() {
+
+		this(null);
+	}
+
+	/**
+	 * 지정한 속성만 출력합니다.
+	 *
+	 * @param attributes
+	 *            출력할 속성 (null 또는 비어있으면 전체)
+	 */
+	public LdapNodeSerializer(Collection<String> attributes) {
+
+		super(LdapNode.class);
+		if (attributes == null || attributes.isEmpty()) {
+			this.attributes = null;
+		} else {
+			this.attributes = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+			this.attributes.addAll(attributes);
+		}
+	}
+
+	private boolean accept(String attributeId) {
+
+		return this.attributes == null || this.attributes.contains(attributeId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void serialize(LdapNode value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+
+		this.write(value, gen);
+	}
+
+	/**
+	 * 노드를 객체 하나로 씁니다.
+	 */
+	public void write(LdapNode node, JsonGenerator gen) throws IOException {
+
+		LdapAttribute attributes = node.attributes();
+		gen.writeStartObject();
+		gen.writeStringField("dn", node.getDn().toString());
+
+		gen.writeFieldName("attributes");
+		gen.writeStartObject();
+		for (Entry<String, List<String>> entry : attributes.entrySet()) {
+			List<String> values = entry.getValue();
+			if (values.isEmpty() || this.accept(entry.getKey()) == false) {
+				continue;
+			}
+			gen.writeFieldName(entry.getKey());
+			gen.writeStartArray();
+			for (String value : values) {
+				gen.writeString(value);
+			}
+			gen.writeEndArray();
+		}
+		gen.writeEndObject();
+
+		boolean binaryStarted = false;
+		for (Entry<String, List<byte[]>> entry : attributes.byteArrays().entrySet()) {
+			List<byte[]> values = entry.getValue();
+			if (values.isEmpty() || this.accept(entry.getKey()) == false) {
+				continue;
+			}
+			if (binaryStarted == false) {
+				gen.writeFieldName("binary");
+				gen.writeStartObject();
+				binaryStarted = true;
+			}
+			gen.writeFieldName(entry.getKey());
+			gen.writeStartArray();
+			for (byte[] value : values) {
+				gen.writeBinary(value);
+			}
+			gen.writeEndArray();
+		}
+		if (binaryStarted) {
+			gen.writeEndObject();
+		}
+
+		gen.writeEndObject();
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * FileName : LdapOperationKey.java
+ * Created  : 2021. 3. 25.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import javax.naming.ldap.LdapName;
+
+/**
+ * 디렉토리 조회 작업 식별 키 (작업, DN, 범위, 필터, 속성)
+ * <p>
+ * 속성명은 대소문자를 구분하지 않고 순서와 무관하게 같은 키로 취급합니다.
+ *
+ * @author hokkk
+ */
+public final class LdapOperationKey {
+
+	private final String operation;
+
+	private final LdapName dn;
+
+	private final int scope;
+
+	private final String filter;
+
+	/** 정규화된 속성 목록 (null 이면 전체 속성) */
+	private final List<String> attributes;
+
+	/**
+	 * LdapOperationKey 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param operation
+	 *            작업명
+	 * @param dn
+	 *            대상 DN
+	 * @param scope
+	 *            검색 범위 ({@link javax.naming.directory.SearchControls} 상수, 검색이 아닌 경우 -1)
+	 * @param filter
+	 *            검색 필터 (없으면 null)
+	 * @param attributes
+	 *            요청 속성 (전체인 경우 null)
+	 */
+	public LdapOperationKey(String operation, LdapName dn, int scope, String filter, String[] attributes) {
+
+		this.operation = Objects.requireNonNull(operation, "operation is null");
+		this.dn = Objects.requireNonNull(dn, "dn is null");
+		this.scope = scope;
+		this.filter = filter;
+		if (attributes == null) {
+			this.attributes = null;
+		} else {
+			String[] normalized = new String[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				normalized[i] = attributes[i].toLowerCase(Locale.ROOT);
+			}
+			Arrays.sort(normalized);
+			this.attributes = Collections.unmodifiableList(Arrays.asList(normalized));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (this.getClass() != obj.getClass()) {
+			return false;
+		}
+		LdapOperationKey other = (LdapOperationKey) obj;
+		return this.scope == other.scope
+				&& this.operation.equals(other.operation)
+				&& this.dn.equals(other.dn)
+				&& Objects.equals(this.filter, other.filter)
+				&& Objects.equals(this.attributes, other.attributes);
+	}
+
+	public List<String> getAttributes() {
+
+		return this.attributes;
+	}
+
+	public LdapName getDn() {
+
+		return this.dn;
+	}
+
+	public String getFilter() {
+
+		return this.filter;
+	}
+
+	public String getOperation() {
+
+		return this.operation;
+	}
+
+	public int getScope() {
+
+		return this.scope;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		return Objects.hash(this.operation, this.dn, this.scope, this.filter, this.attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return this.operation + " " + this.dn + " scope=" + this.scope + " filter=" + this.filter
+				+ " attributes=" + this.attributes;
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * FileName : LdapQueryCache.java
+ * Created  : 2021. 4. 12.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+
+import com.naonsoft.example.tools.cache.TtlCache;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPException;
+
+/**
+ * 검색 결과 캐시
+ * <p>
+ * 기준 DN, 범위, 정규화한 필터, 요청 속성을 키로 디코딩한 결과 목록을 보관합니다.
+ * 보관한 결과의 추정 크기 합으로 제한하며, 변경된 DN 과 관련된 결과는 {@link #invalidate(LdapName)} 로 제거합니다.
+ * 필터는 속성명을 소문자로 정규화하고 AND/OR 조건의 순서를 무시합니다. 값은 정규화하지 않으므로
+ * 대소문자만 다른 값의 필터는 서로 다른 결과로 보관합니다. (대소문자를 구분하는 속성의 결과를 섞지 않음)
+ * <p>
+ * 읽는 도중에 무효화가 있었으면 읽은 결과를 보관하지 않으므로, 무효화 이전 결과가 무효화 이후에 보관되지 않습니다.
+ *
+ * @author hokkk
+ */
+public class LdapQueryCache {
+
+	private final TtlCache<LdapOperationKey, CachedResult> cache;
+
+	/** 무효화 세대 (무효화할 때마다 증가) */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * LdapQueryCache 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param maxBytes
+	 *            보관할 결과의 추정 크기 합
+	 * @param ttl
+	 *            결과 유지 시간
+	 */
+	public LdapQueryCache(long maxBytes, Duration ttl) {
+
+		this.cache = new TtlCache<>(Integer.MAX_VALUE, ttl);
+		this.cache.setMaxWeight(maxBytes, result -> result.bytes);
+	}
+
+	/**
+	 * AND/OR 조건을 정렬하고 속성명을 소문자로 정규화한 필터를 반환합니다. 값은 그대로 둡니다.
+	 * (올바르지 않은 필터는 그대로 반환)
+	 */
+	public static String canonicalFilter(String filter) {
+
+		try {
+			return canonical(Filter.create(filter)).toString();
+		} catch (LDAPException e) {
+			return filter;
+		}
+	}
+
+	private static Filter canonical(Filter filter) {
+
+		String attributeName = filter.getAttributeName() == null ? null
+				: filter.getAttributeName().toLowerCase(Locale.ROOT);
+		switch (filter.getFilterType()) {
+		case Filter.FILTER_TYPE_AND:
+		case Filter.FILTER_TYPE_OR:
+			List<Filter> components = new ArrayList<>();
+			for (Filter component : filter.getComponents()) {
+				components.add(canonical(component));
+			}
+			components.sort(Comparator.comparing(Filter::toString));
+			return filter.getFilterType() == Filter.FILTER_TYPE_AND ? Filter.createANDFilter(components)
+					: Filter.createORFilter(components);
+		case Filter.FILTER_TYPE_NOT:
+			return Filter.createNOTFilter(canonical(filter.getNOTComponent()));
+		case Filter.FILTER_TYPE_EQUALITY:
+			return Filter.createEqualityFilter(attributeName, filter.getAssertionValueBytes());
+		case Filter.FILTER_TYPE_GREATER_OR_EQUAL:
+			return Filter.createGreaterOrEqualFilter(attributeName, filter.getAssertionValueBytes());
+		case Filter.FILTER_TYPE_LESS_OR_EQUAL:
+			return Filter.createLessOrEqualFilter(attributeName, filter.getAssertionValueBytes());
+		case Filter.FILTER_TYPE_APPROXIMATE_MATCH:
+			return Filter.createApproximateMatchFilter(attributeName, filter.getAssertionValueBytes());
+		case Filter.FILTER_TYPE_PRESENCE:
+			return Filter.createPresenceFilter(attributeName);
+		case Filter.FILTER_TYPE_SUBSTRING:
+			return Filter.createSubstringFilter(attributeName, filter.getSubInitialBytes(),
+					filter.getSubAnyBytes(), filter.getSubFinalBytes());
+		default:
+			// 확장 일치 필터는 그대로 둔다.
+			return filter;
+		}
+	}
+
+	/**
+	 * JNDI 검색 결과의 대략적인 힙 사용량
+	 */
+	static long estimateBytes(SearchResult result) {
+
+		long bytes = LdapNode.OBJECT_OVERHEAD * 2 + result.getNameInNamespace().length() * 2L;
+		try {
+			NamingEnumeration<? extends Attribute> attributes = result.getAttributes().getAll();
+			while (attributes.hasMore()) {
+				Attribute attribute = attributes.next();
+				bytes += LdapNode.OBJECT_OVERHEAD + attribute.getID().length() * 2L;
+				NamingEnumeration<?> values = attribute.getAll();
+				while (values.hasMore()) {
+					Object value = values.next();
+					if (value instanceof byte[]) {
+						bytes += LdapNode.OBJECT_OVERHEAD + ((byte[]) value).length;
+					} else {
+						bytes += LdapNode.OBJECT_OVERHEAD + String.valueOf(value).length() * 2L;
+					}
+				}
+			}
+		} catch (NamingException e) {
+			// 메모리에 있는 속성이므로 발생하지 않는다.
+			throw JndiLdapBackend.translate(e, "estimate");
+		}
+		return bytes;
+	}
+
+	/**
+	 * 목록 기반 열거형을 반환합니다. 결과의 속성은 복사하여 호출자가 변경해도 캐시에 영향이 없습니다.
+	 */
+	static NamingEnumeration<SearchResult> enumeration(List<SearchResult> results) {
+
+		List<SearchResult> copies = new ArrayList<>(results.size());
+		for (SearchResult result : results) {
+			SearchResult copy = new SearchResult(result.getName(), result.getObject(),
+					(Attributes) result.getAttributes().clone(), result.isRelative());
+			copy.setNameInNamespace(result.getNameInNamespace());
+			copies.add(copy);
+		}
+		return new ListEnumeration<>(copies);
+	}
+
+	/**
+	 * 검색 결과 키를 만듭니다.
+	 *
+	 * @param operation
+	 *            결과 형식 구분 (같은 검색이라도 결과 형식이 다르면 다른 키)
+	 * @param attributes
+	 *            요청 속성 (전체인 경우 null)
+	 */
+	public static LdapOperationKey key(String operation, LdapName base, int scope, String filter,
+			String[] attributes) {
+
+		return new LdapOperationKey(operation, base, scope, canonicalFilter(filter), attributes);
+	}
+
+	/**
+	 * 보관한 결과를 반환하거나 없으면 loader 로 읽어 보관합니다. 반환한 목록은 호출자가 변경할 수 없습니다.
+	 *
+	 * @param weigher
+	 *            항목 하나의 추정 크기
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> get(LdapOperationKey key, Supplier<List<T>> loader, ToLongFunction<T> weigher) {
+
+		CachedResult cached = this.cache.get(key).orElse(null);
+		if (cached != null) {
+			return (List<T>) cached.items;
+		}
+		long loadedGeneration = this.generation.get();
+		List<T> items = loader.get();
+		long bytes = LdapNode.OBJECT_OVERHEAD;
+		for (T item : items) {
+			bytes += weigher.applyAsLong(item);
+		}
+		List<T> result = Collections.unmodifiableList(new ArrayList<>(items));
+		synchronized (this.generation) {
+			// 읽는 도중 무효화되었으면 무효화 이전 결과일 수 있으므로 보관하지 않는다.
+			if (this.generation.get() == loadedGeneration) {
+				this.cache.put(key, new CachedResult(result, bytes));
+			}
+		}
+		return result;
+	}
+
+	public long getHitCount() {
+
+		return this.cache.getHitCount();
+	}
+
+	public long getMissCount() {
+
+		return this.cache.getMissCount();
+	}
+
+	/**
+	 * 보관한 결과의 추정 크기 합
+	 */
+	public long getWeight() {
+
+		return this.cache.getWeight();
+	}
+
+	/**
+	 * dn 이 결과에 포함될 수 있는 검색(기준 DN 이 dn 의 상위이거나 하위)을 모두 제거합니다.
+	 *
+	 * @return 제거된 개수
+	 */
+	public int invalidate(LdapName dn) {
+
+		synchronized (this.generation) {
+			this.generation.incrementAndGet();
+			return this.cache.removeIf(key -> key.getDn().startsWith(dn) || dn.startsWith(key.getDn()));
+		}
+	}
+
+	public void invalidateAll() {
+
+		synchronized (this.generation) {
+			this.generation.incrementAndGet();
+			this.cache.clear();
+		}
+	}
+
+	public int size() {
+
+		return this.cache.size();
+	}
+
+	private static final class CachedResult {
+
+		private final List<?> items;
+
+		private final long bytes;
+
+		CachedResult(List<?> items, long bytes) {
+
+			this.items = items;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * 목록 기반 {@link NamingEnumeration}
+	 */
+	private static final class ListEnumeration<T> implements NamingEnumeration<T> {
+
+		private final List<T> items;
+
+		private int index;
+
+		ListEnumeration(List<T> items) {
+
+			this.items = items;
+		}
+
+		@Override
+		public void close() {
+
+			this.index = this.items.size();
+		}
+
+		@Override
+		public boolean hasMore() {
+
+			return this.hasMoreElements();
+		}
+
+		@Override
+		public boolean hasMoreElements() {
+
+			return this.index < this.items.size();
+		}
+
+		@Override
+		public T next() {
+
+			return this.nextElement();
+		}
+
+		@Override
+		public T nextElement() {
+
+			if (this.hasMoreElements() == false) {
+				throw new NoSuchElementException();
+			}
+			return this.items.get(this.index++);
+		}
+	}
+}
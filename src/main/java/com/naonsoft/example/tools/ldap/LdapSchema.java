@@ -0,0 +1,357 @@
+/**
+ * FileName : LdapSchema.java
+ * Created  : 2021. 4. 7.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 디렉토리 스키마의 속성 형식
+ * <p>
+ * subschema 의 attributeTypes 와 ldapSyntaxes (RFC 4512) 를 읽어 속성별 값 형식을 판별합니다.
+ * SYNTAX 가 없는 속성은 SUP 을 따라 상위 속성의 형식을 사용합니다.
+ * binary 속성은 JNDI 의 java.naming.ldap.attributes.binary 설정과 값 디코딩에 사용합니다.
+ *
+ * @author hokkk
+ */
+public final class LdapSchema {
+
+	/**
+	 * 값 형식
+	 */
+	public enum ValueType {
+		/** 문자열 */
+		STRING,
+		/** byte 배열 */
+		BINARY,
+		/** 정수 (1.3.6.1.4.1.1466.115.121.1.27) */
+		INTEGER,
+		/** TRUE / FALSE (1.3.6.1.4.1.1466.115.121.1.7) */
+		BOOLEAN,
+		/** GeneralizedTime (1.3.6.1.4.1.1466.115.121.1.24) */
+		GENERALIZED_TIME
+	}
+
+	private static final String SYNTAX_PREFIX = "1.3.6.1.4.1.1466.115.121.1.";
+
+	/** 사람이 읽을 수 없는 구문 (Audio, Binary, Certificate, Certificate List, Certificate Pair, Fax, JPEG, Octet String, Supported Algorithm) */
+	private static final Set<String> BINARY_SYNTAXES = new HashSet<>(Arrays.asList(SYNTAX_PREFIX + "4",
+			SYNTAX_PREFIX + "5", SYNTAX_PREFIX + "8", SYNTAX_PREFIX + "9", SYNTAX_PREFIX + "10", SYNTAX_PREFIX + "23",
+			SYNTAX_PREFIX + "28", SYNTAX_PREFIX + "40", SYNTAX_PREFIX + "49"));
+
+	/** 스키마와 관계없이 byte 배열로 읽는 속성 (JNDI 기본 binary 속성 목록과 동일) */
+	private static final Set<String> DEFAULT_BINARY_ATTRIBUTES = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		DEFAULT_BINARY_ATTRIBUTES.addAll(Arrays.asList("photo", "personalSignature", "audio", "jpegPhoto",
+				"javaSerializedData", "thumbnailPhoto", "thumbnailLogo", "userPassword", "userCertificate",
+				"cACertificate", "authorityRevocationList", "certificateRevocationList", "crossCertificatePair",
+				"x500UniqueIdentifier"));
+	}
+
+	/** 비밀번호 등 복사하거나 내보내지 않는 속성 */
+	private static final Set<String> SECRET_ATTRIBUTES = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		SECRET_ATTRIBUTES.addAll(Arrays.asList("userPassword", "unicodePwd"));
+	}
+
+	/** 값을 받지 않는 키워드 */
+	private static final Set<String> FLAGS = new HashSet<>(Arrays.asList("OBSOLETE", "SINGLE-VALUE", "COLLECTIVE",
+			"NO-USER-MODIFICATION", "ABSTRACT", "STRUCTURAL", "AUXILIARY"));
+
+	/** 속성명(별칭 포함, 대소문자 무시) 별 형식 */
+	private final Map<String, ValueType> types;
+
+	private final Set<String> binaryAttributes;
+
+	private LdapSchema(Map<String, ValueType> types) {
+
+		this.types = types;
+		Set<String> binary = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		types.forEach((name, type) -> {
+			if (type == ValueType.BINARY) {
+				binary.add(name);
+			}
+		});
+		this.binaryAttributes = Collections.unmodifiableSet(binary);
+	}
+
+	/**
+	 * 스키마 없이 판별한 binary 속성 여부 (기본 목록, ;binary 옵션)
+	 */
+	public static boolean isDefaultBinary(String attributeId) {
+
+		int option = attributeId.indexOf(';');
+		if (option < 0) {
+			return DEFAULT_BINARY_ATTRIBUTES.contains(attributeId);
+		}
+		return attributeId.toLowerCase().contains(";binary")
+				|| DEFAULT_BINARY_ATTRIBUTES.contains(attributeId.substring(0, option));
+	}
+
+	/**
+	 * 비밀번호 등 복사하거나 내보내지 않는 속성 여부 (;binary 등 옵션 무시)
+	 */
+	public static boolean isSecret(String attributeId) {
+
+		int option = attributeId.indexOf(';');
+		return SECRET_ATTRIBUTES.contains(option < 0 ? attributeId : attributeId.substring(0, option));
+	}
+
+	/**
+	 * {@link LdapService#getSchema()} 결과를 해석합니다.
+	 */
+	public static LdapSchema parse(LdapAttribute schema) {
+
+		Set<String> binarySyntaxes = new HashSet<>(BINARY_SYNTAXES);
+		for (String definition : schema.getOrDefault("ldapSyntaxes", Collections.emptyList())) {
+			Map<String, List<String>> fields = parseDefinition(definition);
+			List<String> notHumanReadable = fields.get("X-NOT-HUMAN-READABLE");
+			if (notHumanReadable != null && notHumanReadable.contains("TRUE")) {
+				binarySyntaxes.add(fields.get("").get(0));
+			}
+		}
+
+		// 속성명, OID -> 정의
+		Map<String, Map<String, List<String>>> definitions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		List<Map<String, List<String>>> attributeTypes = new ArrayList<>();
+		for (String definition : schema.getOrDefault("attributeTypes", Collections.emptyList())) {
+			Map<String, List<String>> fields = parseDefinition(definition);
+			attributeTypes.add(fields);
+			definitions.put(fields.get("").get(0), fields);
+			for (String name : fields.getOrDefault("NAME", Collections.emptyList())) {
+				definitions.put(name, fields);
+			}
+		}
+
+		Map<String, ValueType> types = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Map<String, List<String>> fields : attributeTypes) {
+			ValueType type = toValueType(resolveSyntax(fields, definitions), binarySyntaxes);
+			for (String name : fields.getOrDefault("NAME", Collections.emptyList())) {
+				types.put(name, type);
+			}
+		}
+		return new LdapSchema(types);
+	}
+
+	/**
+	 * 정의를 키워드별 값으로 나눕니다. OID 는 빈 문자열 키에 담습니다.
+	 */
+	static Map<String, List<String>> parseDefinition(String definition) {
+
+		List<String> tokens = tokenize(definition);
+		Map<String, List<String>> result = new HashMap<>();
+		int i = 0;
+		if (i < tokens.size() && "(".equals(tokens.get(i))) {
+			i++;
+		}
+		if (i < tokens.size()) {
+			result.put("", Collections.singletonList(tokens.get(i++)));
+		}
+		while (i < tokens.size()) {
+			String keyword = tokens.get(i++);
+			if (")".equals(keyword) || FLAGS.contains(keyword) || i >= tokens.size()) {
+				continue;
+			}
+			List<String> values = new ArrayList<>();
+			if ("(".equals(tokens.get(i))) {
+				for (i++; i < tokens.size() && ")".equals(tokens.get(i)) == false; i++) {
+					if ("$".equals(tokens.get(i)) == false) {
+						values.add(tokens.get(i));
+					}
+				}
+				i++;
+			} else {
+				values.add(tokens.get(i++));
+			}
+			result.put(keyword, values);
+		}
+		return result;
+	}
+
+	/**
+	 * GeneralizedTime (yyyyMMddHH[mm[ss]][.fraction](Z|+hhmm|-hhmm)) 을 해석합니다.
+	 *
+	 * @throws DateTimeParseException
+	 *             형식이 올바르지 않은 경우
+	 */
+	public static OffsetDateTime parseGeneralizedTime(String value) {
+
+		try {
+			int zone = Math.max(value.indexOf('Z'), Math.max(value.indexOf('+'), value.indexOf('-')));
+			String local = zone < 0 ? value : value.substring(0, zone);
+			ZoneOffset offset = ZoneOffset.UTC;
+			if (zone >= 0 && value.charAt(zone) != 'Z') {
+				String zoneText = value.substring(zone);
+				offset = ZoneOffset.of(zoneText.length() == 3 ? zoneText : zoneText.substring(0, 3) + ":"
+						+ zoneText.substring(3));
+			}
+
+			int fraction = Math.max(local.indexOf('.'), local.indexOf(','));
+			String digits = fraction < 0 ? local : local.substring(0, fraction);
+			int nanos = 0;
+			if (fraction >= 0) {
+				String fractionDigits = (local.substring(fraction + 1) + "000000000").substring(0, 9);
+				nanos = Integer.parseInt(fractionDigits);
+			}
+			return OffsetDateTime.of(Integer.parseInt(digits.substring(0, 4)),
+					Integer.parseInt(digits.substring(4, 6)), Integer.parseInt(digits.substring(6, 8)),
+					Integer.parseInt(digits.substring(8, 10)),
+					digits.length() >= 12 ? Integer.parseInt(digits.substring(10, 12)) : 0,
+					digits.length() >= 14 ? Integer.parseInt(digits.substring(12, 14)) : 0, nanos, offset);
+		} catch (RuntimeException e) {
+			throw new DateTimeParseException("GeneralizedTime 형식이 아닙니다 : " + value, value, 0, e);
+		}
+	}
+
+	private static String resolveSyntax(Map<String, List<String>> fields,
+			Map<String, Map<String, List<String>>> definitions) {
+
+		Map<String, List<String>> current = fields;
+		// SUP 순환 정의 방지
+		for (int depth = 0; current != null && depth < 16; depth++) {
+			List<String> syntax = current.get("SYNTAX");
+			if (syntax != null) {
+				String oid = syntax.get(0);
+				int length = oid.indexOf('{');
+				return length < 0 ? oid : oid.substring(0, length);
+			}
+			List<String> sup = current.get("SUP");
+			current = sup == null ? null : definitions.get(sup.get(0));
+		}
+		return null;
+	}
+
+	private static List<String> tokenize(String definition) {
+
+		List<String> tokens = new ArrayList<>();
+		int length = definition.length();
+		int i = 0;
+		while (i < length) {
+			char c = definition.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '(' || c == ')' || c == '$') {
+				tokens.add(String.valueOf(c));
+				i++;
+			} else if (c == '\'') {
+				int end = definition.indexOf('\'', i + 1);
+				end = end < 0 ? length : end;
+				tokens.add(definition.substring(i + 1, end));
+				i = end + 1;
+			} else {
+				int start = i;
+				while (i < length && Character.isWhitespace(definition.charAt(i)) == false
+						&& "()$'".indexOf(definition.charAt(i)) < 0) {
+					i++;
+				}
+				tokens.add(definition.substring(start, i));
+			}
+		}
+		return tokens;
+	}
+
+	private static ValueType toValueType(String syntax, Set<String> binarySyntaxes) {
+
+		if (syntax == null) {
+			return ValueType.STRING;
+		}
+		if (binarySyntaxes.contains(syntax)) {
+			return ValueType.BINARY;
+		}
+		if (syntax.startsWith(SYNTAX_PREFIX) == false) {
+			return ValueType.STRING;
+		}
+		switch (syntax.substring(SYNTAX_PREFIX.length())) {
+		case "27":
+			return ValueType.INTEGER;
+		case "7":
+			return ValueType.BOOLEAN;
+		case "24":
+			return ValueType.GENERALIZED_TIME;
+		default:
+			return ValueType.STRING;
+		}
+	}
+
+	/**
+	 * 문자열 값을 속성 형식에 맞게 변환합니다. (Long, Boolean, OffsetDateTime, String)<br>
+	 * 형식에 맞지 않는 값은 문자열 그대로 반환합니다.
+	 */
+	public Object decode(String attributeId, String value) {
+
+		try {
+			switch (this.getType(attributeId)) {
+			case INTEGER:
+				return Long.valueOf(value.trim());
+			case BOOLEAN:
+				return Boolean.valueOf("TRUE".equalsIgnoreCase(value.trim()));
+			case GENERALIZED_TIME:
+				return parseGeneralizedTime(value);
+			default:
+				return value;
+			}
+		} catch (NumberFormatException | DateTimeParseException e) {
+			return value;
+		}
+	}
+
+	/**
+	 * binary 속성명 목록 (별칭 포함)
+	 */
+	public Set<String> getBinaryAttributes() {
+
+		return this.binaryAttributes;
+	}
+
+	/**
+	 * 속성 형식을 반환합니다. 옵션(cn;lang-ko)은 무시하며 ;binary 옵션은 binary 로 판별합니다.
+	 * 스키마에 없는 속성은 문자열로 판별합니다.
+	 */
+	public ValueType getType(String attributeId) {
+
+		int option = attributeId.indexOf(';');
+		if (option < 0) {
+			return this.types.getOrDefault(attributeId, ValueType.STRING);
+		}
+		if (attributeId.toLowerCase().contains(";binary")) {
+			return ValueType.BINARY;
+		}
+		return this.types.getOrDefault(attributeId.substring(0, option), ValueType.STRING);
+	}
+
+	/**
+	 * binary 속성 여부 (스키마의 binary 형식 또는 기본 binary 속성)
+	 */
+	public boolean isBinary(String attributeId) {
+
+		return this.getType(attributeId) == ValueType.BINARY || isDefaultBinary(attributeId);
+	}
+
+	/**
+	 * 형식을 아는 속성명 수 (별칭 포함)
+	 */
+	public int size() {
+
+		return this.types.size();
+	}
+}
@@ -1,376 +1,1462 @@
-/**
- * FileName : LdapService.java
- * Created  : 2021. 3. 18.
- * Author   : hokkk
- * Summary  :
- * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
- * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
- * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
- */
-package com.naonsoft.example.tools.ldap;
-
-import java.io.Closeable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import javax.naming.InvalidNameException;
-import javax.naming.NamingEnumeration;
-import javax.naming.NamingException;
-import javax.naming.directory.Attribute;
-import javax.naming.directory.Attributes;
-import javax.naming.directory.DirContext;
-import javax.naming.directory.InvalidSearchFilterException;
-import javax.naming.directory.SearchControls;
-import javax.naming.directory.SearchResult;
-import javax.naming.ldap.InitialLdapContext;
-import javax.naming.ldap.LdapName;
-import javax.naming.ldap.Rdn;
-
-import com.naonsoft.example.exception.LogicError;
-import com.naonsoft.example.tools.tree.IsParentPredicate;
-import com.naonsoft.example.tools.tree.Tree;
-import com.naonsoft.example.tools.tree.TreeImpl;
-
-/**
- * @author hokkk
- */
-public class LdapService implements Closeable {
-
-	private static final String ALL_SEARCH_FILTER = "(objectClass=*)";
-
-	private final LdapConnection con;
-
-	private final IsParentPredicate<LdapNode> isParentPredicate = (LdapNode parent, LdapNode target) -> {
-
-		Optional<LdapName> optionalParent = getParent(target.getDn());
-		if (optionalParent.isPresent() == false) {
-			return false;
-		}
-
-		return parent.getDn().equals(optionalParent.get());
-	};
-
-	public LdapService(LdapConnection con) {
-
-		if (con == null) {
-			throw new NullPointerException("LdapConnection con is null");
-		}
-
-		this.con = con;
-	}
-
-	private static void appendAttribute(LdapAttribute result, Attribute attr) throws NamingException {
-
-		List<String> stringAttr = new ArrayList<>();
-		List<byte[]> bytesAttr = new ArrayList<>();
-		List<Object> unknwonAttr = new ArrayList<>();
-		NamingEnumeration<?> all = attr.getAll();
-		while (all.hasMore()) {
-			Object next = all.next();
-			if (next == null) {
-				continue;
-			} else if (next instanceof String) {
-				stringAttr.add((String) next);
-			} else if (next instanceof byte[]) {
-				bytesAttr.add((byte[]) next);
-			} else {
-				unknwonAttr.add(next);
-			}
-		}
-		result.put(attr.getID(), stringAttr);
-		if (bytesAttr.isEmpty() == false) {
-			result.putByteArray(attr.getID(), bytesAttr);
-		}
-		if (unknwonAttr.isEmpty() == false) {
-			result.putUnknown(attr.getID(), unknwonAttr);
-		}
-	}
-
-	public static Optional<LdapName> getParent(LdapName dn) {
-
-		ArrayList<Rdn> rdns = new ArrayList<>(dn.getRdns());
-		if (rdns.isEmpty()) {
-			return Optional.empty();
-		}
-		rdns.remove(rdns.size() - 1);
-		return Optional.of(new LdapName(rdns));
-	}
-
-	private static boolean isTimeOutError(NamingException e) {
-
-		return e.getMessage().contains("read timed out");
-	}
-
-	private static LdapName toName(String dn) {
-
-		try {
-			return new LdapName(dn);
-		} catch (InvalidNameException e) {
-			throw new LogicError("이름이 올바르지 않습니다 : " + dn, e);
-		}
-	}
-
-	@Deprecated
-	public List<Tree<LdapNode>> allTree() {
-
-		List<LdapNode> roots = this.getRoots();
-
-		List<Tree<LdapNode>> result = new ArrayList<>(roots.size());
-
-		for (LdapNode root : roots) {
-			Tree<LdapNode> rootTree = new TreeImpl<>(null, root);
-			this.collectRecursiveChild(rootTree);
-			result.add(rootTree);
-		}
-
-		return result;
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void close() {
-
-		this.con.disconnect();
-	}
-
-	private void collectRecursiveChild(Tree<LdapNode> parent) {
-
-		LdapName dn = parent.getData().getDn();
-
-		List<LdapNode> childs = this.getChilds(dn);
-		for (LdapNode ldapNode : childs) {
-			this.collectRecursiveChild(parent.addChild(ldapNode));
-		}
-	}
-
-	public LdapAttribute getAttr(LdapName dn) {
-
-		InitialLdapContext ctx = this.con.connect();
-		try {
-			Attributes attr = ctx.getAttributes(dn);
-			return this.toAttr(attr);
-		} catch (NamingException e) {
-			if (isTimeOutError(e)) {
-				this.con.reconnect();
-				return this.getAttr(dn);
-			}
-			throw new LogicError(e);
-		} finally {
-			this.con.disconnect();
-		}
-	}
-
-	public LdapAttribute getAttr(String dn) {
-
-		return this.getAttr(toName(dn));
-	}
-
-	public List<LdapNode> getChilds(LdapName dn) {
-
-		NamingEnumeration<SearchResult> childs = this.searchOneLevel(dn, ALL_SEARCH_FILTER);
-		List<LdapNode> result = new ArrayList<>();
-		while (childs.hasMoreElements()) {
-			SearchResult next = childs.nextElement();
-			result.add(this.toNode(next));
-		}
-		return result;
-
-	}
-
-	public List<LdapNode> getChilds(String dn) {
-
-		return this.getChilds(toName(dn));
-	}
-
-	public DirContext getDir(LdapName dn) {
-
-		InitialLdapContext ctx = this.con.connect();
-		try {
-			return ctx.getSchemaClassDefinition(dn);
-		} catch (NamingException e) {
-			if (isTimeOutError(e)) {
-				this.con.reconnect();
-				return this.getDir(dn);
-			}
-			throw new LogicError(e);
-		} finally {
-			this.con.disconnect();
-		}
-	}
-
-	public DirContext getDir(String dn) {
-
-		return this.getDir(toName(dn));
-	}
-
-	public List<LdapNode> getRoots() {
-
-		InitialLdapContext ctx = this.con.connect();
-		try {
-			NamingEnumeration<?> rootEnumertation = ctx
-					.getAttributes("", new String[] { "namingContexts" })
-					.get("namingContexts")
-					.getAll();
-			List<LdapNode> result = new ArrayList<>();
-
-			while (rootEnumertation.hasMore()) {
-				String path = (String) rootEnumertation.next();
-				result.add(new LdapNode(toName(path), this.getAttr(path)));
-			}
-			return result;
-		} catch (NamingException e) {
-			if (isTimeOutError(e)) {
-				this.con.reconnect();
-				return this.getRoots();
-			}
-			throw new LogicError(e);
-		} finally {
-			this.con.disconnect();
-		}
-	}
-
-	private NamingEnumeration<SearchResult> search(LdapName dn, String searchFilter, int scope) {
-
-		InitialLdapContext ctx = this.con.connect();
-		SearchControls searchControls = new SearchControls();
-		searchControls.setSearchScope(scope);
-		try {
-			return ctx.search(dn, searchFilter, searchControls);
-		} catch (InvalidSearchFilterException e) {
-			throw new IllegalArgumentException(e);
-		} catch (NamingException e) {
-			if (isTimeOutError(e)) {
-				this.con.reconnect();
-				return this.searchOneLevel(dn, searchFilter);
-			}
-			throw new LogicError(e);
-		} finally {
-			this.con.disconnect();
-		}
-	}
-
-	/**
-	 * dn의 1레벨 자식들 대상으로 필터링
-	 * 
-	 * (cn=abc) => cn이 abc인것 반환
-	 * (cn=abc*) => abc로 시작
-	 * (&(cn=abc*)(cn=*d)) => AND 조건
-	 * (|(cn=abc*)(cn=*d)) => OR 조건
-	 */
-	public NamingEnumeration<SearchResult> searchOneLevel(LdapName dn, String searchFilter) {
-
-		return this.search(dn, searchFilter, SearchControls.ONELEVEL_SCOPE);
-	}
-
-	public NamingEnumeration<SearchResult> searchOneLevel(String dn, String searchFilter) {
-
-		return this.searchOneLevel(toName(dn), searchFilter);
-	}
-
-	/**
-	 * dn의 모든 자식들을 대상으로 필터링
-	 */
-	public NamingEnumeration<SearchResult> searchSubtree(LdapName dn, String searchFilter) {
-
-		return this.search(dn, searchFilter, SearchControls.SUBTREE_SCOPE);
-	}
-
-	public NamingEnumeration<SearchResult> searchSubtree(String dn, String searchFilter) {
-
-		return this.searchSubtree(toName(dn), searchFilter);
-	}
-
-	public LdapAttribute toAttr(Attributes attrs) {
-
-		List<? extends Attribute> attrsList = Collections.list(attrs.getAll());
-
-		LdapAttribute result = new LdapAttribute(attrsList.size());
-
-		try {
-			for (Attribute attr : attrsList) {
-
-				appendAttribute(result, attr);
-			}
-			return result;
-		} catch (NamingException e) {
-			if (isTimeOutError(e)) {
-				this.con.reconnect();
-				return this.toAttr(attrs);
-			}
-			throw new LogicError(e);
-		} finally {
-			this.con.disconnect();
-		}
-	}
-
-	public LdapNode toNode(LdapName dn) {
-
-		LdapAttribute attr = this.getAttr(dn);
-		return new LdapNode(dn, attr);
-	}
-
-	public LdapNode toNode(SearchResult searchResult) {
-
-		LdapAttribute attributes = this.toAttr(searchResult.getAttributes());
-		return new LdapNode(toName(searchResult.getNameInNamespace()), attributes);
-	}
-
-	public LdapNode toNode(String dn) {
-
-		return this.toNode(toName(dn));
-	}
-
-	public Tree<LdapNode> tree(LdapName dn) {
-
-		NamingEnumeration<SearchResult> searchResult = this.searchSubtree(dn, ALL_SEARCH_FILTER);
-
-		List<LdapNode> nodes = Collections.list(searchResult)
-				.stream()
-				.map(this::toNode)
-				.collect(Collectors.toList());
-
-		if (nodes.isEmpty()) {
-			throw new LogicError("nodes가 0인 경우 코드 검토가 필요합니다.");
-		}
-
-		// 한번에 가져오는 개수가 2,000개로 제한되어있으므로 넘어가는 경우 느린 검색을 수행한다.
-		if (nodes.size() >= 2_000) {
-			return this.treeSlow(dn);
-		}
-
-		List<Tree<LdapNode>> tree = TreeImpl.toTree(nodes, this.isParentPredicate);
-		if (tree.size() != 1) {
-			throw new LogicError("ID에 해당하는 하위 노드만 검색하였기때문에 반드시 한 개만 반환되어야 합니다.");
-		}
-
-		Tree<LdapNode> result = tree.get(0);
-
-		result.sortRecursive(Comparator.comparing(LdapNode::getDn));
-		return result;
-	}
-
-	public Tree<LdapNode> tree(String dn) {
-
-		return this.tree(toName(dn));
-	}
-
-	public Tree<LdapNode> treeSlow(LdapName dn) {
-
-		LdapNode rootNode = this.toNode(dn);
-		Tree<LdapNode> rootTree = new TreeImpl<>(null, rootNode);
-		this.collectRecursiveChild(rootTree);
-		return rootTree;
-	}
-
-	public Tree<LdapNode> treeSlow(String dn) {
-
-		return this.treeSlow(toName(dn));
-	}
-
-}
+/**
+ * FileName : LdapService.java
+ * Created  : 2021. 3. 18.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.text.CollationKey;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import javax.naming.InvalidNameException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.SizeLimitExceededException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LdapTimeoutError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.cache.TtlCache;
+import com.naonsoft.example.tools.concurrent.AdaptiveConcurrencyLimiter;
+import com.naonsoft.example.tools.concurrent.AdaptiveConcurrencyLimiter.Permit;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.concurrent.SingleFlight;
+import com.naonsoft.example.tools.jfr.LdapRetryEvent;
+import com.naonsoft.example.tools.tree.IsParentPredicate;
+import com.naonsoft.example.tools.tree.Tree;
+import com.naonsoft.example.tools.tree.TreeImpl;
+import com.naonsoft.example.tools.tree.TreeSorter;
+
+/**
+ * 디렉토리 조회 서비스
+ * <p>
+ * 서버 접근은 {@link LdapBackend} 에 위임하고, 재시도, 동시 요청 제한, 동일 조회 병합, 제한 시각은 이 클래스에서 처리합니다.
+ *
+ * @author hokkk
+ */
+public class LdapService implements Closeable {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapService.class);
+
+	private static final String ALL_SEARCH_FILTER = "(objectClass=*)";
+
+	/** 통계, 전체 검색의 페이지 크기 */
+	private static final int PAGE_SIZE = 1_000;
+
+	private final LdapBackend backend;
+
+	/** 시간 초과 시 최대 재시도 횟수 */
+	private int retryLimit = 10;
+
+	/** 동시에 요청된 같은 조회를 한번만 수행하기 위한 작업 목록 */
+	private final SingleFlight<LdapOperationKey, Object> inFlight = new SingleFlight<>();
+
+	/** 서버 동시 요청 수 제한 */
+	private AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+	/** 제한 시각을 지정하지 않은 작업의 기본 제한 시간 (null 이면 제한 없음) */
+	private Duration defaultTimeout;
+
+	/** 깊이 제한 트리 조회에서 한 레벨의 검색을 동시에 수행할 실행기 (null 이면 순차 조회) */
+	private Executor executor;
+
+	/** 깊이 제한 트리 조회에서 한 레벨을 동시에 조회하는 최대 작업 수 */
+	private int levelParallelism = 8;
+
+	/** 읽어둔 스키마 */
+	private volatile LdapSchema ldapSchema;
+
+	/** 스키마 갱신 주기 (null 이면 자동으로 읽거나 갱신하지 않음) */
+	private Duration schemaRefreshInterval;
+
+	/** 마지막으로 스키마를 읽으려 한 시각 (ns, 실패 포함) */
+	private volatile long schemaCheckedAt;
+
+	private final AtomicBoolean schemaRefreshing = new AtomicBoolean();
+
+	/** 쓰기 후 변경된 DN 을 전달받는 리스너 (트리 캐시 무효화 등) */
+	private final List<Consumer<LdapName>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+	/** 검색 결과 캐시 (null 이면 사용하지 않음) */
+	private volatile LdapQueryCache queryCache;
+
+	/** binary 속성 값 캐시 (전체 byte 수 제한) */
+	private volatile TtlCache<LdapOperationKey, byte[]> binaryCache = newBinaryCache(32L * 1024 * 1024,
+			Duration.ofMinutes(10));
+
+	/** {@link #getBinaryAttribute(LdapName, String)} 로 조회할 수 있는 속성 (대소문자 무시) */
+	private volatile Set<String> binaryAttributes = newAttributeSet(Arrays.asList("jpegPhoto", "thumbnailPhoto"));
+
+	/** 트리 자식 정렬 (한국어 정렬 규칙으로 이름을 비교하고 같으면 DN 비교) */
+	private final TreeSorter<LdapNode, CollationKey> treeSorter = newTreeSorter();
+
+	private final IsParentPredicate<LdapNode> isParentPredicate = (LdapNode parent, LdapNode target) -> {
+
+		Optional<LdapName> optionalParent = getParent(target.getDn());
+		if (optionalParent.isPresent() == false) {
+			return false;
+		}
+
+		return parent.getDn().equals(optionalParent.get());
+	};
+
+	public LdapService(LdapConnection con) {
+
+		this(new JndiLdapBackend(con));
+	}
+
+	public LdapService(LdapBackend backend) {
+
+		if (backend == null) {
+			throw new NullPointerException("LdapBackend backend is null");
+		}
+
+		this.backend = backend;
+	}
+
+	public static Optional<LdapName> getParent(LdapName dn) {
+
+		ArrayList<Rdn> rdns = new ArrayList<>(dn.getRdns());
+		if (rdns.isEmpty()) {
+			return Optional.empty();
+		}
+		rdns.remove(rdns.size() - 1);
+		return Optional.of(new LdapName(rdns));
+	}
+
+	/**
+	 * 읽은 속성에서 attributeId 의 첫번째 값을 찾습니다. (;binary 등 옵션이 붙은 속성명 포함)<br>
+	 * binary 로 받지 않은 값은 UTF-8 로 변환합니다.
+	 */
+	private static Optional<byte[]> firstByteValue(LdapAttribute attr, String attributeId) {
+
+		for (Entry<String, List<byte[]>> entry : attr.byteArrays().entrySet()) {
+			if (isSameAttribute(entry.getKey(), attributeId) && entry.getValue().isEmpty() == false) {
+				return Optional.of(entry.getValue().get(0));
+			}
+		}
+		for (Entry<String, List<String>> entry : attr.entrySet()) {
+			if (isSameAttribute(entry.getKey(), attributeId) && entry.getValue().isEmpty() == false) {
+				return Optional.of(entry.getValue().get(0).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static boolean isSameAttribute(String key, String attributeId) {
+
+		return key.equalsIgnoreCase(attributeId) || key.regionMatches(true, 0, attributeId + ";", 0,
+				attributeId.length() + 1);
+	}
+
+	/**
+	 * 검색한 항목을 JNDI 검색 결과로 변환합니다. 이름은 base 기준 상대 이름입니다.
+	 */
+	private static SearchResult toSearchResult(LdapName base, LdapNode node) {
+
+		Attributes attributes = new BasicAttributes(true);
+		LdapAttribute attr = node.attributes();
+		for (Entry<String, List<String>> entry : attr.entrySet()) {
+			addValues(attributes, entry.getKey(), entry.getValue());
+		}
+		for (Entry<String, List<byte[]>> entry : attr.byteArrays().entrySet()) {
+			addValues(attributes, entry.getKey(), entry.getValue());
+		}
+		for (Entry<String, List<Object>> entry : attr.getUnknwonAttr().entrySet()) {
+			addValues(attributes, entry.getKey(), entry.getValue());
+		}
+		LdapName dn = node.getDn();
+		boolean relative = dn.startsWith(base);
+		String name = relative ? dn.getSuffix(base.size()).toString() : dn.toString();
+		SearchResult result = new SearchResult(name, null, attributes, relative);
+		result.setNameInNamespace(dn.toString());
+		return result;
+	}
+
+	private static void addValues(Attributes attributes, String attributeId, List<?> values) {
+
+		Attribute attribute = attributes.get(attributeId);
+		if (attribute == null) {
+			attribute = new BasicAttribute(attributeId);
+			attributes.put(attribute);
+		}
+		for (Object value : values) {
+			attribute.add(value);
+		}
+	}
+
+	/**
+	 * JNDI 검색 결과를 모두 읽습니다. 서버 크기 제한을 넘으면 그때까지 읽은 결과를 반환합니다.
+	 */
+	private static List<SearchResult> readAll(NamingEnumeration<SearchResult> results, LdapName dn) {
+
+		List<SearchResult> result = new ArrayList<>();
+		try {
+			while (results.hasMore()) {
+				result.add(results.next());
+			}
+		} catch (SizeLimitExceededException e) {
+			LOGGER.debug("검색 크기 제한 초과 : {}", dn);
+		} catch (NamingException e) {
+			throw JndiLdapBackend.translate(e, "search " + dn);
+		} finally {
+			try {
+				results.close();
+			} catch (NamingException e) {
+				LOGGER.debug("검색 결과 close 실패", e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 쓰기 작업이 변경하는 DN (이름 변경은 변경 전후)
+	 */
+	private static List<LdapName> writtenNames(LdapWriteOperation operation) {
+
+		List<LdapName> result = new ArrayList<>(2);
+		result.add(operation.getDn());
+		operation.getNewDn().ifPresent(result::add);
+		return result;
+	}
+
+	private static Set<String> newAttributeSet(Collection<String> attributeIds) {
+
+		Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		result.addAll(attributeIds);
+		return Collections.unmodifiableSet(result);
+	}
+
+	private static TtlCache<LdapOperationKey, byte[]> newBinaryCache(long maxBytes, Duration ttl) {
+
+		TtlCache<LdapOperationKey, byte[]> cache = new TtlCache<>(Integer.MAX_VALUE, ttl);
+		cache.setMaxWeight(maxBytes, value -> value.length);
+		return cache;
+	}
+
+	private static TreeSorter<LdapNode, CollationKey> newTreeSorter() {
+
+		TreeSorter<LdapNode, CollationKey> sorter = TreeSorter.collating(LdapNode::getName, Locale.KOREAN);
+		sorter.setTieBreaker(Comparator.comparing(LdapNode::getDn));
+		return sorter;
+	}
+
+	private static String[] emptyToNull(String[] attributes) {
+
+		return attributes == null || attributes.length == 0 ? null : attributes;
+	}
+
+	private static LdapName toName(String dn) {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new LogicError("이름이 올바르지 않습니다 : " + dn, e);
+		}
+	}
+
+	/**
+	 * 쓰기 작업으로 변경된 DN 을 전달받을 리스너를 추가합니다. (이름 변경은 변경 전후 DN 을 모두 전달)
+	 */
+	public void addInvalidationListener(Consumer<LdapName> listener) {
+
+		this.invalidationListeners.add(listener);
+	}
+
+	@Deprecated
+	public List<Tree<LdapNode>> allTree() {
+
+		List<LdapNode> roots = this.getRoots();
+
+		List<Tree<LdapNode>> result = new ArrayList<>(roots.size());
+
+		for (LdapNode root : roots) {
+			Tree<LdapNode> rootTree = new TreeImpl<>(null, root);
+			this.collectRecursiveChild(rootTree, Deadline.none());
+			result.add(rootTree);
+		}
+
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+
+		this.backend.close();
+	}
+
+	private void collectRecursiveChild(Tree<LdapNode> parent, Deadline deadline) {
+
+		LdapName dn = parent.getData().getDn();
+
+		List<LdapNode> childs = this.getChilds(dn, deadline);
+		for (LdapNode ldapNode : childs) {
+			this.collectRecursiveChild(parent.addChild(ldapNode), deadline);
+		}
+	}
+
+	/**
+	 * 동시에 같은 조회가 수행 중이면 서버에 다시 요청하지 않고 그 결과를 공유합니다.<br>
+	 * 먼저 수행한 호출자의 제한 시간이 지나 실패한 경우 남은 시간이 있는 호출자는 직접 수행합니다.
+	 */
+	private <T> T coalesce(LdapOperationKey key, Supplier<T> supplier, Deadline deadline) {
+
+		return this.coalesce(key, supplier, deadline, UnaryOperator.identity());
+	}
+
+	/**
+	 * 결과를 공유한 경우 호출자마다 copier 로 복사한 결과를 반환합니다. (혼자 조회한 경우 복사하지 않음)
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T coalesce(LdapOperationKey key, Supplier<T> supplier, Deadline deadline,
+			UnaryOperator<T> copier) {
+
+		try {
+			return (T) this.inFlight.execute(key, supplier::get, deadline, value -> copier.apply((T) value));
+		} catch (DeadlineExceededError e) {
+			if (deadline.isExpired()) {
+				throw e;
+			}
+			return supplier.get();
+		}
+	}
+
+	/**
+	 * 하위 트리에서 필터에 맞는 항목 수를 셉니다. (objectClass 만 요청하고 항목은 보관하지 않음)
+	 */
+	public long count(LdapName dn, String searchFilter) {
+
+		return this.statistics(dn, searchFilter, this.newDeadline()).getTotal();
+	}
+
+	/**
+	 * 속성을 조회합니다. 동시에 같은 DN 을 조회하는 경우 한번만 조회하며 함께 조회한 호출자마다 복사본을 반환합니다.
+	 */
+	public LdapAttribute getAttr(LdapName dn) {
+
+		return this.getAttr(dn, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 속성을 조회합니다. 재시도도 같은 제한 시각 안에서만 수행합니다.
+	 */
+	public LdapAttribute getAttr(LdapName dn, Deadline deadline) {
+
+		return this.coalesce(new LdapOperationKey("getAttr", dn, -1, null, null), () -> this.readAttr(dn, deadline),
+				deadline, LdapAttribute::new);
+	}
+
+	private LdapAttribute readAttr(LdapName dn, Deadline deadline) {
+
+		return this.execute("getAttr " + dn, deadline, permit -> this.backend.read(dn, null, deadline));
+	}
+
+	public LdapAttribute getAttr(String dn) {
+
+		return this.getAttr(toName(dn));
+	}
+
+	/**
+	 * 1레벨 자식을 조회합니다. 동시에 같은 DN 을 조회하는 경우 한번만 검색합니다.
+	 */
+	public List<LdapNode> getChilds(LdapName dn) {
+
+		return this.getChilds(dn, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 1레벨 자식을 조회합니다. 함께 조회한 곳과 노드를 공유하지 않도록 복사해서 반환합니다.
+	 */
+	public List<LdapNode> getChilds(LdapName dn, Deadline deadline) {
+
+		return this.coalesce(
+				new LdapOperationKey("getChilds", dn, SearchControls.ONELEVEL_SCOPE, ALL_SEARCH_FILTER, null),
+				() -> this.readChilds(dn, deadline), deadline, LdapService::copyNodes);
+	}
+
+	private static List<LdapNode> copyNodes(List<LdapNode> nodes) {
+
+		List<LdapNode> result = new ArrayList<>(nodes.size());
+		for (LdapNode node : nodes) {
+			result.add(node.copy());
+		}
+		return result;
+	}
+
+	private List<LdapNode> readChilds(LdapName dn, Deadline deadline) {
+
+		List<LdapNode> result = new ArrayList<>();
+		this.search(dn, SearchControls.ONELEVEL_SCOPE, ALL_SEARCH_FILTER, null, deadline, result::add);
+		return result;
+	}
+
+	public List<LdapNode> getChilds(String dn) {
+
+		return this.getChilds(toName(dn));
+	}
+
+	/**
+	 * 스키마 클래스 정의를 조회합니다. (JNDI 전용, 호출마다 서버에서 읽음)<br>
+	 * 다른 백엔드는 서버에 요청하지 않고 바로 UnsupportedOperationException 을 발생합니다.
+	 *
+	 * @deprecated 속성 형식은 {@link #getLdapSchema()} 로 읽어둔 스키마를 사용합니다.
+	 */
+	@Deprecated
+	public DirContext getDir(LdapName dn) {
+
+		Deadline deadline = this.newDeadline();
+		JndiLdapBackend jndi = this.jndi();
+		return this.execute("getDir " + dn, deadline, permit -> jndi.getSchemaClassDefinition(dn, deadline));
+	}
+
+	/**
+	 * @deprecated {@link #getDir(LdapName)} 참고
+	 */
+	@Deprecated
+	public DirContext getDir(String dn) {
+
+		return this.getDir(toName(dn));
+	}
+
+	/**
+	 * 항목 하나의 binary 속성(jpegPhoto, thumbnailPhoto 등) 첫번째 값을 조회합니다.<br>
+	 * 읽은 값은 크기 제한이 있는 별도 캐시에 보관하며 호출자마다 복사본을 반환합니다.
+	 * JNDI 백엔드는 스키마를 읽지 않으면 기본 binary 속성 외에는 문자열로 받으므로 스키마 갱신 주기를 설정해야 합니다.<br>
+	 * {@link #isBinaryAttributeAllowed(String)} 가 허용하지 않는 속성은 서버에서 읽지 않고 빈 값을 반환합니다.
+	 */
+	public Optional<byte[]> getBinaryAttribute(LdapName dn, String attributeId) {
+
+		return this.getBinaryAttribute(dn, attributeId, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 binary 속성 첫번째 값을 조회합니다.
+	 */
+	public Optional<byte[]> getBinaryAttribute(LdapName dn, String attributeId, Deadline deadline) {
+
+		if (this.isBinaryAttributeAllowed(attributeId) == false) {
+			return Optional.empty();
+		}
+		LdapOperationKey key = new LdapOperationKey("getBinary", dn, -1, null, new String[] { attributeId });
+		TtlCache<LdapOperationKey, byte[]> cache = this.binaryCache;
+		Optional<byte[]> value = cache.get(key);
+		if (value.isPresent() == false) {
+			value = this.coalesce(key, () -> this.readBinary(dn, attributeId, deadline), deadline);
+			value.ifPresent(bytes -> cache.put(key, bytes));
+		}
+		return value.map(byte[]::clone);
+	}
+
+	/**
+	 * binary 속성으로 조회할 수 있는지 여부<br>
+	 * 허용 목록({@link #setBinaryAttributes(Collection)})에 있고 binary 형식(읽어둔 스키마, 없으면 기본 binary 속성)이어야 하며,
+	 * 비밀번호 속성({@link LdapSchema#isSecret(String)})은 허용 목록에 있어도 조회할 수 없습니다.
+	 */
+	public boolean isBinaryAttributeAllowed(String attributeId) {
+
+		if (attributeId == null || attributeId.isEmpty() || LdapSchema.isSecret(attributeId)) {
+			return false;
+		}
+		int option = attributeId.indexOf(';');
+		String name = option < 0 ? attributeId : attributeId.substring(0, option);
+		if (this.binaryAttributes.contains(name) == false) {
+			return false;
+		}
+		LdapSchema schema = this.ldapSchema;
+		return schema == null ? LdapSchema.isDefaultBinary(name) : schema.isBinary(name);
+	}
+
+	private Optional<byte[]> readBinary(LdapName dn, String attributeId, Deadline deadline) {
+
+		LdapAttribute attr = this.execute("getBinary " + dn, deadline,
+				permit -> this.backend.read(dn, new String[] { attributeId }, deadline));
+		return firstByteValue(attr, attributeId);
+	}
+
+	public LdapBackend getBackend() {
+
+		return this.backend;
+	}
+
+	/**
+	 * 읽어둔 스키마를 반환합니다. 아직 읽지 않았으면 읽습니다.<br>
+	 * 갱신 주기가 지났으면 다시 읽으며, 실패하면 이전 스키마를 사용합니다.
+	 */
+	public LdapSchema getLdapSchema() {
+
+		this.refreshSchemaIfDue();
+		LdapSchema current = this.ldapSchema;
+		if (current == null) {
+			return this.refreshSchema();
+		}
+		return current;
+	}
+
+	public AdaptiveConcurrencyLimiter getLimiter() {
+
+		return this.limiter;
+	}
+
+	/**
+	 * Root DSE 의 namingContexts 를 조회합니다.
+	 */
+	public List<LdapName> getNamingContexts() {
+
+		List<String> contexts = this.getRootDse("namingContexts").getOrDefault("namingContexts",
+				new ArrayList<>());
+		List<LdapName> result = new ArrayList<>(contexts.size());
+		for (String context : contexts) {
+			result.add(toName(context));
+		}
+		return result;
+	}
+
+	/**
+	 * 검색 결과 캐시 (사용하지 않으면 empty)
+	 */
+	public Optional<LdapQueryCache> getQueryCache() {
+
+		return Optional.ofNullable(this.queryCache);
+	}
+
+	/**
+	 * Root DSE 의 속성을 조회합니다. (supportedControl, namingContexts 등)
+	 */
+	public LdapAttribute getRootDse(String... attributes) {
+
+		Deadline deadline = this.newDeadline();
+		return this.execute("rootDSE", deadline,
+				permit -> this.backend.readRootDse(emptyToNull(attributes), deadline));
+	}
+
+	public List<LdapNode> getRoots() {
+
+		// 허가를 가진 채로 getAttr 의 허가를 기다리지 않도록 namingContexts 를 먼저 읽고 반납한다.
+		Deadline deadline = this.newDeadline();
+		LdapAttribute rootDse = this.execute("rootDSE", deadline,
+				permit -> this.backend.readRootDse(new String[] { "namingContexts" }, deadline));
+		List<String> paths = rootDse.getOrDefault("namingContexts", new ArrayList<>());
+
+		List<LdapNode> result = new ArrayList<>();
+		for (String path : paths) {
+			result.add(new LdapNode(toName(path), this.getAttr(path)));
+		}
+		return result;
+	}
+
+	/**
+	 * 스키마(attributeTypes, objectClasses, ldapSyntaxes)를 조회합니다.
+	 */
+	public LdapAttribute getSchema() {
+
+		Deadline deadline = this.newDeadline();
+		return this.execute("schema", deadline, permit -> this.backend.readSchema(deadline));
+	}
+
+	/**
+	 * dn 과 관련된 검색 결과 캐시와 binary 속성 캐시를 제거합니다. (변경 이벤트 수신 시 호출)
+	 */
+	public void invalidate(LdapName dn) {
+
+		LdapQueryCache cache = this.queryCache;
+		if (cache != null) {
+			cache.invalidate(dn);
+		}
+		this.invalidateBinary(dn);
+	}
+
+	/**
+	 * dn 과 그 하위 항목의 binary 속성 캐시를 제거합니다.
+	 */
+	public void invalidateBinary(LdapName dn) {
+
+		this.binaryCache.removeIf(key -> key.getDn().startsWith(dn));
+	}
+
+	/**
+	 * JNDI 전용 기능에서 사용하는 백엔드
+	 */
+	private JndiLdapBackend jndi() {
+
+		if (this.backend instanceof JndiLdapBackend) {
+			return (JndiLdapBackend) this.backend;
+		}
+		throw new UnsupportedOperationException("JNDI 백엔드에서만 지원합니다 : " + this.backend.getName());
+	}
+
+	/**
+	 * 기본 제한 시간으로 제한 시각을 만듭니다.
+	 */
+	private Deadline newDeadline() {
+
+		return Deadline.after(this.defaultTimeout);
+	}
+
+	/**
+	 * 허가를 얻어 작업을 수행합니다. 시간 초과로 실패한 경우 제한 시각 안에서 재시도합니다.
+	 */
+	private <T> T execute(String operation, Deadline deadline, LdapCall<T> call) {
+
+		return this.execute(operation, deadline, this.retryLimit, call);
+	}
+
+	/**
+	 * 시간 초과 시 retryLimit 번까지 재시도합니다. (쓰기는 0)
+	 */
+	private <T> T execute(String operation, Deadline deadline, int retryLimit, LdapCall<T> call) {
+
+		this.refreshSchemaIfDue();
+		for (int attempt = 0;; attempt++) {
+			deadline.check(operation);
+			Permit permit = this.limiter.acquire(deadline);
+			try {
+				T result = call.call(permit);
+				permit.success();
+				return result;
+			} catch (LdapTimeoutError e) {
+				permit.dropped();
+				LdapRetryEvent.record(operation, attempt, retryLimit, e);
+				if (attempt >= retryLimit) {
+					throw e;
+				}
+				this.backend.reconnect();
+			} catch (DeadlineExceededError e) {
+				permit.dropped();
+				throw e;
+			} finally {
+				permit.release();
+			}
+		}
+	}
+
+	/**
+	 * 여러 DN 의 1레벨 자식을 조회합니다. 실행기가 있으면 최대 levelParallelism 개의 작업이 남은 DN 을 나눠 조회합니다.<br>
+	 * 한 작업이 실패하면 나머지 작업은 남은 DN 을 조회하지 않고 끝납니다.
+	 */
+	private List<List<LdapNode>> fetchLevel(List<LdapName> dns, Deadline deadline) {
+
+		Executor target = this.executor;
+		int workers = Math.min(this.levelParallelism, dns.size());
+		if (target == null || workers <= 1) {
+			List<List<LdapNode>> result = new ArrayList<>(dns.size());
+			for (LdapName dn : dns) {
+				result.add(this.getChilds(dn, deadline));
+			}
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		List<LdapNode>[] result = new List[dns.size()];
+		AtomicInteger next = new AtomicInteger();
+		Runnable worker = () -> {
+			try {
+				for (int i = next.getAndIncrement(); i < result.length; i = next.getAndIncrement()) {
+					result[i] = this.getChilds(dns.get(i), deadline);
+				}
+			} catch (RuntimeException e) {
+				next.set(result.length);
+				throw e;
+			}
+		};
+		List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+		for (int i = 0; i < workers; i++) {
+			futures.add(CompletableFuture.runAsync(worker, target));
+		}
+		try {
+			for (CompletableFuture<Void> future : futures) {
+				future.join();
+			}
+		} catch (CompletionException e) {
+			next.set(result.length);
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		return Arrays.asList(result);
+	}
+
+	/**
+	 * 1레벨 자식 중 필터에 맞는 노드를 조회합니다.
+	 *
+	 * @param attributes
+	 *            읽을 속성 (없으면 전체)
+	 */
+	public List<LdapNode> findOneLevel(LdapName dn, String searchFilter, String... attributes) {
+
+		return this.find(dn, SearchControls.ONELEVEL_SCOPE, searchFilter, emptyToNull(attributes));
+	}
+
+	/**
+	 * 모든 자식 중 필터에 맞는 노드를 조회합니다.
+	 *
+	 * @param attributes
+	 *            읽을 속성 (없으면 전체)
+	 */
+	public List<LdapNode> findSubtree(LdapName dn, String searchFilter, String... attributes) {
+
+		return this.find(dn, SearchControls.SUBTREE_SCOPE, searchFilter, emptyToNull(attributes));
+	}
+
+	/**
+	 * 검색 결과 캐시가 있으면 보관한 결과를 복사하여 반환합니다.
+	 */
+	private List<LdapNode> find(LdapName dn, int scope, String searchFilter, String[] attributes) {
+
+		Deadline deadline = this.newDeadline();
+		Supplier<List<LdapNode>> loader = () -> {
+			List<LdapNode> result = new ArrayList<>();
+			this.search(dn, scope, searchFilter, attributes, deadline, result::add);
+			return result;
+		};
+		LdapQueryCache cache = this.queryCache;
+		if (cache == null) {
+			return loader.get();
+		}
+		List<LdapNode> cached = cache.get(LdapQueryCache.key("find", dn, scope, searchFilter, attributes), loader,
+				LdapNode::estimateBytes);
+		// 보관한 노드를 호출자가 변경하지 않도록 복사본을 반환한다.
+		List<LdapNode> result = new ArrayList<>(cached.size());
+		for (LdapNode node : cached) {
+			result.add(node.copy());
+		}
+		return result;
+	}
+
+	/**
+	 * 검색 결과를 읽는 대로 consumer 에 전달합니다. 백엔드와 무관하게 사용할 수 있습니다.
+	 *
+	 * @param scope
+	 *            {@link SearchControls} 의 범위 상수
+	 * @param attributes
+	 *            읽을 속성 (null 이면 전체)
+	 */
+	public void search(LdapName dn, int scope, String searchFilter, String[] attributes, Deadline deadline,
+			Consumer<LdapNode> consumer) {
+
+		this.stream("search " + dn, deadline,
+				target -> this.backend.search(dn, scope, searchFilter, attributes, deadline, target), consumer);
+	}
+
+	/**
+	 * 모든 naming context 를 하위 검색하여 결과를 하나의 consumer 로 전달합니다.<br>
+	 * 실행기가 있으면 naming context 별 검색을 동시에 수행하므로 가장 느린 naming context 만큼만 걸립니다.
+	 * consumer 는 한번에 하나씩 호출됩니다. 실패한 naming context 는 결과 요약에 담고 나머지는 계속 검색합니다.
+	 *
+	 * @param limitPerContext
+	 *            naming context 별 최대 전달 수 (0 이하이면 제한 없음)
+	 */
+	public LdapFederatedSearchResult searchAll(String searchFilter, String[] attributes, int limitPerContext,
+			Consumer<LdapNode> consumer) {
+
+		return this.searchAll(searchFilter, attributes, limitPerContext, this.newDeadline(), consumer);
+	}
+
+	/**
+	 * 제한 시각까지 모든 naming context 를 하위 검색합니다.
+	 */
+	public LdapFederatedSearchResult searchAll(String searchFilter, String[] attributes, int limitPerContext,
+			Deadline deadline, Consumer<LdapNode> consumer) {
+
+		List<LdapFederatedSearchResult.Partition> partitions = new ArrayList<>();
+		for (LdapName context : this.getNamingContexts()) {
+			partitions.add(new LdapFederatedSearchResult.Partition(context));
+		}
+
+		Object lock = new Object();
+		Executor target = this.executor;
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (LdapFederatedSearchResult.Partition partition : partitions) {
+			Runnable task = () -> this.searchPartition(partition, searchFilter, attributes, limitPerContext, deadline,
+					consumer, lock);
+			if (target == null) {
+				task.run();
+			} else {
+				futures.add(CompletableFuture.runAsync(task, target));
+			}
+		}
+		futures.forEach(CompletableFuture::join);
+		return new LdapFederatedSearchResult(partitions);
+	}
+
+	/**
+	 * 페이지 단위로 검색하여 서버의 크기 제한(기본 2,000개)과 무관하게 전체 결과를 consumer 에 전달합니다.
+	 *
+	 * @param pageSize
+	 *            한번에 받을 개수
+	 */
+	public void searchPaged(LdapName dn, int scope, String searchFilter, String[] attributes, int pageSize,
+			Deadline deadline, Consumer<LdapNode> consumer) {
+
+		this.stream("searchPaged " + dn, deadline,
+				target -> this.backend.searchPaged(dn, scope, searchFilter, attributes, pageSize, deadline, target),
+				consumer);
+	}
+
+	/**
+	 * naming context 하나를 검색합니다. 실패는 예외 대신 결과에 기록합니다.
+	 */
+	private void searchPartition(LdapFederatedSearchResult.Partition partition, String searchFilter,
+			String[] attributes, int limit, Deadline deadline, Consumer<LdapNode> consumer, Object lock) {
+
+		long start = System.currentTimeMillis();
+		long[] count = { 0 };
+		try {
+			this.searchPaged(partition.getName(), SearchControls.SUBTREE_SCOPE, searchFilter, attributes, PAGE_SIZE,
+					deadline, node -> {
+						if (limit > 0 && count[0] >= limit) {
+							// 제한을 넘는 결과가 있으면 남은 페이지를 받지 않고 검색을 중단한다.
+							partition.setTruncated(true);
+							throw LimitReached.INSTANCE;
+						}
+						synchronized (lock) {
+							consumer.accept(node);
+						}
+						count[0]++;
+					});
+		} catch (LimitReached e) {
+			LOGGER.debug("naming context 검색 제한 도달 : {} ({}건)", partition.getContext(), limit);
+		} catch (RuntimeException e) {
+			LOGGER.warn("naming context 검색 실패 : {}", partition.getContext(), e);
+			partition.setError(e);
+		} finally {
+			partition.setCount(count[0]);
+			partition.setElapsedMillis(System.currentTimeMillis() - start);
+		}
+	}
+
+	/**
+	 * 하위 트리 통계(objectClass 별, 깊이별, 자식별 항목 수)를 구합니다.<br>
+	 * objectClass 만 페이지 단위로 검색하며 항목을 보관하지 않으므로 트리를 만들지 않고 한번에 계산합니다.
+	 */
+	public LdapSubtreeStatistics statistics(LdapName dn) {
+
+		return this.statistics(dn, ALL_SEARCH_FILTER);
+	}
+
+	/**
+	 * 하위 트리에서 필터에 맞는 항목의 통계를 구합니다.
+	 */
+	public LdapSubtreeStatistics statistics(LdapName dn, String searchFilter) {
+
+		return this.statistics(dn, searchFilter, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 하위 트리에서 필터에 맞는 항목의 통계를 구합니다.
+	 */
+	public LdapSubtreeStatistics statistics(LdapName dn, String searchFilter, Deadline deadline) {
+
+		LdapSubtreeStatistics result = new LdapSubtreeStatistics(dn);
+		this.searchPaged(dn, SearchControls.SUBTREE_SCOPE, searchFilter, new String[] { "objectClass" },
+				PAGE_SIZE, deadline, result::add);
+		return result;
+	}
+
+	/**
+	 * 검색 결과를 consumer 에 전달합니다. 첫 결과를 받은 시각을 응답 시간으로 기록하되 허가는 검색이 끝날 때 반납하며,
+	 * 결과를 전달하기 전에 시간 초과된 경우에만 재시도합니다.
+	 */
+	private void stream(String operation, Deadline deadline, Consumer<Consumer<LdapNode>> call,
+			Consumer<LdapNode> consumer) {
+
+		boolean[] delivered = { false };
+		this.execute(operation, deadline, permit -> {
+			try {
+				call.accept(node -> {
+					if (delivered[0] == false) {
+						delivered[0] = true;
+						permit.responded();
+					}
+					consumer.accept(node);
+				});
+			} catch (LdapTimeoutError e) {
+				if (delivered[0]) {
+					// 이미 전달한 결과가 중복되지 않도록 재시도하지 않는다.
+					permit.dropped();
+					throw new LogicError("검색 결과를 읽는 중 시간을 초과하였습니다 : " + operation, e);
+				}
+				throw e;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 검색 결과 캐시가 있으면 전체 결과를 읽어 보관하고, 보관한 결과의 복사본을 열거합니다.
+	 */
+	private NamingEnumeration<SearchResult> search(LdapName dn, String searchFilter, int scope, Deadline deadline) {
+
+		LdapQueryCache cache = this.queryCache;
+		Supplier<List<SearchResult>> loader;
+		if (this.backend instanceof JndiLdapBackend) {
+			JndiLdapBackend jndi = (JndiLdapBackend) this.backend;
+			if (cache == null) {
+				return this.execute("search " + dn, deadline,
+						permit -> jndi.searchEnumeration(dn, scope, searchFilter, null, deadline));
+			}
+			loader = () -> this.execute("search " + dn, deadline,
+					permit -> readAll(jndi.searchEnumeration(dn, scope, searchFilter, null, deadline), dn));
+		} else {
+			// JNDI 가 아닌 백엔드는 검색한 항목을 JNDI 검색 결과로 변환한다.
+			loader = () -> {
+				List<SearchResult> results = new ArrayList<>();
+				this.search(dn, scope, searchFilter, null, deadline, node -> results.add(toSearchResult(dn, node)));
+				return results;
+			};
+		}
+		List<SearchResult> results = cache == null ? loader.get()
+				: cache.get(LdapQueryCache.key("searchEnumeration", dn, scope, searchFilter, null), loader,
+						LdapQueryCache::estimateBytes);
+		return LdapQueryCache.enumeration(results);
+	}
+
+	/**
+	 * 스키마를 다시 읽어 백엔드의 속성 디코딩에 적용합니다.
+	 */
+	public LdapSchema refreshSchema() {
+
+		this.schemaCheckedAt = System.nanoTime();
+		LdapSchema loaded = LdapSchema.parse(this.getSchema());
+		this.backend.setSchema(loaded);
+		this.ldapSchema = loaded;
+		LOGGER.debug("스키마 적용 : 속성 {}개, binary {}개", loaded.size(), loaded.getBinaryAttributes().size());
+		return loaded;
+	}
+
+	/**
+	 * 갱신 주기가 지났으면 스키마를 다시 읽습니다. 동시에 한번만 수행하며, 실패하면 다음 주기에 다시 시도합니다.
+	 */
+	private void refreshSchemaIfDue() {
+
+		Duration interval = this.schemaRefreshInterval;
+		if (interval == null) {
+			return;
+		}
+		long checkedAt = this.schemaCheckedAt;
+		if (checkedAt != 0 && System.nanoTime() - checkedAt < interval.toNanos()) {
+			return;
+		}
+		// 스키마 조회도 execute 를 거치므로 수행 중에는 다시 들어오지 않는다.
+		if (this.schemaRefreshing.compareAndSet(false, true) == false) {
+			return;
+		}
+		try {
+			this.refreshSchema();
+		} catch (RuntimeException e) {
+			LOGGER.warn("스키마 조회 실패, 이전 형식으로 속성을 읽습니다.", e);
+		} finally {
+			this.schemaRefreshing.set(false);
+		}
+	}
+
+	/**
+	 * dn의 1레벨 자식들 대상으로 필터링
+	 * 
+	 * (cn=abc) => cn이 abc인것 반환
+	 * (cn=abc*) => abc로 시작
+	 * (&(cn=abc*)(cn=*d)) => AND 조건
+	 * (|(cn=abc*)(cn=*d)) => OR 조건
+	 * 
+	 * JNDI 가 아닌 백엔드는 전체 결과를 읽어 JNDI 검색 결과로 변환한 뒤 반환합니다.
+	 */
+	public NamingEnumeration<SearchResult> searchOneLevel(LdapName dn, String searchFilter) {
+
+		return this.searchOneLevel(dn, searchFilter, this.newDeadline());
+	}
+
+	public NamingEnumeration<SearchResult> searchOneLevel(LdapName dn, String searchFilter, Deadline deadline) {
+
+		return this.search(dn, searchFilter, SearchControls.ONELEVEL_SCOPE, deadline);
+	}
+
+	public NamingEnumeration<SearchResult> searchOneLevel(String dn, String searchFilter) {
+
+		return this.searchOneLevel(toName(dn), searchFilter);
+	}
+
+	/**
+	 * dn의 모든 자식들을 대상으로 필터링 (JNDI 가 아닌 백엔드는 {@link #searchOneLevel(LdapName, String)} 참고)
+	 */
+	public NamingEnumeration<SearchResult> searchSubtree(LdapName dn, String searchFilter) {
+
+		return this.searchSubtree(dn, searchFilter, this.newDeadline());
+	}
+
+	public NamingEnumeration<SearchResult> searchSubtree(LdapName dn, String searchFilter, Deadline deadline) {
+
+		return this.search(dn, searchFilter, SearchControls.SUBTREE_SCOPE, deadline);
+	}
+
+	public NamingEnumeration<SearchResult> searchSubtree(String dn, String searchFilter) {
+
+		return this.searchSubtree(toName(dn), searchFilter);
+	}
+
+	/**
+	 * binary 속성 캐시를 새로 만듭니다. 기존 캐시는 버립니다. (기본 32MB, 10분)
+	 *
+	 * @param maxBytes
+	 *            보관할 값의 전체 byte 수
+	 * @param ttl
+	 *            값 유지 시간
+	 */
+	public void setBinaryCache(long maxBytes, Duration ttl) {
+
+		this.binaryCache = newBinaryCache(maxBytes, ttl);
+	}
+
+	/**
+	 * binary 속성으로 조회할 수 있는 속성을 설정합니다. (기본 jpegPhoto, thumbnailPhoto)
+	 */
+	public void setBinaryAttributes(Collection<String> binaryAttributes) {
+
+		this.binaryAttributes = newAttributeSet(binaryAttributes);
+	}
+
+	/**
+	 * 제한 시각을 지정하지 않은 작업의 기본 제한 시간을 설정합니다. (null 이면 제한 없음)
+	 */
+	public void setDefaultTimeout(Duration defaultTimeout) {
+
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	/**
+	 * 깊이 제한 트리 조회에서 한 레벨의 검색을 동시에 수행할 실행기를 설정합니다. (null 이면 순차 조회)<br>
+	 * 서버에 대한 동시 요청 수는 실행기와 관계없이 제한기로 제한됩니다.
+	 */
+	public void setExecutor(Executor executor) {
+
+		this.executor = executor;
+	}
+
+	/**
+	 * 깊이 제한 트리 조회에서 한 레벨을 동시에 조회하는 최대 작업 수를 설정합니다. (기본 8)
+	 */
+	public void setLevelParallelism(int levelParallelism) {
+
+		if (levelParallelism <= 0) {
+			throw new LogicError("levelParallelism 은 1 이상이어야 합니다 : " + levelParallelism);
+		}
+		this.levelParallelism = levelParallelism;
+	}
+
+	/**
+	 * 서버 동시 요청 수 제한기를 설정합니다.
+	 */
+	public void setLimiter(AdaptiveConcurrencyLimiter limiter) {
+
+		if (limiter == null) {
+			throw new NullPointerException("AdaptiveConcurrencyLimiter limiter is null");
+		}
+		this.limiter = limiter;
+	}
+
+	/**
+	 * findOneLevel, findSubtree, searchOneLevel, searchSubtree 의 검색 결과 캐시를 설정합니다. (null 이면 사용하지 않음)<br>
+	 * 캐시를 사용하면 searchOneLevel, searchSubtree 는 전체 결과를 읽은 뒤 반환합니다.
+	 */
+	public void setQueryCache(LdapQueryCache queryCache) {
+
+		this.queryCache = queryCache;
+	}
+
+	/**
+	 * 시간 초과 시 최대 재시도 횟수를 설정합니다.
+	 */
+	public void setRetryLimit(int retryLimit) {
+
+		this.retryLimit = retryLimit;
+	}
+
+	/**
+	 * 스키마 갱신 주기를 설정합니다. 설정하면 첫 작업에서 스키마를 읽고 주기마다 다시 읽습니다. (null 이면 자동으로 읽지 않음)
+	 */
+	public void setSchemaRefreshInterval(Duration schemaRefreshInterval) {
+
+		this.schemaRefreshInterval = schemaRefreshInterval;
+	}
+
+	public LdapAttribute toAttr(Attributes attrs) {
+
+		return JndiLdapBackend.toAttr(attrs, this.ldapSchema);
+	}
+
+	public LdapNode toNode(LdapName dn) {
+
+		LdapAttribute attr = this.getAttr(dn);
+		return new LdapNode(dn, attr);
+	}
+
+	public LdapNode toNode(SearchResult searchResult) {
+
+		return JndiLdapBackend.toNode(searchResult, this.ldapSchema);
+	}
+
+	public LdapNode toNode(String dn) {
+
+		return this.toNode(toName(dn));
+	}
+
+	/**
+	 * 하위 트리 전체를 조회합니다.<br>
+	 * 동시에 같은 DN 을 조회하는 경우 한번만 검색하며, 함께 조회한 호출자마다 복사한 트리를 반환합니다.
+	 */
+	public Tree<LdapNode> tree(LdapName dn) {
+
+		return this.tree(dn, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 하위 트리 전체를 조회합니다.<br>
+	 * 동시에 같은 DN 을 조회하는 경우 한번만 검색하고, 함께 조회한 호출자마다 복사한 트리를 반환합니다.
+	 * 혼자 조회한 경우에는 읽은 트리를 그대로 반환합니다.
+	 */
+	public Tree<LdapNode> tree(LdapName dn, Deadline deadline) {
+
+		return this.coalesce(
+				new LdapOperationKey("tree", dn, SearchControls.SUBTREE_SCOPE, ALL_SEARCH_FILTER, null),
+				() -> this.readTree(dn, deadline), deadline, shared -> TreeImpl.copy(shared, LdapNode::copy));
+	}
+
+	private Tree<LdapNode> readTree(LdapName dn, Deadline deadline) {
+
+		List<LdapNode> nodes = new ArrayList<>();
+		this.search(dn, SearchControls.SUBTREE_SCOPE, ALL_SEARCH_FILTER, null, deadline, nodes::add);
+
+		if (nodes.isEmpty()) {
+			throw new LogicError("nodes가 0인 경우 코드 검토가 필요합니다.");
+		}
+
+		// 한번에 가져오는 개수가 2,000개로 제한되어있으므로 넘어가는 경우 느린 검색을 수행한다.
+		if (nodes.size() >= 2_000) {
+			return this.treeSlow(dn, deadline);
+		}
+
+		List<Tree<LdapNode>> tree = TreeImpl.toTree(nodes, this.isParentPredicate);
+		if (tree.size() != 1) {
+			throw new LogicError("ID에 해당하는 하위 노드만 검색하였기때문에 반드시 한 개만 반환되어야 합니다.");
+		}
+
+		Tree<LdapNode> result = tree.get(0);
+
+		this.treeSorter.sort(result);
+		return result;
+	}
+
+	/**
+	 * 하위 트리를 maxDepth 깊이까지 조회합니다. (0 이면 기준 노드만, 음수이면 제한 없음)<br>
+	 * 한 레벨씩 내려가며 같은 레벨의 1레벨 검색은 동시에 수행하므로, 깊이 만큼의 왕복으로 조회합니다.
+	 */
+	public Tree<LdapNode> tree(LdapName dn, int maxDepth) {
+
+		return this.tree(dn, maxDepth, this.newDeadline());
+	}
+
+	/**
+	 * 제한 시각까지 하위 트리를 maxDepth 깊이까지 조회합니다.
+	 */
+	public Tree<LdapNode> tree(LdapName dn, int maxDepth, Deadline deadline) {
+
+		Tree<LdapNode> root = new TreeImpl<>(null, new LdapNode(dn, this.getAttr(dn, deadline)));
+
+		List<Tree<LdapNode>> level = new ArrayList<>();
+		level.add(root);
+		for (int depth = 0; (maxDepth < 0 || depth < maxDepth) && level.isEmpty() == false; depth++) {
+			List<LdapName> dns = new ArrayList<>(level.size());
+			for (Tree<LdapNode> node : level) {
+				dns.add(node.getData().getDn());
+			}
+			List<List<LdapNode>> childs = this.fetchLevel(dns, deadline);
+
+			List<Tree<LdapNode>> next = new ArrayList<>();
+			for (int i = 0; i < level.size(); i++) {
+				for (LdapNode node : childs.get(i)) {
+					next.add(level.get(i).addChild(node));
+				}
+			}
+			level = next;
+		}
+		this.treeSorter.sort(root);
+		return root;
+	}
+
+	public Tree<LdapNode> tree(String dn) {
+
+		return this.tree(toName(dn));
+	}
+
+	public Tree<LdapNode> tree(String dn, int maxDepth) {
+
+		return this.tree(toName(dn), maxDepth);
+	}
+
+	public Tree<LdapNode> treeSlow(LdapName dn) {
+
+		return this.treeSlow(dn, this.newDeadline());
+	}
+
+	public Tree<LdapNode> treeSlow(LdapName dn, Deadline deadline) {
+
+		LdapNode rootNode = new LdapNode(dn, this.getAttr(dn, deadline));
+		Tree<LdapNode> rootTree = new TreeImpl<>(null, rootNode);
+		this.collectRecursiveChild(rootTree, deadline);
+		this.treeSorter.sort(rootTree);
+		return rootTree;
+	}
+
+	public Tree<LdapNode> treeSlow(String dn) {
+
+		return this.treeSlow(toName(dn));
+	}
+
+	/**
+	 * 쓰기 작업을 일괄 수행합니다. (기본 제한 시간 적용)
+	 *
+	 * @see #write(List, int, Deadline)
+	 */
+	public LdapWriteResult write(List<LdapWriteOperation> operations, int maxInFlight) {
+
+		return this.write(operations, maxInFlight, this.newDeadline());
+	}
+
+	/**
+	 * 쓰기 작업을 일괄 수행합니다.
+	 * <p>
+	 * 같은 항목이나 상위/하위 항목을 변경하는 작업은 요청한 순서대로 앞 작업이 끝난 뒤 수행하고, 서로 관계없는 작업은
+	 * 실행기에서 최대 maxInFlight 개까지 동시에 보냅니다. 따라서 상위 항목 추가는 하위 항목보다, 하위 항목 삭제는 상위 항목보다
+	 * 먼저 요청해야 합니다. 앞 작업이 실패하면 그 작업에 의존하는 작업은 수행하지 않습니다.
+	 * 쓰기는 서버에 반영되었는지 알 수 없으므로 시간 초과 시 재시도하지 않습니다.
+	 * 성공한 작업의 DN 은 검색 결과 캐시와 binary 속성 캐시에서 제거하고 {@link #addInvalidationListener(Consumer)} 로 전달합니다.
+	 *
+	 * @param maxInFlight
+	 *            동시에 보낼 최대 작업 수 (실행기가 없으면 순차 수행)
+	 * @return 요청 순서대로 작업별 결과
+	 */
+	public LdapWriteResult write(List<LdapWriteOperation> operations, int maxInFlight, Deadline deadline) {
+
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight는 1 이상이어야 합니다. : " + maxInFlight);
+		}
+		int size = operations.size();
+		List<List<Integer>> dependents = new ArrayList<>(size);
+		int[] pending = new int[size];
+
+		// 작업마다 같은 항목이나 상위 항목의 마지막 작업, 하위 트리에서 아직 뒤 작업이 기다리지 않는 작업에 의존한다.
+		Map<LdapName, Integer> lastOnEntry = new HashMap<>();
+		Map<LdapName, Set<Integer>> openInSubtree = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			dependents.add(new ArrayList<>());
+			Set<Integer> dependencies = new LinkedHashSet<>();
+			List<LdapName> names = writtenNames(operations.get(i));
+			for (LdapName dn : names) {
+				dependencies.addAll(openInSubtree.getOrDefault(dn, Collections.emptySet()));
+				for (int length = dn.size() - 1; length > 0; length--) {
+					Integer ancestor = lastOnEntry.get((LdapName) dn.getPrefix(length));
+					if (ancestor != null) {
+						dependencies.add(ancestor);
+					}
+				}
+			}
+			for (Integer dependency : dependencies) {
+				dependents.get(dependency).add(i);
+				pending[i]++;
+			}
+			for (LdapName dn : names) {
+				lastOnEntry.put(dn, i);
+				Set<Integer> covered = openInSubtree.getOrDefault(dn, Collections.emptySet());
+				for (int length = dn.size(); length > 0; length--) {
+					Set<Integer> open = openInSubtree.computeIfAbsent((LdapName) dn.getPrefix(length),
+							key -> new LinkedHashSet<>());
+					if (open != covered) {
+						open.removeAll(covered);
+					}
+				}
+				covered.clear();
+				for (int length = dn.size(); length > 0; length--) {
+					openInSubtree.get(dn.getPrefix(length)).add(i);
+				}
+			}
+		}
+
+		LdapWriteResult.Item[] items = new LdapWriteResult.Item[size];
+		boolean[] blocked = new boolean[size];
+		Deque<Integer> ready = new ArrayDeque<>();
+		for (int i = 0; i < size; i++) {
+			if (pending[i] == 0) {
+				ready.add(i);
+			}
+		}
+		BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		int running = 0;
+		for (int done = 0; done < size; done++) {
+			while (ready.isEmpty() == false && running < maxInFlight) {
+				int index = ready.poll();
+				LdapWriteOperation operation = operations.get(index);
+				if (blocked[index]) {
+					items[index] = new LdapWriteResult.Item(operation,
+							new LogicError("선행 작업이 실패하여 수행하지 않았습니다 : " + operation), true, 0);
+					completed.add(index);
+					continue;
+				}
+				running++;
+				Runnable task = () -> {
+					try {
+						items[index] = this.writeOne(operation, deadline);
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						completed.add(index);
+					}
+				};
+				if (this.executor == null) {
+					task.run();
+				} else {
+					this.executor.execute(task);
+				}
+			}
+
+			int index = this.awaitCompleted(completed, deadline);
+			Throwable error = failure.get();
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+			if (error != null) {
+				throw new LogicError("일괄 쓰기 작업이 비정상 종료되었습니다.", error);
+			}
+			if (items[index].isSkipped() == false) {
+				running--;
+			}
+			for (int dependent : dependents.get(index)) {
+				if (items[index].isSuccess() == false) {
+					blocked[dependent] = true;
+				}
+				if (--pending[dependent] == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		return new LdapWriteResult(items);
+	}
+
+	/**
+	 * 완료된 작업 순번을 제한 시각까지 기다립니다.
+	 */
+	private int awaitCompleted(BlockingQueue<Integer> completed, Deadline deadline) {
+
+		try {
+			while (true) {
+				Integer index = completed.poll(deadline.remainingMillis(Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+				if (index != null) {
+					return index;
+				}
+				deadline.check("일괄 쓰기 대기");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LogicError("일괄 쓰기 대기 중 중단되었습니다.", e);
+		}
+	}
+
+	private LdapWriteResult.Item writeOne(LdapWriteOperation operation, Deadline deadline) {
+
+		long startedAt = System.nanoTime();
+		RuntimeException error = null;
+		try {
+			this.execute(operation.toString(), deadline, 0, permit -> {
+				this.backend.write(operation, deadline);
+				return null;
+			});
+			for (LdapName dn : writtenNames(operation)) {
+				this.invalidate(dn);
+				for (Consumer<LdapName> listener : this.invalidationListeners) {
+					listener.accept(dn);
+				}
+			}
+		} catch (RuntimeException e) {
+			error = e;
+		}
+		return new LdapWriteResult.Item(operation, error, false,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+	}
+
+	/**
+	 * 허가를 받아 수행하는 서버 작업
+	 */
+	@FunctionalInterface
+	private interface LdapCall<T> {
+
+		T call(Permit permit);
+	}
+
+	/**
+	 * naming context 별 최대 전달 수에 도달하여 검색을 중단할 때 consumer 에서 던집니다. (스택 없음)
+	 */
+	private static final class LimitReached extends RuntimeException {
+
+		/** Serial Version UID */
+		private static final long serialVersionUID = 2461187093417335262L;
+
+		static final LimitReached INSTANCE = new LimitReached();
+
+		private LimitReached() {
+
+			super(null, null, false, false);
+		}
+	}
+}
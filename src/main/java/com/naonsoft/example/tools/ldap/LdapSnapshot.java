@@ -0,0 +1,627 @@
+/**
+ * FileName : LdapSnapshot.java
+ * Created  : 2021. 4. 6.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 힙 밖(direct 또는 memory-mapped ByteBuffer)에 저장한 디렉토리 스냅샷
+ * <p>
+ * 트리를 전위 순서로 큰 버퍼(청크)에 이어 붙여 저장하고, 노드는 조회할 때마다 디코딩합니다.
+ * 힙에는 항목 위치(항목당 8 byte)와 속성별 사전만 남으므로 항목 수가 늘어도 힙 사용량이 거의 늘지 않습니다.
+ * <p>
+ * 항목 형식 : 상위 번호(int), 하위 트리 끝 번호(int), DN, 속성 수, (속성 번호, 값 수, 값...)...<br>
+ * 값은 속성별 사전에 있으면 사전 번호로, 없으면 UTF-8(binary 속성은 원본) 바이트로 저장합니다.
+ * objectClass 처럼 반복되는 값은 사전에 등록되며, 속성별 사전 크기와 값 길이는 {@link #DICTIONARY_LIMIT}, {@link #DICTIONARY_VALUE_LENGTH} 로 제한됩니다.
+ * 알 수 없는 형식의 값({@link LdapAttribute#getUnknwonAttr()})은 저장하지 않습니다.
+ * <p>
+ * 추가는 한 스레드에서 수행하고, 추가가 끝난 뒤에는 여러 스레드에서 조회할 수 있습니다.
+ * 닫지 않은 스냅샷도 참조가 없어져 GC 되면 memory-mapped 파일을 삭제합니다.
+ *
+ * @author hokkk
+ */
+public class LdapSnapshot implements Closeable {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapSnapshot.class);
+
+	/** 속성별 사전 최대 크기 */
+	static final int DICTIONARY_LIMIT = 256;
+
+	/** 사전에 등록할 값의 최대 길이 */
+	static final int DICTIONARY_VALUE_LENGTH = 64;
+
+	/** 항목 머리(상위 번호, 하위 트리 끝 번호) 크기 */
+	private static final int HEADER_SIZE = 8;
+
+	/** GC 된 스냅샷의 memory-mapped 파일 삭제 */
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	/** 청크 크기 */
+	private int chunkSize = 16 * 1024 * 1024;
+
+	/** memory-mapped 파일을 만들 디렉토리 (null 이면 direct 버퍼) */
+	private Path mappedDirectory;
+
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+
+	private final List<Path> mappedFiles = new ArrayList<>();
+
+	/** 닫거나 GC 될 때 한번만 memory-mapped 파일을 삭제 */
+	private final Cleaner.Cleanable cleanable = CLEANER.register(this, new MappedFiles(this.mappedFiles));
+
+	/** 항목 위치 (상위 32bit 청크 번호, 하위 32bit 청크 내 위치) */
+	private long[] offsets = new long[1024];
+
+	private volatile int size;
+
+	private final List<Integer> roots = new ArrayList<>();
+
+	private final List<Column> columns = new ArrayList<>();
+
+	private final Map<String, Integer> columnIndex = new HashMap<>();
+
+	/** 항목 인코딩용 버퍼 */
+	private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+	private long allocatedBytes;
+
+	private long usedBytes;
+
+	/**
+	 * 트리 전체를 direct 버퍼에 저장한 스냅샷을 생성합니다.
+	 */
+	public static LdapSnapshot of(Tree<LdapNode> tree) {
+
+		LdapSnapshot snapshot = new LdapSnapshot();
+		snapshot.append(tree);
+		return snapshot;
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+
+		int value = 0;
+		int shift = 0;
+		while (true) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer, int length) {
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static LdapName toName(String dn) {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new LogicError("스냅샷에 저장한 DN 이 올바르지 않습니다 : " + dn, e);
+		}
+	}
+
+	/**
+	 * 트리를 전위 순서로 추가합니다. (재귀 없이 수행)
+	 *
+	 * @return 추가한 기준 노드의 번호
+	 */
+	public synchronized int append(Tree<LdapNode> tree) {
+
+		Deque<Frame> stack = new ArrayDeque<>();
+		stack.push(new Frame(tree, -1));
+		int rootIndex = -1;
+		while (stack.isEmpty() == false) {
+			Frame frame = stack.peek();
+			if (frame.index < 0) {
+				frame.index = this.write(frame.tree.getData(), frame.parent);
+				if (rootIndex < 0) {
+					rootIndex = frame.index;
+				}
+			}
+			if (frame.nextChild < frame.tree.getChildCount()) {
+				Tree<LdapNode> child = frame.tree.getChild(frame.nextChild++)
+						.orElseThrow(() -> new LogicError("자식 수와 자식 목록이 일치하지 않습니다."));
+				stack.push(new Frame(child, frame.index));
+			} else {
+				this.patchEnd(frame.index, this.size);
+				stack.pop();
+			}
+		}
+		this.roots.add(rootIndex);
+		return rootIndex;
+	}
+
+	/**
+	 * 청크를 버리고, memory-mapped 파일을 삭제합니다.<br>
+	 * 해제된 버퍼는 GC 시점에 반환됩니다.
+	 */
+	@Override
+	public synchronized void close() {
+
+		this.chunks.clear();
+		this.cleanable.clean();
+	}
+
+	private int columnOf(String name, boolean binary) {
+
+		String key = binary ? "\0" + name : name;
+		Integer index = this.columnIndex.get(key);
+		if (index == null) {
+			index = this.columns.size();
+			this.columns.add(new Column(name, binary));
+			this.columnIndex.put(key, index);
+		}
+		return index;
+	}
+
+	private ByteBuffer entry(int index) {
+
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index : " + index + ", size : " + this.size);
+		}
+		long offset = this.offsets[index];
+		ByteBuffer buffer = this.chunks.get((int) (offset >>> 32)).duplicate();
+		buffer.position((int) offset);
+		return buffer;
+	}
+
+	/**
+	 * 할당한 힙 밖 메모리 크기 (byte)
+	 */
+	public long getAllocatedBytes() {
+
+		return this.allocatedBytes;
+	}
+
+	/**
+	 * 자식 번호 목록을 반환합니다.
+	 */
+	public List<Integer> getChildIndexes(int index) {
+
+		List<Integer> result = new ArrayList<>();
+		int end = this.getEnd(index);
+		for (int child = index + 1; child < end; child = this.getEnd(child)) {
+			result.add(child);
+		}
+		return result;
+	}
+
+	/**
+	 * 사전에 등록한 값 수 (전체 속성)
+	 */
+	public int getDictionarySize() {
+
+		int result = 0;
+		for (Column column : this.columns) {
+			result += column.values.size();
+		}
+		return result;
+	}
+
+	public LdapName getDn(int index) {
+
+		ByteBuffer buffer = this.entry(index);
+		buffer.position(buffer.position() + HEADER_SIZE);
+		return toName(readString(buffer, readVarInt(buffer) >>> 1));
+	}
+
+	/**
+	 * 하위 트리 끝 번호 (다음 형제 번호)
+	 */
+	int getEnd(int index) {
+
+		ByteBuffer buffer = this.entry(index);
+		return buffer.getInt(buffer.position() + 4);
+	}
+
+	/**
+	 * 힙 사용량 추정치 (항목 위치와 사전, byte)
+	 */
+	public long getHeapBytes() {
+
+		long result = (long) this.offsets.length * Long.BYTES + this.scratch.capacity();
+		for (Column column : this.columns) {
+			for (String value : column.values) {
+				result += 64 + value.length() * 2L;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 노드를 디코딩하여 반환합니다.
+	 */
+	public LdapNode getNode(int index) {
+
+		ByteBuffer buffer = this.entry(index);
+		buffer.position(buffer.position() + HEADER_SIZE);
+		LdapName dn = toName(readString(buffer, readVarInt(buffer) >>> 1));
+
+		LdapAttribute attributes = new LdapAttribute();
+		int columnCount = readVarInt(buffer);
+		for (int i = 0; i < columnCount; i++) {
+			Column column = this.columns.get(readVarInt(buffer));
+			int valueCount = readVarInt(buffer);
+			if (column.binary) {
+				List<byte[]> values = new ArrayList<>(valueCount);
+				for (int j = 0; j < valueCount; j++) {
+					byte[] bytes = new byte[readVarInt(buffer) >>> 1];
+					buffer.get(bytes);
+					values.add(bytes);
+				}
+				attributes.putByteArray(column.name, values);
+			} else {
+				List<String> values = new ArrayList<>(valueCount);
+				for (int j = 0; j < valueCount; j++) {
+					values.add(this.readValue(column, buffer));
+				}
+				attributes.put(column.name, values);
+			}
+		}
+		return new LdapNode(dn, attributes);
+	}
+
+	/**
+	 * 상위 번호를 반환합니다. (기준 노드이면 -1)
+	 */
+	public int getParentIndex(int index) {
+
+		ByteBuffer buffer = this.entry(index);
+		return buffer.getInt(buffer.position());
+	}
+
+	/**
+	 * 기준 노드 목록 ({@link #append(Tree)} 순서)
+	 */
+	public List<Tree<LdapNode>> getRoots() {
+
+		List<Tree<LdapNode>> result = new ArrayList<>(this.roots.size());
+		for (int root : this.roots) {
+			result.add(new LdapSnapshotTree(this, root));
+		}
+		return result;
+	}
+
+	/**
+	 * index 번호 노드를 기준으로 하는 트리 뷰를 반환합니다.
+	 */
+	public Tree<LdapNode> getTree(int index) {
+
+		this.entry(index);
+		return new LdapSnapshotTree(this, index);
+	}
+
+	/**
+	 * 사용중인 힙 밖 메모리 크기 (byte)
+	 */
+	public long getUsedBytes() {
+
+		return this.usedBytes;
+	}
+
+	/**
+	 * 속성 하나의 문자열 값만 디코딩하여 반환합니다. (노드 전체를 디코딩하지 않음)
+	 */
+	public List<String> getValues(int index, String attributeId) {
+
+		ByteBuffer buffer = this.entry(index);
+		buffer.position(buffer.position() + HEADER_SIZE);
+		int dnLength = readVarInt(buffer) >>> 1;
+		buffer.position(buffer.position() + dnLength);
+
+		int columnCount = readVarInt(buffer);
+		for (int i = 0; i < columnCount; i++) {
+			Column column = this.columns.get(readVarInt(buffer));
+			int valueCount = readVarInt(buffer);
+			boolean matched = column.binary == false && column.name.equalsIgnoreCase(attributeId);
+			List<String> values = matched ? new ArrayList<>(valueCount) : null;
+			for (int j = 0; j < valueCount; j++) {
+				if (matched) {
+					values.add(this.readValue(column, buffer));
+				} else {
+					this.skipValue(buffer);
+				}
+			}
+			if (matched) {
+				return values;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	private void grow(int minimum) {
+
+		int capacity = this.scratch.capacity();
+		while (capacity - this.scratch.position() < minimum) {
+			capacity *= 2;
+		}
+		ByteBuffer grown = ByteBuffer.allocate(capacity);
+		this.scratch.flip();
+		grown.put(this.scratch);
+		this.scratch = grown;
+	}
+
+	private ByteBuffer newChunk(int capacity) {
+
+		if (this.mappedDirectory == null) {
+			return ByteBuffer.allocateDirect(capacity);
+		}
+		try {
+			Path file = Files.createTempFile(this.mappedDirectory, "ldap-snapshot-", ".bin");
+			synchronized (this.mappedFiles) {
+				this.mappedFiles.add(file);
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void patchEnd(int index, int end) {
+
+		ByteBuffer buffer = this.entry(index);
+		buffer.putInt(buffer.position() + 4, end);
+	}
+
+	private String readValue(Column column, ByteBuffer buffer) {
+
+		int header = readVarInt(buffer);
+		if ((header & 1) == 1) {
+			return column.values.get(header >>> 1);
+		}
+		return readString(buffer, header >>> 1);
+	}
+
+	/**
+	 * 청크 크기를 설정합니다. (추가 전에 설정, 이보다 큰 항목은 별도 청크에 저장)
+	 */
+	public void setChunkSize(int chunkSize) {
+
+		if (chunkSize < 1024) {
+			throw new IllegalArgumentException("chunkSize 는 1024 이상이어야 합니다 : " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * memory-mapped 파일을 만들 디렉토리를 설정합니다. (추가 전에 설정, null 이면 direct 버퍼)
+	 */
+	public void setMappedDirectory(Path mappedDirectory) {
+
+		this.mappedDirectory = mappedDirectory;
+	}
+
+	/**
+	 * 항목 수
+	 */
+	public int size() {
+
+		return this.size;
+	}
+
+	private void skipValue(ByteBuffer buffer) {
+
+		int header = readVarInt(buffer);
+		if ((header & 1) == 0) {
+			int length = header >>> 1;
+			buffer.position(buffer.position() + length);
+		}
+	}
+
+	/**
+	 * 항목을 인코딩하여 청크에 이어 붙입니다.
+	 */
+	private int write(LdapNode node, int parent) {
+
+		this.scratch.clear();
+		this.writeInt(parent);
+		this.writeInt(-1);
+		this.writeBytes(node.getDn().toString().getBytes(StandardCharsets.UTF_8));
+
+		LdapAttribute attributes = node.attributes();
+		Map<String, List<byte[]>> binaries = attributes.byteArrays();
+		this.writeVarInt(attributes.size() + binaries.size());
+		for (Entry<String, List<String>> entry : attributes.entrySet()) {
+			int columnNo = this.columnOf(entry.getKey(), false);
+			Column column = this.columns.get(columnNo);
+			this.writeVarInt(columnNo);
+			this.writeVarInt(entry.getValue().size());
+			for (String value : entry.getValue()) {
+				Integer code = column.encode(value);
+				if (code != null) {
+					this.writeVarInt(code << 1 | 1);
+				} else {
+					this.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		}
+		for (Entry<String, List<byte[]>> entry : binaries.entrySet()) {
+			this.writeVarInt(this.columnOf(entry.getKey(), true));
+			this.writeVarInt(entry.getValue().size());
+			for (byte[] value : entry.getValue()) {
+				this.writeBytes(value);
+			}
+		}
+		this.scratch.flip();
+
+		int length = this.scratch.remaining();
+		ByteBuffer chunk = this.chunks.isEmpty() ? null : this.chunks.get(this.chunks.size() - 1);
+		if (chunk == null || chunk.remaining() < length) {
+			chunk = this.newChunk(Math.max(this.chunkSize, length));
+			this.chunks.add(chunk);
+			this.allocatedBytes += chunk.capacity();
+		}
+		long offset = (long) (this.chunks.size() - 1) << 32 | chunk.position();
+		chunk.put(this.scratch);
+		this.usedBytes += length;
+
+		if (this.size == this.offsets.length) {
+			this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+		}
+		this.offsets[this.size] = offset;
+		return this.size++;
+	}
+
+	/**
+	 * 길이(짝수, 사전 번호와 구분)와 바이트를 기록합니다.
+	 */
+	private void writeBytes(byte[] bytes) {
+
+		this.writeVarInt(bytes.length << 1);
+		if (this.scratch.remaining() < bytes.length) {
+			this.grow(bytes.length);
+		}
+		this.scratch.put(bytes);
+	}
+
+	private void writeInt(int value) {
+
+		if (this.scratch.remaining() < 4) {
+			this.grow(4);
+		}
+		this.scratch.putInt(value);
+	}
+
+	private void writeVarInt(int value) {
+
+		if (this.scratch.remaining() < 5) {
+			this.grow(5);
+		}
+		int remain = value;
+		while ((remain & ~0x7F) != 0) {
+			this.scratch.put((byte) (remain & 0x7F | 0x80));
+			remain >>>= 7;
+		}
+		this.scratch.put((byte) remain);
+	}
+
+	/**
+	 * 속성(열) 정보와 사전
+	 */
+	private static final class Column {
+
+		private final String name;
+
+		private final boolean binary;
+
+		private final List<String> values = new ArrayList<>();
+
+		private final Map<String, Integer> codes = new HashMap<>();
+
+		Column(String name, boolean binary) {
+
+			this.name = name;
+			this.binary = binary;
+		}
+
+		/**
+		 * 사전 번호를 반환합니다. 사전이 가득 차 등록할 수 없으면 null
+		 */
+		Integer encode(String value) {
+
+			Integer code = this.codes.get(value);
+			if (code == null && this.values.size() < DICTIONARY_LIMIT
+					&& value.length() <= DICTIONARY_VALUE_LENGTH) {
+				code = this.values.size();
+				this.values.add(value);
+				this.codes.put(value, code);
+			}
+			return code;
+		}
+	}
+
+	/**
+	 * 전위 순서 추가 중인 노드
+	 */
+	private static final class Frame {
+
+		private final Tree<LdapNode> tree;
+
+		private final int parent;
+
+		private int index = -1;
+
+		private int nextChild;
+
+		Frame(Tree<LdapNode> tree, int parent) {
+
+			this.tree = tree;
+			this.parent = parent;
+		}
+	}
+
+	/**
+	 * memory-mapped 파일 삭제 (스냅샷을 참조하지 않아야 GC 후에 수행됨)
+	 */
+	private static final class MappedFiles implements Runnable {
+
+		private final List<Path> files;
+
+		MappedFiles(List<Path> files) {
+
+			this.files = files;
+		}
+
+		@Override
+		public void run() {
+
+			synchronized (this.files) {
+				for (Path file : this.files) {
+					try {
+						Files.deleteIfExists(file);
+					} catch (IOException e) {
+						LOGGER.warn("스냅샷 파일 삭제 실패 : {}", file, e);
+						file.toFile().deleteOnExit();
+					}
+				}
+				this.files.clear();
+			}
+		}
+	}
+}
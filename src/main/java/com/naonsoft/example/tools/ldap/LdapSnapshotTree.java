@@ -0,0 +1,264 @@
+/**
+ * FileName : LdapSnapshotTree.java
+ * Created  : 2021. 4. 6.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * {@link LdapSnapshot} 의 한 노드를 가리키는 트리 뷰 (flyweight)
+ * <p>
+ * 스냅샷과 항목 번호만 가지며, {@link #getData()} 를 호출할 때마다 노드를 디코딩합니다.
+ * 스냅샷은 읽기 전용이므로 추가와 정렬은 지원하지 않습니다.
+ *
+ * @author hokkk
+ */
+public class LdapSnapshotTree implements Tree<LdapNode> {
+
+	private final LdapSnapshot snapshot;
+
+	private final int index;
+
+	/** 자식 번호 (처음 조회할 때 계산) */
+	private int[] childIndexes;
+
+	LdapSnapshotTree(LdapSnapshot snapshot, int index) {
+
+		this.snapshot = snapshot;
+		this.index = index;
+	}
+
+	/**
+	 * 지원하지 않습니다.
+	 */
+	@Override
+	public Tree<LdapNode> addChild(LdapNode childData) {
+
+		throw new UnsupportedOperationException("읽기 전용 스냅샷입니다.");
+	}
+
+	private int[] childIndexes() {
+
+		int[] result = this.childIndexes;
+		if (result == null) {
+			List<Integer> childs = this.snapshot.getChildIndexes(this.index);
+			result = new int[childs.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = childs.get(i);
+			}
+			this.childIndexes = result;
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || this.getClass() != obj.getClass()) {
+			return false;
+		}
+		LdapSnapshotTree other = (LdapSnapshotTree) obj;
+		return this.snapshot == other.snapshot && this.index == other.index;
+	}
+
+	@Override
+	public Optional<Tree<LdapNode>> getChild(int childIndex) {
+
+		int[] childs = this.childIndexes();
+		if (childIndex < 0 || childIndex >= childs.length) {
+			return Optional.empty();
+		}
+		return Optional.of(new LdapSnapshotTree(this.snapshot, childs[childIndex]));
+	}
+
+	@Override
+	public int getChildCount() {
+
+		return this.childIndexes().length;
+	}
+
+	@Override
+	public List<LdapNode> getChildDatas() {
+
+		List<LdapNode> result = new ArrayList<>();
+		for (int child : this.childIndexes()) {
+			result.add(this.snapshot.getNode(child));
+		}
+		return result;
+	}
+
+	@Override
+	public List<Tree<LdapNode>> getChilds() {
+
+		List<Tree<LdapNode>> result = new ArrayList<>();
+		for (int child : this.childIndexes()) {
+			result.add(new LdapSnapshotTree(this.snapshot, child));
+		}
+		return result;
+	}
+
+	@Override
+	public LdapNode getData() {
+
+		return this.snapshot.getNode(this.index);
+	}
+
+	public int getIndex() {
+
+		return this.index;
+	}
+
+	@Override
+	public int getIndexOfChild(LdapNode child) {
+
+		int[] childs = this.childIndexes();
+		for (int i = 0; i < childs.length; i++) {
+			if (this.snapshot.getDn(childs[i]).equals(child.getDn())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Optional<Tree<LdapNode>> getParent() {
+
+		int parent = this.snapshot.getParentIndex(this.index);
+		if (parent < 0) {
+			return Optional.empty();
+		}
+		return Optional.of(new LdapSnapshotTree(this.snapshot, parent));
+	}
+
+	@Override
+	public Tree<LdapNode> getRoot() {
+
+		int root = this.index;
+		for (int parent = this.snapshot.getParentIndex(root); parent >= 0; parent = this.snapshot
+				.getParentIndex(root)) {
+			root = parent;
+		}
+		return new LdapSnapshotTree(this.snapshot, root);
+	}
+
+	public LdapSnapshot getSnapshot() {
+
+		return this.snapshot;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+
+		return Objects.hash(System.identityHashCode(this.snapshot), this.index);
+	}
+
+	@Override
+	public boolean isLeaf() {
+
+		return this.snapshot.getEnd(this.index) == this.index + 1;
+	}
+
+	@Override
+	public boolean isRoot() {
+
+		return this.snapshot.getParentIndex(this.index) < 0;
+	}
+
+	/**
+	 * 하위 노드를 전위 순서로 하나씩 디코딩하며 순회합니다.
+	 */
+	@Override
+	public Iterator<LdapNode> iterator() {
+
+		int end = this.snapshot.getEnd(this.index);
+		return new Iterator<LdapNode>() {
+
+			private int next = LdapSnapshotTree.this.index;
+
+			@Override
+			public boolean hasNext() {
+
+				return this.next < end;
+			}
+
+			@Override
+			public LdapNode next() {
+
+				if (this.hasNext() == false) {
+					throw new NoSuchElementException();
+				}
+				return LdapSnapshotTree.this.snapshot.getNode(this.next++);
+			}
+		};
+	}
+
+	/**
+	 * 하위 트리 노드 수 (디코딩하지 않음)
+	 */
+	@Override
+	public long size() {
+
+		return (long) this.snapshot.getEnd(this.index) - this.index;
+	}
+
+	/**
+	 * 지원하지 않습니다.
+	 */
+	@Override
+	public void sort(Comparator<LdapNode> comparator) {
+
+		throw new UnsupportedOperationException("읽기 전용 스냅샷입니다.");
+	}
+
+	/**
+	 * 지원하지 않습니다.
+	 */
+	@Override
+	public void sortRecursive(Comparator<LdapNode> comparator) {
+
+		throw new UnsupportedOperationException("읽기 전용 스냅샷입니다.");
+	}
+
+	/**
+	 * 하위 노드 전체를 전위 순서로 디코딩하여 반환합니다.
+	 */
+	@Override
+	public List<LdapNode> toList() {
+
+		List<LdapNode> result = new ArrayList<>((int) this.size());
+		this.iterator().forEachRemaining(result::add);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return this.snapshot.getDn(this.index).toString();
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * FileName : LdapSubtreeStatistics.java
+ * Created  : 2021. 4. 8.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.naming.ldap.LdapName;
+
+/**
+ * 하위 트리 통계
+ * <p>
+ * 검색 결과를 하나씩 받아 전체 수, objectClass 별, 깊이별, 기준 DN 의 자식(하위 트리 포함)별 항목 수를 셉니다.
+ * 항목을 보관하지 않으므로 메모리 사용량은 objectClass, 깊이, 자식 수에만 비례합니다.
+ *
+ * @author hokkk
+ */
+public final class LdapSubtreeStatistics {
+
+	private final LdapName base;
+
+	private long total;
+
+	/** objectClass (대소문자 무시) 별 항목 수 */
+	private final Map<String, Long> objectClasses = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	/** 기준 DN 으로부터의 깊이별 항목 수 (기준 DN 은 0) */
+	private final TreeMap<Integer, Long> depths = new TreeMap<>();
+
+	/** 기준 DN 의 자식 DN 별 하위 트리 항목 수 (자식 포함) */
+	private final Map<String, Long> childs = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	LdapSubtreeStatistics(LdapName base) {
+
+		if (base == null) {
+			throw new NullPointerException("LdapName base is null");
+		}
+		this.base = base;
+	}
+
+	/**
+	 * 항목 하나를 셉니다. 기준 DN 하위가 아닌 항목은 무시합니다.
+	 */
+	void add(LdapNode node) {
+
+		LdapName dn = node.getDn();
+		if (dn.startsWith(this.base) == false) {
+			return;
+		}
+		this.total++;
+		for (String objectClass : node.getValues("objectClass")) {
+			this.objectClasses.merge(objectClass, 1L, Long::sum);
+		}
+		int depth = dn.size() - this.base.size();
+		this.depths.merge(depth, 1L, Long::sum);
+		if (depth > 0) {
+			this.childs.merge(dn.getPrefix(this.base.size() + 1).toString(), 1L, Long::sum);
+		}
+	}
+
+	public String getBase() {
+
+		return this.base.toString();
+	}
+
+	/**
+	 * 자식 DN 별 하위 트리 항목 수 (자식 포함)
+	 */
+	public Map<String, Long> getChilds() {
+
+		return Collections.unmodifiableMap(this.childs);
+	}
+
+	/**
+	 * 깊이별 항목 수 (기준 DN 은 0)
+	 */
+	public Map<Integer, Long> getDepths() {
+
+		return Collections.unmodifiableMap(this.depths);
+	}
+
+	/**
+	 * 가장 깊은 깊이 (항목이 없으면 -1)
+	 */
+	public int getMaxDepth() {
+
+		return this.depths.isEmpty() ? -1 : this.depths.lastKey();
+	}
+
+	/**
+	 * objectClass 별 항목 수
+	 */
+	public Map<String, Long> getObjectClasses() {
+
+		return Collections.unmodifiableMap(this.objectClasses);
+	}
+
+	/**
+	 * objectClass 를 가진 항목 수 (대소문자 무시)
+	 */
+	public long getObjectClassCount(String objectClass) {
+
+		return this.objectClasses.getOrDefault(objectClass, 0L);
+	}
+
+	public long getTotal() {
+
+		return this.total;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return this.base + " : " + this.total + "건, objectClass " + this.objectClasses + ", 깊이 " + this.depths;
+	}
+}
@@ -0,0 +1,208 @@
+/**
+ * FileName : LdapTreeCache.java
+ * Created  : 2021. 3. 24.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.ldap.LdapName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 메모리에 올려둔 하위 트리
+ * <p>
+ * 기준 DN 별로 {@link LdapService#tree(LdapName)} 결과를 보관합니다.
+ * 힙 밖 저장을 사용하면 읽은 트리를 {@link LdapSnapshot} 에 저장하고 스냅샷 트리 뷰를 보관합니다.
+ * 교체되거나 제거된 스냅샷은 조회 중인 곳이 있을 수 있으므로 닫지 않고, 참조가 없어져 GC 될 때까지
+ * {@link #getOffHeapBytes()} 에 포함합니다. (memory-mapped 파일은 GC 시 스냅샷이 삭제)
+ *
+ * @author hokkk
+ */
+public class LdapTreeCache {
+
+	/**
+	 * Slf4j Logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LdapTreeCache.class);
+
+	private final LdapService service;
+
+	private final Map<LdapName, Tree<LdapNode>> trees = new ConcurrentHashMap<>();
+
+	/** 다시 읽기를 예약한 DN */
+	private final Set<LdapName> reloading = ConcurrentHashMap.newKeySet();
+
+	/** 교체되거나 제거되었지만 아직 GC 되지 않은 스냅샷 */
+	private final Set<Reference<LdapSnapshot>> retired = ConcurrentHashMap.newKeySet();
+
+	private final ReferenceQueue<LdapSnapshot> collected = new ReferenceQueue<>();
+
+	/** 힙 밖 저장 사용 여부 */
+	private boolean offHeap;
+
+	public LdapTreeCache(LdapService service) {
+
+		if (service == null) {
+			throw new NullPointerException("LdapService service is null");
+		}
+		this.service = service;
+	}
+
+	/**
+	 * 보관중인 트리를 반환합니다.
+	 */
+	public Optional<Tree<LdapNode>> get(LdapName dn) {
+
+		return Optional.ofNullable(this.trees.get(dn));
+	}
+
+	/**
+	 * 보관중인 스냅샷과 교체된 후 아직 GC 되지 않은 스냅샷이 할당한 힙 밖 메모리 크기 (byte)
+	 */
+	public long getOffHeapBytes() {
+
+		this.purge();
+		long result = 0;
+		for (Tree<LdapNode> tree : this.trees.values()) {
+			if (tree instanceof LdapSnapshotTree) {
+				result += ((LdapSnapshotTree) tree).getSnapshot().getAllocatedBytes();
+			}
+		}
+		for (Reference<LdapSnapshot> reference : this.retired) {
+			LdapSnapshot snapshot = reference.get();
+			if (snapshot != null) {
+				result += snapshot.getAllocatedBytes();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 보관중인 트리를 반환하거나 없으면 읽어서 보관합니다.
+	 */
+	public Tree<LdapNode> getOrLoad(LdapName dn) {
+
+		Tree<LdapNode> tree = this.trees.get(dn);
+		if (tree != null) {
+			return tree;
+		}
+		return this.load(dn);
+	}
+
+	/**
+	 * dn 과 하위 DN 을 기준으로 보관중인 트리를 제거합니다.
+	 * dn 을 포함하는 상위 트리도 변경되었으므로 함께 제거합니다.
+	 */
+	public void invalidate(LdapName dn) {
+
+		for (Entry<LdapName, Tree<LdapNode>> entry : this.trees.entrySet()) {
+			// 그 사이 다시 읽은 트리는 제거하지 않는다.
+			if ((entry.getKey().startsWith(dn) || dn.startsWith(entry.getKey()))
+					&& this.trees.remove(entry.getKey(), entry.getValue())) {
+				this.retire(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * dn 트리를 다시 읽도록 예약되어 있는지 여부
+	 */
+	public boolean isReloading(LdapName dn) {
+
+		return this.reloading.contains(dn);
+	}
+
+	public boolean isResident(LdapName dn) {
+
+		return this.trees.containsKey(dn);
+	}
+
+	/**
+	 * 서버에서 다시 읽어 보관합니다.
+	 */
+	public Tree<LdapNode> load(LdapName dn) {
+
+		Tree<LdapNode> tree = this.service.tree(dn);
+		if (this.offHeap) {
+			tree = LdapSnapshot.of(tree).getRoots().get(0);
+		}
+		this.retire(this.trees.put(dn, tree));
+		return tree;
+	}
+
+	/**
+	 * GC 된 스냅샷을 교체된 목록에서 제거합니다.
+	 */
+	private void purge() {
+
+		Reference<? extends LdapSnapshot> reference;
+		while ((reference = this.collected.poll()) != null) {
+			this.retired.remove(reference);
+		}
+	}
+
+	/**
+	 * 교체되거나 제거된 트리가 스냅샷이면 GC 될 때까지 추적합니다.
+	 */
+	private void retire(Tree<LdapNode> tree) {
+
+		if (tree instanceof LdapSnapshotTree) {
+			this.purge();
+			this.retired.add(new WeakReference<>(((LdapSnapshotTree) tree).getSnapshot(), this.collected));
+		}
+	}
+
+	/**
+	 * delay 후에 dn 트리를 다시 읽도록 예약합니다. 이미 예약되어 있으면 새로 예약하지 않으므로, 연속된 변경은 한번만 읽습니다.<br>
+	 * 읽기는 scheduler 가 아닌 executor 에서 수행합니다. 읽는 도중 들어온 변경은 다음 예약으로 다시 읽습니다.
+	 */
+	public void scheduleReload(LdapName dn, ScheduledExecutorService scheduler, Executor executor,
+			Duration delay) {
+
+		if (this.reloading.add(dn) == false) {
+			return;
+		}
+		scheduler.schedule(() -> executor.execute(() -> {
+			this.reloading.remove(dn);
+			try {
+				this.load(dn);
+			} catch (RuntimeException e) {
+				LOGGER.warn("트리 다시 읽기 실패 : {}", dn, e);
+			}
+		}), delay.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 힙 밖 저장 사용 여부를 설정합니다. (이후 읽는 트리부터 적용, 스냅샷 트리는 읽기 전용)
+	 */
+	public void setOffHeap(boolean offHeap) {
+
+		this.offHeap = offHeap;
+	}
+
+	public int size() {
+
+		return this.trees.size();
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * FileName : LdapTreeSerializer.java
+ * Created  : 2021. 4. 2.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * {@link LdapTreeView} 직렬화
+ * <p>
+ * 재귀 호출 없이 명시적인 스택으로 순회하므로 트리 깊이와 무관하게 스택 오버플로가 발생하지 않으며,
+ * {@link Tree#getChilds()} 처럼 자식 목록을 복사하지 않고 {@link Tree#getChild(int)} 로 순회합니다.
+ * 최대 깊이에서 자식을 생략한 노드는 childCount 를 출력합니다.
+ *
+ * <pre>
+ * {"data":{...},"childs":[{"data":{...},"childCount":3}]}
+ * </pre>
+ *
+ * @author hokkk
+ */
+public class LdapTreeSerializer extends StdSerializer<LdapTreeView> {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 6460962412858151082L;
+
+	public LdapTreeSerializer() {
+
+		super(LdapTreeView.class);
+	}
+
+	/**
+	 * 노드를 열고, 자식을 출력할 경우 스택에 넣습니다. (자식을 출력하지 않으면 바로 닫습니다.)
+	 */
+	private static void open(Tree<LdapNode> tree, int depth, LdapTreeView view, JsonGenerator gen,
+			Deque<Frame> stack) throws IOException {
+
+		gen.writeStartObject();
+		gen.writeFieldName("data");
+		view.getNodeSerializer().write(tree.getData(), gen);
+
+		int childCount = tree.getChildCount();
+		if (childCount == 0) {
+			gen.writeEndObject();
+			return;
+		}
+		if (view.getMaxDepth() >= 0 && depth >= view.getMaxDepth()) {
+			gen.writeNumberField("childCount", childCount);
+			gen.writeEndObject();
+			return;
+		}
+		gen.writeFieldName("childs");
+		gen.writeStartArray();
+		stack.push(new Frame(tree, depth));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void serialize(LdapTreeView value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+
+		Deque<Frame> stack = new ArrayDeque<>();
+		open(value.getTree(), 0, value, gen, stack);
+		while (stack.isEmpty() == false) {
+			Frame frame = stack.peek();
+			if (frame.next < frame.tree.getChildCount()) {
+				Tree<LdapNode> child = frame.tree.getChild(frame.next++).get();
+				open(child, frame.depth + 1, value, gen, stack);
+			} else {
+				gen.writeEndArray();
+				gen.writeEndObject();
+				stack.pop();
+			}
+		}
+	}
+
+	/**
+	 * 자식을 출력 중인 노드
+	 */
+	private static final class Frame {
+
+		private final Tree<LdapNode> tree;
+
+		private final int depth;
+
+		/** 다음에 출력할 자식 위치 */
+		private int next = 0;
+
+		Frame(Tree<LdapNode> tree, int depth) {
+
+			this.tree = tree;
+			this.depth = depth;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * FileName : LdapTreeView.java
+ * Created  : 2021. 4. 2.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.Collection;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.naonsoft.example.tools.tree.Tree;
+
+/**
+ * 직렬화할 트리와 출력 범위 (깊이, 속성)
+ * <p>
+ * REST 응답으로 반환하면 {@link LdapTreeSerializer} 로 JSON 또는 CBOR 로 출력됩니다.
+ *
+ * @author hokkk
+ */
+@JsonSerialize(using = LdapTreeSerializer.class)
+public final class LdapTreeView {
+
+	private final Tree<LdapNode> tree;
+
+	/** 출력할 최대 깊이 (0 이면 기준 노드만, 음수이면 제한 없음) */
+	private final int maxDepth;
+
+	private final LdapNodeSerializer nodeSerializer;
+
+	/**
+	 * {@link LdapTreeView} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param tree
+	 *            출력할 트리
+	 * @param maxDepth
+	 *            출력할 최대 깊이 (0 이면 기준 노드만, 음수이면 제한 없음)
+	 * @param attributes
+	 *            출력할 속성 (null 또는 비어있으면 전체)
+	 */
+	public LdapTreeView(Tree<LdapNode> tree, int maxDepth, Collection<String> attributes) {
+
+		if (tree == null) {
+			throw new NullPointerException("Tree<LdapNode> tree is null");
+		}
+		this.tree = tree;
+		this.maxDepth = maxDepth;
+		this.nodeSerializer = new LdapNodeSerializer(attributes);
+	}
+
+	/**
+	 * 전체 깊이, 전체 속성을 출력합니다.
+	 */
+	public static LdapTreeView of(Tree<LdapNode> tree) {
+
+		return new LdapTreeView(tree, -1, null);
+	}
+
+	public int getMaxDepth() {
+
+		return this.maxDepth;
+	}
+
+	LdapNodeSerializer getNodeSerializer() {
+
+		return this.nodeSerializer;
+	}
+
+	public Tree<LdapNode> getTree() {
+
+		return this.tree;
+	}
+}
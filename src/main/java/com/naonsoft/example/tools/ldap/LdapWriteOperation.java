@@ -0,0 +1,239 @@
+/**
+ * FileName : LdapWriteOperation.java
+ * Created  : 2021. 4. 10.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.naming.ldap.LdapName;
+
+/**
+ * 디렉토리 쓰기 작업 (추가, 수정, 삭제, 이름 변경)
+ *
+ * <pre>
+ * LdapWriteOperation.add(dn, attributes);
+ * LdapWriteOperation.modify(dn, LdapWriteOperation.Modification.replace("title", "팀장"));
+ * LdapWriteOperation.rename(dn, newDn);
+ * </pre>
+ *
+ * @author hokkk
+ */
+public final class LdapWriteOperation {
+
+	private final Type type;
+
+	private final LdapName dn;
+
+	/** 추가할 속성 (ADD 인 경우) */
+	private final LdapAttribute attributes;
+
+	/** 수정 내용 (MODIFY 인 경우) */
+	private final List<Modification> modifications;
+
+	/** 변경 후 DN (RENAME 인 경우) */
+	private final LdapName newDn;
+
+	private LdapWriteOperation(Type type, LdapName dn, LdapAttribute attributes, List<Modification> modifications,
+			LdapName newDn) {
+
+		if (dn == null) {
+			throw new NullPointerException("LdapName dn is null");
+		}
+		this.type = type;
+		this.dn = dn;
+		this.attributes = attributes;
+		this.modifications = modifications;
+		this.newDn = newDn;
+	}
+
+	public static LdapWriteOperation add(LdapName dn, LdapAttribute attributes) {
+
+		if (attributes == null || attributes.isEmpty()) {
+			throw new IllegalArgumentException("추가할 속성이 없습니다 : " + dn);
+		}
+		return new LdapWriteOperation(Type.ADD, dn, new LdapAttribute(attributes), null, null);
+	}
+
+	public static LdapWriteOperation delete(LdapName dn) {
+
+		return new LdapWriteOperation(Type.DELETE, dn, null, null, null);
+	}
+
+	public static LdapWriteOperation modify(LdapName dn, Modification... modifications) {
+
+		return modify(dn, Arrays.asList(modifications));
+	}
+
+	public static LdapWriteOperation modify(LdapName dn, List<Modification> modifications) {
+
+		if (modifications == null || modifications.isEmpty()) {
+			throw new IllegalArgumentException("수정 내용이 없습니다 : " + dn);
+		}
+		return new LdapWriteOperation(Type.MODIFY, dn, null,
+				Collections.unmodifiableList(new ArrayList<>(modifications)), null);
+	}
+
+	/**
+	 * 이름을 변경합니다. 상위 DN 이 다르면 이동하며, 이전 RDN 값은 삭제합니다.
+	 */
+	public static LdapWriteOperation rename(LdapName dn, LdapName newDn) {
+
+		if (newDn == null || newDn.isEmpty()) {
+			throw new IllegalArgumentException("변경 후 DN 이 없습니다 : " + dn);
+		}
+		return new LdapWriteOperation(Type.RENAME, dn, null, null, newDn);
+	}
+
+	/**
+	 * 추가할 속성 (ADD 가 아니면 null, 읽기 전용으로 사용)
+	 */
+	public LdapAttribute getAttributes() {
+
+		return this.attributes;
+	}
+
+	public LdapName getDn() {
+
+		return this.dn;
+	}
+
+	/**
+	 * 수정 내용 (MODIFY 가 아니면 빈 목록)
+	 */
+	public List<Modification> getModifications() {
+
+		return this.modifications == null ? Collections.emptyList() : this.modifications;
+	}
+
+	public Optional<LdapName> getNewDn() {
+
+		return Optional.ofNullable(this.newDn);
+	}
+
+	public Type getType() {
+
+		return this.type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return this.type + " " + this.dn + (this.newDn == null ? "" : " -> " + this.newDn);
+	}
+
+	/**
+	 * 속성 하나의 수정 내용
+	 */
+	public static final class Modification {
+
+		private final ModificationType type;
+
+		private final String attributeId;
+
+		private final List<String> values;
+
+		private Modification(ModificationType type, String attributeId, String[] values) {
+
+			if (attributeId == null || attributeId.isEmpty()) {
+				throw new IllegalArgumentException("속성명이 없습니다.");
+			}
+			this.type = type;
+			this.attributeId = attributeId;
+			this.values = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(values)));
+		}
+
+		/**
+		 * 값을 추가합니다.
+		 */
+		public static Modification add(String attributeId, String... values) {
+
+			return new Modification(ModificationType.ADD, attributeId, values);
+		}
+
+		/**
+		 * 값을 삭제합니다. (값이 없으면 속성 전체 삭제)
+		 */
+		public static Modification remove(String attributeId, String... values) {
+
+			return new Modification(ModificationType.REMOVE, attributeId, values);
+		}
+
+		/**
+		 * 값을 바꿉니다. (값이 없으면 속성 전체 삭제)
+		 */
+		public static Modification replace(String attributeId, String... values) {
+
+			return new Modification(ModificationType.REPLACE, attributeId, values);
+		}
+
+		public String getAttributeId() {
+
+			return this.attributeId;
+		}
+
+		public ModificationType getType() {
+
+			return this.type;
+		}
+
+		public List<String> getValues() {
+
+			return this.values;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+
+			return this.type + " " + this.attributeId + " " + this.values;
+		}
+	}
+
+	/**
+	 * 속성 수정 유형
+	 */
+	public enum ModificationType {
+
+		/** 값 추가 */
+		ADD,
+
+		/** 값 삭제 */
+		REMOVE,
+
+		/** 값 교체 */
+		REPLACE
+	}
+
+	/**
+	 * 쓰기 작업 유형
+	 */
+	public enum Type {
+
+		/** 추가 */
+		ADD,
+
+		/** 속성 변경 */
+		MODIFY,
+
+		/** 삭제 */
+		DELETE,
+
+		/** 이름(DN) 변경, 이동 */
+		RENAME
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * FileName : LdapWriteResult.java
+ * Created  : 2021. 4. 10.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 일괄 쓰기 결과
+ * <p>
+ * 요청한 순서대로 작업별 성공 여부와 실패 사유를 담습니다. 선행 작업이 실패하여 수행하지 않은 작업은
+ * {@link Item#isSkipped()} 로 확인할 수 있습니다.
+ *
+ * @author hokkk
+ */
+public final class LdapWriteResult {
+
+	private final List<Item> items;
+
+	LdapWriteResult(Item[] items) {
+
+		this.items = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(items)));
+	}
+
+	/**
+	 * 실패했거나 수행하지 않은 작업 목록
+	 */
+	public List<Item> getFailures() {
+
+		List<Item> result = new ArrayList<>();
+		for (Item item : this.items) {
+			if (item.isSuccess() == false) {
+				result.add(item);
+			}
+		}
+		return result;
+	}
+
+	public List<Item> getItems() {
+
+		return this.items;
+	}
+
+	/**
+	 * 성공한 작업 수
+	 */
+	public int getSuccessCount() {
+
+		int result = 0;
+		for (Item item : this.items) {
+			if (item.isSuccess()) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 모든 작업이 성공했는지 여부
+	 */
+	public boolean isSuccess() {
+
+		return this.getSuccessCount() == this.items.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+
+		return "success " + this.getSuccessCount() + "/" + this.items.size() + ", failures " + this.getFailures();
+	}
+
+	/**
+	 * 작업 하나의 결과
+	 */
+	public static final class Item {
+
+		private final LdapWriteOperation operation;
+
+		private final RuntimeException error;
+
+		private final boolean skipped;
+
+		private final long elapsedMillis;
+
+		Item(LdapWriteOperation operation, RuntimeException error, boolean skipped, long elapsedMillis) {
+
+			this.operation = operation;
+			this.error = error;
+			this.skipped = skipped;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		public long getElapsedMillis() {
+
+			return this.elapsedMillis;
+		}
+
+		/**
+		 * 실패 사유 (성공이면 null)
+		 */
+		public RuntimeException getError() {
+
+			return this.error;
+		}
+
+		public LdapWriteOperation getOperation() {
+
+			return this.operation;
+		}
+
+		/**
+		 * 선행 작업이 실패하여 수행하지 않았는지 여부
+		 */
+		public boolean isSkipped() {
+
+			return this.skipped;
+		}
+
+		public boolean isSuccess() {
+
+			return this.error == null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+
+			return this.operation + (this.error == null ? " : 성공" : " : 실패 " + this.error.getMessage());
+		}
+	}
+}
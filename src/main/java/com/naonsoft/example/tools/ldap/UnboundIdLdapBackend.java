@@ -0,0 +1,590 @@
+/**
+ * FileName : UnboundIdLdapBackend.java
+ * Created  : 2021. 3. 30.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.ldap;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.Name;
+import javax.naming.ldap.LdapName;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.LdapTimeoutError;
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.jfr.LdapDecodeEvent;
+import com.naonsoft.example.tools.jfr.LdapSearchEvent;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.AddRequest;
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.AsyncSearchResultListener;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.DeleteRequest;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPRequest;
+import com.unboundid.ldap.sdk.LDAPSearchException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldap.sdk.ModifyDNRequest;
+import com.unboundid.ldap.sdk.ModifyRequest;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultListener;
+import com.unboundid.ldap.sdk.SearchResultReference;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.controls.EntryChangeNotificationControl;
+import com.unboundid.ldap.sdk.controls.PersistentSearchChangeType;
+import com.unboundid.ldap.sdk.controls.PersistentSearchRequestControl;
+import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
+
+/**
+ * UnboundID LDAP SDK 구현
+ * <p>
+ * {@link LDAPConnectionPool} 로 연결을 재사용하며, 작업마다 컨텍스트를 만들지 않고
+ * 검색 결과를 받는 즉시 {@link LdapNode} 로 변환합니다.
+ *
+ * @author hokkk
+ */
+public class UnboundIdLdapBackend implements LdapBackend {
+
+	/** 기본 포트 */
+	private static final int DEFAULT_PORT = 389;
+
+	private final LDAPConnectionPool pool;
+
+	/** 속성 디코딩에 사용할 스키마 (null 이면 기본 binary 속성 목록 사용) */
+	private volatile LdapSchema schema;
+
+	/** 검색 중 참조(referral) 를 따라갈지 여부 */
+	private volatile boolean followReferrals;
+
+	/** 전체 속성 조회에서 binary 속성 제외 여부 */
+	private volatile boolean excludeBinary;
+
+	/**
+	 * {@link UnboundIdLdapBackend} 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param host
+	 *            서버 주소 (host:port, ldap:// 생략 가능)
+	 * @param adminId
+	 *            관리자 계정 DN (없으면 익명)
+	 * @param adminPassword
+	 *            관리자 패스워드
+	 * @param connectTimeout
+	 *            연결 제한 시간 (ms)
+	 * @param readTimeout
+	 *            응답 대기 제한 시간 (ms)
+	 * @param poolSize
+	 *            최대 연결 수
+	 */
+	public UnboundIdLdapBackend(String host, String adminId, String adminPassword, int connectTimeout,
+			int readTimeout, int poolSize) {
+
+		if (StringUtils.isBlank(host)) {
+			throw new IllegalArgumentException();
+		}
+		// adminId, adminPassword 둘중 한개만 공백인 경우 애러
+		if (StringUtils.isAllBlank(adminId, adminPassword) == false
+				&& StringUtils.isAnyBlank(adminId, adminPassword)) {
+			throw new LogicError("계정 패스워드 정의가 올바르지 않습니다.");
+		}
+
+		String address = host.replace("ldap://", "");
+		int port = DEFAULT_PORT;
+		int colon = address.lastIndexOf(':');
+		if (colon > 0) {
+			port = Integer.parseInt(address.substring(colon + 1).replace("/", ""));
+			address = address.substring(0, colon);
+		}
+
+		LDAPConnectionOptions options = new LDAPConnectionOptions();
+		options.setConnectTimeoutMillis(connectTimeout);
+		options.setResponseTimeoutMillis(readTimeout);
+		try {
+			LDAPConnection connection = StringUtils.isBlank(adminId)
+					? new LDAPConnection(options, address, port)
+					: new LDAPConnection(options, address, port, adminId, adminPassword);
+			this.pool = new LDAPConnectionPool(connection, 1, poolSize);
+		} catch (LDAPException e) {
+			throw new IllegalArgumentException("LDAP 연결 실패", e);
+		}
+		this.pool.setRetryFailedOperationsDueToInvalidConnections(true);
+	}
+
+	/**
+	 * 항목을 변환합니다. 기본 binary 속성은 byte 배열로, 그 외는 문자열로 담습니다.
+	 */
+	static LdapAttribute toAttr(Entry entry) {
+
+		return toAttr(entry, null);
+	}
+
+	/**
+	 * 항목을 변환합니다. 스키마가 있으면 스키마의 binary 속성도 byte 배열로 담습니다.
+	 */
+	static LdapAttribute toAttr(Entry entry, LdapSchema schema) {
+
+		return toAttr(entry, schema, false);
+	}
+
+	/**
+	 * 항목을 변환합니다. excludeBinary 이면 binary 속성은 변환하지 않고 제외합니다.
+	 */
+	private static LdapAttribute toAttr(Entry entry, LdapSchema schema, boolean excludeBinary) {
+
+		LdapDecodeEvent event = new LdapDecodeEvent();
+		event.begin();
+		LdapAttribute result = new LdapAttribute(entry.getAttributes().size());
+		for (Attribute attribute : entry.getAttributes()) {
+			String name = attribute.getName();
+			if (schema == null ? LdapSchema.isDefaultBinary(name) : schema.isBinary(name)) {
+				if (excludeBinary) {
+					continue;
+				}
+				result.put(attribute.getName(), new ArrayList<>());
+				result.putByteArray(attribute.getName(),
+						new ArrayList<>(Arrays.asList(attribute.getValueByteArrays())));
+			} else {
+				result.put(attribute.getName(), new ArrayList<>(Arrays.asList(attribute.getValues())));
+			}
+		}
+		event.finish(result, result.getBytesAttr());
+		return result;
+	}
+
+	private static LdapChangeEvent toChangeEvent(SearchResultEntry entry, LdapSchema schema) throws LDAPException {
+
+		EntryChangeNotificationControl control = EntryChangeNotificationControl.get(entry);
+		LdapNode node = toNode(entry, schema, false);
+		if (control == null) {
+			return new LdapChangeEvent(LdapChangeEvent.Type.MODIFY, node.getDn(), null, node);
+		}
+		switch (control.getChangeType()) {
+		case ADD:
+			return new LdapChangeEvent(LdapChangeEvent.Type.ADD, node.getDn(), null, node);
+		case DELETE:
+			return new LdapChangeEvent(LdapChangeEvent.Type.DELETE, node.getDn(), null, null);
+		case MODIFY_DN:
+			LdapName previousDn = null;
+			if (control.getPreviousDN() != null) {
+				try {
+					previousDn = new LdapName(control.getPreviousDN());
+				} catch (InvalidNameException e) {
+					throw new LogicError("이름이 올바르지 않습니다 : " + control.getPreviousDN(), e);
+				}
+			}
+			return new LdapChangeEvent(LdapChangeEvent.Type.RENAME, node.getDn(), previousDn, node);
+		default:
+			return new LdapChangeEvent(LdapChangeEvent.Type.MODIFY, node.getDn(), null, node);
+		}
+	}
+
+	private static LdapNode toNode(Entry entry, LdapSchema schema, boolean excludeBinary) {
+
+		try {
+			return new LdapNode(new LdapName(entry.getDN()), toAttr(entry, schema, excludeBinary));
+		} catch (InvalidNameException e) {
+			throw new LogicError("이름이 올바르지 않습니다 : " + entry.getDN(), e);
+		}
+	}
+
+	/**
+	 * 추가할 속성을 변환합니다. byte 배열 값이 있는 속성은 byte 배열로 담습니다.
+	 */
+	private static List<Attribute> toAttributes(LdapAttribute attributes) {
+
+		Map<String, List<byte[]>> byteArrays = attributes.byteArrays();
+		List<Attribute> result = new ArrayList<>(attributes.size());
+		for (Map.Entry<String, List<String>> entry : attributes.entrySet()) {
+			if (byteArrays.containsKey(entry.getKey()) == false) {
+				result.add(new Attribute(entry.getKey(), entry.getValue()));
+			}
+		}
+		for (Map.Entry<String, List<byte[]>> entry : byteArrays.entrySet()) {
+			result.add(new Attribute(entry.getKey(), entry.getValue().toArray(new byte[0][])));
+		}
+		return result;
+	}
+
+	private static Modification[] toModifications(List<LdapWriteOperation.Modification> modifications) {
+
+		Modification[] result = new Modification[modifications.size()];
+		for (int i = 0; i < result.length; i++) {
+			LdapWriteOperation.Modification modification = modifications.get(i);
+			ModificationType type;
+			switch (modification.getType()) {
+			case ADD:
+				type = ModificationType.ADD;
+				break;
+			case REMOVE:
+				type = ModificationType.DELETE;
+				break;
+			default:
+				type = ModificationType.REPLACE;
+				break;
+			}
+			result[i] = new Modification(type, modification.getAttributeId(),
+					modification.getValues().toArray(new String[0]));
+		}
+		return result;
+	}
+
+	private static RuntimeException translate(LDAPException e, String operation) {
+
+		ResultCode resultCode = e.getResultCode();
+		if (ResultCode.FILTER_ERROR.equals(resultCode)) {
+			return new IllegalArgumentException(e);
+		}
+		if (ResultCode.TIME_LIMIT_EXCEEDED.equals(resultCode)) {
+			return new DeadlineExceededError("검색 제한 시간을 초과하였습니다 : " + operation, e);
+		}
+		if (ResultCode.TIMEOUT.equals(resultCode) || ResultCode.SERVER_DOWN.equals(resultCode)
+				|| ResultCode.CONNECT_ERROR.equals(resultCode)) {
+			return new LdapTimeoutError("응답 대기 시간을 초과하였습니다 : " + operation, e);
+		}
+		return new LogicError(e);
+	}
+
+	/**
+	 * 남은 시간을 응답 대기 시간으로 전달합니다.
+	 */
+	private static <T extends LDAPRequest> T withTimeout(T request, Deadline deadline) {
+
+		if (deadline.isNone() == false) {
+			request.setResponseTimeoutMillis(deadline.remainingMillis(Integer.MAX_VALUE));
+		}
+		return request;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+
+		this.pool.close();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+
+		return "unboundid";
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 풀에서 연결 하나를 꺼내 구독이 끝날 때까지 사용합니다. 이벤트에 변경 후 항목을 채웁니다.
+	 */
+	@Override
+	public Closeable persistentSearch(LdapName base, Consumer<LdapChangeEvent> consumer,
+			Consumer<RuntimeException> onError) {
+
+		AsyncSearchResultListener listener = new AsyncSearchResultListener() {
+
+			private static final long serialVersionUID = -3468926517020915806L;
+
+			@Override
+			public void searchEntryReturned(SearchResultEntry searchEntry) {
+
+				try {
+					consumer.accept(toChangeEvent(searchEntry, UnboundIdLdapBackend.this.schema));
+				} catch (LDAPException e) {
+					onError.accept(translate(e, "persistentSearch " + base));
+				}
+			}
+
+			@Override
+			public void searchReferenceReturned(SearchResultReference searchReference) {
+
+				// 참조는 따라가지 않는다.
+			}
+
+			@Override
+			public void searchResultReceived(AsyncRequestID requestID, SearchResult searchResult) {
+
+				// 영구 검색은 취소하거나 오류가 발생한 경우에만 종료된다.
+				onError.accept(new LogicError("영구 검색이 종료되었습니다 : " + searchResult.getResultCode()));
+			}
+		};
+
+		LDAPConnection connection;
+		try {
+			connection = this.pool.getConnection();
+		} catch (LDAPException e) {
+			throw translate(e, "persistentSearch " + base);
+		}
+		try {
+			SearchRequest request = new SearchRequest(listener, base.toString(), SearchScope.SUB, "(objectClass=*)");
+			request.addControl(new PersistentSearchRequestControl(PersistentSearchChangeType.allChangeTypes(),
+					true, true, true));
+			AsyncRequestID requestId = connection.asyncSearch(request);
+			return () -> {
+				try {
+					connection.abandon(requestId);
+				} catch (LDAPException e) {
+					// 연결을 폐기하므로 무시한다.
+				}
+				this.pool.releaseDefunctConnection(connection);
+			};
+		} catch (LDAPException e) {
+			this.pool.releaseConnectionAfterException(connection, e);
+			throw translate(e, "persistentSearch " + base);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+		SearchRequest request = this.newRequest(null, dn.toString(), SearchScope.BASE, "(objectClass=*)",
+				attributes, deadline);
+		try {
+			SearchResultEntry entry = this.pool.searchForEntry(request);
+			if (entry == null) {
+				throw new LogicError("항목이 없습니다 : " + dn);
+			}
+			return toAttr(entry, this.schema, this.excludeBinary && attributes == null);
+		} catch (LDAPException e) {
+			throw translate(e, "read " + dn);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+		SearchRequest request = this.newRequest(null, "", SearchScope.BASE, "(objectClass=*)", attributes,
+				deadline);
+		try {
+			SearchResultEntry entry = this.pool.searchForEntry(request);
+			if (entry == null) {
+				throw new LogicError("Root DSE 를 읽을 수 없습니다.");
+			}
+			return toAttr(entry);
+		} catch (LDAPException e) {
+			throw translate(e, "rootDSE");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LdapAttribute readSchema(Deadline deadline) {
+
+		List<String> subschema = this.readRootDse(new String[] { "subschemaSubentry" }, deadline)
+				.get("subschemaSubentry");
+		if (subschema == null || subschema.isEmpty()) {
+			throw new LogicError("subschemaSubentry 가 없습니다.");
+		}
+		SearchRequest request = this.newRequest(null, subschema.get(0), SearchScope.BASE, "(objectClass=*)",
+				JndiLdapBackend.SCHEMA_ATTRIBUTES, deadline);
+		try {
+			SearchResultEntry entry = this.pool.searchForEntry(request);
+			if (entry == null) {
+				throw new LogicError("스키마를 읽을 수 없습니다 : " + subschema.get(0));
+			}
+			return toAttr(entry);
+		} catch (LDAPException e) {
+			throw translate(e, "schema " + subschema.get(0));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 서버의 크기 제한을 넘는 경우 그때까지 읽은 결과만 전달합니다.
+	 */
+	@Override
+	public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+			Consumer<LdapNode> consumer) {
+
+		LdapSearchEvent event = new LdapSearchEvent();
+		event.begin();
+		SearchRequest request = this.newRequest(
+				newListener(event.counting(consumer, LdapNode::estimateBytes), this.schema, this.excludeBinary && attributes == null),
+				base.toString(), SearchScope.definedValueOf(scope), filter, attributes, deadline);
+		try {
+			this.pool.search(request);
+		} catch (LDAPSearchException e) {
+			if (ResultCode.SIZE_LIMIT_EXCEEDED.equals(e.getResultCode()) == false) {
+				throw translate(e, "search " + base);
+			}
+		} finally {
+			event.finish(this.getName(), base, scope, filter, false);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * 페이지 쿠키는 연결에 묶이므로 풀에서 연결 하나를 꺼내 전체 페이지를 조회합니다.
+	 */
+	@Override
+	public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+			Deadline deadline, Consumer<LdapNode> consumer) {
+
+		LdapSearchEvent event = new LdapSearchEvent();
+		event.begin();
+		SearchResultListener listener = newListener(event.counting(consumer, LdapNode::estimateBytes), this.schema,
+				this.excludeBinary && attributes == null);
+		LDAPConnection connection;
+		try {
+			connection = this.pool.getConnection();
+		} catch (LDAPException e) {
+			throw translate(e, "searchPaged " + base);
+		}
+		try {
+			ASN1OctetString cookie = null;
+			do {
+				SearchRequest request = this.newRequest(listener, base.toString(), SearchScope.definedValueOf(scope),
+						filter, attributes, deadline);
+				request.setControls(new SimplePagedResultsControl(pageSize, cookie, true));
+				SearchResult result = connection.search(request);
+				SimplePagedResultsControl response = SimplePagedResultsControl.get(result);
+				cookie = response != null && response.moreResultsToReturn() ? response.getCookie() : null;
+			} while (cookie != null);
+			this.pool.releaseConnection(connection);
+		} catch (LDAPException e) {
+			this.pool.releaseConnectionAfterException(connection, e);
+			throw translate(e, "searchPaged " + base);
+		} catch (RuntimeException | Error e) {
+			// consumer 예외로 페이지 조회가 중간에 끊긴 연결은 다시 사용하지 않는다.
+			this.pool.releaseDefunctConnection(connection);
+			throw e;
+		} finally {
+			event.finish(this.getName(), base, scope, filter, true);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setExcludeBinary(boolean excludeBinary) {
+
+		this.excludeBinary = excludeBinary;
+	}
+
+	/**
+	 * 검색 중 참조(referral) 를 따라갈지 설정합니다.
+	 */
+	public void setFollowReferrals(boolean followReferrals) {
+
+		this.followReferrals = followReferrals;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setSchema(LdapSchema schema) {
+
+		this.schema = schema;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(LdapWriteOperation operation, Deadline deadline) {
+
+		LdapName dn = operation.getDn();
+		try {
+			switch (operation.getType()) {
+			case ADD:
+				this.pool.add(withTimeout(new AddRequest(dn.toString(), toAttributes(operation.getAttributes())),
+						deadline));
+				break;
+			case MODIFY:
+				this.pool.modify(withTimeout(
+						new ModifyRequest(dn.toString(), toModifications(operation.getModifications())), deadline));
+				break;
+			case DELETE:
+				this.pool.delete(withTimeout(new DeleteRequest(dn.toString()), deadline));
+				break;
+			case RENAME:
+				LdapName newDn = operation.getNewDn().get();
+				Name newSuperior = newDn.getPrefix(newDn.size() - 1);
+				boolean move = newSuperior.equals(dn.getPrefix(dn.size() - 1)) == false;
+				this.pool.modifyDN(withTimeout(new ModifyDNRequest(dn.toString(),
+						newDn.getRdn(newDn.size() - 1).toString(), true, move ? newSuperior.toString() : null),
+						deadline));
+				break;
+			default:
+				throw new LogicError("지원하지 않는 작업입니다 : " + operation.getType());
+			}
+		} catch (LDAPException e) {
+			throw translate(e, operation.toString());
+		}
+	}
+
+	private static SearchResultListener newListener(Consumer<LdapNode> consumer, LdapSchema schema,
+			boolean excludeBinary) {
+
+		return new SearchResultListener() {
+
+			private static final long serialVersionUID = 6139528613781478307L;
+
+			@Override
+			public void searchEntryReturned(SearchResultEntry searchEntry) {
+
+				consumer.accept(toNode(searchEntry, schema, excludeBinary));
+			}
+
+			@Override
+			public void searchReferenceReturned(SearchResultReference searchReference) {
+
+				// 참조는 따라가지 않는다.
+			}
+		};
+	}
+
+	private SearchRequest newRequest(SearchResultListener listener, String base, SearchScope scope, String filter,
+			String[] attributes, Deadline deadline) {
+
+		String[] requestAttributes = attributes == null ? new String[0] : attributes;
+		SearchRequest request;
+		try {
+			request = new SearchRequest(listener, base, scope, filter, requestAttributes);
+		} catch (LDAPException e) {
+			throw new IllegalArgumentException(e);
+		}
+		request.setFollowReferrals(this.followReferrals);
+		if (deadline.isNone() == false) {
+			// 남은 시간을 서버 검색 시간 제한과 응답 대기 시간으로 전달한다.
+			long remaining = deadline.remainingMillis(Integer.MAX_VALUE);
+			request.setTimeLimitSeconds((int) Math.max(1, (remaining + 999) / 1000));
+			request.setResponseTimeoutMillis(remaining);
+		}
+		return request;
+	}
+}
@@ -10,16 +10,20 @@
  */
 package com.naonsoft.example.tools.tree;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.naonsoft.example.tools.jfr.TreeOperationEvent;
 
 /**
  * 트리 구현체
@@ -72,6 +76,34 @@ public class TreeImpl<T> implements Tree<T> {
 		this.childs = new ArrayList<>(childs);
 	}
 
+	/**
+	 * 같은 모양의 트리를 새로 만듭니다. 각 노드의 데이터는 copier 로 복사합니다.
+	 *
+	 * @param tree
+	 *            복사할 트리 (하위 트리이면 그 노드를 루트로 복사)
+	 * @param copier
+	 *            데이터 복사 함수
+	 */
+	public static <T> Tree<T> copy(Tree<T> tree, UnaryOperator<T> copier) {
+
+		TreeImpl<T> root = new TreeImpl<>(null, copier.apply(tree.getData()));
+		Deque<Tree<T>> sources = new ArrayDeque<>();
+		Deque<TreeImpl<T>> targets = new ArrayDeque<>();
+		sources.push(tree);
+		targets.push(root);
+		while (sources.isEmpty() == false) {
+			Tree<T> source = sources.pop();
+			TreeImpl<T> target = targets.pop();
+			for (Tree<T> child : source.getChilds()) {
+				TreeImpl<T> copied = new TreeImpl<>(target, copier.apply(child.getData()));
+				target.childs.add(copied);
+				sources.push(child);
+				targets.push(copied);
+			}
+		}
+		return root;
+	}
+
 	public static <T> void link(TreeImpl<T> parent, TreeImpl<T> child) {
 
 		child.parent = parent;
@@ -80,6 +112,8 @@ public class TreeImpl<T> implements Tree<T> {
 
 	public static <T> List<Tree<T>> toTree(Collection<T> datas, IsParentPredicate<T> predicate) {
 
+		TreeOperationEvent event = new TreeOperationEvent();
+		event.begin();
 		List<TreeImpl<T>> trees = datas.stream()
 				.map(t -> new TreeImpl<>(null, t))
 				.collect(Collectors.toList());
@@ -92,9 +126,11 @@ public class TreeImpl<T> implements Tree<T> {
 				}
 			}
 		}
-		return trees.stream()
+		List<Tree<T>> result = trees.stream()
 				.filter(Tree::isRoot)
 				.collect(Collectors.toList());
+		event.finish("toTree", datas::size);
+		return result;
 	}
 
 	@Override
@@ -244,12 +280,24 @@ public class TreeImpl<T> implements Tree<T> {
 	@Override
 	public void sortRecursive(Comparator<T> comparator) {
 
+		TreeOperationEvent event = new TreeOperationEvent();
+		event.begin();
+		this.sortChildsRecursive(comparator);
+		event.finish("sortRecursive", this::size);
+	}
+
+	private void sortChildsRecursive(Comparator<T> comparator) {
+
 		this.childs.sort((o1, o2) -> {
 			return comparator.compare(o1.getData(), o2.getData());
 		});
 
 		for (Tree<T> tree : this.childs) {
-			tree.sortRecursive(comparator);
+			if (tree instanceof TreeImpl) {
+				((TreeImpl<T>) tree).sortChildsRecursive(comparator);
+			} else {
+				tree.sortRecursive(comparator);
+			}
 		}
 	}
 
@@ -0,0 +1,240 @@
+/**
+ * FileName : TreeIndex.java
+ * Created  : 2021. 4. 9.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 트리의 키 색인과 전위 순서 구간
+ * <p>
+ * 만들 때 트리를 한번 전위 순회하여 키별 위치, 깊이, 하위 트리 구간(전위 순서 [시작, 끝))을 기록합니다.
+ * 이후 키 조회, 상위/하위 관계, 하위 트리 크기는 O(1) 로, 최소 공통 조상은 처음 조회할 때 만드는
+ * 희소 테이블(sparse table)로 O(1) 에 구합니다.
+ * <p>
+ * 만든 뒤 트리를 변경해도 반영되지 않으므로 변경 후에는 다시 만들어야 합니다.
+ *
+ * <pre>
+ * TreeIndex&lt;LdapName, LdapNode&gt; index = new TreeIndex&lt;&gt;(tree, LdapNode::getDn);
+ * index.isAncestor(companyDn, userDn);
+ * </pre>
+ *
+ * @param <K>
+ *            키 타입
+ * @param <T>
+ *            입력 객체 타입
+ * @author hokkk
+ */
+public class TreeIndex<K, T> {
+
+	/** 전위 순서 노드 */
+	private final List<Tree<T>> nodes = new ArrayList<>();
+
+	private final Map<K, Integer> positions = new HashMap<>();
+
+	private int[] parents;
+
+	private int[] depths;
+
+	/** 하위 트리 끝 위치 (포함하지 않음) */
+	private int[] ends;
+
+	/** 최소 공통 조상용 희소 테이블 (구간 내 깊이가 가장 얕은 위치, 처음 조회할 때 생성) */
+	private volatile int[][] sparse;
+
+	/**
+	 * 트리를 전위 순회하여 색인을 만듭니다. (재귀 없이 수행)
+	 *
+	 * @throws IllegalArgumentException
+	 *             키가 중복된 경우
+	 */
+	public TreeIndex(Tree<T> root, Function<T, K> keyFunction) {
+
+		int capacity = 1024;
+		this.parents = new int[capacity];
+		this.depths = new int[capacity];
+
+		Deque<Tree<T>> stack = new ArrayDeque<>();
+		Deque<Integer> parentStack = new ArrayDeque<>();
+		stack.push(root);
+		parentStack.push(-1);
+		while (stack.isEmpty() == false) {
+			Tree<T> tree = stack.pop();
+			int parent = parentStack.pop();
+			int position = this.nodes.size();
+			if (position == this.parents.length) {
+				this.parents = Arrays.copyOf(this.parents, position * 2);
+				this.depths = Arrays.copyOf(this.depths, position * 2);
+			}
+			this.nodes.add(tree);
+			this.parents[position] = parent;
+			this.depths[position] = parent < 0 ? 0 : this.depths[parent] + 1;
+			K key = keyFunction.apply(tree.getData());
+			if (this.positions.put(key, position) != null) {
+				throw new IllegalArgumentException("키가 중복됩니다 : " + key);
+			}
+
+			List<Tree<T>> childs = tree.getChilds();
+			for (int i = childs.size() - 1; i >= 0; i--) {
+				stack.push(childs.get(i));
+				parentStack.push(position);
+			}
+		}
+
+		int size = this.nodes.size();
+		this.parents = Arrays.copyOf(this.parents, size);
+		this.depths = Arrays.copyOf(this.depths, size);
+		// 전위 순서에서 하위 트리는 연속하므로 자식의 끝 위치 중 가장 큰 값이 상위의 끝 위치
+		this.ends = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			this.ends[i] = Math.max(this.ends[i], i + 1);
+			if (this.parents[i] >= 0) {
+				this.ends[this.parents[i]] = Math.max(this.ends[this.parents[i]], this.ends[i]);
+			}
+		}
+	}
+
+	/**
+	 * 키에 해당하는 노드를 반환합니다.
+	 */
+	public Optional<Tree<T>> find(K key) {
+
+		Integer position = this.positions.get(key);
+		return position == null ? Optional.empty() : Optional.of(this.nodes.get(position));
+	}
+
+	/**
+	 * 깊이를 반환합니다. (기준 노드는 0, 없으면 -1)
+	 */
+	public int getDepth(K key) {
+
+		Integer position = this.positions.get(key);
+		return position == null ? -1 : this.depths[position];
+	}
+
+	/**
+	 * 하위 트리(자신 포함)의 노드를 전위 순서로 반환합니다. (없으면 빈 목록)
+	 */
+	public List<Tree<T>> getSubtree(K key) {
+
+		Integer position = this.positions.get(key);
+		if (position == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(this.nodes.subList(position, this.ends[position]));
+	}
+
+	/**
+	 * 하위 트리(자신 포함)의 노드 수를 반환합니다. (없으면 0)
+	 */
+	public int getSubtreeSize(K key) {
+
+		Integer position = this.positions.get(key);
+		return position == null ? 0 : this.ends[position] - position;
+	}
+
+	/**
+	 * ancestor 가 descendant 의 상위 노드인지 확인합니다. (자신은 제외, 없는 키는 false)
+	 */
+	public boolean isAncestor(K ancestor, K descendant) {
+
+		Integer a = this.positions.get(ancestor);
+		Integer d = this.positions.get(descendant);
+		if (a == null || d == null) {
+			return false;
+		}
+		return a < d && d < this.ends[a];
+	}
+
+	/**
+	 * descendant 가 ancestor 의 하위 노드인지 확인합니다. (자신은 제외, 없는 키는 false)
+	 */
+	public boolean isDescendant(K descendant, K ancestor) {
+
+		return this.isAncestor(ancestor, descendant);
+	}
+
+	/**
+	 * 두 노드의 최소 공통 조상을 반환합니다. (한쪽이 다른 쪽의 상위이면 그 노드, 없는 키가 있으면 empty)
+	 */
+	public Optional<Tree<T>> lowestCommonAncestor(K first, K second) {
+
+		Integer a = this.positions.get(first);
+		Integer b = this.positions.get(second);
+		if (a == null || b == null) {
+			return Optional.empty();
+		}
+		int low = Math.min(a, b);
+		int high = Math.max(a, b);
+		if (high < this.ends[low]) {
+			return Optional.of(this.nodes.get(low));
+		}
+		// (low, high] 에서 가장 얕은 노드는 공통 조상의 자식이다.
+		int shallowest = this.shallowest(low + 1, high);
+		return Optional.of(this.nodes.get(this.parents[shallowest]));
+	}
+
+	private int shallower(int first, int second) {
+
+		return this.depths[first] <= this.depths[second] ? first : second;
+	}
+
+	/**
+	 * [from, to] 구간에서 깊이가 가장 얕은 위치
+	 */
+	private int shallowest(int from, int to) {
+
+		int[][] table = this.sparseTable();
+		int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+		return this.shallower(table[level][from], table[level][to - (1 << level) + 1]);
+	}
+
+	public int size() {
+
+		return this.nodes.size();
+	}
+
+	private int[][] sparseTable() {
+
+		int[][] table = this.sparse;
+		if (table != null) {
+			return table;
+		}
+		synchronized (this) {
+			if (this.sparse == null) {
+				int size = this.nodes.size();
+				int levels = 32 - Integer.numberOfLeadingZeros(size);
+				int[][] built = new int[levels][];
+				built[0] = new int[size];
+				for (int i = 0; i < size; i++) {
+					built[0][i] = i;
+				}
+				for (int level = 1; level < levels; level++) {
+					int half = 1 << (level - 1);
+					int length = size - (1 << level) + 1;
+					built[level] = new int[Math.max(length, 0)];
+					for (int i = 0; i < length; i++) {
+						built[level][i] = this.shallower(built[level - 1][i], built[level - 1][i + half]);
+					}
+				}
+				this.sparse = built;
+			}
+			return this.sparse;
+		}
+	}
+}
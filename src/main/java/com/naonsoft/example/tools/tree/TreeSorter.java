@@ -0,0 +1,211 @@
+/**
+ * FileName : TreeSorter.java
+ * Created  : 2021. 4. 12.
+ * Author   : hokkk
+ * Summary  :
+ * Copyright (C) 2021 Goldy Project Inc. All rights reserved.
+ * 이 문서의 모든 저작권 및 지적 재산권은 Goldy Project에게 있습니다.
+ * 이 문서의 어떠한 부분도 허가 없이 복제 또는 수정 하거나, 전송할 수 없습니다.
+ */
+package com.naonsoft.example.tools.tree;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.jfr.TreeOperationEvent;
+
+/**
+ * 정렬 키를 미리 계산하는 트리 정렬기
+ * <p>
+ * {@link Tree#sortRecursive(Comparator)} 는 비교할 때마다 비교 대상을 다시 계산하지만, 이 정렬기는 노드마다 정렬 키를
+ * 한번만 계산한 뒤 키끼리 비교합니다. 서로 다른 하위 트리는 독립적이므로 실행기가 있으면 fork/join 으로 동시에 정렬합니다.<br>
+ * 작업 하나가 자식 sequentialThreshold 개 이상을 정렬한 뒤에만 남은 하위 트리를 나누므로 작은 트리는 나누지 않고,
+ * 자식이 하나뿐인 경로는 나누지 않고 이어서 정렬합니다.
+ *
+ * <pre>
+ * TreeSorter&lt;LdapNode, CollationKey&gt; sorter = TreeSorter.collating(LdapNode::getName, Locale.KOREAN);
+ * sorter.sort(tree);
+ * </pre>
+ *
+ * @param <T>
+ *            입력 객체 타입
+ * @param <K>
+ *            정렬 키 타입
+ * @author hokkk
+ */
+public class TreeSorter<T, K> {
+
+	private final Function<T, K> keyFunction;
+
+	private final Comparator<? super K> keyComparator;
+
+	/** 키가 같을 때 비교 (null 이면 기존 순서 유지) */
+	private Comparator<? super T> tieBreaker;
+
+	/** 하위 트리를 동시에 정렬할 실행기 (null 이면 현재 스레드에서 정렬) */
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/** 작업 하나가 남은 하위 트리를 나누기 전에 정렬할 최소 자식 수 */
+	private int sequentialThreshold = 1_000;
+
+	/**
+	 * 지정한 언어의 정렬 규칙(Collator)으로 문자열을 비교하는 정렬기를 반환합니다.<br>
+	 * Collator 는 스레드에 안전하지 않으므로 스레드마다 따로 만들어 CollationKey 를 계산합니다.
+	 */
+	public static <T> TreeSorter<T, CollationKey> collating(Function<T, String> textFunction, Locale locale) {
+
+		ThreadLocal<Collator> collators = ThreadLocal.withInitial(() -> Collator.getInstance(locale));
+		return new TreeSorter<>(data -> collators.get().getCollationKey(textFunction.apply(data)),
+				Comparator.naturalOrder());
+	}
+
+	/**
+	 * TreeSorter 클래스의 새 인스턴스를 초기화 합니다.
+	 *
+	 * @param keyFunction
+	 *            노드마다 한번 호출하여 정렬 키를 계산
+	 * @param keyComparator
+	 *            정렬 키 비교
+	 */
+	public TreeSorter(Function<T, K> keyFunction, Comparator<? super K> keyComparator) {
+
+		this.keyFunction = keyFunction;
+		this.keyComparator = keyComparator;
+	}
+
+	/**
+	 * 하위 트리를 동시에 정렬할 실행기를 설정합니다. (null 이면 현재 스레드에서 정렬)
+	 */
+	public void setPool(ForkJoinPool pool) {
+
+		this.pool = pool;
+	}
+
+	/**
+	 * 작업 하나가 남은 하위 트리를 나누기 전에 정렬할 최소 자식 수를 설정합니다. (기본 1,000)
+	 */
+	public void setSequentialThreshold(int sequentialThreshold) {
+
+		if (sequentialThreshold <= 0) {
+			throw new LogicError("sequentialThreshold는 1 이상이어야 합니다 : " + sequentialThreshold);
+		}
+		this.sequentialThreshold = sequentialThreshold;
+	}
+
+	/**
+	 * 키가 같을 때 비교를 설정합니다.
+	 */
+	public void setTieBreaker(Comparator<? super T> tieBreaker) {
+
+		this.tieBreaker = tieBreaker;
+	}
+
+	/**
+	 * 트리 전체의 자식 순서를 정렬합니다.
+	 */
+	public void sort(Tree<T> root) {
+
+		TreeOperationEvent event = new TreeOperationEvent();
+		event.begin();
+		if (this.pool == null || root.isLeaf()) {
+			this.sortSequential(root);
+		} else {
+			this.pool.invoke(new SortTask(root));
+		}
+		event.finish(this.pool == null ? "TreeSorter.sort" : "TreeSorter.sort (parallel)", root::size);
+	}
+
+	/**
+	 * 한 노드의 자식만 정렬합니다. (자식의 키는 한번씩만 계산)
+	 */
+	private void sortChilds(Tree<T> tree) {
+
+		List<T> datas = tree.getChildDatas();
+		if (datas.size() < 2) {
+			return;
+		}
+		Map<T, K> keys = new IdentityHashMap<>(datas.size());
+		for (T data : datas) {
+			keys.put(data, this.keyFunction.apply(data));
+		}
+		Comparator<? super T> tieBreaker = this.tieBreaker;
+		tree.sort((o1, o2) -> {
+			int result = this.keyComparator.compare(keys.get(o1), keys.get(o2));
+			if (result == 0 && tieBreaker != null) {
+				result = tieBreaker.compare(o1, o2);
+			}
+			return result;
+		});
+	}
+
+	private void sortSequential(Tree<T> root) {
+
+		Deque<Tree<T>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (stack.isEmpty() == false) {
+			Tree<T> tree = stack.pop();
+			this.sortChilds(tree);
+			for (Tree<T> child : tree.getChilds()) {
+				if (child.isLeaf() == false) {
+					stack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 하위 트리를 현재 스레드에서 정렬하다가, 자식을 sequentialThreshold 개 이상 정렬했고 남은 하위 트리가 둘 이상이면
+	 * 남은 하위 트리들을 나누어 정렬합니다.
+	 */
+	private final class SortTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Tree<T> tree;
+
+		SortTask(Tree<T> tree) {
+
+			this.tree = tree;
+		}
+
+		@Override
+		protected void compute() {
+
+			int threshold = TreeSorter.this.sequentialThreshold;
+			Deque<Tree<T>> stack = new ArrayDeque<>();
+			stack.push(this.tree);
+			int sorted = 0;
+			while (stack.isEmpty() == false) {
+				if (sorted >= threshold && stack.size() > 1) {
+					List<SortTask> tasks = new ArrayList<>(stack.size());
+					for (Tree<T> rest : stack) {
+						tasks.add(new SortTask(rest));
+					}
+					invokeAll(tasks);
+					return;
+				}
+				Tree<T> current = stack.pop();
+				TreeSorter.this.sortChilds(current);
+				sorted += current.getChildCount();
+				for (Tree<T> child : current.getChilds()) {
+					if (child.isLeaf() == false) {
+						stack.push(child);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -1,14 +1,14 @@
-package com.naonsoft.example;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@SpringBootTest(classes = Application.class)
-class ApplicationTest {
-
-	@Test
-	void contextLoads() {
-
-	}
-
-}
+package com.naonsoft.example;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(classes = Application.class)
+class ApplicationTest {
+
+	@Test
+	void contextLoads() {
+
+	}
+
+}
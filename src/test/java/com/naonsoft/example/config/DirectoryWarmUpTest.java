@@ -0,0 +1,218 @@
+package com.naonsoft.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.ldap.LdapAttribute;
+import com.naonsoft.example.tools.ldap.LdapBackend;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapService;
+import com.naonsoft.example.tools.ldap.LdapTreeCache;
+
+class DirectoryWarmUpTest {
+
+	private final FailingBackend backend = new FailingBackend();
+
+	private final LdapTreeCache cache = new LdapTreeCache(new LdapService(this.backend));
+
+	private DirectoryWarmUp warmUp;
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+
+		long until = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > until) {
+				throw new AssertionError("제한 시간 안에 조건을 만족하지 않았습니다.");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static DirectoryProperties.WarmUp properties(int retry) {
+
+		DirectoryProperties.WarmUp properties = new DirectoryProperties.WarmUp();
+		properties.setBaseDns(Collections.singletonList("c=kr"));
+		properties.setRetry(retry);
+		properties.setRetryBackoff(Duration.ofMillis(10));
+		properties.setMaxRetryBackoff(Duration.ofMillis(40));
+		return properties;
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		if (this.warmUp != null) {
+			this.warmUp.destroy();
+		}
+	}
+
+	@Test
+	void testBackoff() {
+
+		DirectoryProperties.WarmUp properties = properties(-1);
+		properties.setRetryBackoff(Duration.ofMillis(100));
+		properties.setMaxRetryBackoff(Duration.ofSeconds(1));
+		DirectoryWarmUp target = new DirectoryWarmUp(this.cache, properties);
+
+		assertEquals(100, target.getBackoffMillis(1));
+		assertEquals(200, target.getBackoffMillis(2));
+		assertEquals(400, target.getBackoffMillis(3));
+		assertEquals(1_000, target.getBackoffMillis(5));
+		assertEquals(1_000, target.getBackoffMillis(Integer.MAX_VALUE));
+	}
+
+	@Test
+	void testGiveUp() throws InterruptedException {
+
+		this.backend.failures.set(Integer.MAX_VALUE);
+		this.warmUp = new DirectoryWarmUp(this.cache, properties(1));
+		this.warmUp.run(null);
+
+		// 처음 읽기와 재시도 1회 후 포기한다.
+		await(() -> this.backend.calls.get() >= 2);
+		Thread.sleep(200);
+		assertEquals(2, this.backend.calls.get());
+		assertFalse(this.warmUp.isCompleted());
+		assertEquals(Status.OUT_OF_SERVICE, this.warmUp.health().getStatus());
+		assertTrue(this.warmUp.health().getDetails().get("failures").toString().contains("c=kr"));
+	}
+
+	@Test
+	void testInvalidBackoff() {
+
+		DirectoryProperties.WarmUp zero = properties(-1);
+		zero.setRetryBackoff(Duration.ZERO);
+		assertThrows(LogicError.class, () -> new DirectoryWarmUp(this.cache, zero));
+
+		DirectoryProperties.WarmUp smallMax = properties(-1);
+		smallMax.setMaxRetryBackoff(Duration.ofMillis(1));
+		assertThrows(LogicError.class, () -> new DirectoryWarmUp(this.cache, smallMax));
+	}
+
+	@Test
+	void testInvalidated() throws InterruptedException, InvalidNameException {
+
+		this.warmUp = new DirectoryWarmUp(this.cache, properties(-1));
+		this.warmUp.run(null);
+		await(this.warmUp::isCompleted);
+
+		// 캐시에서 제거되면 다시 읽을 때까지 준비되지 않은 것으로 보고한다.
+		LdapName dn = new LdapName("c=kr");
+		this.cache.invalidate(dn);
+		assertFalse(this.warmUp.isCompleted());
+		assertEquals(Status.OUT_OF_SERVICE, this.warmUp.health().getStatus());
+		assertEquals(0, this.warmUp.health().getDetails().get("loaded"));
+
+		this.cache.load(dn);
+		assertTrue(this.warmUp.isCompleted());
+		assertEquals(Status.UP, this.warmUp.health().getStatus());
+
+		// 다시 읽도록 예약된 동안에는 준비된 상태를 유지한다.
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			this.cache.invalidate(dn);
+			this.cache.scheduleReload(dn, scheduler, Runnable::run, Duration.ofHours(1));
+			assertTrue(this.warmUp.isCompleted());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Test
+	void testRetry() throws InterruptedException, InvalidNameException {
+
+		// 재시도 횟수 제한이 없으면 성공할 때까지 다시 읽는다.
+		this.backend.failures.set(3);
+		this.warmUp = new DirectoryWarmUp(this.cache, properties(-1));
+		this.warmUp.run(null);
+
+		await(this.warmUp::isCompleted);
+		assertEquals(4, this.backend.calls.get());
+		assertEquals(Status.UP, this.warmUp.health().getStatus());
+		assertEquals(Collections.emptyMap(), this.warmUp.health().getDetails().get("failures"));
+		assertTrue(this.cache.isResident(new LdapName("c=kr")));
+	}
+
+	/**
+	 * 처음 failures 번의 검색은 실패하고 이후에는 기준 DN 하나만 돌려주는 백엔드
+	 */
+	private static final class FailingBackend implements LdapBackend {
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "failing";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			this.calls.incrementAndGet();
+			if (this.failures.getAndDecrement() > 0) {
+				throw new LogicError("fail : " + base);
+			}
+			LdapAttribute attr = new LdapAttribute();
+			attr.put("objectClass", "country");
+			try {
+				consumer.accept(new LdapNode(new LdapName(base.toString()), attr));
+			} catch (InvalidNameException e) {
+				throw new LogicError(e);
+			}
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			this.search(base, scope, filter, attributes, deadline, consumer);
+		}
+	}
+}
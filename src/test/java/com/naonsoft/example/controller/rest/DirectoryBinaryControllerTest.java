@@ -0,0 +1,164 @@
+package com.naonsoft.example.controller.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.DigestUtils;
+
+import com.naonsoft.example.config.DirectoryProperties;
+import com.naonsoft.example.controller.RestAdvice;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.ldap.LdapAttribute;
+import com.naonsoft.example.tools.ldap.LdapBackend;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapService;
+
+class DirectoryBinaryControllerTest {
+
+	private static final byte[] PHOTO = { 1, 2, 3 };
+
+	private static final String ETAG = "\"" + DigestUtils.md5DigestAsHex(PHOTO) + "\"";
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "a");
+		attr.putByteArray("jpegPhoto", Collections.singletonList(PHOTO));
+		AttributeBackend backend = new AttributeBackend();
+		backend.entries.put(new LdapName("cn=a,c=kr"), attr);
+
+		DirectoryBinaryController controller = new DirectoryBinaryController(new LdapService(backend),
+				new DirectoryProperties());
+		this.mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new RestAdvice()).build();
+	}
+
+	@Test
+	void testBinary() throws Exception {
+
+		this.mockMvc.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "jpegPhoto"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.IMAGE_JPEG))
+				.andExpect(content().bytes(PHOTO))
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, private"));
+	}
+
+	@Test
+	void testInvalidDn() throws Exception {
+
+		this.mockMvc.perform(get("/directory/binary").param("dn", "invalid").param("attribute", "jpegPhoto"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testNotAllowed() throws Exception {
+
+		// 허용 목록에 없는 속성과 비밀번호는 서버에서 읽지 않고 400 으로 응답한다.
+		this.mockMvc.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "cn"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "userPassword"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "unicodePwd"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testModified() throws Exception {
+
+		this.mockMvc
+				.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "jpegPhoto")
+						.header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(PHOTO));
+	}
+
+	@Test
+	void testNotFound() throws Exception {
+
+		this.mockMvc.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "thumbnailPhoto"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testNotModified() throws Exception {
+
+		// 같은 ETag 이면 본문 없이 304 로 응답한다.
+		this.mockMvc
+				.perform(get("/directory/binary").param("dn", "cn=a,c=kr").param("attribute", "jpegPhoto")
+						.header(HttpHeaders.IF_NONE_MATCH, ETAG))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	/**
+	 * 등록된 항목의 속성을 돌려주는 백엔드
+	 */
+	private static final class AttributeBackend implements LdapBackend {
+
+		private final Map<LdapName, LdapAttribute> entries = new ConcurrentHashMap<>();
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "attribute";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			return new LdapAttribute(this.entries.get(dn));
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+	}
+}
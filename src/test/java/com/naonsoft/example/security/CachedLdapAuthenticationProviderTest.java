@@ -0,0 +1,91 @@
+package com.naonsoft.example.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+class CachedLdapAuthenticationProviderTest {
+
+	private final DirectoryProvider directory = new DirectoryProvider();
+
+	private final CachedLdapAuthenticationProvider provider = new CachedLdapAuthenticationProvider(this.directory,
+			100, Duration.ofMinutes(10));
+
+	private static Authentication token(String username, String password) {
+
+		return new UsernamePasswordAuthenticationToken(username, password);
+	}
+
+	@Test
+	void testCacheHit() {
+
+		this.provider.authenticate(token("user", "secret"));
+		assertEquals(1, this.directory.binds.get());
+
+		// 대소문자가 다른 사용자명도 같은 캐시를 사용한다.
+		Authentication result = this.provider.authenticate(token("USER", "secret"));
+		assertEquals(1, this.directory.binds.get());
+		assertEquals("user", result.getPrincipal());
+		assertEquals(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")), result.getAuthorities());
+	}
+
+	@Test
+	void testEmptyPassword() {
+
+		// 빈 패스워드(익명 bind)는 디렉토리가 허용하더라도 보관하지 않는다.
+		this.directory.password = "";
+		this.provider.authenticate(token("user", ""));
+		this.provider.authenticate(token("user", ""));
+		assertEquals(2, this.directory.binds.get());
+	}
+
+	@Test
+	void testWrongPassword() {
+
+		this.provider.authenticate(token("user", "secret"));
+
+		// 다른 패스워드는 디렉토리에 확인하고, 실패하면 보관한 결과를 제거한다.
+		assertThrows(BadCredentialsException.class, () -> this.provider.authenticate(token("user", "wrong")));
+		assertEquals(2, this.directory.binds.get());
+
+		this.provider.authenticate(token("user", "secret"));
+		assertEquals(3, this.directory.binds.get());
+	}
+
+	/**
+	 * password 가 일치하면 인증하는 디렉토리
+	 */
+	private static final class DirectoryProvider implements AuthenticationProvider {
+
+		private final AtomicInteger binds = new AtomicInteger();
+
+		private volatile String password = "secret";
+
+		@Override
+		public Authentication authenticate(Authentication authentication) {
+
+			this.binds.incrementAndGet();
+			if (this.password.equals(authentication.getCredentials()) == false) {
+				throw new BadCredentialsException("bad credentials");
+			}
+			return new UsernamePasswordAuthenticationToken("user", null,
+					Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+		}
+
+		@Override
+		public boolean supports(Class<?> authentication) {
+
+			return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.naonsoft.example.tools.addr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.ldap.LdapAttribute;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.tree.Tree;
+import com.naonsoft.example.tools.tree.TreeImpl;
+
+class LdapCompanyChartTest {
+
+	private static LdapNode node(String dn, String objectClass, String manager) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("objectClass", objectClass);
+		if (manager != null) {
+			attr.put(objectClass.equals("user") ? "manager" : "managedBy", manager);
+		}
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	@Test
+	void testOf() throws InvalidNameException {
+
+		String company = "ou=company,o=private of korea,c=kr";
+		String dept1 = "ou=dept1," + company;
+		String dept2 = "ou=dept2," + dept1;
+		String boss = "cn=boss," + dept1;
+		String lead = "cn=lead," + dept2;
+		String member = "cn=member," + dept2;
+
+		Tree<LdapNode> tree = new TreeImpl<>(null, node(company, "organizationalUnit", null));
+		Tree<LdapNode> d1 = tree.addChild(node(dept1, "organizationalUnit", boss));
+		d1.addChild(node(boss, "user", null));
+		Tree<LdapNode> d2 = d1.addChild(node(dept2, "organizationalUnit", lead));
+		d2.addChild(node(lead, "user", boss));
+		d2.addChild(node(member, "user", lead));
+
+		LdapCompanyChart chart = LdapCompanyChart.of(tree);
+
+		assertEquals(6, chart.size());
+		assertEquals(LdapOrgType.COMPANY, chart.getRoot().getType());
+		assertEquals(3, chart.getHeadcount(new LdapName(company)));
+		assertEquals(3, chart.getHeadcount(new LdapName(dept1)));
+		assertEquals(2, chart.getHeadcount(new LdapName(dept2)));
+
+		LdapCompanyNode memberNode = chart.get(new LdapName(member)).get();
+		assertEquals(3, memberNode.getDepth());
+		assertEquals(Arrays.asList(new LdapName(company), new LdapName(dept1), new LdapName(dept2)),
+				memberNode.getPath());
+		assertEquals(Arrays.asList(new LdapName(lead), new LdapName(boss)), memberNode.getManagerChain());
+		assertEquals(1, chart.get(new LdapName(dept1)).get().getDirectHeadcount());
+	}
+
+}
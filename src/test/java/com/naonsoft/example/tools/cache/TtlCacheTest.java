@@ -0,0 +1,67 @@
+package com.naonsoft.example.tools.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TtlCacheTest {
+
+	@Test
+	void testExpire() {
+
+		AtomicLong now = new AtomicLong();
+		TtlCache<String, String> cache = new TtlCache<>(10, Duration.ofNanos(100), now::get);
+
+		cache.put("a", "1");
+		assertEquals("1", cache.get("a").get());
+
+		now.set(100);
+		assertFalse(cache.get("a").isPresent());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testMaxSize() {
+
+		TtlCache<String, String> cache = new TtlCache<>(2, Duration.ofMinutes(1));
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		// a를 최근 사용으로 만든다.
+		assertTrue(cache.get("a").isPresent());
+		cache.put("c", "3");
+
+		assertTrue(cache.get("a").isPresent());
+		assertFalse(cache.get("b").isPresent());
+		assertTrue(cache.get("c").isPresent());
+	}
+
+	@Test
+	void testMaxWeight() {
+
+		TtlCache<String, String> cache = new TtlCache<>(10, Duration.ofMinutes(1));
+		cache.setMaxWeight(5, String::length);
+
+		cache.put("a", "12");
+		cache.put("b", "34");
+		assertTrue(cache.get("a").isPresent());
+		cache.put("c", "56");
+
+		// 무게 6 > 5 이므로 가장 오래 사용하지 않은 b 를 제거한다.
+		assertFalse(cache.get("b").isPresent());
+		assertEquals(4, cache.getWeight());
+
+		// 최대 무게보다 큰 값은 저장하지 않는다.
+		cache.put("d", "123456");
+		assertFalse(cache.get("d").isPresent());
+		assertEquals(4, cache.getWeight());
+
+		cache.removeIf("a"::equals);
+		assertEquals(2, cache.getWeight());
+	}
+}
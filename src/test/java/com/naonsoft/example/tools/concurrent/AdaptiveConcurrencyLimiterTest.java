@@ -0,0 +1,127 @@
+package com.naonsoft.example.tools.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.exception.OverloadError;
+import com.naonsoft.example.tools.concurrent.AdaptiveConcurrencyLimiter.Permit;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	void testDeadline() {
+
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+		limiter.setQueueTimeout(Duration.ofSeconds(30));
+		Permit permit = limiter.acquire();
+
+		// 대기 시간보다 제한 시각이 먼저면 제한 시각에 포기한다. (과부하 거절로 세지 않음)
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(DeadlineExceededError.class,
+				() -> limiter.acquire(Deadline.after(Duration.ofMillis(50)))));
+		assertEquals(0, limiter.getRejectedCount());
+		assertEquals(0, limiter.getQueued());
+
+		permit.release();
+		limiter.acquire(Deadline.after(Duration.ofMillis(50))).release();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void testDropped() {
+
+		AtomicLong now = new AtomicLong(1_000);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, now::get);
+
+		Permit first = limiter.acquire();
+		Permit second = limiter.acquire();
+		now.addAndGet(100);
+		first.dropped();
+		assertEquals(6, limiter.getLimit());
+
+		// 줄이기 전에 시작된 요청으로는 다시 줄이지 않는다.
+		second.dropped();
+		assertEquals(6, limiter.getLimit());
+		assertTrue(limiter.getTimeoutRate() > 0);
+	}
+
+	@Test
+	void testIncrease() {
+
+		AtomicLong now = new AtomicLong();
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, now::get);
+
+		for (int i = 0; i < 20; i++) {
+			Permit first = limiter.acquire();
+			Permit second = limiter.acquire();
+			now.addAndGet(10);
+			first.success();
+			second.success();
+		}
+		assertTrue(limiter.getLimit() > 2);
+	}
+
+	@Test
+	void testResponded() {
+
+		AtomicLong now = new AtomicLong(1_000);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, now::get);
+
+		Permit stream = limiter.acquire();
+		now.addAndGet(10);
+		stream.responded();
+		// 첫 응답 후에도 작업이 끝날 때까지 허가를 유지한다.
+		assertEquals(1, limiter.getInFlight());
+
+		now.addAndGet(1_000);
+		stream.success();
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(4, limiter.getLimit());
+
+		// 기준 응답 시간은 첫 응답까지의 시간(10)이므로 15 는 허용 범위 안이다.
+		Permit next = limiter.acquire();
+		now.addAndGet(15);
+		next.success();
+		assertEquals(4, limiter.getLimit());
+
+		// 첫 응답 후 시간 초과되면 한 번만 반영된다.
+		Permit dropped = limiter.acquire();
+		now.addAndGet(10);
+		dropped.responded();
+		now.addAndGet(10);
+		dropped.dropped();
+		dropped.release();
+		assertEquals(3, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void testReject() {
+
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+		limiter.setMaxQueue(0);
+
+		List<Permit> permits = new ArrayList<>();
+		permits.add(limiter.acquire());
+		permits.add(limiter.acquire());
+		assertThrows(OverloadError.class, limiter::acquire);
+
+		limiter.setMaxQueue(1);
+		limiter.setQueueTimeout(Duration.ofMillis(10));
+		assertThrows(OverloadError.class, limiter::acquire);
+
+		permits.forEach(Permit::release);
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(2, limiter.getRejectedCount());
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.naonsoft.example.tools.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+
+class DeadlineTest {
+
+	@Test
+	void testAfter() {
+
+		Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+		assertFalse(deadline.isNone());
+		assertFalse(deadline.isExpired());
+		deadline.check("test");
+		assertEquals(100, deadline.remainingMillis(100));
+		assertTrue(deadline.remainingMillis(Long.MAX_VALUE) <= 60_000);
+		assertTrue(deadline.remainingNanos() > 0);
+
+		assertSame(Deadline.none(), Deadline.after(null));
+	}
+
+	@Test
+	void testExpired() {
+
+		Deadline deadline = Deadline.after(Duration.ofMillis(-1));
+		assertTrue(deadline.isExpired());
+		assertTrue(deadline.remainingNanos() < 0);
+		// 남은 시간이 없어도 최소 1ms 를 반환한다.
+		assertEquals(1, deadline.remainingMillis(100));
+		assertThrows(DeadlineExceededError.class, () -> deadline.check("test"));
+	}
+
+	@Test
+	void testNone() {
+
+		Deadline deadline = Deadline.none();
+		assertTrue(deadline.isNone());
+		assertFalse(deadline.isExpired());
+		deadline.check("test");
+		assertEquals(100, deadline.remainingMillis(100));
+		assertEquals(Long.MAX_VALUE, deadline.remainingNanos());
+	}
+}
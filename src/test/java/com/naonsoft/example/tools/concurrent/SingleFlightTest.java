@@ -0,0 +1,189 @@
+package com.naonsoft.example.tools.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+
+class SingleFlightTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void tearDown() {
+
+		this.release.countDown();
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * release 가 열릴 때까지 걸리는 작업을 key 로 수행합니다.
+	 */
+	private CompletableFuture<String> startLeader() throws InterruptedException {
+
+		return this.startLeader(() -> "leader");
+	}
+
+	/**
+	 * release 가 열릴 때까지 기다린 후 result 를 반환하는 작업을 key 로 수행합니다.
+	 */
+	private CompletableFuture<String> startLeader(Supplier<String> result)
+			throws InterruptedException {
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> this.flight.execute("key", () -> {
+			this.started.countDown();
+			try {
+				this.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return result.get();
+		}), this.executor);
+		assertEquals(true, this.started.await(10, TimeUnit.SECONDS));
+		return leader;
+	}
+
+	@Test
+	void testCopy() throws Exception {
+
+		SingleFlight<String, List<String>> lists = new SingleFlight<>();
+		List<String> alone = new ArrayList<>();
+		// 기다린 요청이 없으면 복사하지 않는다.
+		assertSame(alone, lists.execute("key", () -> alone, Deadline.none(), ArrayList::new));
+
+		List<String> shared = new ArrayList<>(Collections.singletonList("value"));
+		CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(
+				() -> lists.execute("key", () -> {
+					this.started.countDown();
+					try {
+						this.release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return shared;
+				}, Deadline.none(), ArrayList::new), this.executor);
+		assertEquals(true, this.started.await(10, TimeUnit.SECONDS));
+		CompletableFuture<List<String>> waiter = CompletableFuture.supplyAsync(
+				() -> lists.execute("key", ArrayList::new, Deadline.none(), ArrayList::new), this.executor);
+		while (lists.getSharedCount() == 0) {
+			Thread.sleep(1);
+		}
+		this.release.countDown();
+
+		// 함께 받은 요청은 수행한 요청을 포함하여 모두 복사본을 받는다.
+		List<String> leaderResult = leader.get(10, TimeUnit.SECONDS);
+		List<String> waiterResult = waiter.get(10, TimeUnit.SECONDS);
+		assertEquals(shared, leaderResult);
+		assertEquals(shared, waiterResult);
+		assertNotSame(shared, leaderResult);
+		assertNotSame(shared, waiterResult);
+		assertNotSame(leaderResult, waiterResult);
+	}
+
+	@Test
+	void testDeadline() throws Exception {
+
+		CompletableFuture<String> leader = this.startLeader();
+
+		// 수행 중인 작업을 기다리는 요청은 자신의 제한 시각에 포기한다.
+		assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> assertThrows(DeadlineExceededError.class,
+						() -> this.flight.execute("key", () -> "waiter", Deadline.after(Duration.ofMillis(50)))));
+		assertEquals(1, this.flight.getSharedCount());
+		assertEquals(1, this.flight.getInFlightCount());
+
+		// 기다리던 요청이 포기해도 수행 중인 작업은 계속된다.
+		this.release.countDown();
+		assertEquals("leader", leader.get(10, TimeUnit.SECONDS));
+		assertEquals(0, this.flight.getInFlightCount());
+	}
+
+	@Test
+	void testErrorShared() throws Exception {
+
+		IllegalStateException error = new IllegalStateException("test");
+		CompletableFuture<String> leader = this.startLeader(() -> {
+			throw error;
+		});
+		CompletableFuture<String> waiter = CompletableFuture
+				.supplyAsync(() -> this.flight.execute("key", () -> "waiter"), this.executor);
+		while (this.flight.getSharedCount() == 0) {
+			Thread.sleep(1);
+		}
+		this.release.countDown();
+
+		// 기다리던 요청도 같은 예외를 받는다.
+		ExecutionException thrown = assertThrows(ExecutionException.class,
+				() -> waiter.get(10, TimeUnit.SECONDS));
+		assertSame(error, thrown.getCause());
+		assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+		assertEquals(0, this.flight.getInFlightCount());
+	}
+
+	@Test
+	void testExpiredDeadline() throws Exception {
+
+		CompletableFuture<String> leader = this.startLeader();
+
+		assertThrows(DeadlineExceededError.class,
+				() -> this.flight.execute("key", () -> "waiter", Deadline.after(Duration.ofMillis(-1))));
+
+		this.release.countDown();
+		assertEquals("leader", leader.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testShared() throws Exception {
+
+		AtomicInteger calls = new AtomicInteger();
+		CompletableFuture<String> leader = this.startLeader(() -> "leader-" + calls.incrementAndGet());
+		CompletableFuture<String> waiter = CompletableFuture.supplyAsync(
+				() -> this.flight.execute("key", () -> "waiter-" + calls.incrementAndGet()), this.executor);
+		while (this.flight.getSharedCount() == 0) {
+			Thread.sleep(1);
+		}
+		// 다른 키는 기다리지 않는다.
+		assertEquals("other", this.flight.execute("other", () -> "other"));
+		this.release.countDown();
+
+		assertEquals("leader-1", leader.get(10, TimeUnit.SECONDS));
+		assertEquals("leader-1", waiter.get(10, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+
+		// 끝난 작업의 결과는 보관하지 않는다.
+		assertEquals("again", this.flight.execute("key", () -> "again"));
+	}
+
+	@Test
+	void testLeaderIgnoresDeadline() {
+
+		// 직접 수행하는 요청은 제한 시각과 무관하게 작업 결과를 반환한다. (제한 시각은 작업 내부에서 처리)
+		assertEquals("value", this.flight.execute("key", () -> "value", Deadline.after(Duration.ofMillis(-1))));
+		assertEquals(0, this.flight.getSharedCount());
+	}
+}
@@ -0,0 +1,181 @@
+package com.naonsoft.example.tools.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.ldap.LdapAttribute;
+import com.naonsoft.example.tools.ldap.LdapBackend;
+import com.naonsoft.example.tools.ldap.LdapNode;
+import com.naonsoft.example.tools.ldap.LdapService;
+
+class LdapExporterTest {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@AfterEach
+	void tearDown() {
+
+		this.executor.shutdownNow();
+	}
+
+	private static LdapNode node(String dn, String... attributes) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		for (int i = 0; i < attributes.length; i += 2) {
+			attr.put(attributes[i], attributes[i + 1]);
+		}
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	private String export(List<LdapNode> nodes, LdapExportFormat format, List<String> attributes)
+			throws InvalidNameException {
+
+		LdapExporter exporter = new LdapExporter(new LdapService(new ListBackend(nodes)), this.executor);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export(new LdapName("c=kr"), format, attributes, out, false);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testCsv() throws InvalidNameException {
+
+		List<LdapNode> nodes = Arrays.asList(
+				node("cn=kim,c=kr", "cn", "kim", "description", "a, \"b\""),
+				node("cn=lee,c=kr", "cn", "lee", "mail", "lee@a.kr", "mail", "lee@b.kr"));
+
+		String csv = this.export(nodes, LdapExportFormat.CSV, Arrays.asList("cn", "mail", "description"));
+
+		assertEquals("dn,cn,mail,description\r\n"
+				+ "\"cn=kim,c=kr\",kim,,\"a, \"\"b\"\"\"\r\n"
+				+ "\"cn=lee,c=kr\",lee,lee@a.kr|lee@b.kr,\r\n", csv);
+		assertThrows(IllegalArgumentException.class,
+				() -> this.export(nodes, LdapExportFormat.CSV, Collections.emptyList()));
+		assertThrows(IllegalArgumentException.class, () -> this.export(nodes, LdapExportFormat.CSV, null));
+	}
+
+	@Test
+	void testGzipJsonLines() throws InvalidNameException, IOException {
+
+		List<LdapNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			nodes.add(node("cn=user" + i + ",c=kr", "cn", "user" + i, "title", "팀장 \"" + i + "\""));
+		}
+		LdapExporter exporter = new LdapExporter(new LdapService(new ListBackend(nodes)), this.executor);
+		exporter.setBatchSize(10);
+		exporter.setQueueCapacity(2);
+		exporter.setBufferSize(512);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long count = exporter.export(new LdapName("c=kr"), LdapExportFormat.JSON_LINES, Collections.emptyList(),
+				out, true);
+
+		String text = StreamUtils.copyToString(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())),
+				StandardCharsets.UTF_8);
+		String[] lines = text.split("\n");
+		assertEquals(10_000, count);
+		assertEquals(10_000, lines.length);
+		assertEquals("{\"dn\":\"cn=user7,c=kr\",\"cn\":[\"user7\"],\"title\":[\"팀장 \\\"7\\\"\"]}", lines[7]);
+	}
+
+	@Test
+	void testLdif() throws InvalidNameException {
+
+		StringBuilder longValue = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longValue.append(i % 10);
+		}
+		List<LdapNode> nodes = Arrays.asList(
+				node("ou=개발,c=kr", "ou", "개발", "objectClass", "organizationalUnit"),
+				node("cn=kim,ou=개발,c=kr", "cn", "kim", "description", longValue.toString()));
+
+		String ldif = this.export(nodes, LdapExportFormat.LDIF, Collections.emptyList());
+		// 속성 목록이 null 이면 비어있는 것과 같다.
+		assertEquals(ldif, this.export(nodes, LdapExportFormat.LDIF, null));
+
+		String[] entries = ldif.split("\n\n");
+		assertEquals("version: 1", entries[0]);
+		assertTrue(entries[1].startsWith("dn:: b3U96rCc67CcLGM9a3I=\nobjectClass: organizationalUnit\nou:: 6rCc67Cc"));
+		String[] lines = entries[2].split("\n");
+		assertEquals("description: " + longValue.substring(0, 63), lines[2]);
+		assertEquals(" " + longValue.substring(63), lines[3]);
+	}
+
+	/**
+	 * 목록을 검색 결과로 돌려주는 백엔드
+	 */
+	private static final class ListBackend implements LdapBackend {
+
+		private final List<LdapNode> nodes;
+
+		ListBackend(List<LdapNode> nodes) {
+
+			this.nodes = nodes;
+		}
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "list";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			this.nodes.forEach(consumer);
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			this.nodes.forEach(consumer);
+		}
+	}
+}
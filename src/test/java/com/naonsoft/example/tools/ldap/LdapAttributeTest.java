@@ -0,0 +1,69 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LdapAttributeTest {
+
+	private static List<byte[]> bytes(String value) {
+
+		return Collections.singletonList(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testRemoveBinary() {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "홍길동");
+		attr.put("userPassword", "secret");
+		attr.put("thumbnailPhoto;binary", "photo");
+		attr.put("description", "text");
+		attr.putByteArray("jpegPhoto", bytes("photo"));
+		attr.putByteArray("description", bytes("text"));
+
+		// 스키마가 없으면 기본 binary 속성과 ;binary 옵션 속성을 제거한다.
+		attr.removeBinary(null);
+		assertEquals(new HashSet<>(Arrays.asList("cn", "description")), attr.keySet());
+		assertTrue(attr.getBytesAttr().isEmpty());
+	}
+
+	@Test
+	void testRemoveBinaryOnlyBytes() {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "홍길동");
+		attr.putByteArray("objectGUID", bytes("guid"));
+
+		// byte 배열로만 있는 속성은 문자열 속성에 남지 않는다.
+		attr.removeBinary(null);
+		assertEquals(Collections.singleton("cn"), attr.keySet());
+		assertTrue(attr.getBytesAttr().isEmpty());
+	}
+
+	@Test
+	void testRemoveBinarySchema() {
+
+		LdapAttribute schemaAttr = new LdapAttribute();
+		schemaAttr.put("attributeTypes", "( 1.2.840.113556.1.4.2 NAME 'objectGUID' "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.40 SINGLE-VALUE NO-USER-MODIFICATION )");
+		schemaAttr.put("attributeTypes", "( 2.5.4.3 NAME 'cn' SYNTAX 1.3.6.1.4.1.1466.115.121.1.15 )");
+		LdapSchema schema = LdapSchema.parse(schemaAttr);
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "홍길동");
+		attr.put("objectGUID", "guid");
+		attr.put("jpegPhoto", "photo");
+
+		// 스키마의 binary 형식 속성과 기본 binary 속성을 제거한다.
+		attr.removeBinary(schema);
+		assertEquals(Collections.singleton("cn"), attr.keySet());
+	}
+}
@@ -0,0 +1,165 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldif.LDIFException;
+
+class LdapChangeNotifierTest {
+
+	private InMemoryDirectoryServer server;
+
+	private LdapService service;
+
+	private ScheduledExecutorService scheduler;
+
+	private LdapChangeNotifier notifier;
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+
+		long end = System.currentTimeMillis() + 10_000;
+		while (condition.getAsBoolean() == false) {
+			assertTrue(System.currentTimeMillis() < end, "제한 시간 안에 조건을 만족하지 않았습니다.");
+			Thread.sleep(20);
+		}
+	}
+
+	private static LdapChangeEvent awaitEvent(List<LdapChangeEvent> events, LdapChangeEvent.Type type, String dn)
+			throws InterruptedException {
+
+		await(() -> find(events, type, dn) != null);
+		return find(events, type, dn);
+	}
+
+	private static LdapChangeEvent find(List<LdapChangeEvent> events, LdapChangeEvent.Type type, String dn) {
+
+		return events.stream().filter(event -> event.getType() == type && event.getDn().equals(name(dn)))
+				.findFirst().orElse(null);
+	}
+
+	private static LdapName name(String dn) {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new LogicError(e);
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws LDAPException, LDIFException {
+
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("c=kr");
+		config.addAdditionalBindCredentials("cn=admin", "secret");
+		config.setListenerConfigs(
+				InMemoryListenerConfig.createLDAPConfig("test", InetAddress.getLoopbackAddress(), 0, null));
+		this.server = new InMemoryDirectoryServer(config);
+		this.server.add("dn: c=kr", "objectClass: country", "c: kr");
+		this.server.add("dn: ou=dev,c=kr", "objectClass: organizationalUnit", "ou: dev");
+		this.server.add("dn: ou=sales,c=kr", "objectClass: organizationalUnit", "ou: sales");
+		this.server.add("dn: cn=a,ou=dev,c=kr", "objectClass: person", "cn: a", "sn: a");
+		this.server.startListening();
+
+		this.service = new LdapService(new UnboundIdLdapBackend("127.0.0.1:" + this.server.getListenPort(),
+				"cn=admin", "secret", 3_000, 3_000, 2));
+		this.scheduler = Executors.newSingleThreadScheduledExecutor();
+		this.notifier = new LdapChangeNotifier(this.service, this.scheduler);
+		this.notifier.setPollInterval(Duration.ofMillis(50));
+		this.notifier.setScanInterval(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		this.notifier.close();
+		this.scheduler.shutdownNow();
+		this.service.getBackend().close();
+		this.server.shutDown(true);
+	}
+
+	/**
+	 * 첫 폴링은 현재 상태만 기록하므로, dn 변경이 전달될 때까지 dn 을 반복해서 수정합니다.
+	 */
+	private void awaitWatching(List<LdapChangeEvent> events, String dn) throws InterruptedException {
+
+		await(() -> {
+			try {
+				this.server.modify(dn, new Modification(ModificationType.REPLACE, "description", "probe"));
+			} catch (LDAPException e) {
+				throw new LogicError(e);
+			}
+			return events.stream().anyMatch(event -> event.getDn().equals(name(dn)));
+		});
+		events.clear();
+	}
+
+	@Test
+	void testPolling() throws LDAPException, LDIFException, InterruptedException {
+
+		// 메모리 서버는 영구 검색을 지원하지 않으므로 폴링으로 전환한다.
+		List<LdapChangeEvent> events = new CopyOnWriteArrayList<>();
+		this.notifier.subscribe(name("ou=dev,c=kr"), events::add);
+		this.awaitWatching(events, "ou=dev,c=kr");
+
+		this.server.add("dn: cn=b,ou=dev,c=kr", "objectClass: person", "cn: b", "sn: b");
+		this.server.modify("cn=a,ou=dev,c=kr", new Modification(ModificationType.REPLACE, "sn", "changed"));
+		awaitEvent(events, LdapChangeEvent.Type.ADD, "cn=b,ou=dev,c=kr");
+		LdapChangeEvent modify = awaitEvent(events, LdapChangeEvent.Type.MODIFY, "cn=a,ou=dev,c=kr");
+		assertEquals("changed", modify.getNode().get().getValue("sn").get());
+
+		this.server.delete("cn=b,ou=dev,c=kr");
+		assertFalse(awaitEvent(events, LdapChangeEvent.Type.DELETE, "cn=b,ou=dev,c=kr").getNode().isPresent());
+	}
+
+	@Test
+	void testScanInterval() {
+
+		assertThrows(LogicError.class, () -> this.notifier.setScanInterval(0));
+	}
+
+	@Test
+	void testSubscriptionBase() throws LDAPException, LDIFException, InterruptedException {
+
+		// 상위 DN 감시를 함께 사용하고, 구독한 DN 하위의 이벤트만 전달한다.
+		List<LdapChangeEvent> all = new CopyOnWriteArrayList<>();
+		List<LdapChangeEvent> sales = new CopyOnWriteArrayList<>();
+		this.notifier.subscribe(name("c=kr"), all::add);
+		LdapChangeNotifier.Subscription subscription = this.notifier.subscribe(name("ou=sales,c=kr"), sales::add);
+		assertEquals(1, this.notifier.getWatchedBases().size());
+		this.awaitWatching(all, "ou=sales,c=kr");
+
+		this.server.modify("cn=a,ou=dev,c=kr", new Modification(ModificationType.REPLACE, "sn", "changed"));
+		awaitEvent(all, LdapChangeEvent.Type.MODIFY, "cn=a,ou=dev,c=kr");
+		assertTrue(sales.stream().allMatch(event -> event.isUnder(name("ou=sales,c=kr"))));
+
+		subscription.close();
+		int received = sales.size();
+		this.server.add("dn: cn=c,ou=sales,c=kr", "objectClass: person", "cn: c", "sn: c");
+		awaitEvent(all, LdapChangeEvent.Type.ADD, "cn=c,ou=sales,c=kr");
+		assertEquals(received, sales.size());
+	}
+}
@@ -0,0 +1,111 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LdapTimeoutError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldif.LDIFException;
+
+/**
+ * 응답하지 않는 메모리 LDAP 서버를 대상으로 한 제한 시각 테스트
+ */
+class LdapConnectionTest {
+
+	/** 열려 있지 않으면 서버가 검색에 응답하지 않는다. */
+	private volatile CountDownLatch stall;
+
+	private InMemoryDirectoryServer server;
+
+	private JndiLdapBackend backend;
+
+	@BeforeEach
+	void setUp() throws LDAPException, LDIFException {
+
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("c=kr");
+		config.setListenerConfigs(
+				InMemoryListenerConfig.createLDAPConfig("test", InetAddress.getLoopbackAddress(), 0, null));
+		config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+
+			@Override
+			public void processSearchRequest(InMemoryInterceptedSearchRequest request) throws LDAPException {
+
+				CountDownLatch current = LdapConnectionTest.this.stall;
+				if (current == null) {
+					return;
+				}
+				try {
+					current.await(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		this.server = new InMemoryDirectoryServer(config);
+		this.server.add("dn: c=kr", "objectClass: country", "c: kr");
+		this.server.startListening();
+
+		LdapConnection connection = new LdapConnection("127.0.0.1:" + this.server.getListenPort());
+		connection.setReadTimeout(30_000);
+		this.backend = new JndiLdapBackend(connection);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		CountDownLatch current = this.stall;
+		if (current != null) {
+			current.countDown();
+		}
+		this.backend.close();
+		this.server.shutDown(true);
+	}
+
+	@Test
+	void testStalledRead() throws InvalidNameException {
+
+		LdapName dn = new LdapName("c=kr");
+		// 제한 시각이 없는 조회는 연결 풀의 연결(응답 대기 30초)을 사용한다.
+		assertEquals("kr", this.backend.read(dn, null, Deadline.none()).get("c").get(0));
+
+		this.stall = new CountDownLatch(1);
+		long start = System.nanoTime();
+		assertThrows(LdapTimeoutError.class,
+				() -> this.backend.read(dn, null, Deadline.after(Duration.ofMillis(300))));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		// 연결 풀의 응답 대기 제한 시간이 아니라 남은 시간 안에 끝난다.
+		assertTrue(elapsed < 5_000, "elapsed " + elapsed + "ms");
+	}
+
+	@Test
+	void testStalledSearch() throws InvalidNameException {
+
+		this.stall = new CountDownLatch(1);
+		long start = System.nanoTime();
+		assertThrows(LdapTimeoutError.class, () -> this.backend.search(new LdapName("c=kr"), 1, "(objectClass=*)",
+				null, Deadline.after(Duration.ofMillis(300)), node -> {
+				}));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed < 5_000, "elapsed " + elapsed + "ms");
+	}
+
+}
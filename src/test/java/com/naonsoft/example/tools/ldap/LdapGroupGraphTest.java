@@ -0,0 +1,125 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldif.LDIFException;
+
+class LdapGroupGraphTest {
+
+	private static LdapName name(String dn) throws InvalidNameException {
+
+		return new LdapName(dn);
+	}
+
+	@Test
+	void testLoad() throws LDAPException, LDIFException, InvalidNameException {
+
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("c=kr");
+		config.setListenerConfigs(
+				InMemoryListenerConfig.createLDAPConfig("test", InetAddress.getLoopbackAddress(), 0, null));
+		// memberOf 를 직접 넣기 위해 스키마 검사를 하지 않는다.
+		config.setSchema(null);
+		InMemoryDirectoryServer server = new InMemoryDirectoryServer(config);
+		server.add("dn: c=kr", "objectClass: country", "c: kr");
+		server.add("dn: cn=all,c=kr", "objectClass: groupOfNames", "cn: all", "member: cn=dev,c=kr");
+		server.add("dn: cn=dev,c=kr", "objectClass: groupOfUniqueNames", "cn: dev",
+				"uniqueMember: cn=kim,c=kr#'0101'B");
+		server.add("dn: cn=empty,c=kr", "objectClass: groupOfNames", "cn: empty");
+		server.add("dn: cn=kim,c=kr", "objectClass: person", "cn: kim", "sn: kim");
+		server.add("dn: cn=lee,c=kr", "objectClass: person", "cn: lee", "sn: lee", "memberOf: cn=dev,c=kr");
+		server.startListening();
+
+		AtomicInteger searches = new AtomicInteger();
+		AtomicInteger pagedSearches = new AtomicInteger();
+		UnboundIdLdapBackend backend = new UnboundIdLdapBackend("127.0.0.1:" + server.getListenPort(), null, null,
+				3_000, 3_000, 1) {
+
+			@Override
+			public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+					Consumer<LdapNode> consumer) {
+
+				searches.incrementAndGet();
+				super.search(base, scope, filter, attributes, deadline, consumer);
+			}
+
+			@Override
+			public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+					Deadline deadline, Consumer<LdapNode> consumer) {
+
+				pagedSearches.incrementAndGet();
+				super.searchPaged(base, scope, filter, attributes, pageSize, deadline, consumer);
+			}
+		};
+		try {
+			LdapGroupGraph graph = LdapGroupGraph.load(new LdapService(backend), name("c=kr"));
+
+			// 서버의 크기 제한을 받지 않도록 페이지 단위로만 검색한다.
+			assertEquals(0, searches.get());
+			assertEquals(2, pagedSearches.get());
+			assertEquals(3, graph.getGroupCount());
+			assertTrue(graph.isMember(name("cn=kim,c=kr"), name("cn=all,c=kr")));
+			assertTrue(graph.isMember(name("cn=lee,c=kr"), name("cn=all,c=kr")));
+			assertTrue(graph.getMembers(name("cn=empty,c=kr")).isEmpty());
+		} finally {
+			backend.close();
+			server.shutDown(true);
+		}
+	}
+
+	@Test
+	void testNested() throws InvalidNameException {
+
+		LdapName all = name("cn=all,ou=groups,c=kr");
+		LdapName dev = name("cn=dev,ou=groups,c=kr");
+		LdapName ops = name("cn=ops,ou=groups,c=kr");
+		LdapName loop = name("cn=loop,ou=groups,c=kr");
+		LdapName kim = name("cn=kim,ou=people,c=kr");
+		LdapName lee = name("cn=lee,ou=people,c=kr");
+		LdapName park = name("cn=park,ou=people,c=kr");
+
+		Map<LdapName, List<LdapName>> members = new LinkedHashMap<>();
+		members.put(all, Arrays.asList(dev, ops));
+		members.put(dev, Arrays.asList(kim, loop));
+		// ops <-> loop 순환
+		members.put(ops, Arrays.asList(lee, loop));
+		members.put(loop, Arrays.asList(park, ops));
+
+		LdapGroupGraph graph = LdapGroupGraph.of(members);
+
+		assertEquals(4, graph.getGroupCount());
+		assertEquals(3, graph.getUserCount());
+		assertTrue(graph.isMember(kim, all));
+		assertTrue(graph.isMember(lee, dev));
+		assertTrue(graph.isMember(park, ops));
+		assertFalse(graph.isMember(kim, ops));
+		assertTrue(graph.isMember(loop, all));
+		assertFalse(graph.isMember(all, dev));
+
+		assertEquals(new HashSet<>(Arrays.asList(kim, lee, park)), new HashSet<>(graph.getMembers(all)));
+		assertEquals(new HashSet<>(Arrays.asList(all, dev, ops, loop)), new HashSet<>(graph.getGroups(park)));
+		assertEquals(1, graph.getCycles().size());
+		assertEquals(new HashSet<>(Arrays.asList(ops, loop)), new HashSet<>(graph.getCycles().get(0)));
+	}
+
+}
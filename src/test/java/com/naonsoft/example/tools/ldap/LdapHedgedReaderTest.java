@@ -0,0 +1,226 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.DeadlineExceededError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+class LdapHedgedReaderTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	private final ReplicaBackend first = new ReplicaBackend("first");
+
+	private final ReplicaBackend second = new ReplicaBackend("second");
+
+	private final LdapHedgedReader reader = new LdapHedgedReader(
+			Arrays.asList(new LdapService(this.first), new LdapService(this.second)), this.executor);
+
+	private static LdapName dn(String dn) throws InvalidNameException {
+
+		return new LdapName(dn);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		this.first.delayMillis = 0;
+		this.second.delayMillis = 0;
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * 추가 요청 기준 응답 시간을 계산할 수 있도록 빠른 응답을 쌓습니다. (다음 요청은 first 부터)<br>
+	 * 쌓는 동안 늦게 끝난 요청과 공유되지 않도록 검증할 요청은 다른 DN 을 조회해야 합니다.
+	 *
+	 * @return 쌓는 동안 발생한 추가 요청 수
+	 */
+	private long warmUp() throws InvalidNameException {
+
+		// 쌓는 동안 응답 시간이 흔들려 생긴 추가 요청 때문에 검증할 추가 요청이 제한되지 않도록 한다.
+		this.reader.setMaxHedgeRatio(1);
+		for (int i = 0; i < 40; i++) {
+			this.reader.getAttr(dn("c=kr"), Deadline.none());
+		}
+		return this.reader.getHedgeCount();
+	}
+
+	@Test
+	void testClose() {
+
+		ReplicaBackend owned = new ReplicaBackend("owned");
+		this.reader.addOwnedBackend(owned);
+		this.reader.close();
+		assertTrue(owned.closed);
+		assertEquals(false, this.first.closed);
+	}
+
+	@Test
+	void testDeadline() throws InvalidNameException {
+
+		this.warmUp();
+		this.first.delayMillis = 2_000;
+		this.second.delayMillis = 2_000;
+
+		LdapName dn = dn("o=test");
+		assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertThrows(DeadlineExceededError.class,
+				() -> this.reader.getAttr(dn, Deadline.after(Duration.ofMillis(100)))));
+	}
+
+	@Test
+	void testFailover() throws InvalidNameException {
+
+		long hedged = this.warmUp();
+		this.first.fail = true;
+
+		// 먼저 요청한 서버가 바로 실패하면 다른 서버의 응답을 사용한다.
+		LdapAttribute attr = this.reader.getAttr(dn("o=test"), Deadline.none());
+		assertEquals(Collections.singletonList("second"), attr.get("server"));
+		assertEquals(hedged + 1, this.reader.getHedgeCount());
+	}
+
+	@Test
+	void testHedge() throws InvalidNameException {
+
+		long hedged = this.warmUp();
+		this.first.delayMillis = 2_000;
+		this.first.interrupted = false;
+
+		LdapName dn = dn("o=test");
+		LdapAttribute attr = assertTimeoutPreemptively(Duration.ofSeconds(1),
+				() -> this.reader.getAttr(dn, Deadline.none()));
+		assertEquals(Collections.singletonList("second"), attr.get("server"));
+		assertEquals(hedged + 1, this.reader.getHedgeCount());
+		assertEquals(41, this.reader.getRequestCount());
+
+		// 진 요청은 취소되어 인터럽트된다.
+		assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+			while (this.first.interrupted == false) {
+				Thread.sleep(10);
+			}
+		});
+	}
+
+	@Test
+	void testLatencyPerOperation() throws InvalidNameException {
+
+		long hedged = this.warmUp();
+		this.first.delayMillis = 100;
+
+		// getAttr 의 응답 시간은 getChilds 의 추가 요청 기준이 되지 않는다.
+		List<LdapNode> childs = this.reader.getChilds(dn("o=test"), Deadline.none());
+		assertTrue(childs.isEmpty());
+		assertEquals(hedged, this.reader.getHedgeCount());
+	}
+
+	@Test
+	void testNoSamples() throws InvalidNameException {
+
+		// 응답 시간 표본이 부족하면 추가 요청 없이 기다린다.
+		this.first.delayMillis = 100;
+		LdapAttribute attr = this.reader.getAttr(dn("o=test"), Deadline.none());
+		assertEquals(Collections.singletonList("first"), attr.get("server"));
+		assertEquals(0, this.reader.getHedgeCount());
+	}
+
+	/**
+	 * 자기 이름을 server 속성으로 응답하는 서버 (응답 지연, 실패 지정 가능)
+	 */
+	private static final class ReplicaBackend implements LdapBackend {
+
+		private final String name;
+
+		private volatile long delayMillis;
+
+		private volatile boolean fail;
+
+		private volatile boolean closed;
+
+		private volatile boolean interrupted;
+
+		ReplicaBackend(String name) {
+
+			this.name = name;
+		}
+
+		@Override
+		public void close() {
+
+			this.closed = true;
+		}
+
+		@Override
+		public String getName() {
+
+			return this.name;
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			if (this.fail) {
+				throw new IllegalStateException("fail : " + this.name);
+			}
+			this.sleep();
+			LdapAttribute attr = new LdapAttribute();
+			attr.put("server", this.name);
+			return attr;
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * 자식이 없는 것으로 응답합니다.
+		 */
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			this.sleep();
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		private void sleep() {
+
+			try {
+				Thread.sleep(this.delayMillis);
+			} catch (InterruptedException e) {
+				this.interrupted = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.tree.Tree;
+
+class LdapLazyTreeTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private final TreeBackend backend = new TreeBackend();
+
+	private static LdapNode node(String dn) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("objectClass", "top");
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	private LdapLazyTree newTree() throws InvalidNameException {
+
+		for (String dn : new String[] { "ou=a,c=kr", "ou=b,c=kr", "cn=1,ou=a,c=kr", "cn=2,ou=a,c=kr",
+				"cn=3,ou=b,c=kr" }) {
+			this.backend.nodes.add(node(dn));
+		}
+		return new LdapLazyTree(new LdapService(this.backend), node("c=kr"), this.now::get);
+	}
+
+	@Test
+	void testEvictIdle() throws InvalidNameException {
+
+		LdapLazyTree tree = this.newTree();
+		tree.setIdleTimeout(Duration.ofNanos(100));
+		LdapLazyTree a = (LdapLazyTree) tree.getChild(0).get();
+		LdapLazyTree b = (LdapLazyTree) tree.getChild(1).get();
+		assertEquals(2, a.getChildCount());
+		assertEquals(1, b.getChildCount());
+		assertEquals(3, this.backend.searches.get());
+
+		this.now.set(150);
+		a.getChildCount();
+		assertEquals(1, tree.evictIdle());
+		assertTrue(a.isLoaded());
+		assertFalse(b.isLoaded());
+
+		assertEquals(1, b.getChildCount());
+		assertEquals(4, this.backend.searches.get());
+	}
+
+	@Test
+	void testLazy() throws InvalidNameException {
+
+		LdapLazyTree tree = this.newTree();
+		assertFalse(tree.isLoaded());
+		assertEquals(0, this.backend.searches.get());
+
+		assertEquals(2, tree.getChildCount());
+		tree.getChilds();
+		assertEquals(1, this.backend.searches.get());
+
+		assertEquals(6, tree.size());
+		assertEquals(6, this.backend.searches.get());
+	}
+
+	@Test
+	void testPrefetch() throws InvalidNameException {
+
+		LdapLazyTree tree = this.newTree();
+		tree.setPrefetch(Runnable::run, 1);
+		tree.sortRecursive((o1, o2) -> o2.getDn().compareTo(o1.getDn()));
+
+		List<Tree<LdapNode>> childs = tree.getChilds();
+		assertEquals("ou=b,c=kr", childs.get(0).getData().getDn().toString());
+		assertEquals(2, this.backend.searches.get());
+
+		// ou=b 는 미리 읽은 결과를 사용하고 cn=3 을 미리 읽음
+		assertEquals(1, childs.get(0).getChildCount());
+		assertEquals(3, this.backend.searches.get());
+		// ou=a 는 검색하고 cn=2 를 미리 읽음
+		assertEquals(2, childs.get(1).getChildCount());
+		assertEquals(5, this.backend.searches.get());
+	}
+
+	/**
+	 * 목록에서 1레벨 자식을 찾아 주는 백엔드
+	 */
+	private static final class TreeBackend implements LdapBackend {
+
+		private final List<LdapNode> nodes = new ArrayList<>();
+
+		private final AtomicInteger searches = new AtomicInteger();
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "tree";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			this.searches.incrementAndGet();
+			for (LdapNode node : this.nodes) {
+				if (node.getParentDn().filter(base::equals).isPresent()) {
+					consumer.accept(node);
+				}
+			}
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+	}
+}
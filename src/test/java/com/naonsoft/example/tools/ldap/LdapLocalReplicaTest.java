@@ -0,0 +1,315 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.NameAlreadyBoundException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldap.sdk.ModifyDNRequest;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldif.LDIFException;
+
+class LdapLocalReplicaTest {
+
+	private static final String BASE = "c=kr";
+
+	private static final String REPLICA_DN = "cn=replica";
+
+	private static final String REPLICA_PASSWORD = "replica-secret";
+
+	/** 원본 서버 */
+	private InMemoryDirectoryServer origin;
+
+	private LdapService service;
+
+	private LdapLocalReplica replica;
+
+	private ScheduledExecutorService scheduler;
+
+	/** 원본 서버 페이징 검색이 끝난 뒤 실행할 작업 (복사 중 변경 재현용) */
+	private volatile Runnable afterSearch;
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+
+		long end = System.currentTimeMillis() + 10_000;
+		while (condition.getAsBoolean() == false) {
+			assertTrue(System.currentTimeMillis() < end, "제한 시간 안에 조건을 만족하지 않았습니다.");
+			Thread.sleep(20);
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws LDAPException, LDIFException {
+
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE);
+		config.addAdditionalBindCredentials("cn=admin", "secret");
+		config.setListenerConfigs(
+				InMemoryListenerConfig.createLDAPConfig("origin", InetAddress.getLoopbackAddress(), 0, null));
+		this.origin = new InMemoryDirectoryServer(config);
+		this.origin.add("dn: c=kr", "objectClass: country", "c: kr");
+		this.origin.add("dn: ou=dev,c=kr", "objectClass: organizationalUnit", "ou: dev");
+		this.origin.add("dn: cn=a,ou=dev,c=kr", "objectClass: person", "cn: a", "sn: a");
+		this.origin.add("dn: cn=b,ou=dev,c=kr", "objectClass: person", "cn: b", "sn: b");
+		this.origin.startListening();
+
+		UnboundIdLdapBackend backend = new UnboundIdLdapBackend("127.0.0.1:" + this.origin.getListenPort(),
+				"cn=admin", "secret", 3_000, 3_000, 2) {
+
+			@Override
+			public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+					Deadline deadline, Consumer<LdapNode> consumer) {
+
+				super.searchPaged(base, scope, filter, attributes, pageSize, deadline, consumer);
+				Runnable task = LdapLocalReplicaTest.this.afterSearch;
+				LdapLocalReplicaTest.this.afterSearch = null;
+				if (task != null) {
+					task.run();
+				}
+			}
+		};
+		this.service = new LdapService(backend);
+		this.replica = new LdapLocalReplica(this.service, Collections.singletonList(name(BASE)));
+		this.replica.setBindCredentials(REPLICA_DN, REPLICA_PASSWORD);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		this.replica.close();
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+		}
+		this.service.getBackend().close();
+		this.origin.shutDown(true);
+	}
+
+	private static LdapName name(String dn) {
+
+		try {
+			return new LdapName(dn);
+		} catch (InvalidNameException e) {
+			throw new LogicError(e);
+		}
+	}
+
+	private LDAPConnection connectReplica() throws LDAPException {
+
+		return new LDAPConnection("127.0.0.1", this.replica.getListenPort(), REPLICA_DN, REPLICA_PASSWORD);
+	}
+
+	@Test
+	void testAnonymous() throws LDAPException {
+
+		this.replica.setForwardWrites(true);
+		this.replica.start(null);
+
+		// 익명 접속은 조회와 쓰기 모두 거부하고, 쓰기 요청을 원본 서버로 전달하지 않는다.
+		try (LDAPConnection connection = new LDAPConnection("127.0.0.1", this.replica.getListenPort())) {
+			LDAPException e = assertThrows(LDAPException.class, () -> connection.getEntry("cn=a,ou=dev,c=kr"));
+			assertEquals(ResultCode.INSUFFICIENT_ACCESS_RIGHTS, e.getResultCode());
+
+			e = assertThrows(LDAPException.class, () -> connection.modify("cn=a,ou=dev,c=kr",
+					new Modification(ModificationType.REPLACE, "sn", "anonymous")));
+			assertEquals(ResultCode.INSUFFICIENT_ACCESS_RIGHTS, e.getResultCode());
+
+			// 잘못된 비밀번호로 bind 하면 이전 인증도 잃는다.
+			connection.bind(REPLICA_DN, REPLICA_PASSWORD);
+			assertThrows(LDAPException.class, () -> connection.bind(REPLICA_DN, "wrong"));
+			e = assertThrows(LDAPException.class, () -> connection.modify("cn=a,ou=dev,c=kr",
+					new Modification(ModificationType.REPLACE, "sn", "anonymous")));
+			assertEquals(ResultCode.INSUFFICIENT_ACCESS_RIGHTS, e.getResultCode());
+		}
+		assertEquals("a", this.origin.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		assertEquals(0, this.replica.getForwardedWriteCount());
+	}
+
+	@Test
+	void testCopy() throws LDAPException {
+
+		this.replica.start(null);
+
+		assertEquals(4, this.replica.size());
+		try (LDAPConnection connection = this.connectReplica()) {
+			assertEquals("a", connection.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		}
+	}
+
+	@Test
+	void testEventDuringCopy() throws LDAPException {
+
+		// 복사할 항목을 읽은 뒤 원본에서 삭제, 수정되고 그 이벤트가 복사 완료 전에 도착한 경우
+		this.afterSearch = () -> {
+			try {
+				this.origin.delete("cn=b,ou=dev,c=kr");
+				this.origin.modify("cn=a,ou=dev,c=kr", new Modification(ModificationType.REPLACE, "sn", "changed"));
+			} catch (LDAPException e) {
+				throw new LogicError(e);
+			}
+			this.replica.apply(new LdapChangeEvent(LdapChangeEvent.Type.DELETE, name("cn=b,ou=dev,c=kr"), null, null));
+			this.replica.apply(new LdapChangeEvent(LdapChangeEvent.Type.MODIFY, name("cn=a,ou=dev,c=kr"), null, null));
+		};
+		this.replica.start(null);
+
+		// 보류한 이벤트가 복사 뒤에 반영되어 삭제된 항목이 되살아나지 않는다.
+		try (LDAPConnection connection = this.connectReplica()) {
+			assertNull(connection.getEntry("cn=b,ou=dev,c=kr"));
+			assertEquals("changed", connection.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		}
+		assertEquals(2, this.replica.getAppliedChangeCount());
+	}
+
+	@Test
+	void testForwardWrites() throws LDAPException, LDIFException {
+
+		this.replica.setForwardWrites(true);
+		this.replica.start(null);
+
+		try (LDAPConnection connection = this.connectReplica()) {
+			connection.modify("cn=a,ou=dev,c=kr", new Modification(ModificationType.REPLACE, "sn", "forwarded"));
+			connection.add("dn: cn=c,ou=dev,c=kr", "objectClass: person", "cn: c", "sn: c");
+
+			assertEquals("forwarded", connection.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+			assertNotNull(connection.getEntry("cn=c,ou=dev,c=kr"));
+		}
+		assertEquals("forwarded", this.origin.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		assertNotNull(this.origin.getEntry("cn=c,ou=dev,c=kr"));
+		assertEquals(2, this.replica.getForwardedWriteCount());
+	}
+
+	@Test
+	void testNoCredentials() {
+
+		LdapLocalReplica unsecured = new LdapLocalReplica(this.service, Collections.singletonList(name(BASE)));
+		assertThrows(LogicError.class, () -> unsecured.setBindCredentials(REPLICA_DN, ""));
+		assertThrows(LogicError.class, () -> unsecured.start(null));
+	}
+
+	@Test
+	void testNotifierEvents() throws LDAPException, InterruptedException {
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor();
+		LdapChangeNotifier notifier = new LdapChangeNotifier(this.service, this.scheduler);
+		notifier.setPersistentSearch(false);
+		notifier.setPollInterval(Duration.ofMillis(50));
+		notifier.setScanInterval(1);
+		this.replica.start(notifier);
+
+		// 첫 폴링은 현재 상태만 기록하므로, 기준 항목 변경이 전달될 때까지 기다린다.
+		AtomicBoolean watching = new AtomicBoolean();
+		notifier.subscribe(name(BASE), event -> watching.set(true));
+		await(() -> {
+			try {
+				this.origin.modify(BASE, new Modification(ModificationType.REPLACE, "description", "probe"));
+			} catch (LDAPException e) {
+				throw new LogicError(e);
+			}
+			return watching.get();
+		});
+
+		this.origin.modify("cn=a,ou=dev,c=kr", new Modification(ModificationType.REPLACE, "sn", "polled"));
+		this.origin.delete("cn=b,ou=dev,c=kr");
+
+		try (LDAPConnection connection = this.connectReplica()) {
+			await(() -> {
+				try {
+					return "polled".equals(connection.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"))
+							&& connection.getEntry("cn=b,ou=dev,c=kr") == null;
+				} catch (LDAPException e) {
+					throw new LogicError(e);
+				}
+			});
+		}
+		notifier.close();
+	}
+
+	@Test
+	void testReadOnly() throws LDAPException {
+
+		this.replica.start(null);
+
+		try (LDAPConnection connection = this.connectReplica()) {
+			LDAPException e = assertThrows(LDAPException.class, () -> connection.modify("cn=a,ou=dev,c=kr",
+					new Modification(ModificationType.REPLACE, "sn", "rejected")));
+			assertEquals(ResultCode.UNWILLING_TO_PERFORM, e.getResultCode());
+			assertEquals("a", connection.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		}
+		assertEquals("a", this.origin.getEntry("cn=a,ou=dev,c=kr").getAttributeValue("sn"));
+		assertEquals(0, this.replica.getForwardedWriteCount());
+	}
+
+	@Test
+	void testToEntry() throws InvalidNameException {
+
+		LdapAttribute attributes = new LdapAttribute();
+		attributes.put("cn", "홍길동");
+		attributes.put("userPassword", "{SSHA}xxx");
+		attributes.putByteArray("jpegPhoto", Collections.singletonList(new byte[] { 1, 2 }));
+
+		Entry entry = LdapLocalReplica.toEntry(new LdapNode(new LdapName("cn=홍길동,c=kr"), attributes));
+
+		assertEquals("홍길동", entry.getAttributeValue("cn"));
+		assertFalse(entry.hasAttribute("userPassword"));
+		assertEquals(2, entry.getAttributeValueBytes("jpegPhoto").length);
+	}
+
+	@Test
+	void testToNewDn() throws LDAPException, InvalidNameException {
+
+		assertEquals(new LdapName("cn=b,ou=x,c=kr"),
+				LdapLocalReplica.toNewDn(new ModifyDNRequest("cn=a,ou=x,c=kr", "cn=b", true)));
+		assertEquals(new LdapName("cn=b,ou=y,c=kr"),
+				LdapLocalReplica.toNewDn(new ModifyDNRequest("cn=a,ou=x,c=kr", "cn=b", true, "ou=y,c=kr")));
+	}
+
+	@Test
+	void testToWriteOperation() throws LDAPException {
+
+		LdapWriteOperation operation = LdapLocalReplica.toWriteOperation("cn=a,c=kr",
+				Arrays.asList(new Modification(ModificationType.REPLACE, "title", "팀장"),
+						new Modification(ModificationType.DELETE, "mail")));
+		assertEquals(2, operation.getModifications().size());
+		assertEquals(LdapWriteOperation.ModificationType.REMOVE, operation.getModifications().get(1).getType());
+
+		LDAPException e = assertThrows(LDAPException.class, () -> LdapLocalReplica.toWriteOperation("cn=a,c=kr",
+				Collections.singletonList(new Modification(ModificationType.INCREMENT, "uidNumber", "1"))));
+		assertEquals(ResultCode.UNWILLING_TO_PERFORM, e.getResultCode());
+	}
+
+	@Test
+	void testToResultCode() {
+
+		assertEquals(ResultCode.ENTRY_ALREADY_EXISTS,
+				LdapLocalReplica.toResultCode(new LogicError(new NameAlreadyBoundException())));
+		assertEquals(ResultCode.OTHER, LdapLocalReplica.toResultCode(new LogicError("x")));
+	}
+}
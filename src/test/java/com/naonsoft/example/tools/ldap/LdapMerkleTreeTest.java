@@ -0,0 +1,95 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.tree.Tree;
+import com.naonsoft.example.tools.tree.TreeImpl;
+
+class LdapMerkleTreeTest {
+
+	private static LdapNode node(String dn, String... values) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("objectClass", "top");
+		for (String value : values) {
+			attr.put("description", value);
+		}
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	/**
+	 * o=naon ─┬ ou=a ─┬ cn=1
+	 *         │       └ cn=2
+	 *         └ ou=b ─ cn=3
+	 */
+	private static Tree<LdapNode> newTree(String description) throws InvalidNameException {
+
+		Tree<LdapNode> root = new TreeImpl<>(null, node("o=naon"));
+		Tree<LdapNode> a = root.addChild(node("ou=a,o=naon"));
+		Tree<LdapNode> b = root.addChild(node("ou=b,o=naon"));
+		a.addChild(node("cn=1,ou=a,o=naon"));
+		a.addChild(node("cn=2,ou=a,o=naon"));
+		b.addChild(node("cn=3,ou=b,o=naon", description));
+		return root;
+	}
+
+	@Test
+	void testContentHash() throws InvalidNameException {
+
+		assertArrayEquals(node("cn=1,o=naon", "x", "y").getContentHash(),
+				node("CN=1,O=naon", "y", "x").getContentHash());
+		// 공백과 escape 방식이 달라도 같은 DN 이다.
+		assertArrayEquals(node("cn=a\\,b,o=naon", "x").getContentHash(),
+				node("cn = a\\2Cb , o=naon", "x").getContentHash());
+		assertArrayEquals(node("cn=a+sn=b,o=naon", "x").getContentHash(),
+				node("SN=b+cn=a,o=naon", "x").getContentHash());
+		assertFalse(Arrays.equals(node("cn=1,o=naon", "x").getContentHash(),
+				node("cn=1,o=naon", "xy").getContentHash()));
+	}
+
+	@Test
+	void testDiff() throws InvalidNameException {
+
+		LdapMerkleTree before = LdapMerkleTree.of(newTree("old"));
+		assertTrue(before.diff(LdapMerkleTree.of(newTree("old"))).isEmpty());
+
+		LdapMerkleTree.Diff diff = before.diff(LdapMerkleTree.of(newTree("new")));
+
+		assertEquals(Collections.singletonList(new LdapName("cn=3,ou=b,o=naon")), diff.getChanged());
+		assertTrue(diff.getAdded().isEmpty());
+		// ou=a 는 하위 트리 해시가 같으므로 cn=1, cn=2 까지 내려가지 않는다.
+		assertEquals(4, diff.getComparedCount());
+
+		Tree<LdapNode> fresh = newTree("old");
+		fresh.getChild(0).get().addChild(node("cn=4,ou=a,o=naon"));
+		diff = before.diff(LdapMerkleTree.of(fresh));
+
+		assertTrue(diff.getChanged().isEmpty());
+		assertEquals(Collections.singletonList(new LdapName("cn=4,ou=a,o=naon")), diff.getAdded());
+		assertTrue(diff.getRemoved().isEmpty());
+	}
+
+	@Test
+	void testDiffLevel() throws InvalidNameException {
+
+		LdapMerkleTree before = LdapMerkleTree.of(newTree("old"));
+
+		LdapMerkleTree.Diff diff = before.diffLevel(new LdapName("ou=a,o=naon"),
+				Arrays.asList(node("cn=1,ou=a,o=naon", "changed"), node("cn=5,ou=a,o=naon")));
+
+		assertEquals(Collections.singletonList(new LdapName("cn=1,ou=a,o=naon")), diff.getChanged());
+		assertEquals(Collections.singletonList(new LdapName("cn=5,ou=a,o=naon")), diff.getAdded());
+		assertEquals(Collections.singletonList(new LdapName("cn=2,ou=a,o=naon")), diff.getRemoved());
+	}
+}
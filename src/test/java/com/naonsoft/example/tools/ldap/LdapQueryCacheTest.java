@@ -0,0 +1,109 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.InvalidNameException;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+class LdapQueryCacheTest {
+
+	private static LdapOperationKey key(String base, String filter, String... attributes)
+			throws InvalidNameException {
+
+		return LdapQueryCache.key("find", new LdapName(base), SearchControls.SUBTREE_SCOPE, filter, attributes);
+	}
+
+	@Test
+	void testCanonicalFilter() {
+
+		assertEquals(LdapQueryCache.canonicalFilter("(&(cn=Kim)(objectClass=user))"),
+				LdapQueryCache.canonicalFilter("(&(objectclass=user)(CN=Kim))"));
+		// 값은 정규화하지 않는다. (대소문자를 구분하는 속성)
+		assertNotEquals(LdapQueryCache.canonicalFilter("(uid=Kim)"), LdapQueryCache.canonicalFilter("(uid=kim)"));
+		assertEquals("(&(cn=Kim*)(mail>=A))", LdapQueryCache.canonicalFilter("(&(MAIL>=A)(CN=Kim*))"));
+		assertEquals(LdapQueryCache.canonicalFilter("(|(a=1)(!(&(b=2)(c=3))))"),
+				LdapQueryCache.canonicalFilter("(|(!(&(c=3)(b=2)))(a=1))"));
+		assertNotEquals(LdapQueryCache.canonicalFilter("(cn=kim)"), LdapQueryCache.canonicalFilter("(cn=lee)"));
+		assertEquals("(cn=", LdapQueryCache.canonicalFilter("(cn="));
+	}
+
+	@Test
+	void testGet() throws InvalidNameException {
+
+		LdapQueryCache cache = new LdapQueryCache(1024 * 1024, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		List<String> first = cache.get(key("ou=a,c=kr", "(cn=kim)", "cn", "mail"), () -> {
+			loads.incrementAndGet();
+			return Arrays.asList("kim");
+		}, value -> 10);
+		List<String> second = cache.get(key("OU=A, C=KR", "(CN=kim)", "MAIL", "cn"), () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		}, value -> 10);
+
+		assertEquals(1, loads.get());
+		assertEquals(first, second);
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void testInvalidate() throws InvalidNameException {
+
+		LdapQueryCache cache = new LdapQueryCache(1024 * 1024, Duration.ofMinutes(1));
+		cache.get(key("c=kr", "(cn=*)"), () -> Arrays.asList("a"), value -> 10);
+		cache.get(key("ou=a,c=kr", "(cn=*)"), () -> Arrays.asList("a"), value -> 10);
+		cache.get(key("ou=b,c=kr", "(cn=*)"), () -> Arrays.asList("a"), value -> 10);
+		cache.get(key("cn=x,ou=a,c=kr", "(cn=*)"), () -> Arrays.asList("a"), value -> 10);
+
+		// 상위 기준(c=kr), 자신(ou=a), 하위 기준(cn=x) 검색을 제거한다.
+		assertEquals(3, cache.invalidate(new LdapName("ou=a,c=kr")));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testInvalidateWhileLoading() throws InvalidNameException {
+
+		LdapQueryCache cache = new LdapQueryCache(1024 * 1024, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+		LdapName changed = new LdapName("cn=kim,ou=a,c=kr");
+
+		// 읽는 도중 무효화된 결과는 반환하되 보관하지 않는다.
+		List<String> stale = cache.get(key("ou=a,c=kr", "(cn=*)"), () -> {
+			loads.incrementAndGet();
+			cache.invalidate(changed);
+			return Arrays.asList("old");
+		}, value -> 10);
+		assertEquals(Arrays.asList("old"), stale);
+		assertEquals(0, cache.size());
+
+		List<String> fresh = cache.get(key("ou=a,c=kr", "(cn=*)"), () -> {
+			loads.incrementAndGet();
+			return Arrays.asList("new");
+		}, value -> 10);
+		assertEquals(Arrays.asList("new"), fresh);
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testMaxBytes() throws InvalidNameException {
+
+		LdapQueryCache cache = new LdapQueryCache(1000, Duration.ofMinutes(1));
+		cache.get(key("ou=a,c=kr", "(cn=*)"), () -> Arrays.asList("a", "b"), value -> 300);
+		cache.get(key("ou=b,c=kr", "(cn=*)"), () -> Arrays.asList("a", "b"), value -> 300);
+
+		assertEquals(1, cache.size());
+		assertEquals(648, cache.getWeight());
+	}
+}
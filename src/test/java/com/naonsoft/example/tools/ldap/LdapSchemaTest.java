@@ -0,0 +1,66 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.ldap.LdapSchema.ValueType;
+
+class LdapSchemaTest {
+
+	private static LdapSchema newSchema() {
+
+		LdapAttribute schema = new LdapAttribute();
+		schema.put("ldapSyntaxes", "( 1.3.6.1.4.1.99.1 DESC 'Custom' X-NOT-HUMAN-READABLE 'TRUE' )");
+		schema.put("attributeTypes", "( 2.5.4.41 NAME 'name' EQUALITY caseIgnoreMatch "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.15{32768} )");
+		schema.put("attributeTypes", "( 2.5.4.3 NAME ( 'cn' 'commonName' ) DESC 'RFC4519: common name' SUP name )");
+		schema.put("attributeTypes", "( 0.9.2342.19200300.100.1.60 NAME 'jpegPhoto' "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.28 )");
+		schema.put("attributeTypes", "( 1.2.840.113556.1.4.2 NAME 'objectGUID' "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.40 SINGLE-VALUE NO-USER-MODIFICATION )");
+		schema.put("attributeTypes", "( 1.3.6.1.4.1.99.2 NAME 'customKey' SYNTAX 1.3.6.1.4.1.99.1 )");
+		schema.put("attributeTypes", "( 2.5.18.1 NAME 'createTimestamp' EQUALITY generalizedTimeMatch "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.24 SINGLE-VALUE USAGE directoryOperation )");
+		schema.put("attributeTypes", "( 1.3.6.1.4.1.99.3 NAME 'employeeCount' "
+				+ "SYNTAX 1.3.6.1.4.1.1466.115.121.1.27 )");
+		return LdapSchema.parse(schema);
+	}
+
+	@Test
+	void testDecode() {
+
+		LdapSchema schema = newSchema();
+		assertEquals(12L, schema.decode("employeeCount", "12"));
+		assertEquals("x", schema.decode("employeeCount", "x"));
+		assertEquals(OffsetDateTime.of(2021, 4, 7, 1, 2, 3, 500_000_000, ZoneOffset.UTC),
+				schema.decode("createTimestamp", "20210407010203.5Z"));
+		assertEquals(OffsetDateTime.of(2021, 4, 7, 10, 0, 0, 0, ZoneOffset.ofHours(9)),
+				LdapSchema.parseGeneralizedTime("2021040710+0900"));
+		assertEquals("홍길동", schema.decode("cn", "홍길동"));
+	}
+
+	@Test
+	void testType() {
+
+		LdapSchema schema = newSchema();
+		assertEquals(ValueType.STRING, schema.getType("commonName"));
+		assertEquals(ValueType.STRING, schema.getType("CN;lang-ko"));
+		assertEquals(ValueType.BINARY, schema.getType("cn;binary"));
+		assertEquals(ValueType.BINARY, schema.getType("jpegphoto"));
+		assertEquals(ValueType.BINARY, schema.getType("objectGUID"));
+		assertEquals(ValueType.BINARY, schema.getType("customKey"));
+		assertEquals(ValueType.GENERALIZED_TIME, schema.getType("createTimestamp"));
+		assertEquals(ValueType.INTEGER, schema.getType("employeeCount"));
+		assertEquals(ValueType.STRING, schema.getType("unknown"));
+
+		assertTrue(schema.isBinary("userCertificate"));
+		assertFalse(schema.isBinary("cn"));
+		assertTrue(schema.getBinaryAttributes().contains("OBJECTGUID"));
+	}
+}
@@ -0,0 +1,183 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+class LdapServiceBinaryTest {
+
+	private final AttributeBackend backend = new AttributeBackend();
+
+	private final LdapService service = new LdapService(this.backend);
+
+	private static LdapName dn(String dn) throws InvalidNameException {
+
+		return new LdapName(dn);
+	}
+
+	private static byte[] utf8(String value) {
+
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testBinaryValue() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.putByteArray("jpegPhoto", Collections.singletonList(new byte[] { 1, 2, 3 }));
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").get());
+		// 속성명은 대소문자를 구분하지 않는다.
+		assertArrayEquals(new byte[] { 1, 2, 3 }, this.service.getBinaryAttribute(dn("cn=a,c=kr"), "JPEGPHOTO").get());
+	}
+
+	@Test
+	void testCache() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.putByteArray("jpegPhoto", Collections.singletonList(new byte[] { 1, 2, 3 }));
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		byte[] first = this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").get();
+		first[0] = 9;
+		byte[] second = this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").get();
+		assertEquals(1, this.backend.reads.get());
+		// 반환한 값을 변경해도 캐시에는 영향이 없다.
+		assertArrayEquals(new byte[] { 1, 2, 3 }, second);
+
+		// 무효화하면 다시 읽는다.
+		this.service.invalidateBinary(dn("c=kr"));
+		this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto");
+		assertEquals(2, this.backend.reads.get());
+	}
+
+	@Test
+	void testMissing() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "a");
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").isPresent());
+		// 값이 없는 결과는 보관하지 않는다.
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").isPresent());
+		assertEquals(2, this.backend.reads.get());
+	}
+
+	@Test
+	void testNotAllowed() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("description", "설명");
+		attr.putByteArray("userPassword", Collections.singletonList(utf8("secret")));
+		attr.putByteArray("unicodePwd", Collections.singletonList(utf8("secret")));
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		// 허용 목록에 없거나 binary 형식이 아닌 속성, 비밀번호는 서버에서 읽지 않는다.
+		this.service.setBinaryAttributes(Arrays.asList("jpegPhoto", "description", "userPassword", "unicodePwd"));
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "description").isPresent());
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "userPassword").isPresent());
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "USERPASSWORD;binary").isPresent());
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "unicodePwd").isPresent());
+		assertFalse(this.service.getBinaryAttribute(dn("cn=a,c=kr"), "thumbnailPhoto").isPresent());
+		assertEquals(0, this.backend.reads.get());
+		assertTrue(this.service.isBinaryAttributeAllowed("JPEGPHOTO;binary"));
+	}
+
+	@Test
+	void testOptionValue() throws InvalidNameException {
+
+		this.service.setBinaryAttributes(Collections.singletonList("userCertificate"));
+		LdapAttribute attr = new LdapAttribute();
+		attr.putByteArray("userCertificate;binary", Collections.singletonList(new byte[] { 4, 5 }));
+		attr.putByteArray("userCertificateExtra", Collections.singletonList(new byte[] { 6 }));
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		// ;binary 등 옵션이 붙은 속성도 같은 속성으로 찾고, 이름이 같은 접두어인 다른 속성은 제외한다.
+		assertArrayEquals(new byte[] { 4, 5 },
+				this.service.getBinaryAttribute(dn("cn=a,c=kr"), "userCertificate").get());
+	}
+
+	@Test
+	void testStringValue() throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("jpegPhoto", "사진");
+		this.backend.entries.put(dn("cn=a,c=kr"), attr);
+
+		// binary 값이 없으면 문자열 값을 UTF-8 로 반환한다.
+		assertArrayEquals(utf8("사진"), this.service.getBinaryAttribute(dn("cn=a,c=kr"), "jpegPhoto").get());
+	}
+
+	/**
+	 * 등록된 항목의 속성을 돌려주는 백엔드
+	 */
+	private static final class AttributeBackend implements LdapBackend {
+
+		private final Map<LdapName, LdapAttribute> entries = new ConcurrentHashMap<>();
+
+		private final AtomicInteger reads = new AtomicInteger();
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "attribute";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			this.reads.incrementAndGet();
+			return new LdapAttribute(this.entries.get(dn));
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,339 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.text.Collator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.NamingException;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.tree.Tree;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldif.LDIFException;
+
+/**
+ * 메모리 LDAP 서버를 대상으로 한 조회 테스트
+ */
+class LdapServiceReadTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private InMemoryDirectoryServer server;
+
+	/** 기준 DN 별로 백엔드가 consumer 에 전달한 항목 수 */
+	private final Map<String, AtomicInteger> delivered = new ConcurrentHashMap<>();
+
+	/** 동시에 수행 중인 1레벨 검색 수 */
+	private final AtomicInteger running = new AtomicInteger();
+
+	/** 동시에 수행한 1레벨 검색의 최대 수 */
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	/** 지정하면 검색을 시작하기 전에 열릴 때까지 기다린다. */
+	private volatile CountDownLatch searchGate;
+
+	/** 수행한 검색 수 */
+	private final AtomicInteger searches = new AtomicInteger();
+
+	private LdapService service;
+
+	@BeforeEach
+	void setUp() throws LDAPException, LDIFException {
+
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("c=kr", "o=test");
+		config.setListenerConfigs(
+				InMemoryListenerConfig.createLDAPConfig("test", InetAddress.getLoopbackAddress(), 0, null));
+		this.server = new InMemoryDirectoryServer(config);
+		this.server.add("dn: c=kr", "objectClass: country", "c: kr");
+		for (int i = 0; i < 30; i++) {
+			this.server.add("dn: ou=dept" + i + ",c=kr", "objectClass: organizationalUnit", "ou: dept" + i);
+			this.server.add("dn: cn=user" + i + ",ou=dept" + i + ",c=kr", "objectClass: person", "cn: user" + i,
+					"sn: user" + i);
+		}
+		this.server.add("dn: o=test", "objectClass: organization", "o: test");
+		this.server.add("dn: ou=a,o=test", "objectClass: organizationalUnit", "ou: a");
+		this.server.startListening();
+
+		UnboundIdLdapBackend backend = new UnboundIdLdapBackend("127.0.0.1:" + this.server.getListenPort(), null,
+				null, 3_000, 3_000, 4) {
+
+			@Override
+			public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+					Consumer<LdapNode> consumer) {
+
+				LdapServiceReadTest.this.searches.incrementAndGet();
+				int current = LdapServiceReadTest.this.running.incrementAndGet();
+				LdapServiceReadTest.this.maxRunning.accumulateAndGet(current, Math::max);
+				try {
+					CountDownLatch gate = LdapServiceReadTest.this.searchGate;
+					if (gate != null) {
+						gate.await(10, TimeUnit.SECONDS);
+					}
+					// 동시 실행이 겹치도록 잠시 기다린다.
+					Thread.sleep(5);
+					super.search(base, scope, filter, attributes, deadline, consumer);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} finally {
+					LdapServiceReadTest.this.running.decrementAndGet();
+				}
+			}
+
+			@Override
+			public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+					Deadline deadline, Consumer<LdapNode> consumer) {
+
+				AtomicInteger count = LdapServiceReadTest.this.delivered.computeIfAbsent(base.toString(),
+						key -> new AtomicInteger());
+				super.searchPaged(base, scope, filter, attributes, pageSize, deadline, node -> {
+					count.incrementAndGet();
+					consumer.accept(node);
+				});
+			}
+		};
+		this.service = new LdapService(backend);
+		this.service.setExecutor(this.executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		this.executor.shutdownNow();
+		this.service.getBackend().close();
+		this.server.shutDown(true);
+	}
+
+	private static LdapFederatedSearchResult.Partition partition(LdapFederatedSearchResult result, String context) {
+
+		for (LdapFederatedSearchResult.Partition partition : result.getPartitions()) {
+			if (partition.getContext().equals(context)) {
+				return partition;
+			}
+		}
+		throw new AssertionError("naming context 없음 : " + context);
+	}
+
+	@Test
+	void testFindCopy() throws InvalidNameException {
+
+		this.service.setQueryCache(new LdapQueryCache(1024 * 1024, Duration.ofMinutes(1)));
+		LdapName dept = new LdapName("ou=dept1,c=kr");
+
+		List<LdapNode> first = this.service.findOneLevel(dept, "(objectClass=person)");
+		first.get(0).getAttributes().put("sn", new ArrayList<>(Collections.singletonList("changed")));
+		first.get(0).getDn().add("cn=x");
+
+		// 보관한 결과는 호출자의 변경에 영향을 받지 않는다.
+		List<LdapNode> second = this.service.findOneLevel(dept, "(objectClass=person)");
+		assertEquals(1, this.service.getQueryCache().get().getHitCount());
+		assertEquals("user1", second.get(0).getValue("sn").get());
+		assertEquals(new LdapName("cn=user1,ou=dept1,c=kr"), second.get(0).getDn());
+	}
+
+	@Test
+	void testSearchAll() {
+
+		List<LdapNode> nodes = new ArrayList<>();
+		LdapFederatedSearchResult result = this.service.searchAll("(objectClass=*)", null, 0, nodes::add);
+
+		assertEquals(63, nodes.size());
+		assertEquals(63, result.getTotal());
+		assertFalse(result.isPartial());
+	}
+
+	@Test
+	void testSearchAllLimit() {
+
+		List<LdapNode> nodes = new ArrayList<>();
+		LdapFederatedSearchResult result = this.service.searchAll("(objectClass=*)", null, 5, nodes::add);
+
+		assertEquals(7, nodes.size());
+		LdapFederatedSearchResult.Partition kr = partition(result, "c=kr");
+		assertEquals(5, kr.getCount());
+		assertTrue(kr.isTruncated());
+		assertEquals(null, kr.getError());
+		LdapFederatedSearchResult.Partition test = partition(result, "o=test");
+		assertEquals(2, test.getCount());
+		assertFalse(test.isTruncated());
+
+		// 제한을 넘는 첫 항목에서 검색을 중단하여 나머지 항목은 받지 않는다.
+		assertEquals(6, this.delivered.get("c=kr").get());
+	}
+
+	@Test
+	void testSearchHoldsPermit() throws InvalidNameException {
+
+		// 첫 결과를 받은 후에도 검색이 끝날 때까지 허가를 유지한다.
+		List<Integer> inFlight = new ArrayList<>();
+		this.service.search(new LdapName("c=kr"), SearchControls.SUBTREE_SCOPE, "(objectClass=person)", null,
+				Deadline.after(Duration.ofSeconds(10)), node -> inFlight.add(this.service.getLimiter().getInFlight()));
+
+		assertFalse(inFlight.isEmpty());
+		assertTrue(inFlight.stream().allMatch(count -> count == 1));
+		assertEquals(0, this.service.getLimiter().getInFlight());
+	}
+
+	@Test
+	void testSearchOneLevel() throws InvalidNameException, NamingException {
+
+		// JNDI 가 아닌 백엔드도 JNDI 검색 결과로 반환한다.
+		List<SearchResult> results = Collections
+				.list(this.service.searchOneLevel(new LdapName("c=kr"), "(objectClass=organizationalUnit)"));
+		assertEquals(30, results.size());
+		SearchResult dept = results.stream()
+				.filter(result -> result.getName().equals("ou=dept1"))
+				.findFirst()
+				.get();
+		assertEquals("ou=dept1,c=kr", dept.getNameInNamespace());
+		assertTrue(dept.isRelative());
+		assertEquals("dept1", dept.getAttributes().get("OU").get());
+	}
+
+	@Test
+	void testSearchSubtree() throws InvalidNameException, NamingException {
+
+		this.service.setQueryCache(new LdapQueryCache(1024 * 1024, Duration.ofMinutes(1)));
+		LdapName dn = new LdapName("c=kr");
+
+		List<SearchResult> first = Collections.list(this.service.searchSubtree(dn, "(objectClass=person)"));
+		assertEquals(30, first.size());
+		assertEquals("cn=user1,ou=dept1", first.stream()
+				.filter(result -> result.getNameInNamespace().equals("cn=user1,ou=dept1,c=kr"))
+				.findFirst()
+				.get()
+				.getName());
+
+		// 캐시한 결과를 변경해도 다음 결과에는 영향이 없다.
+		first.get(0).getAttributes().put("sn", "changed");
+		int searches = this.searches.get();
+		List<SearchResult> second = Collections.list(this.service.searchSubtree(dn, "(objectClass=person)"));
+		assertEquals(searches, this.searches.get());
+		for (SearchResult result : second) {
+			assertFalse("changed".equals(result.getAttributes().get("sn").get()));
+		}
+	}
+
+	@Test
+	void testTreeChildsCopy() throws InvalidNameException {
+
+		LdapName dn = new LdapName("c=kr");
+		Tree<LdapNode> first = this.service.tree(dn, 1);
+		Tree<LdapNode> second = this.service.tree(dn, 1);
+
+		LdapNode changed = first.getChilds().get(0).getData();
+		changed.getAttributes().put("ou", new ArrayList<>(Collections.singletonList("changed")));
+		assertNotSame(changed, second.getChilds().get(0).getData());
+		assertEquals(Collections.singletonList("dept0"), second.getChilds().get(0).getData().getAttributes().get("ou"));
+	}
+
+	@Test
+	void testTreeCoalesced()
+			throws InvalidNameException, InterruptedException, ExecutionException, TimeoutException {
+
+		LdapName dn = new LdapName("c=kr");
+		this.searchGate = new CountDownLatch(1);
+		Future<Tree<LdapNode>> first = this.executor.submit(() -> this.service.tree(dn));
+		while (this.running.get() == 0) {
+			Thread.sleep(1);
+		}
+		Future<Tree<LdapNode>> second = this.executor.submit(() -> this.service.tree(dn));
+		// 두번째 조회가 수행 중인 검색을 기다리도록 잠시 후에 검색을 진행한다.
+		Thread.sleep(100);
+		this.searchGate.countDown();
+
+		Tree<LdapNode> firstTree = first.get(10, TimeUnit.SECONDS);
+		Tree<LdapNode> secondTree = second.get(10, TimeUnit.SECONDS);
+		assertEquals(1, this.searches.get());
+
+		// 한번만 검색해도 호출한 곳마다 따로 수정할 수 있는 트리를 받는다.
+		assertNotSame(firstTree, secondTree);
+		assertEquals(firstTree.size(), secondTree.size());
+		assertNotSame(firstTree.getData(), secondTree.getData());
+		firstTree.getData().getAttributes().put("c", new ArrayList<>(Collections.singletonList("changed")));
+		LdapAttribute attributes = new LdapAttribute();
+		attributes.put("ou", "new");
+		firstTree.addChild(new LdapNode(new LdapName("ou=new,c=kr"), attributes));
+		assertEquals(Collections.singletonList("kr"), secondTree.getData().getAttributes().get("c"));
+		assertEquals(firstTree.size() - 1, secondTree.size());
+		assertEquals(firstTree.getChildCount() - 1, secondTree.getChildCount());
+	}
+
+	@Test
+	void testTreeDepth() throws InvalidNameException {
+
+		LdapName base = new LdapName("c=kr");
+
+		assertTrue(this.service.tree(base, 0).getChilds().isEmpty());
+
+		Tree<LdapNode> depth1 = this.service.tree(base, 1);
+		assertEquals(30, depth1.getChilds().size());
+		assertTrue(depth1.getChilds().stream().allMatch(child -> child.getChilds().isEmpty()));
+
+		Tree<LdapNode> depth2 = this.service.tree(base, 2);
+		assertEquals(61, depth2.size());
+		assertEquals("user7", depth2.getChilds().stream()
+				.filter(child -> child.getData().getName().equals("dept7")).findFirst().get()
+				.getChilds().get(0).getData().getName());
+	}
+
+	@Test
+	void testTreeLevelParallelism() throws InvalidNameException {
+
+		this.service.setLevelParallelism(2);
+		Tree<LdapNode> tree = this.service.tree(new LdapName("c=kr"), 2);
+
+		assertEquals(61, tree.size());
+		assertTrue(this.maxRunning.get() <= 2, "동시 검색 수 : " + this.maxRunning.get());
+		assertThrows(LogicError.class, () -> this.service.setLevelParallelism(0));
+	}
+
+	@Test
+	void testTreeOrder() throws InvalidNameException {
+
+		List<String> names = new ArrayList<>();
+		for (Tree<LdapNode> child : this.service.tree(new LdapName("c=kr"), 1).getChilds()) {
+			names.add(child.getData().getName());
+		}
+
+		List<String> expected = new ArrayList<>(names);
+		Collator collator = Collator.getInstance(Locale.KOREAN);
+		expected.sort(collator::compare);
+		assertEquals(expected, names);
+		assertEquals(30, new HashSet<>(names).size());
+	}
+}
@@ -0,0 +1,227 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+
+class LdapServiceWriteTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	private final EntryBackend backend = new EntryBackend();
+
+	private static LdapAttribute attr(String objectClass) {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("objectClass", objectClass);
+		return attr;
+	}
+
+	@AfterEach
+	void shutdown() {
+
+		this.executor.shutdownNow();
+	}
+
+	private LdapService newService() {
+
+		LdapService service = new LdapService(this.backend);
+		service.setExecutor(this.executor);
+		return service;
+	}
+
+	@Test
+	void testDependentFailure() throws InvalidNameException {
+
+		List<LdapWriteOperation> operations = new ArrayList<>();
+		operations.add(LdapWriteOperation.add(new LdapName("ou=a,ou=missing,c=kr"), attr("organizationalUnit")));
+		operations.add(LdapWriteOperation.modify(new LdapName("ou=a,ou=missing,c=kr"),
+				LdapWriteOperation.Modification.replace("description", "x")));
+		operations.add(LdapWriteOperation.add(new LdapName("ou=b,c=kr"), attr("organizationalUnit")));
+
+		LdapWriteResult result = this.newService().write(operations, 4);
+
+		assertFalse(result.getItems().get(0).isSuccess());
+		assertTrue(result.getItems().get(1).isSkipped());
+		assertTrue(result.getItems().get(2).isSuccess());
+		assertEquals(2, this.backend.calls.get());
+	}
+
+	@Test
+	void testErrorInTask() throws InvalidNameException {
+
+		this.backend.errorDn = new LdapName("ou=error,c=kr");
+		List<LdapWriteOperation> operations = new ArrayList<>();
+		operations.add(LdapWriteOperation.add(new LdapName("ou=a,c=kr"), attr("organizationalUnit")));
+		operations.add(LdapWriteOperation.add(new LdapName("ou=error,c=kr"), attr("organizationalUnit")));
+
+		// 작업 안에서 발생한 Error 는 기다리지 않고 호출자에게 전달한다.
+		assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> assertThrows(OutOfMemoryError.class, () -> this.newService().write(operations, 4)));
+	}
+
+	@Test
+	void testParentBeforeChild() throws InvalidNameException {
+
+		List<LdapWriteOperation> operations = new ArrayList<>();
+		List<LdapName> invalidated = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			operations.add(LdapWriteOperation.add(new LdapName("ou=" + i + ",c=kr"), attr("organizationalUnit")));
+			for (int j = 0; j < 10; j++) {
+				operations.add(LdapWriteOperation.add(new LdapName("cn=" + j + ",ou=" + i + ",c=kr"), attr("person")));
+			}
+		}
+		// 하위 항목을 모두 삭제한 뒤 상위 항목을 삭제한다.
+		for (int j = 0; j < 10; j++) {
+			operations.add(LdapWriteOperation.delete(new LdapName("cn=" + j + ",ou=0,c=kr")));
+		}
+		operations.add(LdapWriteOperation.delete(new LdapName("ou=0,c=kr")));
+
+		LdapService service = this.newService();
+		service.addInvalidationListener(dn -> {
+			synchronized (invalidated) {
+				invalidated.add(dn);
+			}
+		});
+		LdapWriteResult result = service.write(operations, 8);
+
+		assertTrue(result.isSuccess(), result.toString());
+		assertEquals(45, this.backend.entries.size());
+		assertEquals(operations.size(), invalidated.size());
+		assertTrue(this.backend.maxConcurrent.get() > 1);
+		assertTrue(this.backend.maxConcurrent.get() <= 8);
+	}
+
+	/**
+	 * 항목 존재 여부만 확인하는 쓰기 백엔드 (상위 항목이 없으면 추가 실패, 하위 항목이 있으면 삭제 실패)
+	 */
+	private static final class EntryBackend implements LdapBackend {
+
+		private final Set<LdapName> entries = new HashSet<>();
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		/** 쓰기 시 Error 를 발생할 DN */
+		private volatile LdapName errorDn;
+
+		private final AtomicInteger concurrent = new AtomicInteger();
+
+		private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+		EntryBackend() {
+
+			try {
+				this.entries.add(new LdapName("c=kr"));
+			} catch (InvalidNameException e) {
+				throw new LogicError(e);
+			}
+		}
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "entry";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void write(LdapWriteOperation operation, Deadline deadline) {
+
+			this.calls.incrementAndGet();
+			this.maxConcurrent.accumulateAndGet(this.concurrent.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				this.concurrent.decrementAndGet();
+			}
+
+			LdapName dn = operation.getDn();
+			if (dn.equals(this.errorDn)) {
+				throw new OutOfMemoryError("test");
+			}
+			synchronized (this.entries) {
+				switch (operation.getType()) {
+				case ADD:
+					if (this.entries.contains(dn.getPrefix(dn.size() - 1)) == false) {
+						throw new LogicError("상위 항목이 없습니다 : " + dn);
+					}
+					this.entries.add(dn);
+					break;
+				case DELETE:
+					for (LdapName entry : this.entries) {
+						if (entry.size() > dn.size() && entry.startsWith(dn)) {
+							throw new LogicError("하위 항목이 있습니다 : " + dn);
+						}
+					}
+					this.entries.remove(dn);
+					break;
+				default:
+					if (this.entries.contains(dn) == false) {
+						throw new LogicError("항목이 없습니다 : " + dn);
+					}
+					break;
+				}
+			}
+		}
+	}
+}
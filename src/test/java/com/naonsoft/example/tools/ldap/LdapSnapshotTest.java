@@ -0,0 +1,123 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.naonsoft.example.tools.tree.Tree;
+import com.naonsoft.example.tools.tree.TreeImpl;
+
+class LdapSnapshotTest {
+
+	/**
+	 * 참조를 남기지 않고 memory-mapped 스냅샷을 만듭니다.
+	 */
+	private static void appendMapped(Path directory) throws InvalidNameException {
+
+		LdapSnapshot snapshot = new LdapSnapshot();
+		snapshot.setChunkSize(4096);
+		snapshot.setMappedDirectory(directory);
+		snapshot.append(newTree(10));
+	}
+
+	private static LdapNode node(String dn, String... attributes) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("objectClass", "top");
+		for (int i = 0; i < attributes.length; i += 2) {
+			attr.put(attributes[i], attributes[i + 1]);
+		}
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	private static Tree<LdapNode> newTree(int width) throws InvalidNameException {
+
+		Tree<LdapNode> root = new TreeImpl<>(null, node("c=kr"));
+		for (int i = 0; i < width; i++) {
+			Tree<LdapNode> ou = root.addChild(node("ou=부서" + i + ",c=kr", "ou", "부서" + i));
+			for (int j = 0; j < width; j++) {
+				ou.addChild(node("cn=user" + j + ",ou=부서" + i + ",c=kr", "cn", "user" + j, "mail",
+						"user" + j + "@a.kr", "mail", "user" + j + "@b.kr"));
+			}
+		}
+		return root;
+	}
+
+	@Test
+	void testMapped(@TempDir Path directory) throws InvalidNameException {
+
+		Tree<LdapNode> tree = newTree(30);
+		LdapSnapshot snapshot = new LdapSnapshot();
+		snapshot.setChunkSize(4096);
+		snapshot.setMappedDirectory(directory);
+		snapshot.append(tree);
+
+		assertTrue(snapshot.getAllocatedBytes() > 4096);
+		assertEquals(tree.toList(), snapshot.getRoots().get(0).toList());
+
+		snapshot.close();
+		assertEquals(0, directory.toFile().list().length);
+	}
+
+	@Test
+	void testMappedCollected(@TempDir Path directory) throws InvalidNameException, InterruptedException {
+
+		appendMapped(directory);
+		assertTrue(directory.toFile().list().length > 0);
+
+		// 닫지 않은 스냅샷도 GC 되면 파일을 삭제한다.
+		long until = System.currentTimeMillis() + 10_000;
+		while (directory.toFile().list().length > 0 && System.currentTimeMillis() < until) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(0, directory.toFile().list().length);
+	}
+
+	@Test
+	void testRoundTrip() throws InvalidNameException {
+
+		Tree<LdapNode> tree = newTree(3);
+		LdapNode binary = node("cn=photo,c=kr");
+		LdapAttribute attr = binary.attributes();
+		attr.putByteArray("jpegPhoto", Collections.singletonList(new byte[] { 1, 2, 3 }));
+		tree.addChild(binary);
+
+		LdapSnapshot snapshot = LdapSnapshot.of(tree);
+		Tree<LdapNode> view = snapshot.getRoots().get(0);
+
+		assertEquals(tree.size(), view.size());
+		assertEquals(tree.toList(), view.toList());
+		assertEquals(4, view.getChildCount());
+		assertFalse(view.getChild(4).isPresent());
+
+		Tree<LdapNode> ou = view.getChild(1).get();
+		assertEquals("ou=부서1,c=kr", ou.getData().getDn().toString());
+		assertEquals(3, ou.getChildCount());
+		assertEquals(view, ou.getParent().get());
+		assertTrue(ou.getChild(2).get().isLeaf());
+
+		LdapNode user = ou.getChild(2).get().getData();
+		assertEquals(Arrays.asList("user2@a.kr", "user2@b.kr"), user.getValues("mail"));
+		assertEquals(Arrays.asList("top"), user.getValues("objectClass"));
+
+		LdapNode photo = view.getChild(3).get().getData();
+		assertArrayEquals(new byte[] { 1, 2, 3 }, photo.getByteValues("jpegPhoto").get(0));
+
+		int index = ((LdapSnapshotTree) ou.getChild(0).get()).getIndex();
+		List<String> cn = snapshot.getValues(index, "CN");
+		assertEquals(Arrays.asList("user0"), cn);
+	}
+}
@@ -0,0 +1,40 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+class LdapSubtreeStatisticsTest {
+
+	private static LdapNode node(String dn, String... objectClasses) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		for (String objectClass : objectClasses) {
+			attr.put("objectClass", objectClass);
+		}
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	@Test
+	void testAdd() throws InvalidNameException {
+
+		LdapSubtreeStatistics statistics = new LdapSubtreeStatistics(new LdapName("o=naon,c=kr"));
+		statistics.add(node("o=naon,c=kr", "top", "organization"));
+		statistics.add(node("ou=개발,o=naon,c=kr", "top", "organizationalUnit"));
+		statistics.add(node("cn=kim,ou=개발,o=naon,c=kr", "top", "person"));
+		statistics.add(node("cn=lee,ou=개발,o=naon,c=kr", "top", "Person"));
+		statistics.add(node("ou=영업,o=naon,c=kr", "top", "organizationalUnit"));
+		statistics.add(node("cn=park,o=other,c=kr", "top", "person"));
+
+		assertEquals(5, statistics.getTotal());
+		assertEquals(5, statistics.getObjectClassCount("TOP"));
+		assertEquals(2, statistics.getObjectClassCount("person"));
+		assertEquals(2, statistics.getMaxDepth());
+		assertEquals(Long.valueOf(2), statistics.getDepths().get(1));
+		assertEquals(Long.valueOf(3), statistics.getChilds().get("ou=개발,o=naon,c=kr"));
+		assertEquals(Long.valueOf(1), statistics.getChilds().get("ou=영업,o=naon,c=kr"));
+	}
+}
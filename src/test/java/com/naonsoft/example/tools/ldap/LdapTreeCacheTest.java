@@ -0,0 +1,106 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.Consumer;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+import com.naonsoft.example.tools.concurrent.Deadline;
+import com.naonsoft.example.tools.tree.Tree;
+
+class LdapTreeCacheTest {
+
+	private final LdapTreeCache cache = new LdapTreeCache(new LdapService(new TreeBackend()));
+
+	@Test
+	void testRetiredSnapshot() throws InvalidNameException, InterruptedException {
+
+		LdapName dn = new LdapName("c=kr");
+		this.cache.setOffHeap(true);
+		Tree<LdapNode> reading = this.cache.load(dn);
+		long bytes = this.cache.getOffHeapBytes();
+		assertTrue(bytes > 0);
+
+		// 교체되거나 제거된 스냅샷도 참조하는 곳이 있는 동안은 크기에 포함한다.
+		this.cache.load(dn);
+		assertEquals(bytes * 2, this.cache.getOffHeapBytes());
+		this.cache.invalidate(dn);
+		assertFalse(this.cache.isResident(dn));
+		assertEquals(bytes * 2, this.cache.getOffHeapBytes());
+		assertEquals("kr", reading.getData().getAttributes().get("c").get(0));
+
+		reading = null;
+		long until = System.currentTimeMillis() + 10_000;
+		while (this.cache.getOffHeapBytes() > 0 && System.currentTimeMillis() < until) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(0, this.cache.getOffHeapBytes());
+	}
+
+	/**
+	 * 기준 DN 과 자식 하나를 돌려주는 백엔드
+	 */
+	private static final class TreeBackend implements LdapBackend {
+
+		@Override
+		public void close() {
+
+			// 없음
+		}
+
+		@Override
+		public String getName() {
+
+			return "tree";
+		}
+
+		@Override
+		public LdapAttribute read(LdapName dn, String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readRootDse(String[] attributes, Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LdapAttribute readSchema(Deadline deadline) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void search(LdapName base, int scope, String filter, String[] attributes, Deadline deadline,
+				Consumer<LdapNode> consumer) {
+
+			try {
+				LdapAttribute root = new LdapAttribute();
+				root.put("c", "kr");
+				consumer.accept(new LdapNode(new LdapName(base.toString()), root));
+				LdapAttribute child = new LdapAttribute();
+				child.put("ou", "a");
+				consumer.accept(new LdapNode(new LdapName("ou=a," + base), child));
+			} catch (InvalidNameException e) {
+				throw new LogicError(e);
+			}
+		}
+
+		@Override
+		public void searchPaged(LdapName base, int scope, String filter, String[] attributes, int pageSize,
+				Deadline deadline, Consumer<LdapNode> consumer) {
+
+			this.search(base, scope, filter, attributes, deadline, consumer);
+		}
+	}
+}
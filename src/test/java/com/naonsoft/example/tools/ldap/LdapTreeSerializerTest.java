@@ -0,0 +1,84 @@
+package com.naonsoft.example.tools.ldap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.naonsoft.example.tools.tree.Tree;
+import com.naonsoft.example.tools.tree.TreeImpl;
+
+class LdapTreeSerializerTest {
+
+	private static LdapNode node(String dn, String cn) throws InvalidNameException {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", cn);
+		attr.put("mail", cn + "@a.kr");
+		return new LdapNode(new LdapName(dn), attr);
+	}
+
+	private static Tree<LdapNode> sample() throws InvalidNameException {
+
+		Tree<LdapNode> root = new TreeImpl<>(null, node("ou=a,c=kr", "a"));
+		Tree<LdapNode> dept = root.addChild(node("ou=b,ou=a,c=kr", "b"));
+		dept.addChild(node("cn=kim,ou=b,ou=a,c=kr", "kim"));
+		dept.addChild(node("cn=lee,ou=b,ou=a,c=kr", "lee"));
+		root.addChild(node("cn=park,ou=a,c=kr", "park"));
+		return root;
+	}
+
+	@Test
+	void testCbor() throws Exception {
+
+		LdapAttribute attr = new LdapAttribute();
+		attr.put("cn", "kim");
+		attr.put("jpegPhoto", Collections.emptyList());
+		byte[] photo = { 0, 1, 2, (byte) 0xff };
+		attr.putByteArray("jpegPhoto", Collections.singletonList(photo));
+		Tree<LdapNode> tree = new TreeImpl<>(null, new LdapNode(new LdapName("cn=kim,c=kr"), attr));
+
+		CBORMapper mapper = new CBORMapper();
+		byte[] cbor = mapper.writeValueAsBytes(LdapTreeView.of(tree));
+		JsonNode read = mapper.readTree(cbor);
+
+		assertEquals("cn=kim,c=kr", read.at("/data/dn").asText());
+		assertFalse(read.at("/data/attributes").has("jpegPhoto"));
+		assertArrayEquals(photo, read.at("/data/binary/jpegPhoto/0").binaryValue());
+	}
+
+	@Test
+	void testDeepTree() throws Exception {
+
+		Tree<LdapNode> root = new TreeImpl<>(null, node("c=kr", "root"));
+		Tree<LdapNode> current = root;
+		for (int i = 0; i < 20_000; i++) {
+			current = current.addChild(node("cn=n" + i + ",c=kr", "n" + i));
+		}
+
+		String json = new ObjectMapper().writeValueAsString(LdapTreeView.of(root));
+
+		assertEquals(20_001, json.split("\"data\"").length - 1);
+	}
+
+	@Test
+	void testDepthAndAttributes() throws InvalidNameException, JsonProcessingException {
+
+		String json = new ObjectMapper().writeValueAsString(new LdapTreeView(sample(), 1, Arrays.asList("CN")));
+
+		assertEquals("{\"data\":{\"dn\":\"ou=a,c=kr\",\"attributes\":{\"cn\":[\"a\"]}},\"childs\":["
+				+ "{\"data\":{\"dn\":\"ou=b,ou=a,c=kr\",\"attributes\":{\"cn\":[\"b\"]}},\"childCount\":2},"
+				+ "{\"data\":{\"dn\":\"cn=park,ou=a,c=kr\",\"attributes\":{\"cn\":[\"park\"]}}}]}", json);
+	}
+}
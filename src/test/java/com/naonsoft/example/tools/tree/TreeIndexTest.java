@@ -0,0 +1,106 @@
+package com.naonsoft.example.tools.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class TreeIndexTest {
+
+	/**
+	 * a ─┬ b ─┬ d
+	 *    │    └ e ─ g
+	 *    └ c ─ f
+	 */
+	private static Tree<String> newTree() {
+
+		Tree<String> a = new TreeImpl<>(null, "a");
+		Tree<String> b = a.addChild("b");
+		Tree<String> c = a.addChild("c");
+		b.addChild("d");
+		b.addChild("e").addChild("g");
+		c.addChild("f");
+		return a;
+	}
+
+	@Test
+	void testAncestor() {
+
+		TreeIndex<String, String> index = new TreeIndex<>(newTree(), Function.identity());
+
+		assertEquals(7, index.size());
+		assertTrue(index.isAncestor("a", "g"));
+		assertTrue(index.isAncestor("b", "g"));
+		assertFalse(index.isAncestor("c", "g"));
+		assertFalse(index.isAncestor("g", "g"));
+		assertTrue(index.isDescendant("f", "c"));
+		assertFalse(index.isAncestor("x", "g"));
+
+		assertEquals(3, index.getDepth("g"));
+		assertEquals(4, index.getSubtreeSize("b"));
+		assertEquals("e", index.getSubtree("e").get(0).getData());
+		assertEquals("g", index.find("g").get().getData());
+		assertFalse(index.find("x").isPresent());
+	}
+
+	@Test
+	void testDuplicate() {
+
+		Tree<String> root = new TreeImpl<>(null, "a");
+		root.addChild("a");
+
+		assertThrows(IllegalArgumentException.class, () -> new TreeIndex<>(root, Function.identity()));
+	}
+
+	@Test
+	void testLowestCommonAncestor() {
+
+		TreeIndex<String, String> index = new TreeIndex<>(newTree(), Function.identity());
+
+		assertEquals("b", index.lowestCommonAncestor("d", "g").get().getData());
+		assertEquals("a", index.lowestCommonAncestor("g", "f").get().getData());
+		assertEquals("b", index.lowestCommonAncestor("b", "g").get().getData());
+		assertEquals("e", index.lowestCommonAncestor("e", "e").get().getData());
+		assertFalse(index.lowestCommonAncestor("e", "x").isPresent());
+	}
+
+	@Test
+	void testLowestCommonAncestorRandom() {
+
+		Random random = new Random(7);
+		List<Tree<Integer>> trees = new ArrayList<>();
+		trees.add(new TreeImpl<>(null, 0));
+		for (int i = 1; i < 500; i++) {
+			trees.add(trees.get(random.nextInt(i)).addChild(i));
+		}
+		TreeIndex<Integer, Integer> index = new TreeIndex<>(trees.get(0), Function.identity());
+
+		for (int i = 0; i < 200; i++) {
+			int first = random.nextInt(500);
+			int second = random.nextInt(500);
+			assertEquals(naiveLca(trees.get(first), trees.get(second)),
+					index.lowestCommonAncestor(first, second).get().getData());
+		}
+	}
+
+	private static Integer naiveLca(Tree<Integer> first, Tree<Integer> second) {
+
+		List<Integer> ancestors = new ArrayList<>();
+		for (Tree<Integer> node = first; node != null; node = node.getParent().orElse(null)) {
+			ancestors.add(node.getData());
+		}
+		for (Tree<Integer> node = second; node != null; node = node.getParent().orElse(null)) {
+			if (ancestors.contains(node.getData())) {
+				return node.getData();
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,135 @@
+package com.naonsoft.example.tools.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.naonsoft.example.exception.LogicError;
+
+class TreeSorterTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	private static Tree<String> newRandomTree(long seed) {
+
+		Random random = new Random(seed);
+		Tree<String> root = new TreeImpl<>(null, "root");
+		List<Tree<String>> nodes = new ArrayList<>();
+		nodes.add(root);
+		for (int i = 0; i < 5_000; i++) {
+			Tree<String> parent = nodes.get(random.nextInt(nodes.size()));
+			nodes.add(parent.addChild(Integer.toString(random.nextInt(100_000), 36) + "-" + i));
+		}
+		return root;
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		this.pool.shutdownNow();
+	}
+
+	@Test
+	void testChain() {
+
+		// 자식 하나(와 잎 노드)만 이어지는 깊은 트리도 스택을 쌓지 않고 정렬한다.
+		Tree<String> root = new TreeImpl<>(null, "root");
+		Tree<String> current = root;
+		for (int i = 0; i < 200_000; i++) {
+			current.addChild("z-leaf");
+			current = current.addChild("a-" + i);
+		}
+		TreeSorter<String, String> sorter = new TreeSorter<>(Function.<String> identity(),
+				Comparator.<String> naturalOrder());
+		sorter.setPool(this.pool);
+		sorter.setSequentialThreshold(16);
+		sorter.sort(root);
+
+		current = root;
+		for (int i = 0; i < 200_000; i++) {
+			assertEquals(Arrays.asList("a-" + i, "z-leaf"), current.getChildDatas());
+			current = current.getChild(0).get();
+		}
+	}
+
+	@Test
+	void testCollating() {
+
+		Tree<String> root = new TreeImpl<>(null, "조직");
+		root.addChild("하나");
+		root.addChild("가나");
+		root.addChild("나비");
+		root.addChild("다람쥐").addChild("b");
+		root.getChild(3).get().addChild("A");
+
+		TreeSorter<String, CollationKey> sorter = TreeSorter.collating(Function.identity(), Locale.KOREAN);
+		sorter.sort(root);
+
+		assertEquals(Arrays.asList("가나", "나비", "다람쥐", "하나"), root.getChildDatas());
+		assertEquals(Arrays.asList("A", "b"), root.getChild(2).get().getChildDatas());
+	}
+
+	@Test
+	void testKeyComputedOnce() {
+
+		Tree<String> root = newRandomTree(1);
+		AtomicInteger calls = new AtomicInteger();
+		TreeSorter<String, String> sorter = new TreeSorter<>(data -> {
+			calls.incrementAndGet();
+			return data;
+		}, Comparator.naturalOrder());
+		sorter.setPool(null);
+		sorter.sort(root);
+
+		// 자식이 둘 이상인 노드의 자식만 키를 계산하므로 루트를 제외한 노드 수 이하
+		assertTrue(calls.get() <= root.size() - 1);
+	}
+
+	@Test
+	void testParallel() {
+
+		Tree<String> expected = newRandomTree(2);
+		expected.sortRecursive(Comparator.naturalOrder());
+
+		Tree<String> sequential = newRandomTree(2);
+		TreeSorter<String, String> sorter = new TreeSorter<>(Function.<String> identity(),
+				Comparator.<String> naturalOrder());
+		sorter.setPool(null);
+		sorter.sort(sequential);
+
+		Tree<String> parallel = newRandomTree(2);
+		sorter.setPool(this.pool);
+		sorter.sort(parallel);
+
+		// 작은 단위로 나누어도 결과는 같다.
+		Tree<String> split = newRandomTree(2);
+		sorter.setSequentialThreshold(1);
+		sorter.sort(split);
+
+		assertEquals(expected.toList(), sequential.toList());
+		assertEquals(expected.toList(), parallel.toList());
+		assertEquals(expected.toList(), split.toList());
+	}
+
+	@Test
+	void testSequentialThreshold() {
+
+		TreeSorter<String, String> sorter = new TreeSorter<>(Function.<String> identity(),
+				Comparator.<String> naturalOrder());
+		assertThrows(LogicError.class, () -> sorter.setSequentialThreshold(0));
+	}
+}